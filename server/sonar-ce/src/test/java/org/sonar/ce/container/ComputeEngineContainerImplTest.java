@@ -90,11 +90,11 @@ public class ComputeEngineContainerImplTest {
         CONTAINER_ITSELF
           + 75 // level 4
           + 4 // content of CeConfigurationModule
-          + 5 // content of CeQueueModule
-          + 3 // content of CeHttpModule
+          + 7 // content of CeQueueModule
+          + 5 // content of CeHttpModule
           + 3 // content of CeTaskCommonsModule
           + 4 // content of ProjectAnalysisTaskModule
-          + 4 // content of CeTaskProcessorModule
+          + 5 // content of CeTaskProcessorModule
     );
     assertThat(picoContainer.getParent().getComponentAdapters()).hasSize(
       CONTAINER_ITSELF
@@ -108,7 +108,7 @@ public class ComputeEngineContainerImplTest {
     assertThat(picoContainer.getParent().getParent().getParent().getComponentAdapters()).hasSize(
       COMPONENTS_IN_LEVEL_1_AT_CONSTRUCTION
         + 22 // level 1
-        + 48 // content of DaoModule
+        + 49 // content of DaoModule
         + 3 // content of EsSearchModule
         + 57 // content of CorePropertyDefinitions
         + 1 // content of CePropertyDefinitions
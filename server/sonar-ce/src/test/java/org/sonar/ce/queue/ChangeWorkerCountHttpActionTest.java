@@ -0,0 +1,98 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.queue;
+
+import com.google.common.collect.ImmutableMap;
+import fi.iki.elonen.NanoHTTPD;
+import java.io.IOException;
+import org.apache.commons.io.IOUtils;
+import org.junit.Test;
+import org.sonar.ce.httpd.HttpAction;
+import org.sonar.server.computation.taskprocessor.CeProcessingScheduler;
+
+import static fi.iki.elonen.NanoHTTPD.Method.GET;
+import static fi.iki.elonen.NanoHTTPD.Method.POST;
+import static fi.iki.elonen.NanoHTTPD.Response.Status.BAD_REQUEST;
+import static fi.iki.elonen.NanoHTTPD.Response.Status.METHOD_NOT_ALLOWED;
+import static fi.iki.elonen.NanoHTTPD.Response.Status.OK;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.sonar.ce.httpd.CeHttpUtils.createHttpSession;
+
+public class ChangeWorkerCountHttpActionTest {
+  private CeProcessingScheduler scheduler = mock(CeProcessingScheduler.class);
+  private ChangeWorkerCountHttpAction underTest = new ChangeWorkerCountHttpAction(scheduler);
+
+  @Test
+  public void register_to_path_changeWorkerCount() {
+    HttpAction.ActionRegistry actionRegistry = mock(HttpAction.ActionRegistry.class);
+
+    underTest.register(actionRegistry);
+
+    verify(actionRegistry).register("changeWorkerCount", underTest);
+  }
+
+  @Test
+  public void serves_METHOD_NOT_ALLOWED_error_when_method_is_not_POST() {
+    NanoHTTPD.Response response = underTest.serve(createHttpSession(GET));
+
+    assertThat(response.getStatus()).isEqualTo(METHOD_NOT_ALLOWED);
+    verifyZeroInteractions(scheduler);
+  }
+
+  @Test
+  public void changes_worker_count_of_scheduler() {
+    NanoHTTPD.Response response = underTest.serve(createHttpSession(POST, ImmutableMap.of("count", "4")));
+
+    assertThat(response.getStatus()).isEqualTo(OK);
+    verify(scheduler).setWorkerCount(4);
+  }
+
+  @Test
+  public void serves_BAD_REQUEST_error_when_count_is_missing() throws IOException {
+    NanoHTTPD.Response response = underTest.serve(createHttpSession(POST));
+
+    assertThat(response.getStatus()).isEqualTo(BAD_REQUEST);
+    assertThat(IOUtils.toString(response.getData())).isEqualTo("Parameter 'count' is missing");
+    verifyZeroInteractions(scheduler);
+  }
+
+  @Test
+  public void serves_BAD_REQUEST_error_when_count_is_not_a_number() throws IOException {
+    NanoHTTPD.Response response = underTest.serve(createHttpSession(POST, ImmutableMap.of("count", "foo")));
+
+    assertThat(response.getStatus()).isEqualTo(BAD_REQUEST);
+    assertThat(IOUtils.toString(response.getData())).isEqualTo("Value 'foo' for parameter 'count' is invalid");
+    verifyZeroInteractions(scheduler);
+  }
+
+  @Test
+  public void serves_BAD_REQUEST_error_when_count_is_rejected_by_scheduler() throws IOException {
+    doThrow(new IllegalArgumentException("Worker count must be strictly greater than 0: 0")).when(scheduler).setWorkerCount(0);
+
+    NanoHTTPD.Response response = underTest.serve(createHttpSession(POST, ImmutableMap.of("count", "0")));
+
+    assertThat(response.getStatus()).isEqualTo(BAD_REQUEST);
+    assertThat(IOUtils.toString(response.getData())).isEqualTo("Value '0' for parameter 'count' is invalid");
+  }
+}
@@ -0,0 +1,57 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db;
+
+import java.sql.SQLException;
+import java.util.Properties;
+import javax.sql.DataSource;
+import org.sonar.db.dialect.Dialect;
+import org.sonar.db.profiling.ConnectionPoolStatistics;
+
+/**
+ * Pool of the JDBC connections of {@link DefaultDatabase}. The pool records its saturation
+ * in {@link ConnectionPoolStatistics}. The default implementation is {@link DbcpConnectionPool}.
+ *
+ * @since 6.4
+ */
+public interface ConnectionPool {
+
+  /**
+   * Data source of the pooled connections. SQL logging can be enabled only if it's a
+   * {@link org.sonar.db.profiling.ProfiledDataSource}.
+   */
+  DataSource getDataSource();
+
+  ConnectionPoolStatistics getStatistics();
+
+  void close() throws SQLException;
+
+  /**
+   * Creates the pool when {@link DefaultDatabase} starts. Adding an implementation to the container
+   * replaces the default pool.
+   */
+  @FunctionalInterface
+  interface Factory {
+    /**
+     * @param properties the JDBC properties, without the prefix "sonar.jdbc."
+     */
+    ConnectionPool create(Properties properties, Dialect dialect) throws Exception;
+  }
+}
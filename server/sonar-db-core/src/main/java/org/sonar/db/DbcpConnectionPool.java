@@ -0,0 +1,65 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db;
+
+import java.sql.SQLException;
+import java.util.Properties;
+import org.apache.commons.dbcp.BasicDataSource;
+import org.apache.commons.dbcp.BasicDataSourceFactory;
+import org.sonar.db.dialect.Dialect;
+import org.sonar.db.profiling.ConnectionPoolStatistics;
+import org.sonar.db.profiling.NullConnectionInterceptor;
+import org.sonar.db.profiling.ProfiledDataSource;
+
+/**
+ * Default {@link ConnectionPool}, based on commons-dbcp and configured by its properties,
+ * for example "maxActive" or "maxWait".
+ */
+public class DbcpConnectionPool implements ConnectionPool {
+
+  private final ConnectionPoolStatistics statistics = new ConnectionPoolStatistics();
+  private final ProfiledDataSource dataSource;
+
+  DbcpConnectionPool(BasicDataSource basicDataSource) {
+    this.dataSource = new ProfiledDataSource(basicDataSource, NullConnectionInterceptor.INSTANCE, statistics);
+  }
+
+  public static DbcpConnectionPool create(Properties properties, Dialect dialect) throws Exception {
+    BasicDataSource basicDataSource = (BasicDataSource) BasicDataSourceFactory.createDataSource(properties);
+    basicDataSource.setConnectionInitSqls(dialect.getConnectionInitStatements());
+    basicDataSource.setValidationQuery(dialect.getValidationQuery());
+    return new DbcpConnectionPool(basicDataSource);
+  }
+
+  @Override
+  public ProfiledDataSource getDataSource() {
+    return dataSource;
+  }
+
+  @Override
+  public ConnectionPoolStatistics getStatistics() {
+    return statistics;
+  }
+
+  @Override
+  public void close() throws SQLException {
+    dataSource.close();
+  }
+}
@@ -27,8 +27,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.Properties;
 import javax.sql.DataSource;
-import org.apache.commons.dbcp.BasicDataSource;
-import org.apache.commons.dbcp.BasicDataSourceFactory;
 import org.apache.commons.dbutils.DbUtils;
 import org.apache.commons.lang.StringUtils;
 import org.sonar.api.config.Settings;
@@ -58,13 +56,20 @@ public class DefaultDatabase implements Database {
 
   private final LogbackHelper logbackHelper;
   private final Settings settings;
-  private ProfiledDataSource datasource;
+  private final ConnectionPool.Factory connectionPoolFactory;
+  private ConnectionPool connectionPool;
+  private DataSource datasource;
   private Dialect dialect;
   private Properties properties;
 
   public DefaultDatabase(LogbackHelper logbackHelper, Settings settings) {
+    this(logbackHelper, settings, DbcpConnectionPool::create);
+  }
+
+  public DefaultDatabase(LogbackHelper logbackHelper, Settings settings, ConnectionPool.Factory connectionPoolFactory) {
     this.logbackHelper = logbackHelper;
     this.settings = settings;
+    this.connectionPoolFactory = connectionPoolFactory;
   }
 
   @Override
@@ -93,11 +98,11 @@ public class DefaultDatabase implements Database {
   private void initDataSource() throws Exception {
     // but it's correctly caught by start()
     LOG.info("Create JDBC data source for {}", properties.getProperty(DatabaseProperties.PROP_URL, DEFAULT_URL));
-    BasicDataSource basicDataSource = (BasicDataSource) BasicDataSourceFactory.createDataSource(extractCommonsDbcpProperties(properties));
-    datasource = new ProfiledDataSource(basicDataSource, NullConnectionInterceptor.INSTANCE);
-    datasource.setConnectionInitSqls(dialect.getConnectionInitStatements());
-    datasource.setValidationQuery(dialect.getValidationQuery());
-    enableSqlLogging(datasource, logbackHelper.getLoggerLevel("sql") == Level.TRACE);
+    connectionPool = connectionPoolFactory.create(extractCommonsDbcpProperties(properties), dialect);
+    datasource = connectionPool.getDataSource();
+    if (logbackHelper.getLoggerLevel("sql") == Level.TRACE) {
+      enableSqlLogging(true);
+    }
   }
 
   private void checkConnection() {
@@ -113,9 +118,9 @@ public class DefaultDatabase implements Database {
 
   @Override
   public void stop() {
-    if (datasource != null) {
+    if (connectionPool != null) {
       try {
-        datasource.close();
+        connectionPool.close();
       } catch (SQLException e) {
         throw new IllegalStateException("Fail to stop JDBC connection pool", e);
       }
@@ -132,17 +137,24 @@ public class DefaultDatabase implements Database {
     return datasource;
   }
 
+  /**
+   * Returns the pool of connections. Null as long as start() is not executed.
+   */
+  public final ConnectionPool getConnectionPool() {
+    return connectionPool;
+  }
+
   public final Properties getProperties() {
     return properties;
   }
 
   @Override
   public void enableSqlLogging(boolean enable) {
-    enableSqlLogging(datasource, enable);
-  }
-
-  private static void enableSqlLogging(ProfiledDataSource ds, boolean enable) {
-    ds.setConnectionInterceptor(enable ? ProfiledConnectionInterceptor.INSTANCE : NullConnectionInterceptor.INSTANCE);
+    if (datasource instanceof ProfiledDataSource) {
+      ((ProfiledDataSource) datasource).setConnectionInterceptor(enable ? ProfiledConnectionInterceptor.INSTANCE : NullConnectionInterceptor.INSTANCE);
+    } else if (enable) {
+      LOG.warn("SQL logging is not supported by connection pool {}", connectionPool.getClass().getName());
+    }
   }
 
   /**
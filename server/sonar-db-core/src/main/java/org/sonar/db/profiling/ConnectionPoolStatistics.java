@@ -0,0 +1,84 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.profiling;
+
+import java.sql.SQLException;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Saturation metrics of the JDBC connection pool: time spent waiting for a connection, number of
+ * acquisitions which failed because of timeout, and duration during which connections are
+ * borrowed from the pool. It is fed by the {@link org.sonar.db.ConnectionPool} which owns it.
+ */
+public class ConnectionPoolStatistics {
+
+  private final LatencyHistogram acquisitionWaitMicros = new LatencyHistogram();
+  private final LatencyHistogram lifetimeMillis = new LatencyHistogram();
+  private final LongAdder timeouts = new LongAdder();
+  private final LongAdder failures = new LongAdder();
+
+  public void onAcquired(long waitNanos) {
+    acquisitionWaitMicros.record(TimeUnit.NANOSECONDS.toMicros(waitNanos));
+  }
+
+  public void onFailure(long waitNanos, SQLException e) {
+    acquisitionWaitMicros.record(TimeUnit.NANOSECONDS.toMicros(waitNanos));
+    // commons-pool raises NoSuchElementException when maxWait is reached
+    if (e.getCause() instanceof NoSuchElementException) {
+      timeouts.increment();
+    } else {
+      failures.increment();
+    }
+  }
+
+  public void onReleased(long lifetimeNanos) {
+    lifetimeMillis.record(TimeUnit.NANOSECONDS.toMillis(lifetimeNanos));
+  }
+
+  public long getAcquisitions() {
+    return acquisitionWaitMicros.getCount();
+  }
+
+  public long getAcquisitionWaitMicrosAtPercentile(double percentile) {
+    return acquisitionWaitMicros.getValueAtPercentile(percentile);
+  }
+
+  public long getAcquisitionWaitMaxMicros() {
+    return acquisitionWaitMicros.getMax();
+  }
+
+  public long getTimeouts() {
+    return timeouts.sum();
+  }
+
+  public long getFailures() {
+    return failures.sum();
+  }
+
+  public long getLifetimeMillisAtPercentile(double percentile) {
+    return lifetimeMillis.getValueAtPercentile(percentile);
+  }
+
+  public long getLifetimeMaxMillis() {
+    return lifetimeMillis.getMax();
+  }
+}
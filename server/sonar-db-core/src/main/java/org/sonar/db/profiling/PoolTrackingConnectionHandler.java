@@ -0,0 +1,56 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.profiling;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.sql.Connection;
+
+/**
+ * Reports to {@link ConnectionPoolStatistics} the duration during which a connection borrowed
+ * from the pool is held, when it's closed. Exceptions raised by the connection are rethrown unchanged.
+ */
+class PoolTrackingConnectionHandler implements InvocationHandler {
+
+  private final Connection connection;
+  private final ConnectionPoolStatistics statistics;
+  private final long acquiredAt;
+  private boolean released = false;
+
+  PoolTrackingConnectionHandler(Connection connection, ConnectionPoolStatistics statistics) {
+    this.connection = connection;
+    this.statistics = statistics;
+    this.acquiredAt = System.nanoTime();
+  }
+
+  @Override
+  public Object invoke(Object target, Method method, Object[] args) throws Throwable {
+    if (!released && "close".equals(method.getName())) {
+      released = true;
+      statistics.onReleased(System.nanoTime() - acquiredAt);
+    }
+    try {
+      return method.invoke(connection, args);
+    } catch (InvocationTargetException e) {
+      throw e.getCause();
+    }
+  }
+}
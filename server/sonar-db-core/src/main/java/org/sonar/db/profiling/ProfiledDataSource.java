@@ -20,6 +20,7 @@
 package org.sonar.db.profiling;
 
 import java.io.PrintWriter;
+import java.lang.reflect.Proxy;
 import java.sql.Connection;
 import java.sql.SQLException;
 import java.sql.SQLFeatureNotSupportedException;
@@ -33,17 +34,27 @@ public class ProfiledDataSource extends BasicDataSource {
   static final Logger SQL_LOGGER = Loggers.get("sql");
 
   private final BasicDataSource delegate;
+  private final ConnectionPoolStatistics poolStatistics;
   private ConnectionInterceptor connectionInterceptor;
 
   public ProfiledDataSource(BasicDataSource delegate, ConnectionInterceptor connectionInterceptor) {
+    this(delegate, connectionInterceptor, new ConnectionPoolStatistics());
+  }
+
+  public ProfiledDataSource(BasicDataSource delegate, ConnectionInterceptor connectionInterceptor, ConnectionPoolStatistics poolStatistics) {
     this.delegate = delegate;
     this.connectionInterceptor = connectionInterceptor;
+    this.poolStatistics = poolStatistics;
   }
 
   public BasicDataSource getDelegate() {
     return delegate;
   }
 
+  public ConnectionPoolStatistics getPoolStatistics() {
+    return poolStatistics;
+  }
+
   public synchronized void setConnectionInterceptor(ConnectionInterceptor ci) {
     this.connectionInterceptor = ci;
   }
@@ -320,12 +331,33 @@ public class ProfiledDataSource extends BasicDataSource {
 
   @Override
   public Connection getConnection() throws SQLException {
-    return connectionInterceptor.getConnection(delegate);
+    long start = System.nanoTime();
+    try {
+      Connection connection = connectionInterceptor.getConnection(delegate);
+      poolStatistics.onAcquired(System.nanoTime() - start);
+      return trackPoolUsage(connection);
+    } catch (SQLException e) {
+      poolStatistics.onFailure(System.nanoTime() - start, e);
+      throw e;
+    }
   }
 
   @Override
   public Connection getConnection(String login, String password) throws SQLException {
-    return connectionInterceptor.getConnection(this, login, password);
+    long start = System.nanoTime();
+    try {
+      Connection connection = connectionInterceptor.getConnection(this, login, password);
+      poolStatistics.onAcquired(System.nanoTime() - start);
+      return trackPoolUsage(connection);
+    } catch (SQLException e) {
+      poolStatistics.onFailure(System.nanoTime() - start, e);
+      throw e;
+    }
+  }
+
+  private Connection trackPoolUsage(Connection connection) {
+    return (Connection) Proxy.newProxyInstance(ProfiledDataSource.class.getClassLoader(), new Class[] {Connection.class},
+      new PoolTrackingConnectionHandler(connection, poolStatistics));
   }
 
   @Override
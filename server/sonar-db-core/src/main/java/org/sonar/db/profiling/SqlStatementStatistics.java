@@ -0,0 +1,158 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.profiling;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+import static java.lang.String.format;
+
+/**
+ * Thread-safe statistics of the execution of SQL statements, grouped by statement identifier
+ * (for instance the id of the MyBatis mapped statement). Durations are recorded in microseconds.
+ */
+public class SqlStatementStatistics {
+
+  private final Map<String, Counters> countersByStatement = new ConcurrentHashMap<>();
+
+  public void record(String statementId, long durationNanos, long rows, boolean failed) {
+    Counters counters = countersByStatement.computeIfAbsent(statementId, k -> new Counters());
+    counters.latency.record(TimeUnit.NANOSECONDS.toMicros(durationNanos));
+    if (rows > 0) {
+      counters.rows.add(rows);
+    }
+    if (failed) {
+      counters.errors.increment();
+    }
+  }
+
+  public int size() {
+    return countersByStatement.size();
+  }
+
+  /**
+   * The statements which cumulate the highest execution time, sorted by descending time.
+   */
+  public List<StatementStatistics> getTopByTotalTime(int limit) {
+    return countersByStatement.entrySet().stream()
+      .map(e -> e.getValue().toStatistics(e.getKey()))
+      .sorted(Comparator.comparingLong(StatementStatistics::getTotalMicros).reversed())
+      .limit(limit)
+      .collect(Collectors.toList());
+  }
+
+  public void reset() {
+    countersByStatement.clear();
+  }
+
+  private static class Counters {
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    private StatementStatistics toStatistics(String statementId) {
+      return new StatementStatistics(statementId, latency.getCount(), errors.sum(), rows.sum(), latency.getTotal(),
+        latency.getValueAtPercentile(50.0), latency.getValueAtPercentile(95.0), latency.getValueAtPercentile(99.0), latency.getMax());
+    }
+  }
+
+  public static class StatementStatistics {
+    private final String statementId;
+    private final long calls;
+    private final long errors;
+    private final long rows;
+    private final long totalMicros;
+    private final long p50Micros;
+    private final long p95Micros;
+    private final long p99Micros;
+    private final long maxMicros;
+
+    StatementStatistics(String statementId, long calls, long errors, long rows, long totalMicros, long p50Micros, long p95Micros, long p99Micros,
+      long maxMicros) {
+      this.statementId = statementId;
+      this.calls = calls;
+      this.errors = errors;
+      this.rows = rows;
+      this.totalMicros = totalMicros;
+      this.p50Micros = p50Micros;
+      this.p95Micros = p95Micros;
+      this.p99Micros = p99Micros;
+      this.maxMicros = maxMicros;
+    }
+
+    public String getStatementId() {
+      return statementId;
+    }
+
+    public long getCalls() {
+      return calls;
+    }
+
+    public long getErrors() {
+      return errors;
+    }
+
+    public long getRows() {
+      return rows;
+    }
+
+    public long getTotalMicros() {
+      return totalMicros;
+    }
+
+    public long getP50Micros() {
+      return p50Micros;
+    }
+
+    public long getP95Micros() {
+      return p95Micros;
+    }
+
+    public long getP99Micros() {
+      return p99Micros;
+    }
+
+    public long getMaxMicros() {
+      return maxMicros;
+    }
+
+    /**
+     * Human-readable summary, used by monitoring
+     */
+    public String summary() {
+      return format("calls=%d, errors=%d, rows=%d, total=%dms, p50=%dms, p95=%dms, p99=%dms, max=%dms",
+        calls, errors, rows, toMillis(totalMicros), toMillis(p50Micros), toMillis(p95Micros), toMillis(p99Micros), toMillis(maxMicros));
+    }
+
+    @Override
+    public String toString() {
+      return statementId + ": " + summary();
+    }
+
+    private static long toMillis(long micros) {
+      return TimeUnit.MICROSECONDS.toMillis(micros);
+    }
+  }
+}
@@ -0,0 +1,89 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.profiling;
+
+import java.util.Collection;
+import java.util.Properties;
+import org.apache.ibatis.executor.Executor;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.plugin.Interceptor;
+import org.apache.ibatis.plugin.Intercepts;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.plugin.Plugin;
+import org.apache.ibatis.plugin.Signature;
+import org.apache.ibatis.session.ResultHandler;
+import org.apache.ibatis.session.RowBounds;
+
+/**
+ * MyBatis plugin recording, for each mapped statement, the number of calls, the number of rows
+ * and the latency into {@link SqlStatementStatistics}. Contrary to {@link ProfiledDataSource}, it
+ * is cheap enough to be always enabled.
+ * <p>
+ * Rows are the size of the list returned by selects (so zero when a {@link ResultHandler} is used)
+ * and the number of rows affected by inserts, updates and deletes (unknown in batch mode).
+ */
+@Intercepts({
+  @Signature(type = Executor.class, method = "update", args = {MappedStatement.class, Object.class}),
+  @Signature(type = Executor.class, method = "query", args = {MappedStatement.class, Object.class, RowBounds.class, ResultHandler.class})
+})
+public class SqlStatementStatisticsInterceptor implements Interceptor {
+
+  private final SqlStatementStatistics statistics;
+
+  public SqlStatementStatisticsInterceptor(SqlStatementStatistics statistics) {
+    this.statistics = statistics;
+  }
+
+  @Override
+  public Object intercept(Invocation invocation) throws Throwable {
+    MappedStatement statement = (MappedStatement) invocation.getArgs()[0];
+    long start = System.nanoTime();
+    boolean failed = true;
+    Object result = null;
+    try {
+      result = invocation.proceed();
+      failed = false;
+      return result;
+    } finally {
+      statistics.record(statement.getId(), System.nanoTime() - start, countRows(result), failed);
+    }
+  }
+
+  private static long countRows(Object result) {
+    if (result instanceof Collection) {
+      return ((Collection) result).size();
+    }
+    if (result instanceof Integer) {
+      // batch executor returns a negative constant
+      return Math.max(0, (Integer) result);
+    }
+    return 0L;
+  }
+
+  @Override
+  public Object plugin(Object target) {
+    return Plugin.wrap(target, this);
+  }
+
+  @Override
+  public void setProperties(Properties properties) {
+    // no properties
+  }
+}
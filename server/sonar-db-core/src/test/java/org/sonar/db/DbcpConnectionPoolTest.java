@@ -0,0 +1,55 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db;
+
+import java.sql.Connection;
+import java.util.Properties;
+import org.junit.Test;
+import org.sonar.db.dialect.H2;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DbcpConnectionPoolTest {
+
+  @Test
+  public void create_pool_from_properties() throws Exception {
+    Properties properties = new Properties();
+    properties.setProperty("url", "jdbc:h2:mem:dbcp_pool");
+    properties.setProperty("driverClassName", "org.h2.Driver");
+    properties.setProperty("username", "sonar");
+    properties.setProperty("password", "sonar");
+    properties.setProperty("maxActive", "2");
+
+    DbcpConnectionPool underTest = DbcpConnectionPool.create(properties, new H2());
+    try {
+      assertThat(underTest.getDataSource().getMaxActive()).isEqualTo(2);
+      assertThat(underTest.getDataSource().getValidationQuery()).isEqualTo(new H2().getValidationQuery());
+
+      try (Connection connection = underTest.getDataSource().getConnection()) {
+        assertThat(connection.isValid(1)).isTrue();
+      }
+
+      assertThat(underTest.getStatistics().getAcquisitions()).isEqualTo(1L);
+      assertThat(underTest.getStatistics().getTimeouts()).isZero();
+    } finally {
+      underTest.close();
+    }
+  }
+}
@@ -19,7 +19,9 @@
  */
 package org.sonar.db;
 
+import java.sql.Connection;
 import java.util.Properties;
+import javax.sql.DataSource;
 import org.apache.commons.dbcp.BasicDataSource;
 import org.junit.Test;
 import org.sonar.api.config.Settings;
@@ -29,6 +31,8 @@ import org.sonar.process.logging.LogbackHelper;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
 public class DefaultDatabaseTest {
   private LogbackHelper logbackHelper = mock(LogbackHelper.class);
@@ -90,6 +94,31 @@ public class DefaultDatabaseTest {
 
     assertThat(db.getDialect().getId()).isEqualTo("h2");
     assertThat(((BasicDataSource) db.getDataSource()).getMaxActive()).isEqualTo(1);
+    assertThat(db.getConnectionPool()).isInstanceOf(DbcpConnectionPool.class);
+  }
+
+  @Test
+  public void shouldUseConnectionPoolFactory() throws Exception {
+    Settings settings = new MapSettings();
+    settings.setProperty("sonar.jdbc.url", "jdbc:h2:mem:sonar");
+    settings.setProperty("sonar.jdbc.maxActive", "1");
+    DataSource dataSource = mock(DataSource.class);
+    when(dataSource.getConnection()).thenReturn(mock(Connection.class));
+    ConnectionPool pool = mock(ConnectionPool.class);
+    when(pool.getDataSource()).thenReturn(dataSource);
+    Properties[] poolProperties = new Properties[1];
+
+    DefaultDatabase db = new DefaultDatabase(logbackHelper, settings, (properties, dialect) -> {
+      poolProperties[0] = properties;
+      return pool;
+    });
+    db.start();
+    db.stop();
+
+    assertThat(poolProperties[0].getProperty("maxActive")).isEqualTo("1");
+    assertThat(db.getConnectionPool()).isSameAs(pool);
+    assertThat(db.getDataSource()).isSameAs(dataSource);
+    verify(pool).close();
   }
 
   @Test
@@ -0,0 +1,91 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.profiling;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+public class LatencyHistogramTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private LatencyHistogram underTest = new LatencyHistogram();
+
+  @Test
+  public void empty_histogram() {
+    assertThat(underTest.getCount()).isZero();
+    assertThat(underTest.getTotal()).isZero();
+    assertThat(underTest.getMax()).isZero();
+    assertThat(underTest.getValueAtPercentile(99.0)).isZero();
+  }
+
+  @Test
+  public void compute_percentiles_with_bounded_error() {
+    for (long i = 1; i <= 10_000; i++) {
+      underTest.record(i);
+    }
+
+    assertThat(underTest.getCount()).isEqualTo(10_000L);
+    assertThat(underTest.getTotal()).isEqualTo(50_005_000L);
+    assertThat(underTest.getMax()).isEqualTo(10_000L);
+    assertThat(underTest.getValueAtPercentile(50.0)).isCloseTo(5_000L, within(625L));
+    assertThat(underTest.getValueAtPercentile(99.0)).isCloseTo(9_900L, within(1_238L));
+    assertThat(underTest.getValueAtPercentile(100.0)).isEqualTo(10_000L);
+  }
+
+  @Test
+  public void small_values_are_exact() {
+    underTest.record(3);
+    underTest.record(5);
+
+    assertThat(underTest.getValueAtPercentile(50.0)).isEqualTo(3L);
+    assertThat(underTest.getValueAtPercentile(100.0)).isEqualTo(5L);
+  }
+
+  @Test
+  public void negative_values_are_recorded_as_zero() {
+    underTest.record(-10);
+
+    assertThat(underTest.getCount()).isEqualTo(1L);
+    assertThat(underTest.getMax()).isZero();
+  }
+
+  @Test
+  public void bucket_of_value_contains_value() {
+    for (long value : new long[] {0L, 7L, 8L, 9L, 15L, 16L, 1_000L, 123_456_789L, Long.MAX_VALUE}) {
+      long highest = LatencyHistogram.highestValueOf(LatencyHistogram.indexOf(value));
+      assertThat(highest).isGreaterThanOrEqualTo(value);
+      assertThat(highest - value).isLessThanOrEqualTo(value / 8);
+    }
+  }
+
+  @Test
+  public void fail_if_percentile_is_out_of_range() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Percentile must be in range ]0, 100]: 0.0");
+
+    underTest.getValueAtPercentile(0.0);
+  }
+}
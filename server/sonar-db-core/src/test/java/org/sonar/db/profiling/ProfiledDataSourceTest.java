@@ -25,16 +25,22 @@ import java.lang.reflect.Modifier;
 import java.sql.Connection;
 import java.sql.Date;
 import java.sql.PreparedStatement;
+import java.sql.SQLException;
 import java.sql.Statement;
 import java.sql.Timestamp;
+import java.util.NoSuchElementException;
 import org.apache.commons.dbcp.BasicDataSource;
+import org.apache.commons.dbcp.SQLNestedException;
 import org.junit.Rule;
 import org.junit.Test;
 import org.sonar.api.utils.log.LogTester;
 import org.sonar.api.utils.log.LoggerLevel;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 public class ProfiledDataSourceTest {
@@ -132,6 +138,67 @@ public class ProfiledDataSourceTest {
       .doesNotContain("params=");
   }
 
+  @Test
+  public void record_pool_statistics() throws Exception {
+    Connection connection = mock(Connection.class);
+    when(originDataSource.getConnection()).thenReturn(connection);
+    ProfiledDataSource underTest = new ProfiledDataSource(originDataSource, NullConnectionInterceptor.INSTANCE);
+
+    Connection borrowed = underTest.getConnection();
+    borrowed.close();
+    // closing twice is ignored
+    borrowed.close();
+
+    verify(connection, times(2)).close();
+    ConnectionPoolStatistics statistics = underTest.getPoolStatistics();
+    assertThat(statistics.getAcquisitions()).isEqualTo(1L);
+    assertThat(statistics.getTimeouts()).isZero();
+    assertThat(statistics.getFailures()).isZero();
+    assertThat(statistics.getLifetimeMillisAtPercentile(100.0)).isGreaterThanOrEqualTo(0L);
+  }
+
+  @Test
+  public void exceptions_of_borrowed_connections_are_not_wrapped() throws Exception {
+    Connection connection = mock(Connection.class);
+    when(originDataSource.getConnection()).thenReturn(connection);
+    SQLException sqlException = new SQLException("Connection reset");
+    IllegalStateException runtimeException = new IllegalStateException("Unexpected");
+    when(connection.createStatement()).thenThrow(sqlException);
+    when(connection.isReadOnly()).thenThrow(runtimeException);
+    ProfiledDataSource underTest = new ProfiledDataSource(originDataSource, NullConnectionInterceptor.INSTANCE);
+    Connection borrowed = underTest.getConnection();
+
+    try {
+      borrowed.createStatement();
+      fail("A SQLException should have been raised");
+    } catch (SQLException e) {
+      assertThat((Throwable) e).isSameAs(sqlException);
+    }
+    try {
+      borrowed.isReadOnly();
+      fail("An IllegalStateException should have been raised");
+    } catch (IllegalStateException e) {
+      assertThat(e).isSameAs(runtimeException);
+    }
+  }
+
+  @Test
+  public void record_pool_timeouts() throws Exception {
+    when(originDataSource.getConnection()).thenThrow(new SQLNestedException("Cannot get a connection, pool error Timeout waiting for idle object",
+      new NoSuchElementException("Timeout waiting for idle object")));
+    ProfiledDataSource underTest = new ProfiledDataSource(originDataSource, NullConnectionInterceptor.INSTANCE);
+
+    try {
+      underTest.getConnection();
+      fail("A SQLException should have been raised");
+    } catch (SQLException e) {
+      assertThat((Throwable) e).hasMessageContaining("Timeout waiting for idle object");
+    }
+
+    assertThat(underTest.getPoolStatistics().getAcquisitions()).isEqualTo(1L);
+    assertThat(underTest.getPoolStatistics().getTimeouts()).isEqualTo(1L);
+  }
+
   @Test
   public void delegate_to_underlying_data_source() throws Exception {
     ProfiledDataSource proxy = new ProfiledDataSource(originDataSource, ProfiledConnectionInterceptor.INSTANCE);
@@ -0,0 +1,87 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.profiling;
+
+import java.util.Arrays;
+import org.apache.ibatis.mapping.MappedStatement;
+import org.apache.ibatis.mapping.SqlCommandType;
+import org.apache.ibatis.mapping.SqlSource;
+import org.apache.ibatis.plugin.Invocation;
+import org.apache.ibatis.session.Configuration;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class SqlStatementStatisticsInterceptorTest {
+
+  private SqlStatementStatistics statistics = new SqlStatementStatistics();
+  private SqlStatementStatisticsInterceptor underTest = new SqlStatementStatisticsInterceptor(statistics);
+
+  @Test
+  public void record_rows_of_select() throws Throwable {
+    Invocation invocation = mockInvocation("org.sonar.FooMapper.selectAll");
+    when(invocation.proceed()).thenReturn(Arrays.asList("a", "b"));
+
+    assertThat(underTest.intercept(invocation)).isEqualTo(Arrays.asList("a", "b"));
+
+    SqlStatementStatistics.StatementStatistics recorded = statistics.getTopByTotalTime(1).get(0);
+    assertThat(recorded.getStatementId()).isEqualTo("org.sonar.FooMapper.selectAll");
+    assertThat(recorded.getCalls()).isEqualTo(1L);
+    assertThat(recorded.getRows()).isEqualTo(2L);
+    assertThat(recorded.getErrors()).isZero();
+  }
+
+  @Test
+  public void record_rows_of_update() throws Throwable {
+    Invocation invocation = mockInvocation("org.sonar.FooMapper.update");
+    when(invocation.proceed()).thenReturn(3);
+
+    underTest.intercept(invocation);
+
+    assertThat(statistics.getTopByTotalTime(1).get(0).getRows()).isEqualTo(3L);
+  }
+
+  @Test
+  public void record_failures() throws Throwable {
+    Invocation invocation = mockInvocation("org.sonar.FooMapper.update");
+    when(invocation.proceed()).thenThrow(new IllegalStateException("BOOM"));
+
+    try {
+      underTest.intercept(invocation);
+      fail("An IllegalStateException should have been raised");
+    } catch (IllegalStateException e) {
+      assertThat(e).hasMessage("BOOM");
+    }
+
+    SqlStatementStatistics.StatementStatistics recorded = statistics.getTopByTotalTime(1).get(0);
+    assertThat(recorded.getCalls()).isEqualTo(1L);
+    assertThat(recorded.getErrors()).isEqualTo(1L);
+  }
+
+  private static Invocation mockInvocation(String statementId) {
+    MappedStatement statement = new MappedStatement.Builder(new Configuration(), statementId, mock(SqlSource.class), SqlCommandType.SELECT).build();
+    Invocation invocation = mock(Invocation.class);
+    when(invocation.getArgs()).thenReturn(new Object[] {statement, null});
+    return invocation;
+  }
+}
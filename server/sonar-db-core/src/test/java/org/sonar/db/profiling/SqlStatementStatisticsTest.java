@@ -0,0 +1,66 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.profiling;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SqlStatementStatisticsTest {
+
+  private SqlStatementStatistics underTest = new SqlStatementStatistics();
+
+  @Test
+  public void aggregate_executions_by_statement() {
+    underTest.record("foo", TimeUnit.MILLISECONDS.toNanos(10), 3, false);
+    underTest.record("foo", TimeUnit.MILLISECONDS.toNanos(20), 2, true);
+    underTest.record("bar", TimeUnit.MILLISECONDS.toNanos(100), 0, false);
+
+    assertThat(underTest.size()).isEqualTo(2);
+    List<SqlStatementStatistics.StatementStatistics> top = underTest.getTopByTotalTime(10);
+    assertThat(top).extracting(SqlStatementStatistics.StatementStatistics::getStatementId).containsExactly("bar", "foo");
+    SqlStatementStatistics.StatementStatistics foo = top.get(1);
+    assertThat(foo.getCalls()).isEqualTo(2L);
+    assertThat(foo.getErrors()).isEqualTo(1L);
+    assertThat(foo.getRows()).isEqualTo(5L);
+    assertThat(foo.getTotalMicros()).isEqualTo(30_000L);
+    assertThat(foo.getMaxMicros()).isEqualTo(20_000L);
+    assertThat(foo.toString()).startsWith("foo: calls=2, errors=1, rows=5, total=30ms");
+  }
+
+  @Test
+  public void limit_number_of_top_statements() {
+    underTest.record("foo", 10L, 0, false);
+    underTest.record("bar", 20L, 0, false);
+
+    assertThat(underTest.getTopByTotalTime(1)).extracting(SqlStatementStatistics.StatementStatistics::getStatementId).containsExactly("bar");
+  }
+
+  @Test
+  public void reset() {
+    underTest.record("foo", 10L, 0, false);
+
+    underTest.reset();
+
+    assertThat(underTest.size()).isZero();
+  }
+}
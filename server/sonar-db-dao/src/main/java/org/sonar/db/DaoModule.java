@@ -50,6 +50,7 @@ import org.sonar.db.permission.template.PermissionTemplateDao;
 import org.sonar.db.property.InternalPropertiesDao;
 import org.sonar.db.property.PropertiesDao;
 import org.sonar.db.purge.PurgeDao;
+import org.sonar.db.purge.PurgeExecutor;
 import org.sonar.db.qualitygate.ProjectQgateAssociationDao;
 import org.sonar.db.qualitygate.QualityGateConditionDao;
 import org.sonar.db.qualitygate.QualityGateDao;
@@ -125,6 +126,7 @@ public class DaoModule extends Module {
   @Override
   protected void configureModule() {
     add(classes.toArray());
+    add(PurgeExecutor.class);
   }
 
   public static List<Class<? extends Dao>> classes() {
@@ -79,6 +79,8 @@ import org.sonar.db.permission.template.PermissionTemplateDto;
 import org.sonar.db.permission.template.PermissionTemplateGroupDto;
 import org.sonar.db.permission.template.PermissionTemplateMapper;
 import org.sonar.db.permission.template.PermissionTemplateUserDto;
+import org.sonar.db.profiling.SqlStatementStatistics;
+import org.sonar.db.profiling.SqlStatementStatisticsInterceptor;
 import org.sonar.db.property.InternalPropertiesMapper;
 import org.sonar.db.property.InternalPropertyDto;
 import org.sonar.db.property.PropertiesMapper;
@@ -124,6 +126,7 @@ import org.sonar.db.webhook.WebhookDeliveryMapper;
 public class MyBatis implements Startable {
 
   private final Database database;
+  private final SqlStatementStatistics statementStatistics = new SqlStatementStatistics();
   private SqlSessionFactory sessionFactory;
 
   public MyBatis(Database database) {
@@ -237,6 +240,7 @@ public class MyBatis implements Startable {
       WebhookDeliveryMapper.class
     };
     confBuilder.loadMappers(mappers);
+    confBuilder.addInterceptor(new SqlStatementStatisticsInterceptor(statementStatistics));
 
     sessionFactory = new SqlSessionFactoryBuilder().build(confBuilder.build());
   }
@@ -251,6 +255,13 @@ public class MyBatis implements Startable {
     return sessionFactory;
   }
 
+  /**
+   * Statistics of the execution of mapped statements since startup
+   */
+  public SqlStatementStatistics getStatementStatistics() {
+    return statementStatistics;
+  }
+
   public DbSession openSession(boolean batch) {
     if (batch) {
       SqlSession session = sessionFactory.openSession(ExecutorType.BATCH);
@@ -119,7 +119,30 @@ public class CeQueueDao implements Dao {
     return tryToPeek(session, eligible, workerUuid);
   }
 
-  private Optional<CeQueueDto> tryToPeek(DbSession session, EligibleTaskDto eligible, String workerUuid) {
+  /**
+   * Pending tasks which can be processed, at most {@code limit}. Tasks of components which
+   * already have a task in progress are excluded. Only the oldest pending task of a component
+   * is returned, so that workers peeking concurrently compete for the same task of a component
+   * and can't start two tasks of the same component.
+   * Ordered by descending priority then by ascending date of submission.
+   */
+  public List<EligibleTaskDto> selectEligibleForPeek(DbSession session, int limit) {
+    return mapper(session).selectEligibleForPeek(new RowBounds(0, limit));
+  }
+
+  /**
+   * Uuids of the organizations of the tasks in progress, one per task. Tasks not related
+   * to a component are ignored.
+   */
+  public List<String> selectOrganizationUuidsOfInProgressTasks(DbSession session) {
+    return mapper(session).selectOrganizationUuidsOfInProgressTasks();
+  }
+
+  /**
+   * Changes the status of the specified task to {@link CeQueueDto.Status#IN_PROGRESS}, unless it has already
+   * been peeked by another worker. Session is committed if task is peeked.
+   */
+  public Optional<CeQueueDto> tryToPeek(DbSession session, EligibleTaskDto eligible, String workerUuid) {
     long now = system2.now();
     int touchedRows = mapper(session).updateIf(eligible.getUuid(),
       new UpddateIf.NewProperties(IN_PROGRESS, workerUuid, eligible.getExecutionCount() + 1, now, now),
@@ -37,6 +37,7 @@ public class CeQueueDto {
   private String submitterLogin;
   private String workerUuid;
   private int executionCount = 0;
+  private int priority = 0;
   private Long startedAt;
   private long createdAt;
   private long updatedAt;
@@ -112,6 +113,18 @@ public class CeQueueDto {
     return this;
   }
 
+  /**
+   * Tasks with the highest priority are processed first. Default is 0.
+   */
+  public int getPriority() {
+    return priority;
+  }
+
+  public CeQueueDto setPriority(int priority) {
+    this.priority = priority;
+    return this;
+  }
+
   @CheckForNull
   public Long getStartedAt() {
     return startedAt;
@@ -150,6 +163,7 @@ public class CeQueueDto {
       ", submitterLogin='" + submitterLogin + '\'' +
       ", workerUuid='" + workerUuid + '\'' +
       ", executionCount=" + executionCount +
+      ", priority=" + priority +
       ", startedAt=" + startedAt +
       ", createdAt=" + createdAt +
       ", updatedAt=" + updatedAt +
@@ -37,6 +37,8 @@ public interface CeQueueMapper {
 
   List<EligibleTaskDto> selectEligibleForPeek(RowBounds rowBounds);
 
+  List<String> selectOrganizationUuidsOfInProgressTasks();
+
   @CheckForNull
   CeQueueDto selectByUuid(@Param("uuid") String uuid);
 
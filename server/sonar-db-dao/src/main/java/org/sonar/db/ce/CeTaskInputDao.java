@@ -25,8 +25,10 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import org.apache.commons.io.IOUtils;
 import org.sonar.api.utils.System2;
 import org.sonar.db.Dao;
@@ -80,6 +82,39 @@ public class CeTaskInputDao implements Dao {
     }
   }
 
+  /**
+   * Inserts a task whose data is not stored in database but in an external storage,
+   * identified by {@code reference}. The session is not committed.
+   */
+  public void insertReference(DbSession dbSession, String taskUuid, String reference) {
+    dbSession.getMapper(CeTaskInputMapper.class).insertReference(taskUuid, reference, system.now());
+  }
+
+  public Optional<String> selectReference(DbSession dbSession, String taskUuid) {
+    return Optional.ofNullable(dbSession.getMapper(CeTaskInputMapper.class).selectReference(taskUuid));
+  }
+
+  public List<String> selectReferencesByUuids(DbSession dbSession, Collection<String> uuids) {
+    CeTaskInputMapper mapper = dbSession.getMapper(CeTaskInputMapper.class);
+    return DatabaseUtils.executeLargeInputs(uuids, mapper::selectReferencesByUuids);
+  }
+
+  /**
+   * Among {@code references}, the ones that are still used by at least one task
+   */
+  public Set<String> selectUsedReferences(DbSession dbSession, Collection<String> references) {
+    CeTaskInputMapper mapper = dbSession.getMapper(CeTaskInputMapper.class);
+    return new HashSet<>(DatabaseUtils.executeLargeInputs(references, mapper::selectUsedReferences));
+  }
+
+  /**
+   * References of all the tasks which data is in an external storage. Tasks sharing
+   * the same data have the same reference, which is returned only once.
+   */
+  public Set<String> selectAllReferences(DbSession dbSession) {
+    return new HashSet<>(dbSession.getMapper(CeTaskInputMapper.class).selectAllReferences());
+  }
+
   public List<String> selectUuidsNotInQueue(DbSession dbSession) {
     return dbSession.getMapper(CeTaskInputMapper.class).selectUuidsNotInQueue();
   }
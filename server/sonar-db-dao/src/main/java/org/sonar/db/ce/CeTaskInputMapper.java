@@ -20,10 +20,22 @@
 package org.sonar.db.ce;
 
 import java.util.List;
+import javax.annotation.CheckForNull;
 import org.apache.ibatis.annotations.Param;
 
 public interface CeTaskInputMapper {
 
+  void insertReference(@Param("taskUuid") String taskUuid, @Param("reference") String reference, @Param("now") long now);
+
+  @CheckForNull
+  String selectReference(@Param("taskUuid") String taskUuid);
+
+  List<String> selectReferencesByUuids(@Param("uuids") List<String> uuids);
+
+  List<String> selectUsedReferences(@Param("references") List<String> references);
+
+  List<String> selectAllReferences();
+
   void deleteByUuids(@Param("uuids") List<String> uuids);
 
   List<String> selectUuidsNotInQueue();
@@ -19,9 +19,16 @@
  */
 package org.sonar.db.ce;
 
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+
 public class EligibleTaskDto {
   private String uuid;
+  private String componentUuid;
+  private String organizationUuid;
   private int executionCount;
+  private int priority;
+  private long createdAt;
 
   public String getUuid() {
     return uuid;
@@ -32,6 +39,29 @@ public class EligibleTaskDto {
     return this;
   }
 
+  @CheckForNull
+  public String getComponentUuid() {
+    return componentUuid;
+  }
+
+  public EligibleTaskDto setComponentUuid(@Nullable String componentUuid) {
+    this.componentUuid = componentUuid;
+    return this;
+  }
+
+  /**
+   * Organization of the component, {@code null} if task is not related to a component.
+   */
+  @CheckForNull
+  public String getOrganizationUuid() {
+    return organizationUuid;
+  }
+
+  public EligibleTaskDto setOrganizationUuid(@Nullable String organizationUuid) {
+    this.organizationUuid = organizationUuid;
+    return this;
+  }
+
   public int getExecutionCount() {
     return executionCount;
   }
@@ -41,11 +71,33 @@ public class EligibleTaskDto {
     return this;
   }
 
+  public int getPriority() {
+    return priority;
+  }
+
+  public EligibleTaskDto setPriority(int priority) {
+    this.priority = priority;
+    return this;
+  }
+
+  public long getCreatedAt() {
+    return createdAt;
+  }
+
+  public EligibleTaskDto setCreatedAt(long createdAt) {
+    this.createdAt = createdAt;
+    return this;
+  }
+
   @Override
   public String toString() {
     return "EligibleTaskDto{" +
         "uuid='" + uuid + '\'' +
+        ", componentUuid='" + componentUuid + '\'' +
+        ", organizationUuid='" + organizationUuid + '\'' +
         ", executionCount=" + executionCount +
+        ", priority=" + priority +
+        ", createdAt=" + createdAt +
         '}';
   }
 }
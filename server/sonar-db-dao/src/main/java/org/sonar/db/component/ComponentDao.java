@@ -223,6 +223,14 @@ public class ComponentDao implements Dao {
     return mapper(session).selectProjectsFromView("%." + viewUuid + ".%", projectViewUuid);
   }
 
+  /**
+   * Technical projects of a root view and of all its sub-views, whose copied project is enabled.
+   * The views containing a technical project are the ones listed in its {@link ComponentDto#moduleUuidPath()}.
+   */
+  public List<ComponentDto> selectEnabledProjectCopiesOfRootView(DbSession session, String rootViewUuid) {
+    return mapper(session).selectEnabledProjectCopiesOfRootView(rootViewUuid);
+  }
+
   /**
    * Returns all projects (Scope {@link org.sonar.api.resources.Scopes#PROJECT} and qualifier
    * {@link org.sonar.api.resources.Qualifiers#PROJECT}) which are enabled.
@@ -117,6 +117,8 @@ public interface ComponentMapper {
    */
   List<String> selectProjectsFromView(@Param("viewUuidLikeQuery") String viewUuidLikeQuery, @Param("projectViewUuid") String projectViewUuid);
 
+  List<ComponentDto> selectEnabledProjectCopiesOfRootView(@Param("rootViewUuid") String rootViewUuid);
+
   List<ComponentDto> selectProvisioned(@Param("organizationUuid") String organizationUuid, @Nullable @Param("keyOrNameLike") String keyOrNameLike,
     @Param("qualifiers") Set<String> qualifiers, RowBounds rowBounds);
 
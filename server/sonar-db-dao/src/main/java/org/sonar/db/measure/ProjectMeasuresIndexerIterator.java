@@ -22,10 +22,12 @@ package org.sonar.db.measure;
 import com.google.common.base.Joiner;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterators;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
 import java.util.List;
@@ -53,6 +55,7 @@ import static org.sonar.api.measures.Metric.ValueType.PERCENT;
 import static org.sonar.api.measures.Metric.ValueType.RATING;
 import static org.sonar.api.measures.Metric.ValueType.WORK_DUR;
 import static org.sonar.api.utils.KeyValueFormat.parseStringInt;
+import static org.sonar.core.util.stream.Collectors.toList;
 import static org.sonar.db.DatabaseUtils.repeatCondition;
 import static org.sonar.db.component.DbTagsReader.readDbTags;
 
@@ -74,31 +77,33 @@ public class ProjectMeasuresIndexerIterator extends CloseableIterator<ProjectMea
     "WHERE (m.val_type IN ('" + METRICS_JOINER.join(METRIC_TYPES) + "') OR m.name=?)" +
     "AND m.enabled=?";
 
-  private static final String SQL_MEASURES = "SELECT pm.metric_id, pm.value, pm.variation_value_1, pm.text_value FROM project_measures pm " +
-    "WHERE pm.component_uuid = ? AND pm.analysis_uuid = ? " +
+  private static final String SQL_MEASURES = "SELECT pm.component_uuid, pm.metric_id, pm.value, pm.variation_value_1, pm.text_value FROM project_measures pm " +
+    "WHERE pm.component_uuid IN ({projectUuids}) AND pm.analysis_uuid IN ({analysisUuids}) " +
     "AND pm.metric_id IN ({metricIds}) " +
     "AND (pm.value IS NOT NULL OR pm.variation_value_1 IS NOT NULL OR pm.text_value IS NOT NULL) " +
-    "AND pm.person_id IS NULL ";
+    "AND pm.person_id IS NULL";
 
-  private final PreparedStatement measuresStatement;
+  /**
+   * Number of projects whose measures are loaded by a single request. Both the project and the analysis UUIDs of
+   * a chunk are bound as parameters, so it is kept low enough to respect the limits of Oracle and MSSQL.
+   */
+  private static final int PROJECTS_CHUNK_SIZE = 500;
+
+  private final DbSession session;
   private final Map<Long, String> metricKeysByIds;
-  private final Iterator<Project> projects;
+  private final Iterator<List<Project>> projectChunks;
+  private Iterator<ProjectMeasures> currentChunk = Collections.emptyIterator();
 
-  private ProjectMeasuresIndexerIterator(PreparedStatement measuresStatement, Map<Long, String> metricKeysByIds, List<Project> projects) throws SQLException {
-    this.measuresStatement = measuresStatement;
+  private ProjectMeasuresIndexerIterator(DbSession session, Map<Long, String> metricKeysByIds, List<Project> projects) {
+    this.session = session;
     this.metricKeysByIds = metricKeysByIds;
-    this.projects = projects.iterator();
+    this.projectChunks = Iterators.partition(projects.iterator(), PROJECTS_CHUNK_SIZE);
   }
 
   public static ProjectMeasuresIndexerIterator create(DbSession session, @Nullable String projectUuid) {
-    try {
-      Map<Long, String> metrics = selectMetricKeysByIds(session);
-      List<Project> projects = selectProjects(session, projectUuid);
-      PreparedStatement projectsStatement = createMeasuresStatement(session, metrics.keySet());
-      return new ProjectMeasuresIndexerIterator(projectsStatement, metrics, projects);
-    } catch (SQLException e) {
-      throw new IllegalStateException("Fail to execute request to select all project measures", e);
-    }
+    Map<Long, String> metrics = selectMetricKeysByIds(session);
+    List<Project> projects = selectProjects(session, projectUuid);
+    return new ProjectMeasuresIndexerIterator(session, metrics, projects);
   }
 
   private static Map<Long, String> selectMetricKeysByIds(DbSession session) {
@@ -160,56 +165,70 @@ public class ProjectMeasuresIndexerIterator extends CloseableIterator<ProjectMea
     }
   }
 
-  private static PreparedStatement createMeasuresStatement(DbSession session, Set<Long> metricIds) throws SQLException {
-    try {
-      String sql = StringUtils.replace(SQL_MEASURES, "{metricIds}", repeatCondition("?", metricIds.size(), ","));
-      PreparedStatement stmt = session.getConnection().prepareStatement(sql);
-      int index = 3;
-      for (Long metricId : metricIds) {
-        stmt.setLong(index, metricId);
-        index++;
-      }
-      return stmt;
-    } catch (SQLException e) {
-      throw new IllegalStateException("Fail to prepare SQL request to select measures", e);
+  private PreparedStatement createMeasuresStatement(List<Project> analyzedProjects) throws SQLException {
+    String sql = StringUtils.replace(SQL_MEASURES, "{projectUuids}", repeatCondition("?", analyzedProjects.size(), ","));
+    sql = StringUtils.replace(sql, "{analysisUuids}", repeatCondition("?", analyzedProjects.size(), ","));
+    sql = StringUtils.replace(sql, "{metricIds}", repeatCondition("?", metricKeysByIds.size(), ","));
+    PreparedStatement stmt = session.getConnection().prepareStatement(sql);
+    int index = 1;
+    for (Project project : analyzedProjects) {
+      stmt.setString(index, project.getUuid());
+      index++;
+    }
+    for (Project project : analyzedProjects) {
+      stmt.setString(index, project.getAnalysisUuid());
+      index++;
     }
+    for (Long metricId : metricKeysByIds.keySet()) {
+      stmt.setLong(index, metricId);
+      index++;
+    }
+    return stmt;
   }
 
   @Override
   @CheckForNull
   protected ProjectMeasures doNext() {
-    if (!projects.hasNext()) {
-      return null;
+    if (!currentChunk.hasNext()) {
+      if (!projectChunks.hasNext()) {
+        return null;
+      }
+      currentChunk = loadChunk(projectChunks.next());
     }
-    Project project = projects.next();
-    Measures measures = selectMeasures(project.getUuid(), project.getAnalysisUuid());
-    return new ProjectMeasures(project, measures);
+    return currentChunk.next();
   }
 
-  private Measures selectMeasures(String projectUuid, @Nullable String analysisUuid) {
-    Measures measures = new Measures();
-    if (analysisUuid == null || metricKeysByIds.isEmpty()) {
-      return measures;
+  /**
+   * Loads the measures of the last analyses of the given projects with a single request.
+   */
+  private Iterator<ProjectMeasures> loadChunk(List<Project> projects) {
+    Map<String, Measures> measuresByProjectUuid = new HashMap<>();
+    projects.forEach(project -> measuresByProjectUuid.put(project.getUuid(), new Measures()));
+    List<Project> analyzedProjects = projects.stream()
+      .filter(project -> project.getAnalysisUuid() != null)
+      .collect(toList());
+    if (!analyzedProjects.isEmpty() && !metricKeysByIds.isEmpty()) {
+      selectMeasures(analyzedProjects, measuresByProjectUuid);
     }
-    ResultSet rs = null;
-    try {
-      measuresStatement.setString(1, projectUuid);
-      measuresStatement.setString(2, analysisUuid);
-      rs = measuresStatement.executeQuery();
+    return projects.stream()
+      .map(project -> new ProjectMeasures(project, measuresByProjectUuid.get(project.getUuid())))
+      .iterator();
+  }
+
+  private void selectMeasures(List<Project> analyzedProjects, Map<String, Measures> measuresByProjectUuid) {
+    try (PreparedStatement stmt = createMeasuresStatement(analyzedProjects);
+      ResultSet rs = stmt.executeQuery()) {
       while (rs.next()) {
-        readMeasure(rs, measures);
+        readMeasure(rs, measuresByProjectUuid.get(rs.getString(1)));
       }
-      return measures;
     } catch (Exception e) {
-      throw new IllegalStateException(String.format("Fail to execute request to select measures of project %s, analysis %s", projectUuid, analysisUuid), e);
-    } finally {
-      DatabaseUtils.closeQuietly(rs);
+      throw new IllegalStateException(String.format("Fail to execute request to select measures of %d projects", analyzedProjects.size()), e);
     }
   }
 
   private void readMeasure(ResultSet rs, Measures measures) throws SQLException {
-    String metricKey = metricKeysByIds.get(rs.getLong(1));
-    Optional<Double> value = metricKey.startsWith("new_") ? getDouble(rs, 3) : getDouble(rs, 2);
+    String metricKey = metricKeysByIds.get(rs.getLong(2));
+    Optional<Double> value = metricKey.startsWith("new_") ? getDouble(rs, 4) : getDouble(rs, 3);
     if (value.isPresent()) {
       measures.addNumericMeasure(metricKey, value.get());
       return;
@@ -226,15 +245,15 @@ public class ProjectMeasuresIndexerIterator extends CloseableIterator<ProjectMea
   }
 
   private static void readTextValue(ResultSet rs, Consumer<String> action) throws SQLException {
-    String textValue = rs.getString(4);
+    String textValue = rs.getString(5);
     if (!rs.wasNull()) {
       action.accept(textValue);
     }
   }
 
   @Override
-  protected void doClose() throws Exception {
-    measuresStatement.close();
+  protected void doClose() {
+    // statements are closed as soon as each chunk of projects is loaded
   }
 
   private static Optional<Double> getDouble(ResultSet rs, int index) {
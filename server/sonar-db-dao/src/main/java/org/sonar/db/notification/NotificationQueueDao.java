@@ -25,6 +25,9 @@ import org.sonar.db.Dao;
 import org.sonar.db.DbSession;
 import org.sonar.db.MyBatis;
 
+import static org.sonar.core.util.stream.Collectors.toList;
+import static org.sonar.db.DatabaseUtils.executeLargeUpdates;
+
 public class NotificationQueueDao implements Dao {
 
   private final MyBatis mybatis;
@@ -44,15 +47,32 @@ public class NotificationQueueDao implements Dao {
   }
 
   public void delete(List<NotificationQueueDto> dtos) {
-    try (DbSession session = mybatis.openSession(true)) {
+    try (DbSession session = mybatis.openSession(false)) {
       NotificationQueueMapper mapper = session.getMapper(NotificationQueueMapper.class);
-      for (NotificationQueueDto dto : dtos) {
-        mapper.delete(dto.getId());
-      }
+      executeLargeUpdates(dtos.stream().map(NotificationQueueDto::getId).collect(toList()), mapper::deleteByIds);
       session.commit();
     }
   }
 
+  /**
+   * Removes at most {@code count} of the oldest notifications from the queue and returns them. Notifications are
+   * selected then deleted in a single transaction.
+   */
+  public List<NotificationQueueDto> selectOldestAndDelete(int count) {
+    if (count < 1) {
+      return Collections.emptyList();
+    }
+    try (DbSession session = mybatis.openSession(false)) {
+      NotificationQueueMapper mapper = session.getMapper(NotificationQueueMapper.class);
+      List<NotificationQueueDto> dtos = mapper.findOldest(count);
+      if (!dtos.isEmpty()) {
+        executeLargeUpdates(dtos.stream().map(NotificationQueueDto::getId).collect(toList()), mapper::deleteByIds);
+        session.commit();
+      }
+      return dtos;
+    }
+  }
+
   public List<NotificationQueueDto> selectOldest(int count) {
     if (count < 1) {
       return Collections.emptyList();
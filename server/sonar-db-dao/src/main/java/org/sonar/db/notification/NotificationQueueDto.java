@@ -19,22 +19,29 @@
  */
 package org.sonar.db.notification;
 
+import com.google.protobuf.CodedInputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
-import java.io.ObjectOutputStream;
+import java.util.Map;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.builder.ToStringBuilder;
 import org.apache.commons.lang.builder.ToStringStyle;
 import org.sonar.api.notifications.Notification;
 import org.sonar.api.utils.SonarException;
+import org.sonar.db.protobuf.DbNotifications;
 
 /**
  * @since 3.7.1
  */
 public class NotificationQueueDto {
 
+  /**
+   * First byte of data encoded with protobuf. Data serialized with {@link java.io.ObjectOutputStream} start with 0xAC.
+   */
+  private static final byte PROTOBUF_FORMAT = 1;
+
   private Long id;
   private byte[] data;
 
@@ -61,26 +68,43 @@ public class NotificationQueueDto {
     return ToStringBuilder.reflectionToString(this, ToStringStyle.SHORT_PREFIX_STYLE);
   }
 
+  /**
+   * The notification is stored as its type and its fields, encoded with protobuf and prefixed by
+   * {@link #PROTOBUF_FORMAT}. The class of the notification is not stored, it is read back as a {@link Notification}.
+   */
   public static NotificationQueueDto toNotificationQueueDto(Notification notification) {
-    ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
-    try {
-      ObjectOutputStream objectOutputStream = new ObjectOutputStream(byteArrayOutputStream);
-      objectOutputStream.writeObject(notification);
-      objectOutputStream.close();
-      return new NotificationQueueDto().setData(byteArrayOutputStream.toByteArray());
+    DbNotifications.Notification.Builder builder = DbNotifications.Notification.newBuilder()
+      .setType(notification.getType());
+    DbNotifications.Field.Builder fieldBuilder = DbNotifications.Field.newBuilder();
+    for (Map.Entry<String, String> field : notification.getFields().entrySet()) {
+      fieldBuilder.clear().setKey(field.getKey());
+      if (field.getValue() != null) {
+        fieldBuilder.setValue(field.getValue());
+      }
+      builder.addField(fieldBuilder);
+    }
+    DbNotifications.Notification message = builder.build();
 
+    ByteArrayOutputStream output = new ByteArrayOutputStream(1 + message.getSerializedSize());
+    output.write(PROTOBUF_FORMAT);
+    try {
+      message.writeTo(output);
     } catch (IOException e) {
       throw new SonarException("Unable to write notification", e);
-
-    } finally {
-      IOUtils.closeQuietly(byteArrayOutputStream);
     }
+    return new NotificationQueueDto().setData(output.toByteArray());
   }
 
+  /**
+   * Notifications written by versions prior to the protobuf encoding are still read with Java deserialization.
+   */
   public Notification toNotification() throws IOException, ClassNotFoundException {
     if (this.data == null) {
       return null;
     }
+    if (this.data.length > 0 && this.data[0] == PROTOBUF_FORMAT) {
+      return parseNotification();
+    }
     ByteArrayInputStream byteArrayInputStream = null;
     try {
       byteArrayInputStream = new ByteArrayInputStream(this.data);
@@ -93,4 +117,13 @@ public class NotificationQueueDto {
     }
   }
 
+  private Notification parseNotification() throws IOException {
+    DbNotifications.Notification message = DbNotifications.Notification.parseFrom(CodedInputStream.newInstance(data, 1, data.length - 1));
+    Notification notification = new Notification(message.getType());
+    for (DbNotifications.Field field : message.getFieldList()) {
+      notification.setFieldValue(field.getKey(), field.hasValue() ? field.getValue() : null);
+    }
+    return notification;
+  }
+
 }
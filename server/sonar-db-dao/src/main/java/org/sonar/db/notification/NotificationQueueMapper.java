@@ -20,6 +20,7 @@
 package org.sonar.db.notification;
 
 import java.util.List;
+import org.apache.ibatis.annotations.Param;
 
 /**
  * @since 3.7.1
@@ -30,6 +31,8 @@ public interface NotificationQueueMapper {
 
   void delete(long id);
 
+  void deleteByIds(@Param("ids") List<Long> ids);
+
   List<NotificationQueueDto> findOldest(int count);
 
   long count();
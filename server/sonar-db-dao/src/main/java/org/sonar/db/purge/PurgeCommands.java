@@ -21,12 +21,16 @@ package org.sonar.db.purge;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
+import java.util.Collection;
 import java.util.List;
 import java.util.stream.Collectors;
+import javax.annotation.Nullable;
 import org.sonar.db.DbSession;
 
 import static com.google.common.collect.FluentIterable.from;
 import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.sonar.db.DatabaseUtils.executeLargeInputs;
 
 class PurgeCommands {
 
@@ -52,10 +56,6 @@ class PurgeCommands {
     return purgeMapper.selectAnalysisIdsAndUuids(query).stream().map(IdUuidPair::getUuid).collect(Collectors.toList());
   }
 
-  List<IdUuidPair> selectSnapshotIdUuids(PurgeSnapshotQuery query) {
-    return purgeMapper.selectAnalysisIdsAndUuids(query);
-  }
-
   void deleteAnalyses(String rootUuid) {
     deleteAnalyses(purgeMapper.selectAnalysisIdsAndUuids(new PurgeSnapshotQuery().setComponentUuid(rootUuid)));
   }
@@ -120,20 +120,18 @@ class PurgeCommands {
     profiler.stop();
   }
 
-  public void deleteComponentMeasures(List<String> analysisUuids, List<String> componentUuids) {
-    if (analysisUuids.isEmpty() || componentUuids.isEmpty()) {
+  /**
+   * Deletes the measures of the descendants of the root component which have one of the given qualifiers. Components are selected
+   * by the delete statement itself, so that the number of statements does not depend on the number of components.
+   */
+  public void deleteComponentMeasures(List<String> analysisUuids, String rootUuid, List<String> qualifiers) {
+    if (analysisUuids.isEmpty() || qualifiers.isEmpty()) {
       return;
     }
 
-    List<List<String>> analysisUuidsPartitions = Lists.partition(analysisUuids, MAX_SNAPSHOTS_PER_QUERY);
-    List<List<String>> componentUuidsPartitions = Lists.partition(componentUuids, MAX_RESOURCES_PER_QUERY);
-
-    profiler.start("deleteComponentMeasures");
-    for (List<String> analysisUuidsPartition : analysisUuidsPartitions) {
-      for (List<String> componentUuidsPartition : componentUuidsPartitions) {
-        purgeMapper.deleteComponentMeasures(analysisUuidsPartition, componentUuidsPartition);
-      }
-    }
+    profiler.start("deleteComponentMeasures (project_measures)");
+    Lists.partition(analysisUuids, MAX_SNAPSHOTS_PER_QUERY)
+      .forEach(analysisUuidsPartition -> purgeMapper.deleteComponentMeasures(analysisUuidsPartition, rootUuid, qualifiers));
     session.commit();
     profiler.stop();
   }
@@ -147,9 +145,10 @@ class PurgeCommands {
 
   @VisibleForTesting
   protected void deleteAnalyses(List<IdUuidPair> analysisIdUuids) {
-    List<List<String>> analysisUuidsPartitions = Lists.partition(IdUuidPairs.uuids(analysisIdUuids), MAX_SNAPSHOTS_PER_QUERY);
+    List<String> analysisUuids = IdUuidPairs.uuids(analysisIdUuids);
+    List<List<String>> analysisUuidsPartitions = Lists.partition(analysisUuids, MAX_SNAPSHOTS_PER_QUERY);
 
-    deleteAnalysisDuplications(analysisUuidsPartitions);
+    deleteAnalysisDuplications(analysisUuids);
 
     profiler.start("deleteAnalyses (events)");
     analysisUuidsPartitions.forEach(purgeMapper::deleteAnalysisEvents);
@@ -168,28 +167,63 @@ class PurgeCommands {
   }
 
   public void purgeAnalyses(List<IdUuidPair> analysisUuids) {
-    List<List<String>> analysisUuidsPartitions = Lists.partition(IdUuidPairs.uuids(analysisUuids), MAX_SNAPSHOTS_PER_QUERY);
-
-    deleteAnalysisDuplications(analysisUuidsPartitions);
+    List<String> uuids = IdUuidPairs.uuids(analysisUuids);
+    deleteAnalysisDuplications(uuids);
+    deleteAnalysisWastedMeasures(uuids);
+    updatePurgeStatusToOne(uuids);
+  }
 
+  void deleteAnalysisWastedMeasures(List<String> analysisUuids) {
     profiler.start("deleteSnapshotWastedMeasures (project_measures)");
     List<Long> metricIdsWithoutHistoricalData = purgeMapper.selectMetricIdsWithoutHistoricalData();
-    analysisUuidsPartitions.stream()
+    Lists.partition(analysisUuids, MAX_SNAPSHOTS_PER_QUERY)
       .forEach(analysisUuidsPartition -> purgeMapper.deleteAnalysisWastedMeasures(analysisUuidsPartition, metricIdsWithoutHistoricalData));
     session.commit();
     profiler.stop();
+  }
 
+  void updatePurgeStatusToOne(List<String> analysisUuids) {
     profiler.start("updatePurgeStatusToOne (snapshots)");
-    analysisUuidsPartitions.forEach(purgeMapper::updatePurgeStatusToOne);
+    Lists.partition(analysisUuids, MAX_SNAPSHOTS_PER_QUERY).forEach(purgeMapper::updatePurgeStatusToOne);
     session.commit();
     profiler.stop();
   }
 
-  private void deleteAnalysisDuplications(List<List<String>> snapshotUuidsPartitions) {
+  void deleteAnalysisDuplications(List<String> analysisUuids) {
     profiler.start("deleteAnalysisDuplications (duplications_index)");
-    snapshotUuidsPartitions.forEach(purgeMapper::deleteAnalysisDuplications);
+    Lists.partition(analysisUuids, MAX_SNAPSHOTS_PER_QUERY).forEach(purgeMapper::deleteAnalysisDuplications);
+    session.commit();
+    profiler.stop();
+  }
+
+  void purgeDisabledComponents(Collection<String> componentUuids, long now) {
+    profiler.start("purgeDisabledComponents (file_sources, issues)");
+    executeLargeInputs(componentUuids, input -> {
+      purgeMapper.deleteFileSourcesByUuid(input);
+      purgeMapper.resolveComponentIssuesNotAlreadyResolved(input, now);
+      return emptyList();
+    });
+    session.commit();
+    profiler.stop();
+  }
+
+  /**
+   * @return keys of the deleted issues
+   */
+  List<String> deleteOldClosedIssues(String rootUuid, @Nullable Long toDate) {
+    profiler.start("deleteOldClosedIssues (issues, issue_changes)");
+    List<String> issueKeys = purgeMapper.selectOldClosedIssueKeys(rootUuid, toDate);
+    executeLargeInputs(issueKeys, input -> {
+      purgeMapper.deleteIssueChangesFromIssueKeys(input);
+      return emptyList();
+    });
+    executeLargeInputs(issueKeys, input -> {
+      purgeMapper.deleteIssuesFromKeys(input);
+      return emptyList();
+    });
     session.commit();
     profiler.stop();
+    return issueKeys;
   }
 
   public void deleteFileSources(String rootUuid) {
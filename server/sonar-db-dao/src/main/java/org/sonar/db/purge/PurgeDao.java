@@ -22,22 +22,18 @@ package org.sonar.db.purge;
 import com.google.common.collect.Lists;
 import java.util.Arrays;
 import java.util.Collections;
-import java.util.Date;
 import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
 import org.sonar.api.utils.System2;
 import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
-import org.sonar.core.util.stream.Collectors;
 import org.sonar.db.Dao;
 import org.sonar.db.DbSession;
-import org.sonar.db.component.ComponentDao;
-import org.sonar.db.component.ComponentDto;
-import org.sonar.db.component.ComponentTreeQuery;
-import org.sonar.db.component.ComponentTreeQuery.Strategy;
+import org.sonar.db.MyBatis;
 
-import static java.util.Collections.emptyList;
 import static org.sonar.api.utils.DateUtils.dateToLong;
-import static org.sonar.db.DatabaseUtils.executeLargeInputs;
 
 /**
  * @since 2.14
@@ -46,47 +42,93 @@ public class PurgeDao implements Dao {
   private static final Logger LOG = Loggers.get(PurgeDao.class);
   private static final String[] UNPROCESSED_STATUS = new String[] {"U"};
 
-  private final ComponentDao componentDao;
+  private final MyBatis myBatis;
   private final System2 system2;
+  private final PurgeExecutor executor;
 
-  public PurgeDao(ComponentDao componentDao, System2 system2) {
-    this.componentDao = componentDao;
+  public PurgeDao(MyBatis myBatis, System2 system2, PurgeExecutor executor) {
+    this.myBatis = myBatis;
     this.system2 = system2;
+    this.executor = executor;
   }
 
+  /**
+   * Purges the history of the given project.
+   * <p>
+   * Aborted analyses are deleted with the given session, which is then committed. Measures, duplications, and
+   * issues and sources of disabled components are then purged concurrently by {@link PurgeExecutor}. Each group
+   * works on tables which are not touched by the other ones, in its own session which is committed independently:
+   * if a group fails, the deletions of the other groups are kept, the analyses are not flagged as purged and the
+   * listener is not notified, so that the next purge does the remaining work. The first failure is thrown once
+   * all the groups are finished.
+   * </p>
+   */
   public void purge(DbSession session, PurgeConfiguration conf, PurgeListener listener, PurgeProfiler profiler) {
-    PurgeMapper mapper = session.getMapper(PurgeMapper.class);
-    PurgeCommands commands = new PurgeCommands(session, mapper, profiler);
+    PurgeCommands commands = new PurgeCommands(session, mapper(session), profiler);
     String rootUuid = conf.rootProjectIdUuid().getUuid();
     deleteAbortedAnalyses(rootUuid, commands);
-    deleteDataOfComponentsWithoutHistoricalData(session, rootUuid, conf.scopesWithoutHistoricalData(), commands);
-    purgeAnalyses(commands, rootUuid);
-    purgeDisabledComponents(session, conf, listener);
-    deleteOldClosedIssues(conf, mapper, listener);
-  }
-
-  private static void purgeAnalyses(PurgeCommands commands, String rootUuid) {
-    List<IdUuidPair> analysisUuids = commands.selectSnapshotIdUuids(
+    List<String> analysisUuids = commands.selectSnapshotUuids(
       new PurgeSnapshotQuery()
         .setComponentUuid(rootUuid)
         .setIslast(false)
         .setNotPurged(true));
-    commands.purgeAnalyses(analysisUuids);
+    // release any lock held by the caller's session before other sessions start deleting
+    session.commit();
+
+    List<Future<PurgeProfiler>> groups = Lists.newArrayList();
+    groups.add(submit(taskCommands -> {
+      taskCommands.deleteComponentMeasures(analysisUuids, rootUuid, Arrays.asList(conf.scopesWithoutHistoricalData()));
+      taskCommands.deleteAnalysisWastedMeasures(analysisUuids);
+    }));
+    groups.add(submit(taskCommands -> taskCommands.deleteAnalysisDuplications(analysisUuids)));
+    List<String> removedIssueKeys = Collections.synchronizedList(Lists.newArrayList());
+    groups.add(submit(taskCommands -> {
+      taskCommands.purgeDisabledComponents(conf.getDisabledComponentUuids(), system2.now());
+      removedIssueKeys.addAll(taskCommands.deleteOldClosedIssues(rootUuid, dateToLong(conf.maxLiveDateOfClosedIssues())));
+    }));
+    awaitAll(groups, profiler);
+
+    commands.updatePurgeStatusToOne(analysisUuids);
+    listener.onComponentsDisabling(rootUuid, conf.getDisabledComponentUuids());
+    listener.onIssuesRemoval(rootUuid, removedIssueKeys);
   }
 
-  private static void deleteOldClosedIssues(PurgeConfiguration conf, PurgeMapper mapper, PurgeListener listener) {
-    Date toDate = conf.maxLiveDateOfClosedIssues();
-    String rootUuid = conf.rootProjectIdUuid().getUuid();
-    List<String> issueKeys = mapper.selectOldClosedIssueKeys(rootUuid, dateToLong(toDate));
-    executeLargeInputs(issueKeys, input -> {
-      mapper.deleteIssueChangesFromIssueKeys(input);
-      return emptyList();
-    });
-    executeLargeInputs(issueKeys, input -> {
-      mapper.deleteIssuesFromKeys(input);
-      return emptyList();
+  /**
+   * Runs the given purge in its own session, committed on success. The returned future provides the
+   * timings recorded by the task, which are merged by the caller.
+   */
+  private Future<PurgeProfiler> submit(Consumer<PurgeCommands> task) {
+    return executor.submit(() -> {
+      PurgeProfiler taskProfiler = new PurgeProfiler();
+      try (DbSession taskSession = myBatis.openSession(false)) {
+        task.accept(new PurgeCommands(taskSession, mapper(taskSession), taskProfiler));
+        taskSession.commit();
+      }
+      return taskProfiler;
     });
-    listener.onIssuesRemoval(rootUuid, issueKeys);
+  }
+
+  /**
+   * Waits for all the given purges, so that none of them is still running when the caller gets the first failure.
+   */
+  private static void awaitAll(List<Future<PurgeProfiler>> futures, PurgeProfiler profiler) {
+    RuntimeException failure = null;
+    for (Future<PurgeProfiler> future : futures) {
+      try {
+        profiler.merge(future.get());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        throw new IllegalStateException("Interrupted while purging data", e);
+      } catch (ExecutionException e) {
+        if (failure == null) {
+          Throwable cause = e.getCause();
+          failure = cause instanceof RuntimeException ? (RuntimeException) cause : new IllegalStateException("Fail to purge data", cause);
+        }
+      }
+    }
+    if (failure != null) {
+      throw failure;
+    }
   }
 
   private static void deleteAbortedAnalyses(String rootUuid, PurgeCommands commands) {
@@ -98,44 +140,6 @@ public class PurgeDao implements Dao {
     commands.deleteAnalyses(query);
   }
 
-  private void deleteDataOfComponentsWithoutHistoricalData(DbSession dbSession, String rootUuid, String[] scopesWithoutHistoricalData, PurgeCommands purgeCommands) {
-    if (scopesWithoutHistoricalData.length == 0) {
-      return;
-    }
-
-    List<String> analysisUuids = purgeCommands.selectSnapshotUuids(
-      new PurgeSnapshotQuery()
-        .setComponentUuid(rootUuid)
-        .setIslast(false)
-        .setNotPurged(true));
-    List<String> componentWithoutHistoricalDataUuids = componentDao
-      .selectDescendants(
-        dbSession,
-        ComponentTreeQuery.builder()
-          .setBaseUuid(rootUuid)
-          .setQualifiers(Arrays.asList(scopesWithoutHistoricalData))
-          .setStrategy(Strategy.LEAVES)
-          .build())
-      .stream().map(ComponentDto::uuid)
-      .collect(Collectors.toList());
-
-    purgeCommands.deleteComponentMeasures(analysisUuids, componentWithoutHistoricalDataUuids);
-  }
-
-  private void purgeDisabledComponents(DbSession session, PurgeConfiguration conf, PurgeListener listener) {
-    PurgeMapper mapper = mapper(session);
-    executeLargeInputs(conf.getDisabledComponentUuids(),
-      input -> {
-        mapper.deleteFileSourcesByUuid(input);
-        mapper.resolveComponentIssuesNotAlreadyResolved(input, system2.now());
-        return emptyList();
-      });
-
-    listener.onComponentsDisabling(conf.rootProjectIdUuid().getUuid(), conf.getDisabledComponentUuids());
-
-    session.commit();
-  }
-
   public List<PurgeableAnalysisDto> selectPurgeableAnalyses(String componentUuid, DbSession session) {
     List<PurgeableAnalysisDto> result = Lists.newArrayList();
     result.addAll(mapper(session).selectPurgeableAnalysesWithEvents(componentUuid));
@@ -0,0 +1,65 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.db.purge;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.sonar.api.Startable;
+
+/**
+ * Threads used by {@link PurgeDao#purge} to purge groups of tables concurrently. The pool is shared by all
+ * the purges of the process, so concurrent purges wait for each other rather than creating more threads.
+ * Purges are rare, so idle threads are released after one minute.
+ *
+ * @since 6.4
+ */
+public class PurgeExecutor implements Startable {
+
+  /**
+   * Number of groups of tables which are purged concurrently.
+   */
+  static final int THREAD_COUNT = 3;
+
+  private final ThreadPoolExecutor executor;
+
+  public PurgeExecutor() {
+    this.executor = new ThreadPoolExecutor(THREAD_COUNT, THREAD_COUNT, 1L, TimeUnit.MINUTES, new LinkedBlockingQueue<>(),
+      new ThreadFactoryBuilder().setNameFormat("Purge-%d").setDaemon(true).build());
+    this.executor.allowCoreThreadTimeOut(true);
+  }
+
+  public <T> Future<T> submit(Callable<T> task) {
+    return executor.submit(task);
+  }
+
+  @Override
+  public void start() {
+    // threads are created on first submit
+  }
+
+  @Override
+  public void stop() {
+    executor.shutdownNow();
+  }
+}
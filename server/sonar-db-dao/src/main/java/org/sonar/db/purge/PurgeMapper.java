@@ -40,7 +40,10 @@ public interface PurgeMapper {
 
   void deleteAnalysisMeasures(@Param("analysisUuids") List<String> analysisUuids);
 
-  void deleteComponentMeasures(@Param("analysisUuids") List<String> analysisUuids, @Param("componentUuids") List<String> componentUuids);
+  /**
+   * Deletes the measures of the enabled descendants of the root component which have one of the given qualifiers
+   */
+  void deleteComponentMeasures(@Param("analysisUuids") List<String> analysisUuids, @Param("rootUuid") String rootUuid, @Param("qualifiers") List<String> qualifiers);
 
   List<Long> selectMetricIdsWithoutHistoricalData();
 
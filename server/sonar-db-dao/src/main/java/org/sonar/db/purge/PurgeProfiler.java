@@ -64,16 +64,30 @@ public class PurgeProfiler {
     durations.put(currentTable, cumulatedDuration + (clock.now() - startTime));
   }
 
+  /**
+   * Adds the durations recorded by another profiler, for example the one of a purge executed
+   * in a separate thread.
+   */
+  public void merge(PurgeProfiler other) {
+    other.durations.forEach((table, duration) -> durations.merge(table, duration, Long::sum));
+  }
+
   public void dump(long totalTime, Logger logger) {
+    getProfilingResult(totalTime).forEach(logger::info);
+  }
+
+  public List<String> getProfilingResult(long totalTime) {
     List<Entry<String, Long>> data = new ArrayList<>(durations.entrySet());
     Collections.sort(data, (o1, o2) -> o2.getValue().compareTo(o1.getValue()));
     double percent = totalTime / 100.0;
+    List<String> result = new ArrayList<>();
     for (Entry<String, Long> entry : truncateList(data)) {
       StringBuilder sb = new StringBuilder();
       sb.append("   o ").append(entry.getKey()).append(": ").append(TimeUtils.formatDuration(entry.getValue()))
         .append(" (").append((int) (entry.getValue() / percent)).append("%)");
-      logger.info(sb.toString());
+      result.add(sb.toString());
     }
+    return result;
   }
 
   private static List<Entry<String, Long>> truncateList(List<Entry<String, Long>> sortedFullList) {
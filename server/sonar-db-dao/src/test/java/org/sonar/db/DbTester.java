@@ -38,6 +38,7 @@ import org.sonar.db.organization.OrganizationDto;
 import org.sonar.db.organization.OrganizationTesting;
 import org.sonar.db.permission.template.PermissionTemplateDbTester;
 import org.sonar.db.property.PropertyDbTester;
+import org.sonar.db.purge.PurgeExecutor;
 import org.sonar.db.qualitygate.QualityGateDbTester;
 import org.sonar.db.qualityprofile.QualityProfileDbTester;
 import org.sonar.db.rule.RuleDbTester;
@@ -114,6 +115,7 @@ public class DbTester extends AbstractDbTester<TestDb> {
     ioc.addComponent(db.getMyBatis());
     ioc.addComponent(system2);
     ioc.addComponent(new SequenceUuidFactory());
+    ioc.addComponent(PurgeExecutor.class);
     for (Class daoClass : DaoModule.classes()) {
       ioc.addComponent(daoClass);
     }
@@ -34,6 +34,8 @@ import org.mockito.Mockito;
 import org.sonar.api.utils.System2;
 import org.sonar.api.utils.internal.TestSystem2;
 import org.sonar.db.DbTester;
+import org.sonar.db.component.ComponentDto;
+import org.sonar.db.organization.OrganizationDto;
 
 import static com.google.common.collect.FluentIterable.from;
 import static com.google.common.collect.Lists.newArrayList;
@@ -235,6 +237,64 @@ public class CeQueueDaoTest {
     assertThat(peek.get().getExecutionCount()).isEqualTo(1);
   }
 
+  @Test
+  public void selectEligibleForPeek_orders_by_priority_then_by_date() {
+    insert(newQueueDto(TASK_UUID_1, COMPONENT_UUID_1, 0));
+    system2.setNow(INIT_TIME + 1_000);
+    insert(newQueueDto(TASK_UUID_2, COMPONENT_UUID_2, 5));
+    system2.setNow(INIT_TIME + 2_000);
+    insert(newQueueDto(TASK_UUID_3, "PROJECT_3", 0));
+
+    List<EligibleTaskDto> eligibles = underTest.selectEligibleForPeek(db.getSession(), 10);
+
+    assertThat(eligibles).extracting(EligibleTaskDto::getUuid).containsExactly(TASK_UUID_2, TASK_UUID_1, TASK_UUID_3);
+    assertThat(eligibles).extracting(EligibleTaskDto::getPriority).containsExactly(5, 0, 0);
+    assertThat(eligibles).extracting(EligibleTaskDto::getCreatedAt).containsExactly(INIT_TIME + 1_000, INIT_TIME, INIT_TIME + 2_000);
+    assertThat(underTest.selectEligibleForPeek(db.getSession(), 1)).extracting(EligibleTaskDto::getUuid).containsExactly(TASK_UUID_2);
+  }
+
+  @Test
+  public void selectEligibleForPeek_returns_only_oldest_pending_task_of_component() {
+    insert(newQueueDto(TASK_UUID_1, COMPONENT_UUID_1, 0));
+    system2.setNow(INIT_TIME + 1_000);
+    insert(newQueueDto(TASK_UUID_2, COMPONENT_UUID_1, 5));
+    system2.setNow(INIT_TIME + 2_000);
+    insert(newQueueDto(TASK_UUID_3, COMPONENT_UUID_2, 0));
+
+    List<EligibleTaskDto> eligibles = underTest.selectEligibleForPeek(db.getSession(), 10);
+
+    assertThat(eligibles).extracting(EligibleTaskDto::getUuid).containsExactly(TASK_UUID_1, TASK_UUID_3);
+  }
+
+  @Test
+  public void selectEligibleForPeek_populates_organization_of_component() {
+    OrganizationDto organization = db.organizations().insert();
+    ComponentDto project = db.components().insertProject(organization);
+    insert(TASK_UUID_1, project.uuid(), PENDING);
+    insert(TASK_UUID_2, "UNKNOWN", PENDING);
+
+    List<EligibleTaskDto> eligibles = underTest.selectEligibleForPeek(db.getSession(), 10);
+
+    assertThat(eligibles).extracting(EligibleTaskDto::getComponentUuid).containsExactly(project.uuid(), "UNKNOWN");
+    assertThat(eligibles).extracting(EligibleTaskDto::getOrganizationUuid).containsExactly(organization.getUuid(), null);
+  }
+
+  @Test
+  public void selectOrganizationUuidsOfInProgressTasks() {
+    OrganizationDto organization1 = db.organizations().insert();
+    OrganizationDto organization2 = db.organizations().insert();
+    ComponentDto project1 = db.components().insertProject(organization1);
+    ComponentDto project2 = db.components().insertProject(organization1);
+    ComponentDto project3 = db.components().insertProject(organization2);
+    insert(TASK_UUID_1, project1.uuid(), IN_PROGRESS);
+    insert(TASK_UUID_2, project2.uuid(), IN_PROGRESS);
+    insert(TASK_UUID_3, project3.uuid(), PENDING);
+    insert("TASK_4", null, IN_PROGRESS);
+
+    assertThat(underTest.selectOrganizationUuidsOfInProgressTasks(db.getSession()))
+      .containsExactlyInAnyOrder(organization1.getUuid(), organization1.getUuid());
+  }
+
   @Test
   public void select_by_query() {
     // task status not in query
@@ -367,7 +427,7 @@ public class CeQueueDaoTest {
     db.commit();
   }
 
-  private void insert(String uuid, String componentUuid, CeQueueDto.Status status) {
+  private void insert(String uuid, @Nullable String componentUuid, CeQueueDto.Status status) {
     CeQueueDto dto = new CeQueueDto();
     dto.setUuid(uuid);
     dto.setTaskType(CeTaskTypes.REPORT);
@@ -378,6 +438,15 @@ public class CeQueueDaoTest {
     db.getSession().commit();
   }
 
+  private static CeQueueDto newQueueDto(String uuid, String componentUuid, int priority) {
+    return new CeQueueDto()
+      .setUuid(uuid)
+      .setTaskType(CeTaskTypes.REPORT)
+      .setComponentUuid(componentUuid)
+      .setStatus(PENDING)
+      .setPriority(priority);
+  }
+
   private static Iterable<Map<String, Object>> upperizeKeys(List<Map<String, Object>> select) {
     return from(select).transform(new Function<Map<String, Object>, Map<String, Object>>() {
       @Nullable
@@ -28,6 +28,7 @@ import org.junit.rules.ExpectedException;
 import org.sonar.api.utils.System2;
 import org.sonar.db.DbTester;
 
+import static java.util.Arrays.asList;
 import static java.util.Collections.singleton;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.mock;
@@ -107,6 +108,38 @@ public class CeTaskInputDaoTest {
     assertThat(dbTester.countRowsOfTable(TABLE_NAME)).isEqualTo(0);
   }
 
+  @Test
+  public void insert_and_select_reference() {
+    when(system.now()).thenReturn(NOW);
+
+    underTest.insertReference(dbTester.getSession(), A_UUID, "ref1");
+    dbTester.commit();
+
+    assertThat(underTest.selectReference(dbTester.getSession(), A_UUID)).contains("ref1");
+    assertThat(underTest.selectReference(dbTester.getSession(), "other")).isNotPresent();
+    assertThat(underTest.selectData(dbTester.getSession(), A_UUID)).isNotPresent();
+  }
+
+  @Test
+  public void selectReference_returns_empty_if_data_is_stored_in_database() {
+    underTest.insert(dbTester.getSession(), A_UUID, IOUtils.toInputStream(SOME_DATA));
+
+    assertThat(underTest.selectReference(dbTester.getSession(), A_UUID)).isNotPresent();
+  }
+
+  @Test
+  public void select_references() {
+    underTest.insertReference(dbTester.getSession(), "U1", "ref1");
+    underTest.insertReference(dbTester.getSession(), "U2", "ref1");
+    underTest.insertReference(dbTester.getSession(), "U3", "ref2");
+    dbTester.commit();
+    insertData("U4");
+
+    assertThat(underTest.selectReferencesByUuids(dbTester.getSession(), asList("U1", "U3", "U4", "unknown"))).containsOnly("ref1", "ref2");
+    assertThat(underTest.selectAllReferences(dbTester.getSession())).containsOnly("ref1", "ref2");
+    assertThat(underTest.selectUsedReferences(dbTester.getSession(), asList("ref2", "ref3"))).containsOnly("ref2");
+  }
+
   private void insertData(String uuid) {
     dbTester.executeInsert(TABLE_NAME, "task_uuid", uuid, "created_at", NOW, "updated_at", NOW);
     dbTester.commit();
@@ -49,6 +49,7 @@ import static java.util.Collections.emptyList;
 import static java.util.Collections.emptySet;
 import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
 import static org.assertj.guava.api.Assertions.assertThat;
 import static org.sonar.db.component.ComponentTesting.newDeveloper;
 import static org.sonar.db.component.ComponentTesting.newDirectory;
@@ -530,6 +531,20 @@ public class ComponentDaoTest {
     assertThat(underTest.selectProjectsFromView(dbSession, "Unknown", "Unknown")).isEmpty();
   }
 
+  @Test
+  public void select_enabled_project_copies_of_root_view() {
+    db.prepareDbUnit(getClass(), "shared_views.xml");
+
+    assertThat(underTest.selectEnabledProjectCopiesOfRootView(dbSession, "ABCD"))
+      .extracting(ComponentDto::uuid, ComponentDto::moduleUuidPath, ComponentDto::getCopyResourceUuid)
+      .containsOnly(tuple("BCDE", ".ABCD.", "JKLM"));
+    assertThat(underTest.selectEnabledProjectCopiesOfRootView(dbSession, "EFGH"))
+      .extracting(ComponentDto::uuid, ComponentDto::moduleUuidPath, ComponentDto::getCopyResourceUuid)
+      .containsOnly(tuple("GHIJ", ".EFGH.", "KLMN"), tuple("HIJK", ".EFGH.FGHI.", "JKLM"));
+    assertThat(underTest.selectEnabledProjectCopiesOfRootView(dbSession, "IJKL")).isEmpty();
+    assertThat(underTest.selectEnabledProjectCopiesOfRootView(dbSession, "Unknown")).isEmpty();
+  }
+
   @Test
   public void select_projects() {
     OrganizationDto organization = db.organizations().insert();
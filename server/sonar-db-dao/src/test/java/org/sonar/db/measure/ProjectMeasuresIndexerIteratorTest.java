@@ -180,6 +180,28 @@ public class ProjectMeasuresIndexerIteratorTest {
     assertThat(createResultSetAndReturnDocsById()).hasSize(3);
   }
 
+  @Test
+  public void return_measures_of_each_project_when_loaded_together() {
+    MetricDto metric = insertIntMetric("ncloc");
+    ComponentDto project1 = newProjectDto(dbTester.getDefaultOrganization());
+    SnapshotDto analysis1 = dbTester.components().insertProjectAndSnapshot(project1);
+    insertMeasure(project1, analysis1, metric, 10d);
+    ComponentDto project2 = newProjectDto(dbTester.getDefaultOrganization());
+    SnapshotDto analysis2 = dbTester.components().insertProjectAndSnapshot(project2);
+    insertMeasure(project2, analysis2, metric, 20d);
+    // measure of a previous analysis must be ignored
+    SnapshotDto oldAnalysis = dbTester.components().insertSnapshot(newAnalysis(project2).setLast(false));
+    insertMeasure(project2, oldAnalysis, metric, 30d);
+    ComponentDto project3 = dbTester.components().insertComponent(newProjectDto(dbTester.getDefaultOrganization()));
+
+    Map<String, ProjectMeasures> docsById = createResultSetAndReturnDocsById();
+
+    assertThat(docsById).hasSize(3);
+    assertThat(docsById.get(project1.uuid()).getMeasures().getNumericMeasures()).containsOnly(entry("ncloc", 10d));
+    assertThat(docsById.get(project2.uuid()).getMeasures().getNumericMeasures()).containsOnly(entry("ncloc", 20d));
+    assertThat(docsById.get(project3.uuid()).getMeasures().getNumericMeasures()).isEmpty();
+  }
+
   @Test
   public void return_project_without_analysis() throws Exception {
     ComponentDto project = dbTester.components().insertComponent(newProjectDto(dbTester.organizations().insert()));
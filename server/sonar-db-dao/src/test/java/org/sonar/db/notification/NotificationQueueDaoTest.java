@@ -46,6 +46,40 @@ public class NotificationQueueDaoTest {
     assertThat(dao.selectOldest(1).get(0).toNotification().getType()).isEqualTo("email");
   }
 
+  @Test
+  public void insert_and_read_back_fields_of_notification() throws Exception {
+    Notification notification = new Notification("issue-changes")
+      .setFieldValue("key", "ABCD")
+      .setFieldValue("comment", null)
+      .setDefaultMessage("Issue changed");
+
+    dao.insert(Arrays.asList(NotificationQueueDto.toNotificationQueueDto(notification)));
+
+    Notification result = dao.selectOldest(1).get(0).toNotification();
+    assertThat(result).isEqualTo(notification);
+    assertThat(result.getFields()).containsOnlyKeys("key", "comment", "default_message");
+    assertThat(result.getFieldValue("comment")).isNull();
+  }
+
+  @Test
+  public void read_notifications_serialized_by_previous_versions() throws Exception {
+    db.prepareDbUnit(getClass(), "should_findOldest.xml");
+
+    assertThat(dao.selectOldest(1).get(0).toNotification().getType()).isEqualTo("email1");
+  }
+
+  @Test
+  public void selectOldestAndDelete_returns_and_deletes_oldest_notifications() {
+    db.prepareDbUnit(getClass(), "should_findOldest.xml");
+
+    assertThat(dao.selectOldestAndDelete(3)).extracting("id").containsOnly(1L, 2L, 3L);
+    assertThat(dao.count()).isEqualTo(1);
+
+    assertThat(dao.selectOldestAndDelete(3)).extracting("id").containsOnly(4L);
+    assertThat(dao.selectOldestAndDelete(3)).isEmpty();
+    assertThat(dao.count()).isEqualTo(0);
+  }
+
   @Test
   public void should_count_notification_queue() {
     NotificationQueueDto notificationQueueDto = NotificationQueueDto.toNotificationQueueDto(new Notification("email"));
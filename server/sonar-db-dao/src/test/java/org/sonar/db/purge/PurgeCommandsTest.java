@@ -26,6 +26,7 @@ import org.sonar.api.utils.System2;
 import org.sonar.db.DbTester;
 
 import static com.google.common.collect.Lists.newArrayList;
+import static java.util.Arrays.asList;
 import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -76,6 +77,16 @@ public class PurgeCommandsTest {
     // The goal of this test is only to check that the query do no fail, not to check result
   }
 
+  /**
+   * Test that SQL queries execution do not fail with a huge number of parameter
+   */
+  @Test
+  public void should_not_fail_when_deleting_measures_of_huge_number_of_analyses() {
+    List<String> analysisUuids = IdUuidPairs.uuids(getHugeNumberOfIdUuidPairs());
+    new PurgeCommands(dbTester.getSession(), profiler).deleteComponentMeasures(analysisUuids, "ABCD", asList("DIR", "FIL"));
+    // The goal of this test is only to check that the query do no fail, not to check result
+  }
+
   @Test
   public void shouldDeleteComponentsAndChildrenTables() {
     dbTester.prepareDbUnit(getClass(), "shouldDeleteResource.xml");
@@ -24,6 +24,9 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
 import org.apache.commons.lang.math.RandomUtils;
 import org.junit.Rule;
 import org.junit.Test;
@@ -41,8 +44,10 @@ import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ComponentTesting;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 import static org.sonar.db.ce.CeTaskTypes.REPORT;
 import static org.sonar.db.webhook.WebhookDbTesting.newWebhookDeliveryDto;
@@ -52,6 +57,8 @@ public class PurgeDaoTest {
 
   private static final String THE_PROJECT_UUID = "P1";
   private static final long THE_PROJECT_ID = 1L;
+  // closed issues of fixtures are closed either on 2010-01-01, so they are purged, or on 2025-01-01
+  private static final long NOW = 1_500_000_000_000L;
 
   private System2 system2 = mock(System2.class);
 
@@ -207,10 +214,11 @@ public class PurgeDaoTest {
 
   @Test
   public void should_delete_old_closed_issues() {
+    when(system2.now()).thenReturn(NOW);
     PurgeListener purgeListener = mock(PurgeListener.class);
     dbTester.prepareDbUnit(getClass(), "should_delete_old_closed_issues.xml");
 
-    underTest.purge(dbSession, newConfigurationWith30Days(), purgeListener, new PurgeProfiler());
+    underTest.purge(dbSession, newConfigurationWith30Days(system2), purgeListener, new PurgeProfiler());
     dbSession.commit();
 
     dbTester.assertDbUnit(getClass(), "should_delete_old_closed_issues-result.xml", "issues", "issue_changes");
@@ -224,6 +232,63 @@ public class PurgeDaoTest {
     assertThat(issueKeys.getValue()).containsOnly("ISSUE-1", "ISSUE-2");
   }
 
+  @Test
+  public void groups_of_tables_are_purged_by_threads_of_purge_executor() {
+    when(system2.now()).thenReturn(NOW);
+    dbTester.prepareDbUnit(getClass(), "should_delete_old_closed_issues.xml");
+    List<String> threadNames = Collections.synchronizedList(new ArrayList<>());
+    PurgeExecutor executor = new PurgeExecutor() {
+      @Override
+      public <T> Future<T> submit(Callable<T> task) {
+        return super.submit(() -> {
+          threadNames.add(Thread.currentThread().getName());
+          return task.call();
+        });
+      }
+    };
+
+    new PurgeDao(dbTester.myBatis(), system2, executor).purge(dbSession, newConfigurationWith30Days(system2), PurgeListener.EMPTY, new PurgeProfiler());
+    executor.stop();
+
+    assertThat(threadNames).hasSize(3);
+    assertThat(threadNames).allMatch(name -> name.startsWith("Purge-"));
+    assertThat(dbTester.countRowsOfTable("issues")).isEqualTo(3);
+  }
+
+  @Test
+  public void other_groups_of_tables_are_purged_when_one_group_fails() {
+    when(system2.now()).thenReturn(NOW);
+    PurgeListener purgeListener = mock(PurgeListener.class);
+    dbTester.prepareDbUnit(getClass(), "should_delete_old_closed_issues.xml");
+    AtomicInteger submittedGroups = new AtomicInteger();
+    PurgeExecutor executor = new PurgeExecutor() {
+      @Override
+      public <T> Future<T> submit(Callable<T> task) {
+        // the second group purges duplications
+        if (submittedGroups.incrementAndGet() == 2) {
+          return super.submit(() -> {
+            throw new IllegalStateException("Fail to purge duplications");
+          });
+        }
+        return super.submit(task);
+      }
+    };
+
+    try {
+      new PurgeDao(dbTester.myBatis(), system2, executor).purge(dbSession, newConfigurationWith30Days(system2), purgeListener, new PurgeProfiler());
+      fail("Failure of the purge of duplications should be thrown");
+    } catch (IllegalStateException e) {
+      assertThat(e).hasMessage("Fail to purge duplications");
+    } finally {
+      executor.stop();
+    }
+
+    // the purge of issues is committed independently
+    assertThat(dbTester.countRowsOfTable("issues")).isEqualTo(3);
+    assertThat(dbTester.countRowsOfTable("issue_changes")).isEqualTo(3);
+    verifyZeroInteractions(purgeListener);
+  }
+
   @Test
   public void should_delete_all_closed_issues() {
     dbTester.prepareDbUnit(getClass(), "should_delete_all_closed_issues.xml");
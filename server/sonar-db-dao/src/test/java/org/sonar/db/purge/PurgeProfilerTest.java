@@ -23,6 +23,7 @@ import org.junit.Before;
 import org.junit.Test;
 import org.sonar.api.utils.log.Logger;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.contains;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -80,6 +81,26 @@ public class PurgeProfilerTest {
     verify(logger).info(contains("bar: 5ms"));
   }
 
+  @Test
+  public void merge_adds_durations_of_other_profiler() {
+    profiler.start("foo");
+    clock.sleep(10);
+    profiler.stop();
+
+    MockedClock otherClock = new MockedClock();
+    PurgeProfiler other = new PurgeProfiler(otherClock);
+    other.start("foo");
+    otherClock.sleep(7);
+    other.stop();
+    other.start("bar");
+    otherClock.sleep(3);
+    other.stop();
+
+    profiler.merge(other);
+
+    assertThat(profiler.getProfilingResult(50)).containsExactly("   o foo: 17ms (34%)", "   o bar: 3ms (6%)");
+  }
+
   private class MockedClock extends PurgeProfiler.Clock {
     private long now = 0;
 
@@ -21,6 +21,8 @@ package org.sonar.db.source;
 
 import java.io.IOException;
 import java.io.Reader;
+import java.util.Collections;
+import java.util.List;
 import java.util.function.Function;
 import javax.annotation.Nullable;
 import org.apache.commons.io.IOUtils;
@@ -31,6 +33,7 @@ import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
 import org.sonar.db.source.FileSourceDto.Type;
 
+import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.assertj.core.api.Assertions.fail;
 
@@ -59,6 +62,21 @@ public class FileSourceDaoTest {
     assertThat(fileSourceDto.getRevision()).isEqualTo("123456789");
   }
 
+  @Test
+  public void select_source_data_by_file_uuids() {
+    dbTester.prepareDbUnit(getClass(), "shared.xml");
+
+    List<FileSourceDto> fileSourceDtos = underTest.selectSourceDataByFileUuids(session, asList("FILE1_UUID", "UNKNOWN"));
+
+    assertThat(fileSourceDtos).hasSize(1);
+    FileSourceDto fileSourceDto = fileSourceDtos.get(0);
+    assertThat(fileSourceDto.getFileUuid()).isEqualTo("FILE1_UUID");
+    assertThat(fileSourceDto.getBinaryData()).isNotEmpty();
+    // line hashes are not needed to rebuild the source data
+    assertThat(fileSourceDto.getLineHashes()).isNull();
+    assertThat(underTest.selectSourceDataByFileUuids(session, Collections.emptyList())).isEmpty();
+  }
+
   @Test
   public void select_line_hashes() {
     dbTester.prepareDbUnit(getClass(), "shared.xml");
@@ -48,6 +48,8 @@ public class DbVersion64 implements DbVersion {
       .add(1618, "Add columns CE_QUEUE.WORKER_UUID and EXECUTION_COUNT", AddCeQueueWorkerUuidAndExecutionCount.class)
       .add(1619, "Make CE_QUEUE.EXECUTION_COUNT not nullable", MakeCeQueueExecutionCountNotNullable.class)
       .add(1620, "Add columns CE_ACTIVITY.WORKER_UUID and EXECUTION_COUNT", AddCeActivityWorkerUuidAndExecutionCount.class)
-      .add(1621, "Make columns CE_ACTIVITY.EXECUTION_COUNT not nullable", MakeCeActivityExecutionCountNotNullable.class);
+      .add(1621, "Make columns CE_ACTIVITY.EXECUTION_COUNT not nullable", MakeCeActivityExecutionCountNotNullable.class)
+      .add(1622, "Add column CE_TASK_INPUT.INPUT_REFERENCE", AddCeTaskInputReference.class)
+      .add(1623, "Add column CE_QUEUE.PRIORITY", AddCeQueuePriority.class);
   }
 }
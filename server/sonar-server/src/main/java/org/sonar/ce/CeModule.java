@@ -20,10 +20,12 @@
 package org.sonar.ce;
 
 import org.sonar.ce.http.CeHttpClient;
+import org.sonar.ce.http.WakeUpCeWorkersListener;
 import org.sonar.ce.log.CeLogging;
 import org.sonar.ce.queue.CeQueueImpl;
 import org.sonar.ce.taskprocessor.ReportTaskProcessorDeclaration;
 import org.sonar.core.platform.Module;
+import org.sonar.server.computation.queue.CeTaskInputStorageProvider;
 import org.sonar.server.computation.queue.ReportSubmitter;
 
 public class CeModule extends Module {
@@ -34,6 +36,8 @@ public class CeModule extends Module {
 
       // Queue
       CeQueueImpl.class,
+      new CeTaskInputStorageProvider(),
+      WakeUpCeWorkersListener.class,
       ReportSubmitter.class,
 
       // Core tasks processors
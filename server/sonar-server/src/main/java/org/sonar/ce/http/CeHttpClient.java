@@ -23,11 +23,16 @@ import java.io.File;
 import java.io.IOException;
 import java.net.URI;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import okhttp3.Call;
+import okhttp3.Callback;
 import okhttp3.OkHttpClient;
 import okhttp3.RequestBody;
 import org.apache.commons.io.IOUtils;
 import org.sonar.api.config.Settings;
+import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.LoggerLevel;
+import org.sonar.api.utils.log.Loggers;
 import org.sonar.process.DefaultProcessCommands;
 import org.sonar.process.systeminfo.protobuf.ProtobufSystemInfo;
 
@@ -36,17 +41,30 @@ import static org.sonar.process.ProcessEntryPoint.PROPERTY_SHARED_PATH;
 import static org.sonar.process.ProcessId.COMPUTE_ENGINE;
 
 /**
- * Client for the HTTP server of the Compute Engine.
+ * Client for the HTTP server of the Compute Engine. Calls share the {@link OkHttpClient} of the
+ * server, with short timeouts as the Compute Engine runs on the same host.
  */
 public class CeHttpClient {
 
+  private static final Logger LOG = Loggers.get(CeHttpClient.class);
+  private static final long CONNECT_TIMEOUT_MS = 1_000L;
+  private static final long READ_TIMEOUT_MS = 5_000L;
+
   private static final String PATH_CHANGE_LOG_LEVEL = "changeLogLevel";
   private static final String PATH_SYSTEM_INFO = "systemInfo";
+  private static final String PATH_WAKE_UP_WORKERS = "wakeUpWorkers";
+  private static final String PATH_CHANGE_WORKER_COUNT = "changeWorkerCount";
 
   private final File ipcSharedDir;
+  private final OkHttpClient okHttpClient;
 
-  public CeHttpClient(Settings props) {
+  public CeHttpClient(Settings props, OkHttpClient okHttpClient) {
     this.ipcSharedDir = new File(props.getString(PROPERTY_SHARED_PATH));
+    // connection pool and dispatcher are shared with the given client
+    this.okHttpClient = okHttpClient.newBuilder()
+      .connectTimeout(CONNECT_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+      .readTimeout(READ_TIMEOUT_MS, TimeUnit.MILLISECONDS)
+      .build();
   }
 
   /**
@@ -80,13 +98,15 @@ public class CeHttpClient {
 
   public void changeLogLevel(LoggerLevel level) {
     requireNonNull(level, "level can't be null");
-    call(new ChangeLogLevelActionClient(level));
+    call(new ChangeLogLevelActionClient(okHttpClient, level));
   }
 
   private static final class ChangeLogLevelActionClient implements ActionClient<Void> {
+    private final OkHttpClient okHttpClient;
     private final LoggerLevel newLogLevel;
 
-    private ChangeLogLevelActionClient(LoggerLevel newLogLevel) {
+    private ChangeLogLevelActionClient(OkHttpClient okHttpClient, LoggerLevel newLogLevel) {
+      this.okHttpClient = okHttpClient;
       this.newLogLevel = newLogLevel;
     }
 
@@ -106,7 +126,7 @@ public class CeHttpClient {
         .post(RequestBody.create(null, new byte[0]))
         .url(url + "?level=" + newLogLevel.name())
         .build();
-      okhttp3.Response response = new OkHttpClient().newCall(request).execute();
+      okhttp3.Response response = okHttpClient.newCall(request).execute();
       if (response.code() != 200) {
         throw new IOException(
           String.format(
@@ -119,6 +139,107 @@ public class CeHttpClient {
     }
   }
 
+  /**
+   * Wakes up at most {@code count} workers of the Compute Engine which are waiting for the next
+   * polling of the queue. Does nothing if the Compute Engine is not up.
+   * <p>
+   * The request is sent asynchronously, so that the caller does not wait for the Compute Engine.
+   * As workers also poll the queue, failures are only logged.
+   * </p>
+   */
+  public void wakeUpWorkers(int count) {
+    call(new WakeUpWorkersActionClient(okHttpClient, count));
+  }
+
+  private static final class WakeUpWorkersActionClient implements ActionClient<Void> {
+    private final OkHttpClient okHttpClient;
+    private final int count;
+
+    private WakeUpWorkersActionClient(OkHttpClient okHttpClient, int count) {
+      this.okHttpClient = okHttpClient;
+      this.count = count;
+    }
+
+    @Override
+    public String getPath() {
+      return PATH_WAKE_UP_WORKERS;
+    }
+
+    @Override
+    public Void getDefault() {
+      return null;
+    }
+
+    @Override
+    public Void call(String url) throws Exception {
+      okhttp3.Request request = new okhttp3.Request.Builder()
+        .post(RequestBody.create(null, new byte[0]))
+        .url(url + "?count=" + count)
+        .build();
+      okHttpClient.newCall(request).enqueue(new Callback() {
+        @Override
+        public void onFailure(Call call, IOException e) {
+          LOG.debug("Failed to wake up workers of Compute Engine", e);
+        }
+
+        @Override
+        public void onResponse(Call call, okhttp3.Response response) {
+          response.body().close();
+          if (response.code() != 200) {
+            LOG.debug("Failed to wake up workers of Compute Engine. Code was '{}' for url '{}'", response.code(), url);
+          }
+        }
+      });
+      return null;
+    }
+  }
+
+  /**
+   * Adds or removes workers of the Compute Engine. Does nothing if the Compute Engine is not up.
+   */
+  public void changeWorkerCount(int count) {
+    call(new ChangeWorkerCountActionClient(okHttpClient, count));
+  }
+
+  private static final class ChangeWorkerCountActionClient implements ActionClient<Void> {
+    private final OkHttpClient okHttpClient;
+    private final int count;
+
+    private ChangeWorkerCountActionClient(OkHttpClient okHttpClient, int count) {
+      this.okHttpClient = okHttpClient;
+      this.count = count;
+    }
+
+    @Override
+    public String getPath() {
+      return PATH_CHANGE_WORKER_COUNT;
+    }
+
+    @Override
+    public Void getDefault() {
+      return null;
+    }
+
+    @Override
+    public Void call(String url) throws Exception {
+      okhttp3.Request request = new okhttp3.Request.Builder()
+        .post(RequestBody.create(null, new byte[0]))
+        .url(url + "?count=" + count)
+        .build();
+      okhttp3.Response response = okHttpClient.newCall(request).execute();
+      if (response.code() != 200) {
+        throw new IOException(
+          String.format(
+            "Failed to change worker count of Compute Engine. Code was '%s' and response was '%s' for url '%s'",
+            response.code(),
+            response.body().string(),
+            url));
+      }
+      response.body().close();
+      return null;
+    }
+  }
+
   private <T> T call(ActionClient<T> actionClient) {
     try (DefaultProcessCommands commands = DefaultProcessCommands.secondary(ipcSharedDir, COMPUTE_ENGINE.getIpcIndex())) {
       if (commands.isUp()) {
@@ -0,0 +1,53 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.http;
+
+import java.util.Collection;
+import org.sonar.api.server.ServerSide;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.ce.queue.CeQueueListener;
+import org.sonar.ce.queue.CeTask;
+
+/**
+ * Wakes up idle workers of the Compute Engine when tasks are submitted from the Web Server, so that
+ * tasks are processed without waiting for the next polling of the queue.
+ * Polling of the queue by workers is kept as a safety net, so failures are ignored.
+ */
+@ServerSide
+public class WakeUpCeWorkersListener implements CeQueueListener {
+
+  private final CeHttpClient ceHttpClient;
+
+  public WakeUpCeWorkersListener(CeHttpClient ceHttpClient) {
+    this.ceHttpClient = ceHttpClient;
+  }
+
+  @Override
+  public void onSubmit(Collection<CeTask> tasks) {
+    if (tasks.isEmpty()) {
+      return;
+    }
+    try {
+      ceHttpClient.wakeUpWorkers(tasks.size());
+    } catch (Exception e) {
+      Loggers.get(WakeUpCeWorkersListener.class).debug("Fail to wake up workers of Compute Engine", e);
+    }
+  }
+}
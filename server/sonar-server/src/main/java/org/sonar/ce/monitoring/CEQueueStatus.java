@@ -61,6 +61,17 @@ public interface CEQueueStatus {
    */
   long addError(long processingTime);
 
+  /**
+   * Records the time a batch report waited in queue before its processing started.
+   *
+   * @param waitingTime duration of waiting in ms
+   *
+   * @see #getWaitingTimePercentile(int)
+   *
+   * @throws IllegalArgumentException if waitingTime is < 0
+   */
+  void addWaitingTime(long waitingTime);
+
   /**
    * Count of batch reports waiting for processing since startup, including reports received before instance startup.
    */
@@ -85,4 +96,14 @@ public interface CEQueueStatus {
    * Time spent processing batch reports since startup, in milliseconds.
    */
   long getProcessingTime();
+
+  /**
+   * Percentile of the time the last batch reports under processing waited in queue, in milliseconds. Returns 0 if
+   * no batch reports have been processed since startup.
+   *
+   * @param percentile between 1 and 100
+   *
+   * @throws IllegalArgumentException if percentile is not between 1 and 100
+   */
+  long getWaitingTimePercentile(int percentile);
 }
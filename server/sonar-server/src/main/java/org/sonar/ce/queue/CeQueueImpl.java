@@ -37,6 +37,7 @@ import org.sonar.db.DbSession;
 import org.sonar.db.ce.CeActivityDto;
 import org.sonar.db.ce.CeQueueDto;
 import org.sonar.db.component.ComponentDto;
+import org.sonar.server.computation.queue.CeTaskInputStorage;
 import org.sonar.server.organization.DefaultOrganizationProvider;
 
 import static com.google.common.base.Preconditions.checkState;
@@ -51,14 +52,27 @@ public class CeQueueImpl implements CeQueue {
   private final DbClient dbClient;
   private final UuidFactory uuidFactory;
   private final DefaultOrganizationProvider defaultOrganizationProvider;
+  private final CeTaskInputStorage taskInputStorage;
+  private final CeQueueListener[] listeners;
 
   // state
   private AtomicBoolean submitPaused = new AtomicBoolean(false);
 
-  public CeQueueImpl(DbClient dbClient, UuidFactory uuidFactory, DefaultOrganizationProvider defaultOrganizationProvider) {
+  public CeQueueImpl(DbClient dbClient, UuidFactory uuidFactory, DefaultOrganizationProvider defaultOrganizationProvider,
+    CeTaskInputStorage taskInputStorage, CeQueueListener[] listeners) {
     this.dbClient = dbClient;
     this.uuidFactory = uuidFactory;
     this.defaultOrganizationProvider = defaultOrganizationProvider;
+    this.taskInputStorage = taskInputStorage;
+    this.listeners = listeners;
+  }
+
+  /**
+   * Used by Pico when there are no {@link CeQueueListener}
+   */
+  public CeQueueImpl(DbClient dbClient, UuidFactory uuidFactory, DefaultOrganizationProvider defaultOrganizationProvider,
+    CeTaskInputStorage taskInputStorage) {
+    this(dbClient, uuidFactory, defaultOrganizationProvider, taskInputStorage, new CeQueueListener[0]);
   }
 
   @Override
@@ -74,6 +88,7 @@ public class CeQueueImpl implements CeQueue {
       CeQueueDto dto = new CeTaskSubmitToInsertedCeQueueDto(dbSession, dbClient).apply(submission);
       CeTask task = loadTask(dbSession, dto);
       dbSession.commit();
+      notifyListeners(singleton(task));
       return task;
     }
   }
@@ -91,10 +106,17 @@ public class CeQueueImpl implements CeQueue {
         .toList();
       List<CeTask> tasks = loadTasks(dbSession, ceQueueDtos);
       dbSession.commit();
+      notifyListeners(tasks);
       return tasks;
     }
   }
 
+  private void notifyListeners(Collection<CeTask> tasks) {
+    for (CeQueueListener listener : listeners) {
+      listener.onSubmit(tasks);
+    }
+  }
+
   protected CeTask loadTask(DbSession dbSession, CeQueueDto dto) {
     if (dto.getComponentUuid() == null) {
       return new CeQueueDtoToCeTask(defaultOrganizationProvider.get().getUuid()).apply(dto);
@@ -160,8 +182,8 @@ public class CeQueueImpl implements CeQueue {
   protected void remove(DbSession dbSession, CeQueueDto queueDto, CeActivityDto activityDto) {
     dbClient.ceActivityDao().insert(dbSession, activityDto);
     dbClient.ceQueueDao().deleteByUuid(dbSession, queueDto.getUuid());
-    dbClient.ceTaskInputDao().deleteByUuids(dbSession, singleton(queueDto.getUuid()));
-    dbSession.commit();
+    // session is committed
+    taskInputStorage.delete(dbSession, singleton(queueDto.getUuid()));
   }
 
   @Override
@@ -235,6 +257,7 @@ public class CeQueueImpl implements CeQueue {
       dto.setComponentUuid(submission.getComponentUuid());
       dto.setStatus(CeQueueDto.Status.PENDING);
       dto.setSubmitterLogin(submission.getSubmitterLogin());
+      dto.setPriority(submission.getPriority());
       dto.setStartedAt(null);
       dbClient.ceQueueDao().insert(dbSession, dto);
       return dto;
@@ -33,12 +33,14 @@ public final class CeTaskSubmit {
   private final String type;
   private final String componentUuid;
   private final String submitterLogin;
+  private final int priority;
 
   private CeTaskSubmit(Builder builder) {
     this.uuid = Objects.requireNonNull(emptyToNull(builder.uuid));
     this.type = Objects.requireNonNull(emptyToNull(builder.type));
     this.componentUuid = emptyToNull(builder.componentUuid);
     this.submitterLogin = emptyToNull(builder.submitterLogin);
+    this.priority = builder.priority;
   }
 
   public String getType() {
@@ -59,11 +61,19 @@ public final class CeTaskSubmit {
     return submitterLogin;
   }
 
+  /**
+   * Tasks with the highest priority are processed first. Default is 0.
+   */
+  public int getPriority() {
+    return priority;
+  }
+
   public static final class Builder {
     private final String uuid;
     private String type;
     private String componentUuid;
     private String submitterLogin;
+    private int priority = 0;
 
     public Builder(String uuid) {
       this.uuid = uuid;
@@ -88,6 +98,11 @@ public final class CeTaskSubmit {
       return this;
     }
 
+    public Builder setPriority(int i) {
+      this.priority = i;
+      return this;
+    }
+
     public CeTaskSubmit build() {
       return new CeTaskSubmit(this);
     }
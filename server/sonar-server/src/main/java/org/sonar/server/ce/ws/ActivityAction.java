@@ -47,10 +47,12 @@ import org.sonar.db.ce.CeTaskTypes;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ComponentQuery;
 import org.sonar.server.user.UserSession;
+import org.sonar.server.ws.ProtobufStreamWriter;
 import org.sonarqube.ws.WsCe;
 import org.sonarqube.ws.WsCe.ActivityResponse;
 import org.sonarqube.ws.client.ce.ActivityWsRequest;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static java.lang.String.format;
 import static java.util.Collections.singletonList;
 import static org.apache.commons.lang.StringUtils.defaultString;
@@ -58,7 +60,6 @@ import static org.sonar.api.utils.DateUtils.parseEndingDateOrDateTime;
 import static org.sonar.api.utils.DateUtils.parseStartingDateOrDateTime;
 import static org.sonar.db.Pagination.forPage;
 import static org.sonar.server.ws.WsUtils.checkRequest;
-import static org.sonar.server.ws.WsUtils.writeProtobuf;
 import static org.sonarqube.ws.client.ce.CeWsParameters.PARAM_COMPONENT_ID;
 import static org.sonarqube.ws.client.ce.CeWsParameters.PARAM_COMPONENT_QUERY;
 import static org.sonarqube.ws.client.ce.CeWsParameters.PARAM_MAX_EXECUTED_AT;
@@ -152,34 +153,37 @@ public class ActivityAction implements CeWsAction {
 
   @Override
   public void handle(Request wsRequest, Response wsResponse) throws Exception {
-    ActivityResponse activityResponse = doHandle(toSearchWsRequest(wsRequest));
-    writeProtobuf(activityResponse, wsRequest, wsResponse);
-  }
-
-  private ActivityResponse doHandle(ActivityWsRequest request) {
+    ActivityWsRequest request = toSearchWsRequest(wsRequest);
     checkPermission(request);
 
     try (DbSession dbSession = dbClient.openSession(false)) {
       // if a task searched by uuid is found all other parameters are ignored
       Optional<WsCe.Task> taskSearchedById = searchTaskByUuid(dbSession, request);
       if (taskSearchedById.isPresent()) {
-        return buildResponse(
-          singletonList(taskSearchedById.get()),
-          Collections.emptyList(),
-          request.getPageSize());
+        ProtobufStreamWriter writer = newWriter(wsRequest, wsResponse);
+        writer.write(taskSearchedById.get());
+        writer.finish();
+        return;
       }
 
       CeTaskQuery query = buildQuery(dbSession, request);
-      Iterable<WsCe.Task> queuedTasks = loadQueuedTasks(dbSession, request, query);
-      Iterable<WsCe.Task> pastTasks = loadPastTasks(dbSession, request, query);
-
-      return buildResponse(
-        queuedTasks,
-        pastTasks,
-        request.getPageSize());
+      List<CeQueueDto> queuedTasks = loadQueuedTasks(dbSession, request, query);
+      List<CeActivityDto> pastTasks = loadPastTasks(dbSession, request.getPageSize() - queuedTasks.size(), query);
+
+      // tasks are formatted before the response is committed, so that errors are not returned with a truncated body
+      List<WsCe.Task> formattedQueuedTasks = formatter.formatQueue(dbSession, queuedTasks);
+      List<WsCe.Task> formattedPastTasks = formatter.formatActivity(dbSession, pastTasks);
+      ProtobufStreamWriter writer = newWriter(wsRequest, wsResponse);
+      formattedQueuedTasks.forEach(writer::write);
+      formattedPastTasks.forEach(writer::write);
+      writer.finish();
     }
   }
 
+  private static ProtobufStreamWriter newWriter(Request wsRequest, Response wsResponse) {
+    return ProtobufStreamWriter.of(ActivityResponse.getDefaultInstance(), "tasks", wsRequest, wsResponse);
+  }
+
   private void checkPermission(ActivityWsRequest request) {
     // fail fast if not logged in
     userSession.checkLoggedIn();
@@ -248,34 +252,18 @@ public class ActivityAction implements CeWsAction {
     return null;
   }
 
-  private List<WsCe.Task> loadQueuedTasks(DbSession dbSession, ActivityWsRequest request, CeTaskQuery query) {
-    List<CeQueueDto> dtos = dbClient.ceQueueDao().selectByQueryInDescOrder(dbSession, query, request.getPageSize());
-    return formatter.formatQueue(dbSession, dtos);
-  }
-
-  private List<WsCe.Task> loadPastTasks(DbSession dbSession, ActivityWsRequest request, CeTaskQuery query) {
-    List<CeActivityDto> dtos = dbClient.ceActivityDao().selectByQuery(dbSession, query, forPage(1).andSize(request.getPageSize()));
-    return formatter.formatActivity(dbSession, dtos);
+  private List<CeQueueDto> loadQueuedTasks(DbSession dbSession, ActivityWsRequest request, CeTaskQuery query) {
+    return dbClient.ceQueueDao().selectByQueryInDescOrder(dbSession, query, request.getPageSize());
   }
 
-  private static ActivityResponse buildResponse(Iterable<WsCe.Task> queuedTasks, Iterable<WsCe.Task> pastTasks, int pageSize) {
-    WsCe.ActivityResponse.Builder wsResponseBuilder = WsCe.ActivityResponse.newBuilder();
-
-    int nbInsertedTasks = 0;
-    for (WsCe.Task queuedTask : queuedTasks) {
-      if (nbInsertedTasks < pageSize) {
-        wsResponseBuilder.addTasks(queuedTask);
-        nbInsertedTasks++;
-      }
-    }
-
-    for (WsCe.Task pastTask : pastTasks) {
-      if (nbInsertedTasks < pageSize) {
-        wsResponseBuilder.addTasks(pastTask);
-        nbInsertedTasks++;
-      }
+  /**
+   * Past tasks only complete the page of queued tasks
+   */
+  private List<CeActivityDto> loadPastTasks(DbSession dbSession, int remainingPageSize, CeTaskQuery query) {
+    if (remainingPageSize <= 0) {
+      return Collections.emptyList();
     }
-    return wsResponseBuilder.build();
+    return dbClient.ceActivityDao().selectByQuery(dbSession, query, forPage(1).andSize(remainingPageSize));
   }
 
   private static ActivityWsRequest toSearchWsRequest(Request request) {
@@ -291,6 +279,8 @@ public class ActivityAction implements CeWsAction {
 
     checkRequest(activityWsRequest.getComponentId() == null || activityWsRequest.getQuery() == null, "%s and %s must not be set at the same time",
       PARAM_COMPONENT_ID, PARAM_COMPONENT_QUERY);
+    // past tasks are not always loaded, so page size is not always checked by Pagination
+    checkArgument(activityWsRequest.getPageSize() >= 1, "page size must be >= 1");
     checkRequest(activityWsRequest.getPageSize() <= MAX_PAGE_SIZE, "The '%s' parameter must be less than %d", Param.PAGE_SIZE, MAX_PAGE_SIZE);
 
     return activityWsRequest;
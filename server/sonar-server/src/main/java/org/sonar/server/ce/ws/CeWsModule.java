@@ -30,6 +30,7 @@ public class CeWsModule extends Module {
       ActivityStatusAction.class,
       CancelAction.class,
       CancelAllAction.class,
+      ChangeWorkerCountAction.class,
       IsQueueEmptyWs.class,
       ComponentAction.class,
       SubmitAction.class,
@@ -0,0 +1,68 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.ce.ws;
+
+import org.sonar.api.server.ws.Request;
+import org.sonar.api.server.ws.Response;
+import org.sonar.api.server.ws.WebService;
+import org.sonar.ce.http.CeHttpClient;
+import org.sonar.server.user.UserSession;
+
+import static org.sonar.server.ws.WsUtils.checkRequest;
+
+public class ChangeWorkerCountAction implements CeWsAction {
+
+  private static final String PARAM_COUNT = "count";
+
+  private final UserSession userSession;
+  private final CeHttpClient ceHttpClient;
+
+  public ChangeWorkerCountAction(UserSession userSession, CeHttpClient ceHttpClient) {
+    this.userSession = userSession;
+    this.ceHttpClient = ceHttpClient;
+  }
+
+  @Override
+  public void define(WebService.NewController controller) {
+    WebService.NewAction action = controller.createAction("change_worker_count")
+      .setDescription("Temporarily changes the number of workers of the Compute Engine, without interrupting the tasks in progress. " +
+        "New count is not persistent and is lost when restarting server. When auto-scaling of workers is enabled, " +
+        "the count is then adjusted between the configured minimum and maximum. Requires system administration permission.")
+      .setInternal(true)
+      .setPost(true)
+      .setSince("6.4")
+      .setHandler(this);
+
+    action.createParam(PARAM_COUNT)
+      .setDescription("The new number of workers. Must be strictly greater than 0.")
+      .setExampleValue("4")
+      .setRequired(true);
+  }
+
+  @Override
+  public void handle(Request wsRequest, Response wsResponse) {
+    userSession.checkIsSystemAdministrator();
+
+    int count = wsRequest.mandatoryParamAsInt(PARAM_COUNT);
+    checkRequest(count >= 1, "Parameter '%s' must be strictly greater than 0", PARAM_COUNT);
+    ceHttpClient.changeWorkerCount(count);
+    wsResponse.noContent();
+  }
+}
@@ -28,7 +28,8 @@ public interface CeConfiguration {
 
   /**
    * The delay in milliseconds before calling another {@link org.sonar.server.computation.taskprocessor.CeWorkerCallable}
-   * when previous one had nothing to do.
+   * when previous one had nothing to do. Workers are woken up before this delay when a task is submitted
+   * (see {@link org.sonar.server.computation.taskprocessor.CeProcessingScheduler#wakeUp()}).
    */
   long getQueuePollingDelay();
 }
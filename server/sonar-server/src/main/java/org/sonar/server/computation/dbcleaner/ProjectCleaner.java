@@ -74,6 +74,10 @@ public class ProjectCleaner {
       LOG.info("\n -------- Profiling for purge: " + TimeUtils.formatDuration(duration) + " --------\n");
       profiler.dump(duration, LOG);
       LOG.info("\n -------- End of profiling for purge --------\n");
+    } else if (LOG.isDebugEnabled()) {
+      long duration = System.currentTimeMillis() - start;
+      LOG.debug("Purge done in {}", TimeUtils.formatDuration(duration));
+      profiler.getProfilingResult(duration).forEach(LOG::debug);
     }
   }
 
@@ -19,6 +19,7 @@
  */
 package org.sonar.server.computation.monitoring;
 
+import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicLong;
 import org.sonar.ce.monitoring.CEQueueStatus;
 import org.sonar.db.DbClient;
@@ -29,11 +30,17 @@ import static com.google.common.base.Preconditions.checkArgument;
 
 public class CEQueueStatusImpl implements CEQueueStatus {
 
+  // number of the last waiting times used to compute percentiles
+  private static final int WAITING_TIMES_WINDOW = 1_000;
+
   private final DbClient dbClient;
   private final AtomicLong inProgress = new AtomicLong(0);
   private final AtomicLong error = new AtomicLong(0);
   private final AtomicLong success = new AtomicLong(0);
   private final AtomicLong processingTime = new AtomicLong(0);
+  // circular buffer of the last waiting times, guarded by itself
+  private final long[] waitingTimes = new long[WAITING_TIMES_WINDOW];
+  private long waitingTimesCount = 0;
 
   public CEQueueStatusImpl(DbClient dbClient) {
     this.dbClient = dbClient;
@@ -63,6 +70,15 @@ public class CEQueueStatusImpl implements CEQueueStatus {
     processingTime.addAndGet(ms);
   }
 
+  @Override
+  public void addWaitingTime(long waitingTimeInMs) {
+    checkArgument(waitingTimeInMs >= 0, "Waiting time can not be < 0");
+    synchronized (waitingTimes) {
+      waitingTimes[(int) (waitingTimesCount % WAITING_TIMES_WINDOW)] = waitingTimeInMs;
+      waitingTimesCount++;
+    }
+  }
+
   @Override
   public long getPendingCount() {
     try (DbSession dbSession = dbClient.openSession(false)) {
@@ -89,4 +105,20 @@ public class CEQueueStatusImpl implements CEQueueStatus {
   public long getProcessingTime() {
     return processingTime.get();
   }
+
+  @Override
+  public long getWaitingTimePercentile(int percentile) {
+    checkArgument(percentile >= 1 && percentile <= 100, "Percentile must be between 1 and 100: %s", percentile);
+    long[] sorted;
+    synchronized (waitingTimes) {
+      sorted = Arrays.copyOf(waitingTimes, (int) Math.min(waitingTimesCount, WAITING_TIMES_WINDOW));
+    }
+    if (sorted.length == 0) {
+      return 0L;
+    }
+    Arrays.sort(sorted);
+    // nearest-rank method
+    int rank = (int) Math.ceil(percentile / 100.0 * sorted.length);
+    return sorted[Math.max(rank, 1) - 1];
+  }
 }
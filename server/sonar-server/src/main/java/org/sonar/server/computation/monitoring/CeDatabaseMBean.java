@@ -40,4 +40,17 @@ public interface CeDatabaseMBean {
   boolean getPoolRemoveAbandoned();
 
   int getPoolRemoveAbandonedTimeoutSeconds();
+
+  long getPoolWaitP50Micros();
+
+  long getPoolWaitP99Micros();
+
+  long getPoolWaitTimeouts();
+
+  long getPoolConnectionLifetimeP99Millis();
+
+  /**
+   * Execution statistics of the SQL statements which cumulate the highest execution time since startup.
+   */
+  String[] getSqlStatementStatistics();
 }
@@ -19,14 +19,22 @@
  */
 package org.sonar.server.computation.monitoring;
 
+import java.util.List;
 import org.apache.commons.dbcp.BasicDataSource;
 import org.picocontainer.Startable;
+import org.sonar.db.Database;
 import org.sonar.db.DbClient;
+import org.sonar.db.DefaultDatabase;
+import org.sonar.db.profiling.ConnectionPoolStatistics;
+import org.sonar.db.profiling.SqlStatementStatistics;
 import org.sonar.process.Jmx;
 import org.sonar.process.systeminfo.SystemInfoSection;
 import org.sonar.process.systeminfo.protobuf.ProtobufSystemInfo;
 
 public class CeDatabaseMBeanImpl implements CeDatabaseMBean, Startable, SystemInfoSection {
+  private static final int TOP_SQL_STATEMENTS = 10;
+  private static final ConnectionPoolStatistics NO_POOL_STATISTICS = new ConnectionPoolStatistics();
+
   private final DbClient dbClient;
 
   public CeDatabaseMBeanImpl(DbClient dbClient) {
@@ -91,6 +99,45 @@ public class CeDatabaseMBeanImpl implements CeDatabaseMBean, Startable, SystemIn
     return commonsDbcp().getRemoveAbandonedTimeout();
   }
 
+  @Override
+  public long getPoolWaitP50Micros() {
+    return poolStatistics().getAcquisitionWaitMicrosAtPercentile(50.0);
+  }
+
+  @Override
+  public long getPoolWaitP99Micros() {
+    return poolStatistics().getAcquisitionWaitMicrosAtPercentile(99.0);
+  }
+
+  @Override
+  public long getPoolWaitTimeouts() {
+    return poolStatistics().getTimeouts();
+  }
+
+  @Override
+  public long getPoolConnectionLifetimeP99Millis() {
+    return poolStatistics().getLifetimeMillisAtPercentile(99.0);
+  }
+
+  @Override
+  public String[] getSqlStatementStatistics() {
+    return topSqlStatements().stream()
+      .map(SqlStatementStatistics.StatementStatistics::toString)
+      .toArray(String[]::new);
+  }
+
+  private List<SqlStatementStatistics.StatementStatistics> topSqlStatements() {
+    return dbClient.getMyBatis().getStatementStatistics().getTopByTotalTime(TOP_SQL_STATEMENTS);
+  }
+
+  private ConnectionPoolStatistics poolStatistics() {
+    Database database = dbClient.getDatabase();
+    if (database instanceof DefaultDatabase) {
+      return ((DefaultDatabase) database).getConnectionPool().getStatistics();
+    }
+    return NO_POOL_STATISTICS;
+  }
+
   private BasicDataSource commonsDbcp() {
     return (BasicDataSource) dbClient.getDatabase().getDataSource();
   }
@@ -108,6 +155,13 @@ public class CeDatabaseMBeanImpl implements CeDatabaseMBean, Startable, SystemIn
     builder.addAttributesBuilder().setKey("Pool Max Wait (ms)").setLongValue(getPoolMaxWaitMillis()).build();
     builder.addAttributesBuilder().setKey("Pool Remove Abandoned").setBooleanValue(getPoolRemoveAbandoned()).build();
     builder.addAttributesBuilder().setKey("Pool Remove Abandoned Timeout (sec)").setLongValue(getPoolRemoveAbandonedTimeoutSeconds()).build();
+    builder.addAttributesBuilder().setKey("Pool Wait p50 (us)").setLongValue(getPoolWaitP50Micros()).build();
+    builder.addAttributesBuilder().setKey("Pool Wait p99 (us)").setLongValue(getPoolWaitP99Micros()).build();
+    builder.addAttributesBuilder().setKey("Pool Wait Timeouts").setLongValue(getPoolWaitTimeouts()).build();
+    builder.addAttributesBuilder().setKey("Pool Connection Lifetime p99 (ms)").setLongValue(getPoolConnectionLifetimeP99Millis()).build();
+    for (SqlStatementStatistics.StatementStatistics statistics : topSqlStatements()) {
+      builder.addAttributesBuilder().setKey("SQL " + statistics.getStatementId()).setStringValue(statistics.summary()).build();
+    }
     return builder.build();
   }
 }
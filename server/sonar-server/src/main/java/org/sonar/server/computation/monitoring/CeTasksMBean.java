@@ -49,7 +49,22 @@ public interface CeTasksMBean {
   long getProcessingTime();
 
   /**
-   * Configured number of Workers.
+   * Median of the time the last reports waited in queue before being processed, in milliseconds.
+   */
+  long getWaitingTimeMedian();
+
+  /**
+   * 95th percentile of the time the last reports waited in queue before being processed, in milliseconds.
+   */
+  long getWaitingTime95thPercentile();
+
+  /**
+   * 99th percentile of the time the last reports waited in queue before being processed, in milliseconds.
+   */
+  long getWaitingTime99thPercentile();
+
+  /**
+   * Number of Workers. It may differ from the configured one when workers are added or removed at runtime.
    */
   int getWorkerCount();
 }
@@ -24,15 +24,15 @@ import org.sonar.ce.monitoring.CEQueueStatus;
 import org.sonar.process.Jmx;
 import org.sonar.process.systeminfo.SystemInfoSection;
 import org.sonar.process.systeminfo.protobuf.ProtobufSystemInfo;
-import org.sonar.server.computation.configuration.CeConfiguration;
+import org.sonar.server.computation.taskprocessor.CeProcessingScheduler;
 
 public class CeTasksMBeanImpl implements CeTasksMBean, Startable, SystemInfoSection {
   private final CEQueueStatus queueStatus;
-  private final CeConfiguration ceConfiguration;
+  private final CeProcessingScheduler processingScheduler;
 
-  public CeTasksMBeanImpl(CEQueueStatus queueStatus, CeConfiguration ceConfiguration) {
+  public CeTasksMBeanImpl(CEQueueStatus queueStatus, CeProcessingScheduler processingScheduler) {
     this.queueStatus = queueStatus;
-    this.ceConfiguration = ceConfiguration;
+    this.processingScheduler = processingScheduler;
   }
 
   @Override
@@ -73,9 +73,24 @@ public class CeTasksMBeanImpl implements CeTasksMBean, Startable, SystemInfoSect
     return queueStatus.getProcessingTime();
   }
 
+  @Override
+  public long getWaitingTimeMedian() {
+    return queueStatus.getWaitingTimePercentile(50);
+  }
+
+  @Override
+  public long getWaitingTime95thPercentile() {
+    return queueStatus.getWaitingTimePercentile(95);
+  }
+
+  @Override
+  public long getWaitingTime99thPercentile() {
+    return queueStatus.getWaitingTimePercentile(99);
+  }
+
   @Override
   public int getWorkerCount() {
-    return ceConfiguration.getWorkerCount();
+    return processingScheduler.getWorkerCount();
   }
 
   @Override
@@ -87,6 +102,9 @@ public class CeTasksMBeanImpl implements CeTasksMBean, Startable, SystemInfoSect
     builder.addAttributesBuilder().setKey("Processed With Error").setLongValue(getErrorCount()).build();
     builder.addAttributesBuilder().setKey("Processed With Success").setLongValue(getSuccessCount()).build();
     builder.addAttributesBuilder().setKey("Processing Time (ms)").setLongValue(getProcessingTime()).build();
+    builder.addAttributesBuilder().setKey("Waiting Time Median (ms)").setLongValue(getWaitingTimeMedian()).build();
+    builder.addAttributesBuilder().setKey("Waiting Time 95th Percentile (ms)").setLongValue(getWaitingTime95thPercentile()).build();
+    builder.addAttributesBuilder().setKey("Waiting Time 99th Percentile (ms)").setLongValue(getWaitingTime99thPercentile()).build();
     builder.addAttributesBuilder().setKey("Worker Count").setLongValue(getWorkerCount()).build();
     return builder.build();
   }
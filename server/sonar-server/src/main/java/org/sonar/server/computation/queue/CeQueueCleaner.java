@@ -19,7 +19,12 @@
  */
 package org.sonar.server.computation.queue;
 
-import java.util.List;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.picocontainer.Startable;
 import org.sonar.api.ce.ComputeEngineSide;
 import org.sonar.api.platform.ServerUpgradeStatus;
 import org.sonar.api.utils.log.Logger;
@@ -30,20 +35,59 @@ import org.sonar.db.DbSession;
 /**
  * Cleans-up the Compute Engine queue and resets the JMX counters.
  * CE workers must not be started before execution of this class.
+ * <p>
+ * Data of tasks which could not be deleted at the same time as the tasks is
+ * periodically cleaned-up, see {@link CeTaskInputStorage#deleteUnreferencedData(DbSession)}.
+ * </p>
  */
 @ComputeEngineSide
-public class CeQueueCleaner {
+public class CeQueueCleaner implements Startable {
 
   private static final Logger LOGGER = Loggers.get(CeQueueCleaner.class);
+  private static final String THREAD_NAME_PREFIX = "ce-queue-cleaner-";
+  private static final long PERIOD_IN_MINUTES = 60;
 
   private final DbClient dbClient;
   private final ServerUpgradeStatus serverUpgradeStatus;
   private final InternalCeQueue queue;
+  private final CeTaskInputStorage taskInputStorage;
+  private ScheduledExecutorService executorService;
 
-  public CeQueueCleaner(DbClient dbClient, ServerUpgradeStatus serverUpgradeStatus, InternalCeQueue queue) {
+  public CeQueueCleaner(DbClient dbClient, ServerUpgradeStatus serverUpgradeStatus, InternalCeQueue queue, CeTaskInputStorage taskInputStorage) {
     this.dbClient = dbClient;
     this.serverUpgradeStatus = serverUpgradeStatus;
     this.queue = queue;
+    this.taskInputStorage = taskInputStorage;
+  }
+
+  @Override
+  public void start() {
+    executorService = Executors.newSingleThreadScheduledExecutor(
+      new ThreadFactoryBuilder()
+        .setNameFormat(THREAD_NAME_PREFIX + "%d")
+        .setPriority(Thread.MIN_PRIORITY)
+        .build());
+    executorService.scheduleWithFixedDelay(() -> {
+      try {
+        deleteUnreferencedTaskInputs();
+      } catch (Exception e) {
+        LOGGER.error("Failed to clean-up data of Compute Engine tasks", e);
+      }
+    }, PERIOD_IN_MINUTES, PERIOD_IN_MINUTES, TimeUnit.MINUTES);
+  }
+
+  @Override
+  public void stop() {
+    if (executorService != null) {
+      executorService.shutdown();
+    }
+  }
+
+  @VisibleForTesting
+  void deleteUnreferencedTaskInputs() {
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      taskInputStorage.deleteUnreferencedData(dbSession);
+    }
   }
 
   public void clean(DbSession dbSession) {
@@ -69,8 +113,6 @@ public class CeQueueCleaner {
     // Reports that have been processed are not kept in database yet.
     // They are supposed to be systematically dropped.
     // Let's clean-up orphans if any.
-    List<String> uuids = dbClient.ceTaskInputDao().selectUuidsNotInQueue(dbSession);
-    dbClient.ceTaskInputDao().deleteByUuids(dbSession, uuids);
-    dbSession.commit();
+    taskInputStorage.deleteOrphans(dbSession);
   }
 }
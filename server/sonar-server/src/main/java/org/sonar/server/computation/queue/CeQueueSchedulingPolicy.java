@@ -0,0 +1,186 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.queue;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.Multiset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import org.sonar.api.ce.ComputeEngineSide;
+import org.sonar.api.config.Settings;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.Pagination;
+import org.sonar.db.ce.CeActivityDto;
+import org.sonar.db.ce.CeTaskQuery;
+import org.sonar.db.ce.EligibleTaskDto;
+
+import static java.lang.String.format;
+import static java.util.stream.Collectors.toList;
+import static org.apache.commons.lang.StringUtils.defaultIfBlank;
+
+/**
+ * Defines in which order the pending tasks are processed by workers:
+ * <ol>
+ *   <li>tasks with highest priority first</li>
+ *   <li>then, if fair share is enabled (it is disabled by default), tasks of the organizations (or projects) which have the fewest tasks in
+ *   progress, then which have been served the least recently, so that a burst of submissions from an organization
+ *   does not starve the others</li>
+ *   <li>then, if shortest-job-first is enabled, tasks with the smallest sum of submission date and of the
+ *   duration of the last execution of their component. Waiting tasks age, so that long tasks are not starved.</li>
+ *   <li>then oldest tasks first</li>
+ * </ol>
+ */
+@ComputeEngineSide
+public class CeQueueSchedulingPolicy {
+
+  static final String FAIR_SHARE_PROPERTY = "sonar.ce.queue.fairShare";
+  static final String SHORTEST_JOB_FIRST_PROPERTY = "sonar.ce.queue.shortestJobFirst";
+
+  /**
+   * Maximum number of groups whose date of last service is remembered. The history is reset when it is reached,
+   * so that memory does not grow with the number of organizations or projects.
+   */
+  static final int MAX_SERVED_GROUPS = 10_000;
+
+  enum FairShare {
+    NONE(null),
+    ORGANIZATION(EligibleTaskDto::getOrganizationUuid),
+    PROJECT(EligibleTaskDto::getComponentUuid);
+
+    private final Function<EligibleTaskDto, String> groupFunction;
+
+    FairShare(Function<EligibleTaskDto, String> groupFunction) {
+      this.groupFunction = groupFunction;
+    }
+  }
+
+  private final DbClient dbClient;
+  private final FairShare fairShare;
+  private final boolean shortestJobFirst;
+
+  // sequence of the last task peeked by group, used to serve groups in a round-robin manner
+  private final Map<String, Long> lastServedByGroup = new ConcurrentHashMap<>();
+  private final AtomicLong servedSequence = new AtomicLong();
+
+  public CeQueueSchedulingPolicy(DbClient dbClient, Settings settings) {
+    this.dbClient = dbClient;
+    this.fairShare = parseFairShare(settings);
+    this.shortestJobFirst = settings.getBoolean(SHORTEST_JOB_FIRST_PROPERTY);
+  }
+
+  private static FairShare parseFairShare(Settings settings) {
+    String value = defaultIfBlank(settings.getString(FAIR_SHARE_PROPERTY), FairShare.NONE.name());
+    try {
+      return FairShare.valueOf(value.toUpperCase());
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException(format("Unsupported value of property %s: %s", FAIR_SHARE_PROPERTY, value), e);
+    }
+  }
+
+  /**
+   * @param eligibles the pending tasks that can be processed, ordered by descending priority then by ascending
+   *                  date of submission
+   * @return the same tasks, ordered from the first to the last to be processed
+   */
+  public List<EligibleTaskDto> sort(DbSession dbSession, List<EligibleTaskDto> eligibles) {
+    if (eligibles.size() <= 1 || (fairShare == FairShare.NONE && !shortestJobFirst)) {
+      return eligibles;
+    }
+    Comparator<EligibleTaskDto> comparator = (t1, t2) -> Integer.compare(t2.getPriority(), t1.getPriority());
+    if (fairShare != FairShare.NONE) {
+      comparator = comparator.thenComparing(fairShareComparator(dbSession));
+    }
+    if (shortestJobFirst) {
+      comparator = comparator.thenComparing(shortestJobFirstComparator(dbSession, eligibles));
+    }
+    List<EligibleTaskDto> sorted = new ArrayList<>(eligibles);
+    // sort is stable, so that tasks keep the order of submission when comparator returns 0
+    sorted.sort(comparator);
+    return sorted;
+  }
+
+  private Comparator<EligibleTaskDto> fairShareComparator(DbSession dbSession) {
+    Multiset<String> inProgressByGroup = HashMultiset.create();
+    if (fairShare == FairShare.ORGANIZATION) {
+      inProgressByGroup.addAll(dbClient.ceQueueDao().selectOrganizationUuidsOfInProgressTasks(dbSession));
+    }
+    // tasks of a project can't be processed concurrently, so there's no need to count in-progress tasks by project
+    Comparator<EligibleTaskDto> byInProgress = Comparator.comparingInt(t -> inProgressByGroup.count(groupOf(t)));
+    return byInProgress.thenComparingLong(t -> lastServedByGroup.getOrDefault(groupOf(t), 0L));
+  }
+
+  private Comparator<EligibleTaskDto> shortestJobFirstComparator(DbSession dbSession, List<EligibleTaskDto> eligibles) {
+    List<String> componentUuids = eligibles.stream()
+      .map(EligibleTaskDto::getComponentUuid)
+      .filter(Objects::nonNull)
+      .distinct()
+      .limit(CeTaskQuery.MAX_COMPONENT_UUIDS)
+      .collect(toList());
+    Map<String, Long> durationByComponent = new HashMap<>();
+    if (!componentUuids.isEmpty()) {
+      CeTaskQuery query = new CeTaskQuery().setOnlyCurrents(true).setComponentUuids(componentUuids);
+      List<CeActivityDto> activities = dbClient.ceActivityDao().selectByQuery(dbSession, query, Pagination.forPage(1).andSize(CeTaskQuery.MAX_COMPONENT_UUIDS));
+      for (CeActivityDto activity : activities) {
+        Long executionTime = activity.getExecutionTimeMs();
+        if (executionTime != null) {
+          durationByComponent.merge(activity.getComponentUuid(), executionTime, Long::max);
+        }
+      }
+    }
+    // components never analyzed are considered as short
+    return Comparator.comparingLong(t -> t.getCreatedAt() + durationByComponent.getOrDefault(t.getComponentUuid(), 0L));
+  }
+
+  /**
+   * Must be called when a task is peeked by a worker.
+   */
+  public void onPeek(EligibleTaskDto task) {
+    if (fairShare != FairShare.NONE) {
+      if (lastServedByGroup.size() >= MAX_SERVED_GROUPS) {
+        lastServedByGroup.clear();
+      }
+      lastServedByGroup.put(groupOf(task), servedSequence.incrementAndGet());
+    }
+  }
+
+  /**
+   * Must be called when there is no pending task. Groups then start again on an equal footing.
+   */
+  public void onEmptyQueue() {
+    lastServedByGroup.clear();
+  }
+
+  int countServedGroups() {
+    return lastServedByGroup.size();
+  }
+
+  private String groupOf(EligibleTaskDto task) {
+    // tasks not related to a component are grouped together
+    return defaultIfBlank(fairShare.groupFunction.apply(task), "");
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.queue;
+
+import java.io.InputStream;
+import java.util.Collection;
+import java.util.Optional;
+import org.sonar.api.ce.ComputeEngineSide;
+import org.sonar.api.server.ServerSide;
+import org.sonar.db.DbSession;
+
+/**
+ * Storage of the data submitted with Compute Engine tasks, for example the analysis reports.
+ * Implementation is selected by {@link CeTaskInputStorageProvider}.
+ */
+@ServerSide
+@ComputeEngineSide
+public interface CeTaskInputStorage {
+
+  /**
+   * Stores the data of a task. Session is committed.
+   */
+  void store(DbSession dbSession, String taskUuid, InputStream data);
+
+  /**
+   * Data of the task, if any. The stream must be closed by caller.
+   */
+  Optional<InputStream> read(DbSession dbSession, String taskUuid);
+
+  /**
+   * Deletes the data of the given tasks. Session is committed.
+   */
+  void delete(DbSession dbSession, Collection<String> taskUuids);
+
+  /**
+   * Deletes the data of the tasks which are not in queue anymore. Session is committed.
+   */
+  void deleteOrphans(DbSession dbSession);
+
+  /**
+   * Deletes the data which is not referenced by any task but which could not be deleted
+   * by {@link #delete(DbSession, Collection)}. As it may be expensive, it is executed
+   * periodically by {@link CeQueueCleaner}.
+   */
+  void deleteUnreferencedData(DbSession dbSession);
+
+}
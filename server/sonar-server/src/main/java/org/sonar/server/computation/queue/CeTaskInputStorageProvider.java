@@ -0,0 +1,61 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.queue;
+
+import java.io.File;
+import java.nio.file.Paths;
+import org.picocontainer.injectors.ProviderAdapter;
+import org.sonar.api.config.Settings;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.db.DbClient;
+import org.sonar.server.platform.ServerFileSystem;
+
+import static java.lang.String.format;
+import static org.apache.commons.lang.StringUtils.defaultIfBlank;
+
+public class CeTaskInputStorageProvider extends ProviderAdapter {
+
+  static final String STORAGE_PROPERTY = "sonar.ce.taskInput.storage";
+  static final String PATH_PROPERTY = "sonar.ce.taskInput.path";
+  static final String DATABASE = "database";
+  static final String FILE_SYSTEM = "filesystem";
+
+  private CeTaskInputStorage storage;
+
+  public CeTaskInputStorage provide(Settings settings, DbClient dbClient, ServerFileSystem fs, System2 system2) {
+    if (storage == null) {
+      String type = defaultIfBlank(settings.getString(STORAGE_PROPERTY), DATABASE);
+      switch (type) {
+        case DATABASE:
+          storage = new DatabaseCeTaskInputStorage(dbClient);
+          break;
+        case FILE_SYSTEM:
+          String path = defaultIfBlank(settings.getString(PATH_PROPERTY), new File(fs.getDataDir(), "ce/task-inputs").getAbsolutePath());
+          Loggers.get(CeTaskInputStorageProvider.class).info("Data of Compute Engine tasks are stored in {}", path);
+          storage = new FileSystemCeTaskInputStorage(dbClient, Paths.get(path), system2);
+          break;
+        default:
+          throw new IllegalArgumentException(format("Unsupported value of property %s: %s", STORAGE_PROPERTY, type));
+      }
+    }
+    return storage;
+  }
+}
@@ -0,0 +1,209 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.queue;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.Nullable;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.io.IOUtils;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.ce.CeTaskInputDao;
+
+import static java.lang.String.format;
+
+/**
+ * Stores data of tasks in files named by the SHA-256 of their content, so that only a reference
+ * is stored in database (column CE_TASK_INPUT.INPUT_REFERENCE). The directory can be shared by
+ * the nodes of a cluster through a network mount.
+ * <p>
+ * As files can be shared by different tasks, the file of a deleted task is dropped only when it is
+ * not referenced anymore and when it has not just been stored again by another node. Files that
+ * could not be dropped this way are deleted by {@link #deleteUnreferencedData(DbSession)}, after a
+ * grace period. Data of tasks submitted before the storage was enabled is still read from database.
+ * </p>
+ */
+public class FileSystemCeTaskInputStorage extends DatabaseCeTaskInputStorage {
+
+  private static final Logger LOG = Loggers.get(FileSystemCeTaskInputStorage.class);
+  private static final String TEMP_FILE_SUFFIX = ".tmp";
+  static final long GRACE_PERIOD_MS = TimeUnit.HOURS.toMillis(1);
+  // files stored so recently could be referenced by a task that is being submitted
+  static final long RECENTLY_STORED_MS = TimeUnit.MINUTES.toMillis(1);
+
+  private final Path directory;
+  private final System2 system2;
+
+  public FileSystemCeTaskInputStorage(DbClient dbClient, Path directory, System2 system2) {
+    super(dbClient);
+    this.directory = directory;
+    this.system2 = system2;
+  }
+
+  @Override
+  public void store(DbSession dbSession, String taskUuid, InputStream data) {
+    Path tempFile = null;
+    try {
+      Files.createDirectories(directory);
+      tempFile = Files.createTempFile(directory, "input", TEMP_FILE_SUFFIX);
+      String reference = copyAndHash(data, tempFile);
+
+      // reference is committed before the file is moved, so that the file can't be
+      // considered as unreferenced by a concurrent cleanup
+      dbClient.ceTaskInputDao().insertReference(dbSession, taskUuid, reference);
+      dbSession.commit();
+
+      Path file = toPath(reference);
+      Files.createDirectories(file.getParent());
+      Files.move(tempFile, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+      // a concurrent deletion of the previous task with the same data must not drop the file
+      Files.setLastModifiedTime(file, FileTime.fromMillis(system2.now()));
+    } catch (IOException e) {
+      throw new IllegalStateException(format("Fail to store data of CE task %s in %s", taskUuid, directory), e);
+    } finally {
+      deleteIfExists(tempFile);
+    }
+  }
+
+  private static String copyAndHash(InputStream data, Path file) throws IOException {
+    MessageDigest digest;
+    try {
+      digest = MessageDigest.getInstance("SHA-256");
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException("SHA-256 is not supported", e);
+    }
+    try (OutputStream output = new DigestOutputStream(Files.newOutputStream(file), digest)) {
+      IOUtils.copyLarge(data, output);
+    }
+    return Hex.encodeHexString(digest.digest());
+  }
+
+  @Override
+  public Optional<InputStream> read(DbSession dbSession, String taskUuid) {
+    Optional<String> reference = dbClient.ceTaskInputDao().selectReference(dbSession, taskUuid);
+    if (!reference.isPresent()) {
+      return super.read(dbSession, taskUuid);
+    }
+    Path file = toPath(reference.get());
+    try {
+      return Optional.of(new BufferedInputStream(Files.newInputStream(file)));
+    } catch (IOException e) {
+      throw new IllegalStateException(format("Fail to read data of CE task %s from %s", taskUuid, file), e);
+    }
+  }
+
+  @Override
+  public void delete(DbSession dbSession, Collection<String> taskUuids) {
+    CeTaskInputDao dao = dbClient.ceTaskInputDao();
+    List<String> references = dao.selectReferencesByUuids(dbSession, taskUuids);
+    super.delete(dbSession, taskUuids);
+    if (references.isEmpty()) {
+      return;
+    }
+    long expiration = system2.now() - RECENTLY_STORED_MS;
+    Set<String> usedReferences = dao.selectUsedReferences(dbSession, references);
+    references.stream()
+      .distinct()
+      .filter(reference -> !usedReferences.contains(reference))
+      .map(this::toPath)
+      .forEach(file -> deleteIfExpired(file, expiration));
+  }
+
+  @Override
+  public void deleteUnreferencedData(DbSession dbSession) {
+    if (!Files.isDirectory(directory)) {
+      return;
+    }
+    Set<String> references = dbClient.ceTaskInputDao().selectAllReferences(dbSession);
+    long expiration = system2.now() - GRACE_PERIOD_MS;
+    try (DirectoryStream<Path> subDirs = Files.newDirectoryStream(directory)) {
+      for (Path path : subDirs) {
+        if (Files.isDirectory(path)) {
+          deleteUnreferencedFiles(path, references, expiration);
+        } else if (path.getFileName().toString().endsWith(TEMP_FILE_SUFFIX) && isExpired(path, expiration)) {
+          // temporary file of a submission that failed
+          deleteIfExists(path);
+        }
+      }
+    } catch (IOException e) {
+      LOG.warn(format("Fail to clean-up data of CE tasks in %s", directory), e);
+    }
+  }
+
+  private static void deleteUnreferencedFiles(Path subDir, Set<String> references, long expiration) throws IOException {
+    try (DirectoryStream<Path> files = Files.newDirectoryStream(subDir)) {
+      for (Path file : files) {
+        if (!references.contains(file.getFileName().toString()) && isExpired(file, expiration)) {
+          deleteIfExists(file);
+        }
+      }
+    }
+  }
+
+  private static boolean isExpired(Path file, long expiration) throws IOException {
+    return Files.getLastModifiedTime(file).toMillis() < expiration;
+  }
+
+  private static void deleteIfExpired(Path file, long expiration) {
+    try {
+      if (isExpired(file, expiration)) {
+        Files.delete(file);
+      }
+    } catch (NoSuchFileException e) {
+      // already deleted
+    } catch (IOException e) {
+      LOG.warn(format("Fail to delete %s", file), e);
+    }
+  }
+
+  private Path toPath(String reference) {
+    return directory.resolve(reference.substring(0, 2)).resolve(reference);
+  }
+
+  private static void deleteIfExists(@Nullable Path file) {
+    if (file != null) {
+      try {
+        Files.deleteIfExists(file);
+      } catch (IOException e) {
+        LOG.warn(format("Fail to delete %s", file), e);
+      }
+    }
+  }
+}
@@ -24,6 +24,9 @@ import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.OutputStream;
 import java.io.PrintWriter;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 import java.util.concurrent.atomic.AtomicBoolean;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
@@ -39,6 +42,7 @@ import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.ce.CeActivityDto;
 import org.sonar.db.ce.CeQueueDto;
+import org.sonar.db.ce.EligibleTaskDto;
 import org.sonar.server.organization.DefaultOrganizationProvider;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -48,19 +52,23 @@ import static java.util.Objects.requireNonNull;
 @ComputeEngineSide
 public class InternalCeQueueImpl extends CeQueueImpl implements InternalCeQueue {
 
+  private static final int MAX_ELIGIBLE_TASKS = 100;
+
   private final System2 system2;
   private final DbClient dbClient;
   private final CEQueueStatus queueStatus;
+  private final CeQueueSchedulingPolicy schedulingPolicy;
 
   // state
   private AtomicBoolean peekPaused = new AtomicBoolean(false);
 
   public InternalCeQueueImpl(System2 system2, DbClient dbClient, UuidFactory uuidFactory, CEQueueStatus queueStatus,
-    DefaultOrganizationProvider defaultOrganizationProvider) {
-    super(dbClient, uuidFactory, defaultOrganizationProvider);
+    DefaultOrganizationProvider defaultOrganizationProvider, CeTaskInputStorage taskInputStorage, CeQueueSchedulingPolicy schedulingPolicy) {
+    super(dbClient, uuidFactory, defaultOrganizationProvider, taskInputStorage);
     this.system2 = system2;
     this.dbClient = dbClient;
     this.queueStatus = queueStatus;
+    this.schedulingPolicy = schedulingPolicy;
   }
 
   @Override
@@ -71,14 +79,31 @@ public class InternalCeQueueImpl extends CeQueueImpl implements InternalCeQueue
       return Optional.absent();
     }
     try (DbSession dbSession = dbClient.openSession(false)) {
-      Optional<CeQueueDto> dto = dbClient.ceQueueDao().peek(dbSession, workerUuid);
-      CeTask task = null;
-      if (dto.isPresent()) {
-        task = loadTask(dbSession, dto.get());
-        queueStatus.addInProgress();
+      List<EligibleTaskDto> eligibles = dbClient.ceQueueDao().selectEligibleForPeek(dbSession, MAX_ELIGIBLE_TASKS);
+      if (eligibles.isEmpty()) {
+        schedulingPolicy.onEmptyQueue();
+        return Optional.absent();
       }
-      return Optional.fromNullable(task);
-
+      Set<String> componentUuidsPeekedByOthers = new HashSet<>();
+      for (EligibleTaskDto eligible : schedulingPolicy.sort(dbSession, eligibles)) {
+        if (eligible.getComponentUuid() != null && componentUuidsPeekedByOthers.contains(eligible.getComponentUuid())) {
+          // tasks of a component must not be processed concurrently
+          continue;
+        }
+        Optional<CeQueueDto> dto = dbClient.ceQueueDao().tryToPeek(dbSession, eligible, workerUuid);
+        if (dto.isPresent()) {
+          CeTask task = loadTask(dbSession, dto.get());
+          schedulingPolicy.onPeek(eligible);
+          queueStatus.addInProgress();
+          // submission date is given by the clock of the web server and start date by the one of the Compute Engine,
+          // so that the difference can be negative when clocks are not synchronized
+          queueStatus.addWaitingTime(Math.max(0L, dto.get().getStartedAt() - dto.get().getCreatedAt()));
+          return Optional.of(task);
+        }
+        // task has been peeked by another worker in the meantime
+        componentUuidsPeekedByOthers.add(eligible.getComponentUuid());
+      }
+      return Optional.absent();
     }
   }
 
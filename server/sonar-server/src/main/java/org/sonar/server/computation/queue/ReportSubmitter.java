@@ -55,14 +55,16 @@ public class ReportSubmitter {
   private final ComponentUpdater componentUpdater;
   private final PermissionTemplateService permissionTemplateService;
   private final DbClient dbClient;
+  private final CeTaskInputStorage taskInputStorage;
 
   public ReportSubmitter(CeQueue queue, UserSession userSession, ComponentUpdater componentUpdater,
-    PermissionTemplateService permissionTemplateService, DbClient dbClient) {
+    PermissionTemplateService permissionTemplateService, DbClient dbClient, CeTaskInputStorage taskInputStorage) {
     this.queue = queue;
     this.userSession = userSession;
     this.componentUpdater = componentUpdater;
     this.permissionTemplateService = permissionTemplateService;
     this.dbClient = dbClient;
+    this.taskInputStorage = taskInputStorage;
   }
 
   /**
@@ -70,6 +72,19 @@ public class ReportSubmitter {
    * @throws IllegalArgumentException if the organization with the specified key is not the organization of the specified project (when it already exists in DB)
    */
   public CeTask submit(String organizationKey, String projectKey, @Nullable String projectBranch, @Nullable String projectName, InputStream reportInput) {
+    return submit(organizationKey, projectKey, projectBranch, projectName, 0, reportInput);
+  }
+
+  /**
+   * Same as {@link #submit(String, String, String, String, InputStream)}, with the priority of the task in queue.
+   *
+   * @throws org.sonar.server.exceptions.ForbiddenException if priority is not 0 and user is not system administrator
+   */
+  public CeTask submit(String organizationKey, String projectKey, @Nullable String projectBranch, @Nullable String projectName, int priority,
+    InputStream reportInput) {
+    if (priority != 0) {
+      userSession.checkIsSystemAdministrator();
+    }
     try (DbSession dbSession = dbClient.openSession(false)) {
       String effectiveProjectKey = ComponentKeys.createKey(projectKey, projectBranch);
       OrganizationDto organizationDto = getOrganizationDtoOrFail(dbSession, organizationKey);
@@ -77,7 +92,7 @@ public class ReportSubmitter {
       ensureOrganizationIsConsistent(opt, organizationDto);
       ComponentDto project = opt.or(() -> createProject(dbSession, organizationDto, projectKey, projectBranch, projectName));
       checkScanPermission(project);
-      return submitReport(dbSession, reportInput, project);
+      return submitReport(dbSession, reportInput, project, priority);
     }
   }
 
@@ -126,15 +141,15 @@ public class ReportSubmitter {
     return componentUpdater.create(dbSession, newProject, userId);
   }
 
-  private CeTask submitReport(DbSession dbSession, InputStream reportInput, ComponentDto project) {
+  private CeTask submitReport(DbSession dbSession, InputStream reportInput, ComponentDto project, int priority) {
     // the report file must be saved before submitting the task
     CeTaskSubmit.Builder submit = queue.prepareSubmit();
-    dbClient.ceTaskInputDao().insert(dbSession, submit.getUuid(), reportInput);
-    dbSession.commit();
+    taskInputStorage.store(dbSession, submit.getUuid(), reportInput);
 
     submit.setType(CeTaskTypes.REPORT);
     submit.setComponentUuid(project.uuid());
     submit.setSubmitterLogin(userSession.getLogin());
+    submit.setPriority(priority);
     return queue.submit(submit.build());
   }
 }
@@ -34,12 +34,18 @@ public class FileAttributes {
   @CheckForNull
   private final String languageKey;
   private final int lines;
+  private final boolean previousSourceReused;
 
   public FileAttributes(boolean unitTest, @Nullable String languageKey, int lines) {
+    this(unitTest, languageKey, lines, false);
+  }
+
+  public FileAttributes(boolean unitTest, @Nullable String languageKey, int lines, boolean previousSourceReused) {
     this.unitTest = unitTest;
     this.languageKey = languageKey;
     checkArgument(lines > 0, "Number of lines must be greater than zero");
     this.lines = lines;
+    this.previousSourceReused = previousSourceReused;
   }
 
   public boolean isUnitTest() {
@@ -58,6 +64,14 @@ public class FileAttributes {
     return lines;
   }
 
+  /**
+   * File did not change since the previous analysis and the scanner, in incremental mode, did not send its source,
+   * syntax highlighting and symbols. They must be read from the previous analysis.
+   */
+  public boolean isPreviousSourceReused() {
+    return previousSourceReused;
+  }
+
   @Override
   public String toString() {
     return "FileAttributes{" +
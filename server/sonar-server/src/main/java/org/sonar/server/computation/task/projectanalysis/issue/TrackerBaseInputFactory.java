@@ -35,6 +35,10 @@ import org.sonar.server.computation.task.projectanalysis.filemove.MovedFilesRepo
 
 /**
  * Factory of {@link Input} of base data for issue tracking. Data are lazy-loaded.
+ * <p>
+ * Issues are not loaded from database for the components which have no open issues, as listed by
+ * {@link ComponentsWithUnprocessedIssues}.
+ * </p>
  */
 public class TrackerBaseInputFactory {
   private static final LineHashSequence EMPTY_LINE_HASH_SEQUENCE = new LineHashSequence(Collections.<String>emptyList());
@@ -42,11 +46,14 @@ public class TrackerBaseInputFactory {
   private final BaseIssuesLoader baseIssuesLoader;
   private final DbClient dbClient;
   private final MovedFilesRepository movedFilesRepository;
+  private final ComponentsWithUnprocessedIssues componentsWithUnprocessedIssues;
 
-  public TrackerBaseInputFactory(BaseIssuesLoader baseIssuesLoader, DbClient dbClient, MovedFilesRepository movedFilesRepository) {
+  public TrackerBaseInputFactory(BaseIssuesLoader baseIssuesLoader, DbClient dbClient, MovedFilesRepository movedFilesRepository,
+    ComponentsWithUnprocessedIssues componentsWithUnprocessedIssues) {
     this.baseIssuesLoader = baseIssuesLoader;
     this.dbClient = dbClient;
     this.movedFilesRepository = movedFilesRepository;
+    this.componentsWithUnprocessedIssues = componentsWithUnprocessedIssues;
   }
 
   public Input<DefaultIssue> create(Component component) {
@@ -80,6 +87,9 @@ public class TrackerBaseInputFactory {
 
     @Override
     protected List<DefaultIssue> loadIssues() {
+      if (!componentsWithUnprocessedIssues.getUuids().contains(effectiveUuid)) {
+        return Collections.emptyList();
+      }
       return baseIssuesLoader.loadForComponentUuid(effectiveUuid);
     }
   }
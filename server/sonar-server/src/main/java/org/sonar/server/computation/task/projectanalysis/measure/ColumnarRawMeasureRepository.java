@@ -0,0 +1,260 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.measure;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSetMultimap;
+import com.google.common.collect.SetMultimap;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import javax.annotation.CheckForNull;
+import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.Developer;
+import org.sonar.server.computation.task.projectanalysis.measure.MapBasedRawMeasureRepository.OverridePolicy;
+import org.sonar.server.computation.task.projectanalysis.metric.Metric;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.String.format;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Implementation of MeasureRepository which supports only raw measures of components of the scanner report, and
+ * which does not keep a {@link Measure} object per component and metric.
+ * <p>
+ * Metrics are interned to a column. Within a column, numeric measures (with no data, description, developer nor
+ * quality gate status) are stored in a primitive array indexed by the report ref of the component, their variation
+ * in a second array allocated on first use. Other measures are kept as objects in sparse side-tables.
+ * </p>
+ * Intended to be used as a delegate of other MeasureRepository implementations (hence the final keyword).
+ */
+public final class ColumnarRawMeasureRepository implements MeasureRepository {
+  private final Map<String, Column> columnsByMetricKey = new HashMap<>();
+  private final List<Column> columns = new ArrayList<>();
+
+  /**
+   * @throws UnsupportedOperationException all the time, not supported
+   */
+  @Override
+  public Optional<Measure> getBaseMeasure(Component component, Metric metric) {
+    throw new UnsupportedOperationException("This implementation of MeasureRepository supports only raw measures");
+  }
+
+  @Override
+  public Optional<Measure> getRawMeasure(Component component, Metric metric) {
+    // fail fast
+    requireNonNull(component);
+    requireNonNull(metric);
+
+    Column column = columnsByMetricKey.get(metric.getKey());
+    if (column == null) {
+      return Optional.absent();
+    }
+    return Optional.fromNullable(column.get(toRef(component)));
+  }
+
+  @Override
+  public void add(Component component, Metric metric, Measure measure) {
+    requireNonNull(component);
+    checkValueTypeConsistency(metric, measure);
+
+    if (find(component, metric, measure) != null) {
+      throw new UnsupportedOperationException(
+        format(
+          "a measure can be set only once for a specific Component (key=%s), Metric (key=%s). Use update method",
+          component.getKey(),
+          metric.getKey()));
+    }
+    add(component, metric, measure, OverridePolicy.OVERRIDE);
+  }
+
+  @Override
+  public void update(Component component, Metric metric, Measure measure) {
+    requireNonNull(component);
+    checkValueTypeConsistency(metric, measure);
+
+    if (find(component, metric, measure) == null) {
+      throw new UnsupportedOperationException(
+        format(
+          "a measure can be updated only if one already exists for a specific Component (key=%s), Metric (key=%s). Use add method",
+          component.getKey(),
+          metric.getKey()));
+    }
+    add(component, metric, measure, OverridePolicy.OVERRIDE);
+  }
+
+  private static void checkValueTypeConsistency(Metric metric, Measure measure) {
+    checkArgument(
+      measure.getValueType() == Measure.ValueType.NO_VALUE || measure.getValueType() == metric.getType().getValueType(),
+      format(
+        "Measure's ValueType (%s) is not consistent with the Metric's ValueType (%s)",
+        measure.getValueType(), metric.getType().getValueType()));
+  }
+
+  @Override
+  public Set<Measure> getRawMeasures(Component component, Metric metric) {
+    requireNonNull(metric);
+    requireNonNull(component);
+    Column column = columnsByMetricKey.get(metric.getKey());
+    if (column == null) {
+      return ImmutableSet.of();
+    }
+    ImmutableSet.Builder<Measure> builder = ImmutableSet.builder();
+    column.collect(toRef(component), builder::add);
+    return builder.build();
+  }
+
+  @Override
+  public SetMultimap<String, Measure> getRawMeasures(Component component) {
+    int ref = toRef(component);
+    ImmutableSetMultimap.Builder<String, Measure> builder = ImmutableSetMultimap.builder();
+    for (Column column : columns) {
+      column.collect(ref, measure -> builder.put(column.metricKey, measure));
+    }
+    return builder.build();
+  }
+
+  @CheckForNull
+  private Measure find(Component component, Metric metric, Measure measure) {
+    Column column = columnsByMetricKey.get(metric.getKey());
+    if (column == null) {
+      return null;
+    }
+    int ref = toRef(component);
+    Developer developer = measure.getDeveloper();
+    return developer == null ? column.get(ref) : column.getForDeveloper(ref, developer);
+  }
+
+  public void add(Component component, Metric metric, Measure measure, OverridePolicy overridePolicy) {
+    requireNonNull(component);
+    requireNonNull(measure);
+    requireNonNull(overridePolicy);
+
+    Column column = columnsByMetricKey.computeIfAbsent(metric.getKey(), this::createColumn);
+    int ref = toRef(component);
+    if (overridePolicy == OverridePolicy.OVERRIDE || find(component, metric, measure) == null) {
+      column.put(ref, measure);
+    }
+  }
+
+  private Column createColumn(String metricKey) {
+    Column column = new Column(metricKey);
+    columns.add(column);
+    return column;
+  }
+
+  private static int toRef(Component component) {
+    return component.getReportAttributes().getRef();
+  }
+
+  private static final class Column {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private final String metricKey;
+    private final BitSet numericRefs = new BitSet();
+    private double[] values = new double[0];
+    private final BitSet variationRefs = new BitSet();
+    @CheckForNull
+    private double[] variations;
+    private Measure.ValueType numericValueType;
+    private final Map<Integer, Measure> objects = new HashMap<>();
+    private final Map<Integer, Map<MeasureKey, Measure>> developerMeasures = new HashMap<>();
+
+    private Column(String metricKey) {
+      this.metricKey = metricKey;
+    }
+
+    @CheckForNull
+    Measure get(int ref) {
+      if (numericRefs.get(ref)) {
+        Double variation = variationRefs.get(ref) ? variations[ref] : null;
+        return Measure.createNumeric(numericValueType, values[ref], variation);
+      }
+      return objects.get(ref);
+    }
+
+    @CheckForNull
+    Measure getForDeveloper(int ref, Developer developer) {
+      Map<MeasureKey, Measure> measures = developerMeasures.get(ref);
+      return measures == null ? null : measures.get(new MeasureKey(metricKey, developer));
+    }
+
+    void collect(int ref, Consumer<Measure> consumer) {
+      Measure measure = get(ref);
+      if (measure != null) {
+        consumer.accept(measure);
+      }
+      Map<MeasureKey, Measure> measures = developerMeasures.get(ref);
+      if (measures != null) {
+        measures.values().forEach(consumer);
+      }
+    }
+
+    void put(int ref, Measure measure) {
+      if (measure.getDeveloper() != null) {
+        developerMeasures.computeIfAbsent(ref, r -> new HashMap<>()).put(new MeasureKey(metricKey, measure.getDeveloper()), measure);
+        return;
+      }
+      if (isStorableAsNumeric(measure)) {
+        putNumeric(ref, measure);
+        objects.remove(ref);
+      } else {
+        numericRefs.clear(ref);
+        variationRefs.clear(ref);
+        objects.put(ref, measure);
+      }
+    }
+
+    private boolean isStorableAsNumeric(Measure measure) {
+      return Measure.isNumeric(measure.getValueType())
+        && (numericValueType == null || numericValueType == measure.getValueType())
+        && measure.getData() == null
+        && measure.getDescription() == null
+        && !measure.hasQualityGateStatus();
+    }
+
+    private void putNumeric(int ref, Measure measure) {
+      numericValueType = measure.getValueType();
+      values = ensureCapacity(values, ref);
+      values[ref] = measure.getNumericValue();
+      numericRefs.set(ref);
+      if (measure.hasVariation()) {
+        variations = ensureCapacity(variations == null ? new double[0] : variations, ref);
+        variations[ref] = measure.getVariation();
+        variationRefs.set(ref);
+      } else {
+        variationRefs.clear(ref);
+      }
+    }
+
+    private static double[] ensureCapacity(double[] array, int ref) {
+      if (ref < array.length) {
+        return array;
+      }
+      return Arrays.copyOf(array, Math.max(Math.max(ref + 1, INITIAL_CAPACITY), array.length * 2));
+    }
+  }
+}
@@ -103,6 +103,19 @@ public final class Measure {
     return new UpdateMeasureBuilder(measure);
   }
 
+  /**
+   * Recreates a measure of a numeric {@link ValueType} from its value as returned by {@link #getNumericValue()}, with
+   * no developer, data, description nor quality gate status.
+   */
+  static Measure createNumeric(ValueType valueType, double value, @Nullable Double variation) {
+    checkArgument(isNumeric(valueType), "ValueType %s is not numeric", valueType);
+    return new Measure(valueType, null, value, null, null, null, null, variation);
+  }
+
+  static boolean isNumeric(ValueType valueType) {
+    return valueType == ValueType.BOOLEAN || valueType == ValueType.INT || valueType == ValueType.LONG || valueType == ValueType.DOUBLE;
+  }
+
   public static final class NewMeasureBuilder {
     private Developer developer;
     private String description;
@@ -287,6 +300,16 @@ public final class Measure {
     return value;
   }
 
+  /**
+   * The value of a measure of a numeric type, as stored internally.
+   *
+   * @throws IllegalStateException if the value type of the measure is not numeric
+   */
+  double getNumericValue() {
+    checkState(isNumeric(valueType), "value of a measure of type %s is not numeric", valueType);
+    return value;
+  }
+
   /**
    * The value of this measure as a String if the type is {@link Measure.ValueType#STRING}.
    *
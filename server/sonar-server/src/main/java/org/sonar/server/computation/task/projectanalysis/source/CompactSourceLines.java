@@ -0,0 +1,122 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.source;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import javax.annotation.CheckForNull;
+import org.sonar.core.hash.SourceLinesHashesComputer;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+/**
+ * Lines of a source file, stored as their UTF-8 bytes and the offset of each line in these bytes rather than as
+ * {@link String} objects. Line hashes are computed on first request.
+ */
+final class CompactSourceLines implements Iterable<String> {
+  /**
+   * Rough size of a line hash held in memory: a 32 characters String and its backing array
+   */
+  private static final int LINE_HASH_MEMORY_SIZE = 104;
+
+  private final byte[] bytes;
+  private final int[] offsets;
+  @CheckForNull
+  private List<String> lineHashes;
+
+  private CompactSourceLines(byte[] bytes, int[] offsets) {
+    this.bytes = bytes;
+    this.offsets = offsets;
+  }
+
+  static CompactSourceLines of(Iterator<String> lines) {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    int[] offsets = new int[16];
+    int lineCount = 0;
+    while (lines.hasNext()) {
+      byte[] line = lines.next().getBytes(UTF_8);
+      if (lineCount + 1 >= offsets.length) {
+        offsets = Arrays.copyOf(offsets, offsets.length * 2);
+      }
+      out.write(line, 0, line.length);
+      lineCount++;
+      offsets[lineCount] = out.size();
+    }
+    return new CompactSourceLines(out.toByteArray(), Arrays.copyOf(offsets, lineCount + 1));
+  }
+
+  int getLineCount() {
+    return offsets.length - 1;
+  }
+
+  /**
+   * @param index 0-based index of the line
+   */
+  String getLine(int index) {
+    return new String(bytes, offsets[index], offsets[index + 1] - offsets[index], UTF_8);
+  }
+
+  @Override
+  public Iterator<String> iterator() {
+    return new Iterator<String>() {
+      private int index = 0;
+
+      @Override
+      public boolean hasNext() {
+        return index < getLineCount();
+      }
+
+      @Override
+      public String next() {
+        if (!hasNext()) {
+          throw new NoSuchElementException();
+        }
+        String line = getLine(index);
+        index++;
+        return line;
+      }
+    };
+  }
+
+  List<String> getLineHashes() {
+    if (lineHashes == null) {
+      SourceLinesHashesComputer computer = new SourceLinesHashesComputer(getLineCount());
+      for (String line : this) {
+        computer.addLine(line);
+      }
+      lineHashes = computer.getLineHashes();
+    }
+    return lineHashes;
+  }
+
+  /**
+   * Approximate number of bytes of memory held by this object
+   */
+  long getMemorySize() {
+    long size = 32L + bytes.length + 4L * offsets.length;
+    if (lineHashes != null) {
+      size += (long) LINE_HASH_MEMORY_SIZE * lineHashes.size();
+    }
+    return size;
+  }
+}
@@ -0,0 +1,50 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.source;
+
+import java.util.Iterator;
+import org.sonar.db.protobuf.DbFileSources;
+
+/**
+ * Copies the syntax highlighting and the symbols persisted by the previous analysis, for files whose source
+ * is reused by an incremental analysis.
+ */
+public class PreviousSourceLineReader implements LineReader {
+
+  private final Iterator<DbFileSources.Line> previousLines;
+
+  public PreviousSourceLineReader(DbFileSources.Data previousData) {
+    this.previousLines = previousData.getLinesList().iterator();
+  }
+
+  @Override
+  public void read(DbFileSources.Line.Builder lineBuilder) {
+    if (!previousLines.hasNext()) {
+      return;
+    }
+    DbFileSources.Line previousLine = previousLines.next();
+    if (previousLine.hasHighlighting()) {
+      lineBuilder.setHighlighting(previousLine.getHighlighting());
+    }
+    if (previousLine.hasSymbols()) {
+      lineBuilder.setSymbols(previousLine.getSymbols());
+    }
+  }
+}
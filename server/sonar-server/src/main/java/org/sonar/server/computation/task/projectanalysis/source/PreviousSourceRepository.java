@@ -0,0 +1,39 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.source;
+
+import com.google.common.base.Optional;
+import org.sonar.db.protobuf.DbFileSources;
+import org.sonar.server.computation.task.projectanalysis.component.Component;
+
+/**
+ * Source data persisted by the previous analysis for the files whose source is reused by an incremental analysis
+ * (see {@link org.sonar.server.computation.task.projectanalysis.component.FileAttributes#isPreviousSourceReused()}).
+ */
+public interface PreviousSourceRepository {
+
+  /**
+   * The source data of the specified FILE component persisted by the previous analysis.
+   *
+   * @return {@link Optional#absent()} if the source of the file is not reused or if there is no source in DB
+   */
+  Optional<DbFileSources.Data> getSourceData(Component file);
+
+}
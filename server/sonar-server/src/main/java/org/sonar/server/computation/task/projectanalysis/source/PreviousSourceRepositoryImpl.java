@@ -0,0 +1,112 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.source;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Optional;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.protobuf.DbFileSources;
+import org.sonar.db.source.FileSourceDto;
+import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.CrawlerDepthLimit;
+import org.sonar.server.computation.task.projectanalysis.component.DepthTraversalTypeAwareCrawler;
+import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
+import org.sonar.server.computation.task.projectanalysis.component.TypeAwareVisitorAdapter;
+
+import static org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor.Order.PRE_ORDER;
+
+/**
+ * Steps visit files in the order of the component tree, so the previous sources are loaded by batches of consecutive
+ * reused files: one DB query per batch, and only the compressed data of the current batch is kept in memory.
+ */
+public class PreviousSourceRepositoryImpl implements PreviousSourceRepository {
+  private static final int DEFAULT_BATCH_SIZE = 100;
+
+  private final DbClient dbClient;
+  private final TreeRootHolder treeRootHolder;
+  private final int batchSize;
+  private List<String> reusedFileUuids;
+  private Map<String, Integer> indexesByUuid;
+  private Set<String> batchUuids = Collections.emptySet();
+  private Map<String, FileSourceDto> batch = Collections.emptyMap();
+
+  public PreviousSourceRepositoryImpl(DbClient dbClient, TreeRootHolder treeRootHolder) {
+    this(dbClient, treeRootHolder, DEFAULT_BATCH_SIZE);
+  }
+
+  @VisibleForTesting
+  PreviousSourceRepositoryImpl(DbClient dbClient, TreeRootHolder treeRootHolder, int batchSize) {
+    this.dbClient = dbClient;
+    this.treeRootHolder = treeRootHolder;
+    this.batchSize = batchSize;
+  }
+
+  @Override
+  public Optional<DbFileSources.Data> getSourceData(Component file) {
+    if (!file.getFileAttributes().isPreviousSourceReused()) {
+      return Optional.absent();
+    }
+    String uuid = file.getUuid();
+    if (!batchUuids.contains(uuid)) {
+      loadBatchStartingAt(uuid);
+    }
+    FileSourceDto dto = batch.get(uuid);
+    return dto == null ? Optional.absent() : Optional.of(dto.getSourceData());
+  }
+
+  private void loadBatchStartingAt(String uuid) {
+    if (reusedFileUuids == null) {
+      collectReusedFiles();
+    }
+    Integer index = indexesByUuid.get(uuid);
+    if (index == null) {
+      batchUuids = Collections.singleton(uuid);
+    } else {
+      batchUuids = new HashSet<>(reusedFileUuids.subList(index, Math.min(index + batchSize, reusedFileUuids.size())));
+    }
+    batch = new HashMap<>();
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      dbClient.fileSourceDao().selectSourceDataByFileUuids(dbSession, batchUuids)
+        .forEach(dto -> batch.put(dto.getFileUuid(), dto));
+    }
+  }
+
+  private void collectReusedFiles() {
+    reusedFileUuids = new ArrayList<>();
+    indexesByUuid = new HashMap<>();
+    new DepthTraversalTypeAwareCrawler(new TypeAwareVisitorAdapter(CrawlerDepthLimit.FILE, PRE_ORDER) {
+      @Override
+      public void visitFile(Component file) {
+        if (file.getFileAttributes().isPreviousSourceReused()) {
+          indexesByUuid.put(file.getUuid(), reusedFileUuids.size());
+          reusedFileUuids.add(file.getUuid());
+        }
+      }
+    }).visit(treeRootHolder.getRoot());
+  }
+}
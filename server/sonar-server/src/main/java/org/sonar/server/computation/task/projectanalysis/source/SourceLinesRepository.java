@@ -19,6 +19,7 @@
  */
 package org.sonar.server.computation.task.projectanalysis.source;
 
+import java.util.List;
 import org.sonar.core.util.CloseableIterator;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 
@@ -38,4 +39,14 @@ public interface SourceLinesRepository {
    * @throws IllegalStateException if the file has no source code in the report
    */
   CloseableIterator<String> readLines(Component component);
+
+  /**
+   * The hashes of the lines returned by {@link #readLines(Component)}, as computed by
+   * {@link org.sonar.core.hash.SourceLinesHashesComputer}.
+   *
+   * @throws NullPointerException if argument is {@code null}
+   * @throws IllegalArgumentException if component is not a {@link Component.Type#FILE}
+   * @throws IllegalStateException if the file has no source code in the report
+   */
+  List<String> readLineHashes(Component component);
 }
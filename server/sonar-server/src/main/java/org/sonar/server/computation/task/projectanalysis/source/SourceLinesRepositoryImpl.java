@@ -19,8 +19,14 @@
  */
 package org.sonar.server.computation.task.projectanalysis.source;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Optional;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
 import org.sonar.core.util.CloseableIterator;
+import org.sonar.db.protobuf.DbFileSources;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReader;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 
@@ -29,20 +35,89 @@ import static com.google.common.base.Preconditions.checkState;
 import static java.util.Objects.requireNonNull;
 import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.FILE;
 
+/**
+ * Sources are read and decoded once per task, then kept in a compact form so that all the steps reading the source of a
+ * file share the same copy. Least recently used sources are dropped when the cache exceeds its memory budget, in which
+ * case they are read again from the report (or from the DB) on next request.
+ */
 public class SourceLinesRepositoryImpl implements SourceLinesRepository {
+  private static final long DEFAULT_MAX_CACHE_SIZE = 64L * 1024 * 1024;
 
+  private final PreviousSourceRepository previousSourceRepository;
   private final BatchReportReader reportReader;
+  private final long maxCacheSize;
+  private final Map<Integer, CompactSourceLines> cache = new LinkedHashMap<>(16, 0.75f, true);
+  private long cacheSize = 0;
+
+  public SourceLinesRepositoryImpl(PreviousSourceRepository previousSourceRepository, BatchReportReader reportReader) {
+    this(previousSourceRepository, reportReader, DEFAULT_MAX_CACHE_SIZE);
+  }
 
-  public SourceLinesRepositoryImpl(BatchReportReader reportReader) {
+  @VisibleForTesting
+  SourceLinesRepositoryImpl(PreviousSourceRepository previousSourceRepository, BatchReportReader reportReader, long maxCacheSize) {
+    this.previousSourceRepository = previousSourceRepository;
     this.reportReader = reportReader;
+    this.maxCacheSize = maxCacheSize;
   }
 
   @Override
   public CloseableIterator<String> readLines(Component file) {
+    return CloseableIterator.from(getSource(file).iterator());
+  }
+
+  @Override
+  public List<String> readLineHashes(Component file) {
+    CompactSourceLines source = getSource(file);
+    boolean cached = cache.remove(file.getReportAttributes().getRef()) != null;
+    if (cached) {
+      cacheSize -= source.getMemorySize();
+    }
+    List<String> lineHashes = source.getLineHashes();
+    if (cached) {
+      putInCache(file.getReportAttributes().getRef(), source);
+    }
+    return lineHashes;
+  }
+
+  @VisibleForTesting
+  long getCacheSize() {
+    return cacheSize;
+  }
+
+  private CompactSourceLines getSource(Component file) {
     requireNonNull(file, "Component should not be bull");
     checkArgument(file.getType() == FILE, "Component '%s' is not a file", file);
 
+    int ref = file.getReportAttributes().getRef();
+    CompactSourceLines source = cache.get(ref);
+    if (source == null) {
+      try (CloseableIterator<String> lines = openLines(file)) {
+        source = CompactSourceLines.of(lines);
+      }
+      putInCache(ref, source);
+    }
+    return source;
+  }
+
+  private void putInCache(int ref, CompactSourceLines source) {
+    long size = source.getMemorySize();
+    if (size > maxCacheSize) {
+      return;
+    }
+    cache.put(ref, source);
+    cacheSize += size;
+    Iterator<CompactSourceLines> leastRecentlyUsed = cache.values().iterator();
+    while (cacheSize > maxCacheSize) {
+      cacheSize -= leastRecentlyUsed.next().getMemorySize();
+      leastRecentlyUsed.remove();
+    }
+  }
+
+  private CloseableIterator<String> openLines(Component file) {
     Optional<CloseableIterator<String>> linesIteratorOptional = reportReader.readFileSource(file.getReportAttributes().getRef());
+    if (!linesIteratorOptional.isPresent()) {
+      linesIteratorOptional = readPreviousLines(file);
+    }
 
     checkState(linesIteratorOptional.isPresent(), "File '%s' has no source code", file);
     CloseableIterator<String> lineIterator = linesIteratorOptional.get();
@@ -50,6 +125,16 @@ public class SourceLinesRepositoryImpl implements SourceLinesRepository {
     return new ComponentLinesCloseableIterator(file, lineIterator, file.getFileAttributes().getLines());
   }
 
+  private Optional<CloseableIterator<String>> readPreviousLines(Component file) {
+    Optional<DbFileSources.Data> previousData = previousSourceRepository.getSourceData(file);
+    if (!previousData.isPresent()) {
+      return Optional.absent();
+    }
+    return Optional.of(CloseableIterator.from(previousData.get().getLinesList().stream()
+      .map(DbFileSources.Line::getSource)
+      .iterator()));
+  }
+
   private static class ComponentLinesCloseableIterator extends CloseableIterator<String> {
     private static final String EXTRA_END_LINE = "";
 
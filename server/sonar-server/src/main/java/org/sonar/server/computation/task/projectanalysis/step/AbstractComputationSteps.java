@@ -19,14 +19,20 @@
  */
 package org.sonar.server.computation.task.projectanalysis.step;
 
-import com.google.common.collect.Iterables;
+import java.util.ArrayList;
+import java.util.List;
 import org.sonar.core.platform.ContainerPopulator;
+import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
 import org.sonar.server.computation.task.step.ComputationStep;
 import org.sonar.server.computation.task.step.ComputationSteps;
 
 /**
  * Abstract implementation of {@link ComputationStep} which provides the implementation of {@link ComputationSteps#instances()}
  * based on a {@link org.sonar.core.platform.ContainerPopulator.Container}.
+ * <p>
+ * Consecutive {@link VisitorsComputationStep}s are fused into a single {@link FusedVisitorsStep}, so that the component
+ * tree is traversed once for all of them.
+ * </p>
  */
 public abstract class AbstractComputationSteps implements ComputationSteps {
   private final ContainerPopulator.Container container;
@@ -37,14 +43,35 @@ public abstract class AbstractComputationSteps implements ComputationSteps {
 
   @Override
   public Iterable<ComputationStep> instances() {
-    return Iterables.transform(
-      orderedStepClasses(),
-      input -> {
-        ComputationStep computationStepType = container.getComponentByType(input);
-        if (computationStepType == null) {
-          throw new IllegalStateException(String.format("Component not found: %s", input));
-        }
-        return computationStepType;
-      });
+    List<ComputationStep> instances = new ArrayList<>();
+    List<VisitorsComputationStep> fusableSteps = new ArrayList<>();
+    for (Class<? extends ComputationStep> stepClass : orderedStepClasses()) {
+      ComputationStep step = getComponentByType(stepClass);
+      if (step instanceof VisitorsComputationStep) {
+        fusableSteps.add((VisitorsComputationStep) step);
+      } else {
+        addFused(instances, fusableSteps);
+        instances.add(step);
+      }
+    }
+    addFused(instances, fusableSteps);
+    return instances;
+  }
+
+  private void addFused(List<ComputationStep> instances, List<VisitorsComputationStep> fusableSteps) {
+    if (fusableSteps.size() == 1) {
+      instances.add(fusableSteps.get(0));
+    } else if (fusableSteps.size() > 1) {
+      instances.add(new FusedVisitorsStep(getComponentByType(TreeRootHolder.class), new ArrayList<>(fusableSteps)));
+    }
+    fusableSteps.clear();
+  }
+
+  private <T> T getComponentByType(Class<T> type) {
+    T component = container.getComponentByType(type);
+    if (component == null) {
+      throw new IllegalStateException(String.format("Component not found: %s", type));
+    }
+    return component;
   }
 }
@@ -0,0 +1,87 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.step;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor;
+import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolder;
+import org.sonar.server.computation.task.projectanalysis.component.VisitorsCrawler;
+import org.sonar.server.computation.task.step.ComputationStep;
+
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.joining;
+
+/**
+ * Executes the visitors of several {@link VisitorsComputationStep} in a single traversal of the component tree,
+ * preserving the order of the steps.
+ */
+public class FusedVisitorsStep implements ComputationStep {
+
+  private static final Logger LOGGER = Loggers.get(FusedVisitorsStep.class);
+
+  private final TreeRootHolder treeRootHolder;
+  private final List<VisitorsComputationStep> steps;
+
+  public FusedVisitorsStep(TreeRootHolder treeRootHolder, List<VisitorsComputationStep> steps) {
+    this.treeRootHolder = requireNonNull(treeRootHolder);
+    this.steps = requireNonNull(steps);
+  }
+
+  public List<VisitorsComputationStep> getSteps() {
+    return steps;
+  }
+
+  @Override
+  public void execute() {
+    Map<ComponentVisitor, VisitorsComputationStep> stepsByVisitor = new IdentityHashMap<>();
+    List<ComponentVisitor> visitors = new ArrayList<>();
+    for (VisitorsComputationStep step : steps) {
+      for (ComponentVisitor visitor : step.createVisitors()) {
+        visitors.add(visitor);
+        stepsByVisitor.put(visitor, step);
+      }
+    }
+
+    VisitorsCrawler visitorsCrawler = new VisitorsCrawler(visitors, LOGGER.isDebugEnabled());
+    visitorsCrawler.visit(treeRootHolder.getRoot());
+    logVisitorExecutionDurations(visitors, stepsByVisitor, visitorsCrawler);
+  }
+
+  private static void logVisitorExecutionDurations(List<ComponentVisitor> visitors, Map<ComponentVisitor, VisitorsComputationStep> stepsByVisitor,
+    VisitorsCrawler visitorsCrawler) {
+    if (LOGGER.isDebugEnabled()) {
+      LOGGER.debug("  Execution time for each component visitor:");
+      Map<ComponentVisitor, Long> cumulativeDurations = visitorsCrawler.getCumulativeDurations();
+      for (ComponentVisitor visitor : visitors) {
+        LOGGER.debug("  - {} ({}) | time={}ms", stepsByVisitor.get(visitor).getDescription(), visitor.getClass().getSimpleName(), cumulativeDurations.get(visitor));
+      }
+    }
+  }
+
+  @Override
+  public String getDescription() {
+    return steps.stream().map(ComputationStep::getDescription).collect(joining(", ", "Execute in a single pass: ", ""));
+  }
+}
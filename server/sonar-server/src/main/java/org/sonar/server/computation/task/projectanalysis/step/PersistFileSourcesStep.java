@@ -52,6 +52,8 @@ import org.sonar.server.computation.task.projectanalysis.source.CoverageLineRead
 import org.sonar.server.computation.task.projectanalysis.source.DuplicationLineReader;
 import org.sonar.server.computation.task.projectanalysis.source.HighlightingLineReader;
 import org.sonar.server.computation.task.projectanalysis.source.LineReader;
+import org.sonar.server.computation.task.projectanalysis.source.PreviousSourceLineReader;
+import org.sonar.server.computation.task.projectanalysis.source.PreviousSourceRepository;
 import org.sonar.server.computation.task.projectanalysis.source.RangeOffsetConverter;
 import org.sonar.server.computation.task.projectanalysis.source.ScmLineReader;
 import org.sonar.server.computation.task.projectanalysis.source.SourceLinesRepository;
@@ -69,9 +71,10 @@ public class PersistFileSourcesStep implements ComputationStep {
   private final SourceLinesRepository sourceLinesRepository;
   private final ScmInfoRepository scmInfoRepository;
   private final DuplicationRepository duplicationRepository;
+  private final PreviousSourceRepository previousSourceRepository;
 
   public PersistFileSourcesStep(DbClient dbClient, System2 system2, TreeRootHolder treeRootHolder, BatchReportReader reportReader, SourceLinesRepository sourceLinesRepository,
-    ScmInfoRepository scmInfoRepository, DuplicationRepository duplicationRepository) {
+    ScmInfoRepository scmInfoRepository, DuplicationRepository duplicationRepository, PreviousSourceRepository previousSourceRepository) {
     this.dbClient = dbClient;
     this.system2 = system2;
     this.treeRootHolder = treeRootHolder;
@@ -79,6 +82,7 @@ public class PersistFileSourcesStep implements ComputationStep {
     this.sourceLinesRepository = sourceLinesRepository;
     this.scmInfoRepository = scmInfoRepository;
     this.duplicationRepository = duplicationRepository;
+    this.previousSourceRepository = previousSourceRepository;
   }
 
   @Override
@@ -114,8 +118,9 @@ public class PersistFileSourcesStep implements ComputationStep {
 
     @Override
     public void visitFile(Component file) {
-      CloseableIterator<String> linesIterator = sourceLinesRepository.readLines(file);
-      LineReaders lineReaders = new LineReaders(reportReader, scmInfoRepository, duplicationRepository, file);
+      DbFileSources.Data previousData = readReusedSourceData(file);
+      CloseableIterator<String> linesIterator = previousData == null ? sourceLinesRepository.readLines(file) : readLines(previousData);
+      LineReaders lineReaders = new LineReaders(reportReader, scmInfoRepository, duplicationRepository, file, previousData);
       try {
         ComputeFileSourceData computeFileSourceData = new ComputeFileSourceData(linesIterator, lineReaders.readers(), file.getFileAttributes().getLines());
         ComputeFileSourceData.Data fileSourceData = computeFileSourceData.compute();
@@ -128,6 +133,19 @@ public class PersistFileSourcesStep implements ComputationStep {
       }
     }
 
+    /**
+     * Data persisted by the previous analysis, if the file did not change and the scanner did not send source,
+     * syntax highlighting and symbols.
+     */
+    @CheckForNull
+    private DbFileSources.Data readReusedSourceData(Component file) {
+      return previousSourceRepository.getSourceData(file).orNull();
+    }
+
+    private CloseableIterator<String> readLines(DbFileSources.Data previousData) {
+      return CloseableIterator.from(previousData.getLinesList().stream().map(DbFileSources.Line::getSource).iterator());
+    }
+
     private void persistSource(ComputeFileSourceData.Data fileSourceData, String componentUuid, @Nullable Changeset latestChange) {
       DbFileSources.Data fileData = fileSourceData.getFileSourceData();
 
@@ -186,7 +204,8 @@ public class PersistFileSourcesStep implements ComputationStep {
     @CheckForNull
     private final ScmLineReader scmLineReader;
 
-    LineReaders(BatchReportReader reportReader, ScmInfoRepository scmInfoRepository, DuplicationRepository duplicationRepository, Component component) {
+    LineReaders(BatchReportReader reportReader, ScmInfoRepository scmInfoRepository, DuplicationRepository duplicationRepository, Component component,
+      @Nullable DbFileSources.Data previousData) {
       int componentRef = component.getReportAttributes().getRef();
       CloseableIterator<ScannerReport.LineCoverage> coverageIt = reportReader.readComponentCoverage(componentRef);
       closeables.add(coverageIt);
@@ -200,14 +219,18 @@ public class PersistFileSourcesStep implements ComputationStep {
         this.scmLineReader = null;
       }
 
-      RangeOffsetConverter rangeOffsetConverter = new RangeOffsetConverter();
-      CloseableIterator<ScannerReport.SyntaxHighlightingRule> highlightingIt = reportReader.readComponentSyntaxHighlighting(componentRef);
-      closeables.add(highlightingIt);
-      readers.add(new HighlightingLineReader(component, highlightingIt, rangeOffsetConverter));
+      if (previousData == null) {
+        RangeOffsetConverter rangeOffsetConverter = new RangeOffsetConverter();
+        CloseableIterator<ScannerReport.SyntaxHighlightingRule> highlightingIt = reportReader.readComponentSyntaxHighlighting(componentRef);
+        closeables.add(highlightingIt);
+        readers.add(new HighlightingLineReader(component, highlightingIt, rangeOffsetConverter));
 
-      CloseableIterator<ScannerReport.Symbol> symbolsIt = reportReader.readComponentSymbols(componentRef);
-      closeables.add(symbolsIt);
-      readers.add(new SymbolsLineReader(component, symbolsIt, rangeOffsetConverter));
+        CloseableIterator<ScannerReport.Symbol> symbolsIt = reportReader.readComponentSymbols(componentRef);
+        closeables.add(symbolsIt);
+        readers.add(new SymbolsLineReader(component, symbolsIt, rangeOffsetConverter));
+      } else {
+        readers.add(new PreviousSourceLineReader(previousData));
+      }
 
       readers.add(new DuplicationLineReader(duplicationRepository.getDuplications(component)));
     }
@@ -23,4 +23,25 @@ public interface CeProcessingScheduler {
 
   void startScheduling();
 
+  /**
+   * Makes a worker waiting for the next polling of the queue execute immediately. Does nothing if
+   * all workers are busy or if scheduling is not started.
+   *
+   * @return {@code true} if a worker has been woken up
+   */
+  boolean wakeUp();
+
+  /**
+   * The number of workers currently processing the queue concurrently.
+   */
+  int getWorkerCount();
+
+  /**
+   * Adds or removes workers at runtime. Added workers poll the queue immediately if scheduling is started.
+   * Removed workers are not interrupted: they complete their in-progress task, if any, then stop.
+   *
+   * @throws IllegalArgumentException if {@code workerCount} is less than 1
+   */
+  void setWorkerCount(int workerCount);
+
 }
@@ -26,4 +26,10 @@ import org.sonar.server.util.StoppableExecutorService;
  * The {@link java.util.concurrent.ExecutorService} responsible for running {@link CeWorkerCallableImpl}.
  */
 public interface CeProcessingSchedulerExecutorService extends StoppableExecutorService, ListeningScheduledExecutorService {
+
+  /**
+   * Changes the number of threads of the pool. When decreasing, threads which are executing a task are not
+   * interrupted. They terminate once the task is completed.
+   */
+  void setThreadCount(int threadCount);
 }
@@ -25,7 +25,7 @@ import com.google.common.util.concurrent.ListeningScheduledExecutorService;
 import com.google.common.util.concurrent.MoreExecutors;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import java.util.concurrent.Callable;
-import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import org.sonar.server.computation.configuration.CeConfiguration;
 import org.sonar.server.util.AbstractStoppableExecutorService;
@@ -34,14 +34,25 @@ public class CeProcessingSchedulerExecutorServiceImpl extends AbstractStoppableE
   implements CeProcessingSchedulerExecutorService {
   private static final String THREAD_NAME_PREFIX = "ce-worker-";
 
+  private final ScheduledThreadPoolExecutor threadPool;
+
   public CeProcessingSchedulerExecutorServiceImpl(CeConfiguration ceConfiguration) {
-    super(
-      MoreExecutors.listeningDecorator(
-        Executors.newScheduledThreadPool(ceConfiguration.getWorkerCount(),
-          new ThreadFactoryBuilder()
-            .setNameFormat(THREAD_NAME_PREFIX + "%d")
-            .setPriority(Thread.MIN_PRIORITY)
-            .build())));
+    this(new ScheduledThreadPoolExecutor(ceConfiguration.getWorkerCount(),
+      new ThreadFactoryBuilder()
+        .setNameFormat(THREAD_NAME_PREFIX + "%d")
+        .setPriority(Thread.MIN_PRIORITY)
+        .build()));
+  }
+
+  private CeProcessingSchedulerExecutorServiceImpl(ScheduledThreadPoolExecutor threadPool) {
+    super(MoreExecutors.listeningDecorator(threadPool));
+    this.threadPool = threadPool;
+  }
+
+  @Override
+  public void setThreadCount(int threadCount) {
+    // idle threads in excess are stopped, busy ones terminate when their current task is completed
+    threadPool.setCorePoolSize(threadCount);
   }
 
   @Override
@@ -22,7 +22,8 @@ package org.sonar.server.computation.taskprocessor;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
-import com.google.common.util.concurrent.ListenableScheduledFuture;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import javax.annotation.CheckForNull;
@@ -32,7 +33,7 @@ import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.server.computation.configuration.CeConfiguration;
 
-import static com.google.common.util.concurrent.Futures.addCallback;
+import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 
 public class CeProcessingSchedulerImpl implements CeProcessingScheduler, Startable {
@@ -43,7 +44,9 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler, Startab
 
   private final long delayBetweenTasks;
   private final TimeUnit timeUnit;
-  private final ChainingCallback[] chainingCallbacks;
+  // one callback per worker. Modified only by the synchronized methods.
+  private final List<ChainingCallback> chainingCallbacks = new CopyOnWriteArrayList<>();
+  private boolean schedulingStarted = false;
 
   public CeProcessingSchedulerImpl(CeConfiguration ceConfiguration,
     CeProcessingSchedulerExecutorService processingExecutorService, CeWorkerCallable workerRunnable) {
@@ -54,9 +57,8 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler, Startab
     this.timeUnit = MILLISECONDS;
 
     int workerCount = ceConfiguration.getWorkerCount();
-    this.chainingCallbacks = new ChainingCallback[workerCount];
     for (int i = 0; i < workerCount; i++) {
-      chainingCallbacks[i] = new ChainingCallback();
+      chainingCallbacks.add(new ChainingCallback());
     }
   }
 
@@ -66,15 +68,55 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler, Startab
   }
 
   @Override
-  public void startScheduling() {
+  public synchronized void startScheduling() {
+    schedulingStarted = true;
     for (ChainingCallback chainingCallback : chainingCallbacks) {
-      ListenableScheduledFuture<Boolean> future = executorService.schedule(workerRunnable, delayBetweenTasks, timeUnit);
-      addCallback(future, chainingCallback, executorService);
+      chainingCallback.chainWithoutDelay();
     }
   }
 
   @Override
-  public void stop() {
+  public boolean wakeUp() {
+    for (ChainingCallback chainingCallback : chainingCallbacks) {
+      if (chainingCallback.wakeUp()) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  @Override
+  public int getWorkerCount() {
+    return chainingCallbacks.size();
+  }
+
+  @Override
+  public synchronized void setWorkerCount(int workerCount) {
+    checkArgument(workerCount >= 1, "Worker count must be strictly greater than 0: %s", workerCount);
+    int currentCount = chainingCallbacks.size();
+    if (workerCount > currentCount) {
+      // threads must be available before the new workers are submitted
+      executorService.setThreadCount(workerCount);
+      for (int i = currentCount; i < workerCount; i++) {
+        ChainingCallback chainingCallback = new ChainingCallback();
+        chainingCallbacks.add(chainingCallback);
+        if (schedulingStarted) {
+          chainingCallback.chainWithoutDelay();
+        }
+      }
+    } else if (workerCount < currentCount) {
+      for (int i = currentCount - 1; i >= workerCount; i--) {
+        chainingCallbacks.remove(i).stop();
+      }
+      executorService.setThreadCount(workerCount);
+    } else {
+      return;
+    }
+    LOG.info("Compute Engine worker count changed from {} to {}", currentCount, workerCount);
+  }
+
+  @Override
+  public synchronized void stop() {
     for (ChainingCallback chainingCallback : chainingCallbacks) {
       chainingCallback.stop();
     }
@@ -82,11 +124,14 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler, Startab
 
   private class ChainingCallback implements FutureCallback<Boolean> {
     private final AtomicBoolean keepRunning = new AtomicBoolean(true);
+    // true when the worker is waiting for the next polling of the queue
+    private final AtomicBoolean idle = new AtomicBoolean(false);
     @CheckForNull
-    private ListenableFuture<Boolean> workerFuture;
+    private volatile ListenableFuture<Boolean> workerFuture;
 
     @Override
     public void onSuccess(@Nullable Boolean result) {
+      idle.set(false);
       if (result != null && result) {
         chainWithoutDelay();
       } else {
@@ -96,6 +141,7 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler, Startab
 
     @Override
     public void onFailure(Throwable t) {
+      idle.set(false);
       if (t instanceof Error) {
         LOG.error("Compute Engine execution failed. Scheduled processing interrupted.", t);
       } else {
@@ -113,10 +159,20 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler, Startab
     private void chainWithDelay() {
       if (keepRunning()) {
         workerFuture = executorService.schedule(workerRunnable, delayBetweenTasks, timeUnit);
+        idle.set(true);
       }
       addCallback();
     }
 
+    /**
+     * Cancels the delayed polling of the queue. The cancellation is handled by {@link #onFailure(Throwable)},
+     * which polls the queue again without delay.
+     */
+    private boolean wakeUp() {
+      ListenableFuture<Boolean> future = workerFuture;
+      return keepRunning() && future != null && idle.compareAndSet(true, false) && future.cancel(false);
+    }
+
     private void addCallback() {
       if (workerFuture != null && keepRunning()) {
         Futures.addCallback(workerFuture, this, executorService);
@@ -127,6 +183,9 @@ public class CeProcessingSchedulerImpl implements CeProcessingScheduler, Startab
       return keepRunning.get();
     }
 
+    /**
+     * The in-progress task, if any, is not interrupted. Only the next polling of the queue is cancelled.
+     */
     public void stop() {
       this.keepRunning.set(false);
       if (workerFuture != null) {
@@ -0,0 +1,137 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.taskprocessor;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.lang.management.ManagementFactory;
+import java.lang.management.OperatingSystemMXBean;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.picocontainer.Startable;
+import org.sonar.api.config.Settings;
+import org.sonar.api.utils.MessageException;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.ce.monitoring.CEQueueStatus;
+
+import static java.lang.String.format;
+
+/**
+ * When enabled by property {@link #AUTO_SCALING_PROPERTY}, periodically adjusts the number of workers between
+ * {@link #MIN_WORKER_COUNT_PROPERTY} and {@link #MAX_WORKER_COUNT_PROPERTY}, one worker at a time:
+ * <ul>
+ *   <li>a worker is added when all workers are busy, some tasks are pending and the host is not overloaded</li>
+ *   <li>a worker is removed when some workers are idle and no task is pending, or when the host is overloaded</li>
+ * </ul>
+ * Removed workers are not interrupted, see {@link CeProcessingScheduler#setWorkerCount(int)}.
+ */
+public class CeWorkerCountAutoScaler implements Startable {
+  public static final String AUTO_SCALING_PROPERTY = "sonar.ce.workerCount.autoScaling";
+  public static final String MIN_WORKER_COUNT_PROPERTY = "sonar.ce.workerCount.min";
+  public static final String MAX_WORKER_COUNT_PROPERTY = "sonar.ce.workerCount.max";
+
+  private static final Logger LOG = Loggers.get(CeWorkerCountAutoScaler.class);
+  private static final String THREAD_NAME_PREFIX = "ce-worker-autoscaler-";
+  private static final long PERIOD_IN_SECONDS = 30;
+  // host is overloaded when system load average is greater than the number of processors
+  private static final double MAX_LOAD_AVERAGE_PER_PROCESSOR = 1.0;
+
+  private final CeProcessingScheduler scheduler;
+  private final CEQueueStatus queueStatus;
+  private final boolean enabled;
+  private final int minWorkerCount;
+  private final int maxWorkerCount;
+
+  private ScheduledExecutorService executorService;
+
+  public CeWorkerCountAutoScaler(Settings settings, CeProcessingScheduler scheduler, CEQueueStatus queueStatus) {
+    this.scheduler = scheduler;
+    this.queueStatus = queueStatus;
+    this.enabled = settings.getBoolean(AUTO_SCALING_PROPERTY);
+    this.minWorkerCount = settings.hasKey(MIN_WORKER_COUNT_PROPERTY) ? settings.getInt(MIN_WORKER_COUNT_PROPERTY) : 1;
+    this.maxWorkerCount = settings.hasKey(MAX_WORKER_COUNT_PROPERTY) ? settings.getInt(MAX_WORKER_COUNT_PROPERTY)
+      : Math.max(minWorkerCount, Runtime.getRuntime().availableProcessors());
+    if (enabled && (minWorkerCount < 1 || maxWorkerCount < minWorkerCount)) {
+      throw MessageException.of(format(
+        "values %s of property %s and %s of property %s are invalid. Minimum must be strictly greater than 0 and lower or equal to maximum.",
+        minWorkerCount, MIN_WORKER_COUNT_PROPERTY, maxWorkerCount, MAX_WORKER_COUNT_PROPERTY));
+    }
+  }
+
+  @Override
+  public void start() {
+    if (!enabled) {
+      return;
+    }
+    executorService = Executors.newSingleThreadScheduledExecutor(
+      new ThreadFactoryBuilder()
+        .setNameFormat(THREAD_NAME_PREFIX + "%d")
+        .setPriority(Thread.MIN_PRIORITY)
+        .build());
+    executorService.scheduleWithFixedDelay(() -> {
+      try {
+        adjust();
+      } catch (Exception e) {
+        LOG.error("Failed to adjust the number of Compute Engine workers", e);
+      }
+    }, PERIOD_IN_SECONDS, PERIOD_IN_SECONDS, TimeUnit.SECONDS);
+    LOG.info("Compute Engine will use between {} and {} concurrent workers to process tasks", minWorkerCount, maxWorkerCount);
+  }
+
+  @Override
+  public void stop() {
+    if (executorService != null) {
+      executorService.shutdown();
+    }
+  }
+
+  @VisibleForTesting
+  void adjust() {
+    int workerCount = scheduler.getWorkerCount();
+    int targetCount = workerCount;
+    boolean overloaded = loadAveragePerProcessor() > MAX_LOAD_AVERAGE_PER_PROCESSOR;
+    long inProgressCount = queueStatus.getInProgressCount();
+    if (overloaded) {
+      targetCount--;
+    } else if (inProgressCount >= workerCount) {
+      if (queueStatus.getPendingCount() > 0) {
+        targetCount++;
+      }
+    } else if (queueStatus.getPendingCount() == 0) {
+      targetCount--;
+    }
+    targetCount = Math.min(maxWorkerCount, Math.max(minWorkerCount, targetCount));
+    if (targetCount != workerCount) {
+      scheduler.setWorkerCount(targetCount);
+    }
+  }
+
+  /**
+   * System load average of the last minute divided by the number of processors, or a negative value
+   * if load average is not available on this platform.
+   */
+  @VisibleForTesting
+  double loadAveragePerProcessor() {
+    OperatingSystemMXBean os = ManagementFactory.getOperatingSystemMXBean();
+    return os.getSystemLoadAverage() / os.getAvailableProcessors();
+  }
+}
@@ -33,6 +33,7 @@ import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Stream;
 import org.sonar.api.issue.DefaultTransitions;
+import org.sonar.api.notifications.Notification;
 import org.sonar.api.rule.RuleKey;
 import org.sonar.api.rule.Severity;
 import org.sonar.api.rules.RuleType;
@@ -202,7 +203,7 @@ public class BulkChangeAction implements IssuesWsAction {
         .filter(bulkChange(issueChangeContext, bulkChangeData, result))
         .collect(Collectors.toList());
       issueStorage.save(items);
-      items.forEach(sendNotification(issueChangeContext, bulkChangeData));
+      sendNotifications(items, issueChangeContext, bulkChangeData);
       return result;
     };
   }
@@ -235,17 +236,20 @@ public class BulkChangeAction implements IssuesWsAction {
     bulkChangeData.getCommentAction().ifPresent(action -> action.execute(bulkChangeData.getProperties(action.key()), actionContext));
   }
 
-  private Consumer<DefaultIssue> sendNotification(IssueChangeContext issueChangeContext, BulkChangeData bulkChangeData) {
-    return issue -> {
-      if (bulkChangeData.sendNotification) {
-        notificationService.scheduleForSending(new IssueChangeNotification()
-          .setIssue(issue)
-          .setChangeAuthorLogin(issueChangeContext.login())
-          .setRuleName(bulkChangeData.rulesByKey.get(issue.ruleKey()).getName())
-          .setProject(bulkChangeData.projectsByUuid.get(issue.projectUuid()))
-          .setComponent(bulkChangeData.componentsByUuid.get(issue.componentUuid())));
-      }
-    };
+  private void sendNotifications(List<DefaultIssue> issues, IssueChangeContext issueChangeContext, BulkChangeData bulkChangeData) {
+    if (!bulkChangeData.sendNotification || issues.isEmpty()) {
+      return;
+    }
+    List<Notification> notifications = issues.stream()
+      .map(issue -> (Notification) new IssueChangeNotification()
+        .setIssue(issue)
+        .setChangeAuthorLogin(issueChangeContext.login())
+        .setRuleName(bulkChangeData.rulesByKey.get(issue.ruleKey()).getName())
+        .setProject(bulkChangeData.projectsByUuid.get(issue.projectUuid()))
+        .setComponent(bulkChangeData.componentsByUuid.get(issue.componentUuid())))
+      .collect(Collectors.toList());
+    // notifications are inserted in the queue in a single batch
+    notificationService.scheduleForSending(notifications);
   }
 
   private static Function<BulkChangeResult, Issues.BulkChangeWsResponse> toWsResponse() {
@@ -48,6 +48,7 @@ public class IssueWsModule extends Module {
       IssueQueryService.class,
       IssuesWs.class,
       SearchResponseLoader.class,
+      SearchResponseLoaderExecutorService.class,
       SearchResponseFormat.class,
       OperationResponseWriter.class,
       WsResponseCommonFormat.class,
@@ -19,15 +19,27 @@
  */
 package org.sonar.server.issue.ws;
 
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.MultimapBuilder;
 import com.google.common.collect.SetMultimap;
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.api.utils.log.Profiler;
 import org.sonar.core.issue.DefaultIssue;
 import org.sonar.core.util.stream.Collectors;
 import org.sonar.db.DbClient;
@@ -35,7 +47,10 @@ import org.sonar.db.DbSession;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.issue.IssueChangeDto;
 import org.sonar.db.issue.IssueDto;
+import org.sonar.db.organization.OrganizationDto;
 import org.sonar.db.protobuf.DbIssues;
+import org.sonar.db.rule.RuleDefinitionDto;
+import org.sonar.db.user.UserDto;
 import org.sonar.server.es.Facets;
 import org.sonar.server.issue.ActionFinder;
 import org.sonar.server.issue.TransitionService;
@@ -43,6 +58,8 @@ import org.sonar.server.user.UserSession;
 import org.sonarqube.ws.client.issue.IssuesWsParameters;
 
 import static com.google.common.collect.Lists.newArrayList;
+import static java.lang.String.format;
+import static java.util.Arrays.asList;
 import static org.sonar.server.issue.ws.SearchAdditionalField.ACTIONS;
 import static org.sonar.server.issue.ws.SearchAdditionalField.COMMENTS;
 import static org.sonar.server.issue.ws.SearchAdditionalField.RULES;
@@ -54,89 +71,159 @@ import static org.sonar.server.issue.ws.SearchAdditionalField.USERS;
  */
 public class SearchResponseLoader {
 
+  private static final Logger LOGGER = Loggers.get(SearchResponseLoader.class);
+
   private final UserSession userSession;
   private final DbClient dbClient;
   private final ActionFinder actionService;
   private final TransitionService transitionService;
+  private final SearchResponseLoaderExecutorService executorService;
 
-  public SearchResponseLoader(UserSession userSession, DbClient dbClient, ActionFinder actionService, TransitionService transitionService) {
+  public SearchResponseLoader(UserSession userSession, DbClient dbClient, ActionFinder actionService, TransitionService transitionService,
+    SearchResponseLoaderExecutorService executorService) {
     this.userSession = userSession;
     this.dbClient = dbClient;
     this.actionService = actionService;
     this.transitionService = transitionService;
+    this.executorService = executorService;
   }
 
   /**
    * The issue keys are given by the multi-criteria search in Elasticsearch index.
+   * <p>
+   * Once issues are loaded, the independent lookups (rules, comments and users, components and organizations)
+   * are executed concurrently, each one with its own {@link DbSession}. The lookups do not share any
+   * mutable state: they are given copies of the keys to be loaded and return what they loaded, which
+   * is then merged into the response by the calling thread.
+   * </p>
    */
   public SearchResponseData load(Collector collector, @Nullable Facets facets) {
+    SearchResponseData result = loadIssues(collector);
+    collector.collect(result.getIssues());
+
+    List<String> issueKeys = ImmutableList.copyOf(collector.getIssueKeys());
+    List<RuleKey> ruleKeys = collector.contains(RULES) ? collector.get(RULES) : null;
+    List<String> logins = collector.contains(USERS) ? collector.get(USERS) : null;
+    boolean loadComments = collector.contains(COMMENTS);
+    Set<String> componentUuids = ImmutableSet.copyOf(collector.getComponentUuids());
+    Set<String> projectUuids = ImmutableSet.copyOf(collector.getProjectUuids());
+    // user session is bound to the thread of the web request
+    String login = userSession.isLoggedIn() ? userSession.getLogin() : null;
+
+    Future<List<RuleDefinitionDto>> rulesLoad = executorService.submit(
+      () -> loadPhase("rules", dbSession -> loadRules(ruleKeys, dbSession)));
+    Future<CommentsAndUsers> commentsAndUsersLoad = executorService.submit(
+      () -> loadPhase("comments and users", dbSession -> loadCommentsAndUsers(issueKeys, loadComments, logins, login, dbSession)));
+    Future<ComponentsAndOrganizations> componentsLoad = executorService.submit(
+      () -> loadPhase("components and organizations", dbSession -> loadComponentsAndOrganizations(componentUuids, projectUuids, dbSession)));
+    List<Future<?>> loads = asList(rulesLoad, commentsAndUsersLoad, componentsLoad);
+
+    loadActionsAndTransitions(collector, result);
+    completeTotalEffortFromFacet(facets, result);
+
+    List<RuleDefinitionDto> rules = await(rulesLoad, loads);
+    CommentsAndUsers commentsAndUsers = await(commentsAndUsersLoad, loads);
+    ComponentsAndOrganizations componentsAndOrganizations = await(componentsLoad, loads);
+
+    result.setRules(rules);
+    commentsAndUsers.mergeInto(result);
+    componentsAndOrganizations.mergeInto(result);
+    return result;
+  }
+
+  private SearchResponseData loadIssues(Collector collector) {
+    Profiler profiler = Profiler.create(LOGGER).startDebug("Load issues");
     try (DbSession dbSession = dbClient.openSession(false)) {
-      SearchResponseData result = new SearchResponseData(dbClient.issueDao().selectByOrderedKeys(dbSession, collector.getIssueKeys()));
-      collector.collect(result.getIssues());
-
-      loadRules(collector, dbSession, result);
-      // order is important - loading of comments complete the list of users: loadComments() is
-      // before loadUsers()
-      loadComments(collector, dbSession, result);
-      loadUsers(collector, dbSession, result);
-      loadComponents(collector, dbSession, result);
-      loadOrganizations(dbSession, result);
-      loadActionsAndTransitions(collector, result);
-      completeTotalEffortFromFacet(facets, result);
-      return result;
+      return new SearchResponseData(dbClient.issueDao().selectByOrderedKeys(dbSession, collector.getIssueKeys()));
+    } finally {
+      profiler.stopDebug();
     }
   }
 
-  private void loadUsers(Collector collector, DbSession dbSession, SearchResponseData result) {
-    if (collector.contains(USERS)) {
-      result.setUsers(dbClient.userDao().selectByLogins(dbSession, collector.<String>get(USERS)));
+  private <T> T loadPhase(String phase, Function<DbSession, T> loader) {
+    Profiler profiler = Profiler.create(LOGGER).startDebug(format("Load %s of issues", phase));
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      return loader.apply(dbSession);
+    } finally {
+      profiler.stopDebug();
     }
   }
 
-  private void loadComments(Collector collector, DbSession dbSession, SearchResponseData result) {
-    if (collector.contains(COMMENTS)) {
-      List<IssueChangeDto> comments = dbClient.issueChangeDao().selectByTypeAndIssueKeys(dbSession, collector.getIssueKeys(), IssueChangeDto.TYPE_COMMENT);
-      result.setComments(comments);
-      for (IssueChangeDto comment : comments) {
-        collector.add(USERS, comment.getUserLogin());
-        if (canEditOrDelete(comment)) {
-          result.addUpdatableComment(comment.getKey());
-        }
+  /**
+   * Waits for the completion of {@code load}. The other loads are cancelled if it failed.
+   */
+  private static <T> T await(Future<T> load, List<Future<?>> loads) {
+    try {
+      return load.get();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      loads.forEach(l -> l.cancel(true));
+      throw new IllegalStateException("Interrupted while loading data of issues", e);
+    } catch (ExecutionException e) {
+      loads.forEach(l -> l.cancel(true));
+      Throwable cause = e.getCause();
+      if (cause instanceof RuntimeException) {
+        throw (RuntimeException) cause;
       }
+      throw new IllegalStateException("Fail to load data of issues", cause);
     }
   }
 
-  private boolean canEditOrDelete(IssueChangeDto dto) {
-    return userSession.isLoggedIn() && userSession.getLogin().equals(dto.getUserLogin());
+  @CheckForNull
+  private List<RuleDefinitionDto> loadRules(@Nullable List<RuleKey> ruleKeys, DbSession dbSession) {
+    if (ruleKeys == null) {
+      return null;
+    }
+    return dbClient.ruleDao().selectDefinitionByKeys(dbSession, ruleKeys);
   }
 
-  private void loadRules(Collector collector, DbSession dbSession, SearchResponseData result) {
-    if (collector.contains(RULES)) {
-      result.setRules(dbClient.ruleDao().selectDefinitionByKeys(dbSession, collector.get(RULES)));
+  /**
+   * Loading of comments completes the list of users, so comments are loaded before users.
+   */
+  private CommentsAndUsers loadCommentsAndUsers(List<String> issueKeys, boolean loadComments, @Nullable List<String> logins, @Nullable String login,
+    DbSession dbSession) {
+    CommentsAndUsers loaded = new CommentsAndUsers();
+    Set<String> userLogins = new HashSet<>();
+    if (logins != null) {
+      userLogins.addAll(logins);
     }
+    if (loadComments) {
+      loaded.comments = dbClient.issueChangeDao().selectByTypeAndIssueKeys(dbSession, issueKeys, IssueChangeDto.TYPE_COMMENT);
+      for (IssueChangeDto comment : loaded.comments) {
+        if (comment.getUserLogin() != null) {
+          userLogins.add(comment.getUserLogin());
+        }
+        if (canEditOrDelete(login, comment)) {
+          loaded.updatableCommentKeys.add(comment.getKey());
+        }
+      }
+    }
+    if (logins != null) {
+      loaded.users = dbClient.userDao().selectByLogins(dbSession, userLogins);
+    }
+    return loaded;
+  }
+
+  private static boolean canEditOrDelete(@Nullable String login, IssueChangeDto dto) {
+    return login != null && login.equals(dto.getUserLogin());
   }
 
-  private void loadComponents(Collector collector, DbSession dbSession, SearchResponseData result) {
+  private ComponentsAndOrganizations loadComponentsAndOrganizations(Set<String> componentUuids, Set<String> projectUuids, DbSession dbSession) {
+    ComponentsAndOrganizations loaded = new ComponentsAndOrganizations();
     // always load components and projects, because some issue fields still relate to component ids/keys.
     // They should be dropped but are kept for backward-compatibility (see SearchResponseFormat)
-    result.addComponents(dbClient.componentDao().selectByUuids(dbSession, collector.getComponentUuids()));
-    result.addComponents(dbClient.componentDao().selectSubProjectsByComponentUuids(dbSession, collector.getComponentUuids()));
-    for (ComponentDto component : result.getComponents()) {
-      collector.addProjectUuid(component.projectUuid());
+    loaded.components.addAll(dbClient.componentDao().selectByUuids(dbSession, componentUuids));
+    loaded.components.addAll(dbClient.componentDao().selectSubProjectsByComponentUuids(dbSession, componentUuids));
+    Set<String> allProjectUuids = new HashSet<>(projectUuids);
+    for (ComponentDto component : loaded.components) {
+      allProjectUuids.add(component.projectUuid());
     }
-    List<ComponentDto> projects = dbClient.componentDao().selectByUuids(dbSession, collector.getProjectUuids());
-    result.addComponents(projects);
-  }
+    loaded.components.addAll(dbClient.componentDao().selectByUuids(dbSession, allProjectUuids));
 
-  private void loadOrganizations(DbSession dbSession, SearchResponseData result) {
-    Collection<ComponentDto> components = result.getComponents();
-    if (components == null) {
-      return;
-    }
-    dbClient.organizationDao().selectByUuids(
+    loaded.organizations = dbClient.organizationDao().selectByUuids(
       dbSession,
-      components.stream().map(ComponentDto::getOrganizationUuid).collect(Collectors.toSet()))
-      .forEach(result::addOrganization);
+      loaded.components.stream().map(ComponentDto::getOrganizationUuid).collect(Collectors.toSet()));
+    return loaded;
   }
 
   private void loadActionsAndTransitions(Collector collector, SearchResponseData result) {
@@ -164,6 +251,30 @@ public class SearchResponseLoader {
     }
   }
 
+  private static class CommentsAndUsers {
+    private List<IssueChangeDto> comments = null;
+    private final List<String> updatableCommentKeys = new ArrayList<>();
+    private List<UserDto> users = null;
+
+    void mergeInto(SearchResponseData result) {
+      if (comments != null) {
+        result.setComments(comments);
+      }
+      updatableCommentKeys.forEach(result::addUpdatableComment);
+      result.setUsers(users);
+    }
+  }
+
+  private static class ComponentsAndOrganizations {
+    private final List<ComponentDto> components = new ArrayList<>();
+    private List<OrganizationDto> organizations = Collections.emptyList();
+
+    void mergeInto(SearchResponseData result) {
+      result.addComponents(components);
+      organizations.forEach(result::addOrganization);
+    }
+  }
+
   /**
    * Collects the keys of all the data to be loaded (users, rules, ...)
    */
@@ -0,0 +1,54 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.issue.ws;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import org.sonar.server.util.AbstractStoppableExecutorService;
+
+/**
+ * Bounded pool of threads used by {@link SearchResponseLoader} to load the data of a response concurrently.
+ * When all the threads are busy and the queue is full, the tasks are executed by the thread
+ * of the web request, which means that data is loaded sequentially, as if there were no pool.
+ */
+public class SearchResponseLoaderExecutorService extends AbstractStoppableExecutorService<ThreadPoolExecutor> {
+
+  private static final int MAX_THREADS = 8;
+  private static final int QUEUE_SIZE = 32;
+  private static final long KEEP_ALIVE_SECONDS = 60L;
+
+  public SearchResponseLoaderExecutorService() {
+    super(newExecutor());
+  }
+
+  private static ThreadPoolExecutor newExecutor() {
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(MAX_THREADS, MAX_THREADS, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+      new ArrayBlockingQueue<>(QUEUE_SIZE),
+      new ThreadFactoryBuilder()
+        .setDaemon(true)
+        .setNameFormat("IssueSearchLoader-%d")
+        .build(),
+      new ThreadPoolExecutor.CallerRunsPolicy());
+    executor.allowCoreThreadTimeOut(true);
+    return executor;
+  }
+}
@@ -33,6 +33,7 @@ import org.sonar.api.utils.Paging;
 import org.sonar.db.component.ComponentDto;
 import org.sonar.db.component.ComponentTreeQuery.Strategy;
 import org.sonar.db.metric.MetricDto;
+import org.sonar.server.ws.ProtobufStreamWriter;
 import org.sonarqube.ws.WsMeasures;
 import org.sonarqube.ws.WsMeasures.ComponentTreeWsResponse;
 import org.sonarqube.ws.client.measure.ComponentTreeWsRequest;
@@ -185,26 +186,29 @@ public class ComponentTreeAction implements MeasuresWsAction {
 
   @Override
   public void handle(Request request, Response response) throws Exception {
-    ComponentTreeWsResponse componentTreeWsResponse = doHandle(toComponentTreeWsRequest(request));
-    writeProtobuf(componentTreeWsResponse, request, response);
-  }
-
-  private ComponentTreeWsResponse doHandle(ComponentTreeWsRequest request) {
-    ComponentTreeData data = dataLoader.load(request);
+    ComponentTreeWsRequest componentTreeWsRequest = toComponentTreeWsRequest(request);
+    ComponentTreeData data = dataLoader.load(componentTreeWsRequest);
     if (data.getComponents() == null) {
-      return emptyResponse(data.getBaseComponent(), request);
+      writeProtobuf(emptyResponse(data.getBaseComponent(), componentTreeWsRequest), request, response);
+      return;
     }
 
-    return buildResponse(
-      request,
-      data,
-      Paging.forPageIndex(
-        request.getPage())
-        .withPageSize(request.getPageSize())
-        .andTotal(data.getComponentCount()));
+    Paging paging = Paging.forPageIndex(componentTreeWsRequest.getPage())
+      .withPageSize(componentTreeWsRequest.getPageSize())
+      .andTotal(data.getComponentCount());
+    // components are streamed as they are formatted, instead of building the whole response in memory
+    ComponentTreeWsResponse header = buildResponseWithoutComponents(componentTreeWsRequest, data, paging);
+    ProtobufStreamWriter writer = ProtobufStreamWriter.of(header, "components", request, response);
+    for (ComponentDto componentDto : data.getComponents()) {
+      writer.write(componentDtoToWsComponent(
+        componentDto,
+        data.getMeasuresByComponentUuidAndMetric().row(componentDto.uuid()),
+        data.getReferenceComponentsByUuid()).build());
+    }
+    writer.finish();
   }
 
-  private static ComponentTreeWsResponse buildResponse(ComponentTreeWsRequest request, ComponentTreeData data, Paging paging) {
+  private static ComponentTreeWsResponse buildResponseWithoutComponents(ComponentTreeWsRequest request, ComponentTreeData data, Paging paging) {
     ComponentTreeWsResponse.Builder response = ComponentTreeWsResponse.newBuilder();
     response.getPagingBuilder()
       .setPageIndex(paging.pageIndex())
@@ -218,13 +222,6 @@ public class ComponentTreeAction implements MeasuresWsAction {
         data.getMeasuresByComponentUuidAndMetric().row(data.getBaseComponent().uuid()),
         data.getReferenceComponentsByUuid()));
 
-    for (ComponentDto componentDto : data.getComponents()) {
-      response.addComponents(componentDtoToWsComponent(
-        componentDto,
-        data.getMeasuresByComponentUuidAndMetric().row(componentDto.uuid()),
-        data.getReferenceComponentsByUuid()));
-    }
-
     if (areMetricsInResponse(request)) {
       WsMeasures.Metrics.Builder metricsBuilder = response.getMetricsBuilder();
       for (MetricDto metricDto : data.getMetrics()) {
@@ -20,14 +20,21 @@
 package org.sonar.server.notification;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Multimap;
 import com.google.common.collect.SetMultimap;
 import java.io.IOException;
 import java.io.InvalidClassException;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.sonar.api.notifications.Notification;
 import org.sonar.api.notifications.NotificationChannel;
@@ -43,11 +50,16 @@ public class DefaultNotificationManager implements NotificationManager {
   private static final Logger LOG = Loggers.get(DefaultNotificationManager.class);
 
   private static final String UNABLE_TO_READ_NOTIFICATION = "Unable to read notification";
+  static final long SUBSCRIBERS_CACHE_TTL_IN_SECONDS = 60;
 
   private NotificationChannel[] notificationChannels;
   private NotificationQueueDao notificationQueueDao;
   private PropertiesDao propertiesDao;
 
+  private final Cache<SubscribersKey, List<String>> subscribersCache = CacheBuilder.newBuilder()
+    .expireAfterWrite(SUBSCRIBERS_CACHE_TTL_IN_SECONDS, TimeUnit.SECONDS)
+    .build();
+
   private boolean alreadyLoggedDeserializationIssue = false;
 
   /**
@@ -83,21 +95,32 @@ public class DefaultNotificationManager implements NotificationManager {
   /**
    * Give the notification queue so that it can be processed
    */
+  @CheckForNull
   public Notification getFromQueue() {
-    int batchSize = 1;
-    List<NotificationQueueDto> notificationDtos = notificationQueueDao.selectOldest(batchSize);
-    if (notificationDtos.isEmpty()) {
-      return null;
-    }
-    notificationQueueDao.delete(notificationDtos);
+    List<Notification> notifications = getFromQueue(1);
+    return notifications.isEmpty() ? null : notifications.get(0);
+  }
 
-    return convertToNotification(notificationDtos);
+  /**
+   * Removes at most {@code count} of the oldest notifications from the queue and returns them. Notifications
+   * which can't be deserialized are ignored.
+   */
+  public List<Notification> getFromQueue(int count) {
+    List<NotificationQueueDto> notificationDtos = notificationQueueDao.selectOldestAndDelete(count);
+    List<Notification> notifications = new ArrayList<>(notificationDtos.size());
+    for (NotificationQueueDto notificationDto : notificationDtos) {
+      Notification notification = convertToNotification(notificationDto);
+      if (notification != null) {
+        notifications.add(notification);
+      }
+    }
+    return notifications;
   }
 
-  private Notification convertToNotification(List<NotificationQueueDto> notifications) {
+  @CheckForNull
+  private Notification convertToNotification(NotificationQueueDto notification) {
     try {
-      // If batchSize is increased then we should return a list instead of a single element
-      return notifications.get(0).toNotification();
+      return notification.toNotification();
     } catch (InvalidClassException e) {
       // SONAR-4739
       if (!alreadyLoggedDeserializationIssue) {
@@ -121,6 +144,9 @@ public class DefaultNotificationManager implements NotificationManager {
 
   /**
    * {@inheritDoc}
+   * <p/>
+   * Subscribers are cached for {@link #SUBSCRIBERS_CACHE_TTL_IN_SECONDS} seconds, as the same dispatchers are
+   * called for all the notifications of a project when a large analysis is processed.
    */
   @Override
   public Multimap<String, NotificationChannel> findSubscribedRecipientsForDispatcher(NotificationDispatcher dispatcher,
@@ -132,17 +158,26 @@ public class DefaultNotificationManager implements NotificationManager {
       String channelKey = channel.getKey();
 
       // Find users subscribed globally to the dispatcher (i.e. not on a specific project)
-      addUsersToRecipientListForChannel(propertiesDao.selectUsersForNotification(dispatcherKey, channelKey, null), recipients, channel);
+      addUsersToRecipientListForChannel(selectUsersForNotification(dispatcherKey, channelKey, null), recipients, channel);
 
       if (projectUuid != null) {
         // Find users subscribed to the dispatcher specifically for the project
-        addUsersToRecipientListForChannel(propertiesDao.selectUsersForNotification(dispatcherKey, channelKey, projectUuid), recipients, channel);
+        addUsersToRecipientListForChannel(selectUsersForNotification(dispatcherKey, channelKey, projectUuid), recipients, channel);
       }
     }
 
     return recipients;
   }
 
+  private List<String> selectUsersForNotification(String dispatcherKey, String channelKey, @Nullable String projectUuid) {
+    try {
+      return subscribersCache.get(new SubscribersKey(dispatcherKey, channelKey, projectUuid),
+        () -> propertiesDao.selectUsersForNotification(dispatcherKey, channelKey, projectUuid));
+    } catch (ExecutionException e) {
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
   @Override
   public Multimap<String, NotificationChannel> findNotificationSubscribers(NotificationDispatcher dispatcher, @Nullable String componentKey) {
     String dispatcherKey = dispatcher.getKey();
@@ -166,4 +201,34 @@ public class DefaultNotificationManager implements NotificationManager {
     }
   }
 
+  private static final class SubscribersKey {
+    private final String dispatcherKey;
+    private final String channelKey;
+    @Nullable
+    private final String projectUuid;
+
+    private SubscribersKey(String dispatcherKey, String channelKey, @Nullable String projectUuid) {
+      this.dispatcherKey = dispatcherKey;
+      this.channelKey = channelKey;
+      this.projectUuid = projectUuid;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (o == null || getClass() != o.getClass()) {
+        return false;
+      }
+      SubscribersKey that = (SubscribersKey) o;
+      return dispatcherKey.equals(that.dispatcherKey) && channelKey.equals(that.channelKey) && Objects.equals(projectUuid, that.projectUuid);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(dispatcherKey, channelKey, projectUuid);
+    }
+  }
+
 }
@@ -21,9 +21,15 @@ package org.sonar.server.notification;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 import org.picocontainer.Startable;
 import org.sonar.api.Properties;
 import org.sonar.api.Property;
@@ -43,34 +49,51 @@ import org.sonar.api.utils.log.Loggers;
     key = NotificationDaemon.PROPERTY_DELAY_BEFORE_REPORTING_STATUS,
     defaultValue = "600",
     name = "Delay before reporting notification status, in seconds",
+    global = false),
+  @Property(
+    key = NotificationDaemon.PROPERTY_WORKER_COUNT,
+    defaultValue = "4",
+    name = "Number of threads delivering notifications",
     global = false)
 })
 @ServerSide
 public class NotificationDaemon implements Startable {
   private static final String THREAD_NAME_PREFIX = "sq-notification-service-";
+  private static final String WORKER_THREAD_NAME_PREFIX = "sq-notification-worker-";
 
   private static final Logger LOG = Loggers.get(NotificationDaemon.class);
 
   public static final String PROPERTY_DELAY = "sonar.notifications.delay";
   public static final String PROPERTY_DELAY_BEFORE_REPORTING_STATUS = "sonar.notifications.runningDelayBeforeReportingStatus";
+  public static final String PROPERTY_WORKER_COUNT = "sonar.notifications.workerCount";
 
   private final long delayInSeconds;
   private final long delayBeforeReportingStatusInSeconds;
+  private final int workerCount;
   private final DefaultNotificationManager manager;
   private final NotificationService service;
+  private final AtomicLong deliveryCount = new AtomicLong();
+  private final AtomicLong deliveryDurationInMs = new AtomicLong();
 
   private ScheduledExecutorService executorService;
-  private boolean stopping = false;
+  private ExecutorService workers;
+  private volatile boolean stopping = false;
 
   public NotificationDaemon(Settings settings, DefaultNotificationManager manager, NotificationService service) {
     this.delayInSeconds = settings.getLong(PROPERTY_DELAY);
     this.delayBeforeReportingStatusInSeconds = settings.getLong(PROPERTY_DELAY_BEFORE_REPORTING_STATUS);
+    this.workerCount = Math.max(1, settings.getInt(PROPERTY_WORKER_COUNT));
     this.manager = manager;
     this.service = service;
   }
 
   @Override
   public void start() {
+    workers = Executors.newFixedThreadPool(workerCount,
+      new ThreadFactoryBuilder()
+        .setNameFormat(WORKER_THREAD_NAME_PREFIX + "%d")
+        .setPriority(Thread.MIN_PRIORITY)
+        .build());
     executorService = Executors.newSingleThreadScheduledExecutor(
       new ThreadFactoryBuilder()
         .setNameFormat(THREAD_NAME_PREFIX + "%d")
@@ -83,7 +106,7 @@ public class NotificationDaemon implements Startable {
         LOG.error("Error in NotificationService", e);
       }
     }, 0, delayInSeconds, TimeUnit.SECONDS);
-    LOG.info("Notification service started (delay {} sec.)", delayInSeconds);
+    LOG.info("Notification service started (delay {} sec., {} workers)", delayInSeconds, workerCount);
   }
 
   @Override
@@ -92,6 +115,8 @@ public class NotificationDaemon implements Startable {
       stopping = true;
       executorService.shutdown();
       executorService.awaitTermination(5, TimeUnit.SECONDS);
+      workers.shutdown();
+      workers.awaitTermination(5, TimeUnit.SECONDS);
     } catch (InterruptedException e) {
       LOG.error("Error during stop of notification service", e);
       Thread.currentThread().interrupt();
@@ -105,10 +130,12 @@ public class NotificationDaemon implements Startable {
     long lastLog = start;
     long notifSentCount = 0;
 
-    Notification notifToSend = manager.getFromQueue();
-    while (notifToSend != null) {
-      service.deliver(notifToSend);
-      notifSentCount++;
+    // notifications are removed from the queue when claimed, so claim no more than what workers deliver at once
+    int batchSize = workerCount;
+    List<Notification> notifsToSend = manager.getFromQueue(batchSize);
+    while (!notifsToSend.isEmpty()) {
+      deliver(notifsToSend);
+      notifSentCount += notifsToSend.size();
       if (stopping) {
         break;
       }
@@ -119,14 +146,58 @@ public class NotificationDaemon implements Startable {
         long spentTimeInMinutes = (now - start) / (60 * 1000);
         log(notifSentCount, remainingNotifCount, spentTimeInMinutes);
       }
-      notifToSend = manager.getFromQueue();
+      notifsToSend = manager.getFromQueue(batchSize);
+    }
+  }
+
+  /**
+   * Delivers the notifications in parallel and waits for all of them to be delivered
+   */
+  private void deliver(List<Notification> notifications) {
+    List<Future<?>> futures = new ArrayList<>(notifications.size());
+    for (Notification notification : notifications) {
+      futures.add(workers.submit(() -> deliverOrRequeue(notification)));
+    }
+    for (Future<?> future : futures) {
+      try {
+        future.get();
+      } catch (ExecutionException e) {
+        LOG.error("Error in NotificationService", e.getCause());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+  }
+
+  /**
+   * Notifications already claimed from the queue but not delivered yet when the daemon is stopping are put back
+   * into the queue, so that they are delivered after restart.
+   */
+  private void deliverOrRequeue(Notification notification) {
+    if (stopping) {
+      manager.scheduleForSending(notification);
+    } else {
+      deliver(notification);
+    }
+  }
+
+  private void deliver(Notification notification) {
+    long start = System.currentTimeMillis();
+    try {
+      service.deliver(notification);
+    } finally {
+      deliveryCount.incrementAndGet();
+      deliveryDurationInMs.addAndGet(System.currentTimeMillis() - start);
     }
   }
 
   @VisibleForTesting
   void log(long notifSentCount, long remainingNotifCount, long spentTimeInMinutes) {
-    LOG.info("{} notifications sent during the past {} minutes and {} still waiting to be sent",
-      notifSentCount, spentTimeInMinutes, remainingNotifCount);
+    long count = deliveryCount.getAndSet(0);
+    long duration = deliveryDurationInMs.getAndSet(0);
+    LOG.info("{} notifications sent during the past {} minutes and {} still waiting to be sent (average delivery time: {} ms)",
+      notifSentCount, spentTimeInMinutes, remainingNotifCount, count == 0 ? 0 : (duration / count));
   }
 
   @VisibleForTesting
@@ -23,6 +23,7 @@ import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Multimap;
+import com.google.common.collect.Multimaps;
 import com.google.common.collect.SetMultimap;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -79,18 +80,21 @@ public class NotificationService {
   }
 
   private void dispatch(Notification notification, SetMultimap<String, NotificationChannel> recipients) {
-    for (Map.Entry<String, Collection<NotificationChannel>> entry : recipients.asMap().entrySet()) {
-      String username = entry.getKey();
-      Collection<NotificationChannel> userChannels = entry.getValue();
-      LOG.debug("For user {} via {}", username, userChannels);
-      for (NotificationChannel channel : userChannels) {
-        try {
-          channel.deliver(notification, username);
-        } catch (Exception e) {
-          // catch all exceptions in order to deliver via other channels
-          LOG.warn("Unable to deliver notification " + notification + " for user " + username + " via " + channel, e);
-        }
-      }
+    SetMultimap<NotificationChannel, String> usernamesByChannel = Multimaps.invertFrom(recipients, HashMultimap.create());
+    for (Map.Entry<NotificationChannel, Collection<String>> entry : usernamesByChannel.asMap().entrySet()) {
+      NotificationChannel channel = entry.getKey();
+      Collection<String> usernames = entry.getValue();
+      LOG.debug("For users {} via {}", usernames, channel);
+      deliver(notification, channel, usernames);
+    }
+  }
+
+  private static void deliver(Notification notification, NotificationChannel channel, Collection<String> usernames) {
+    try {
+      channel.deliver(notification, usernames);
+    } catch (Exception e) {
+      // catch all exceptions in order to deliver via other channels
+      LOG.warn("Unable to deliver notification " + notification + " for users " + usernames + " via " + channel, e);
     }
   }
 
@@ -23,10 +23,15 @@ import java.sql.Connection;
 import java.sql.DatabaseMetaData;
 import java.sql.SQLException;
 import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import org.apache.commons.dbcp.BasicDataSource;
+import org.sonar.db.Database;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
+import org.sonar.db.DefaultDatabase;
+import org.sonar.db.profiling.ConnectionPoolStatistics;
+import org.sonar.db.profiling.SqlStatementStatistics;
 import org.sonar.server.platform.db.migration.version.DatabaseVersion;
 
 /**
@@ -34,6 +39,9 @@ import org.sonar.server.platform.db.migration.version.DatabaseVersion;
  */
 public class DatabaseMonitor extends BaseMonitorMBean implements DatabaseMonitorMBean {
 
+  static final int TOP_SQL_STATEMENTS = 10;
+  private static final ConnectionPoolStatistics NO_POOL_STATISTICS = new ConnectionPoolStatistics();
+
   private final DatabaseVersion dbVersion;
   private final DbClient dbClient;
 
@@ -97,14 +105,52 @@ public class DatabaseMonitor extends BaseMonitorMBean implements DatabaseMonitor
     return commonsDbcp().getRemoveAbandonedTimeout();
   }
 
+  @Override
+  public long getPoolWaitP50Micros() {
+    return poolStatistics().getAcquisitionWaitMicrosAtPercentile(50.0);
+  }
+
+  @Override
+  public long getPoolWaitP99Micros() {
+    return poolStatistics().getAcquisitionWaitMicrosAtPercentile(99.0);
+  }
+
+  @Override
+  public long getPoolWaitTimeouts() {
+    return poolStatistics().getTimeouts();
+  }
+
+  @Override
+  public long getPoolConnectionLifetimeP99Millis() {
+    return poolStatistics().getLifetimeMillisAtPercentile(99.0);
+  }
+
+  @Override
+  public String[] getSqlStatementStatistics() {
+    return topSqlStatements().stream()
+      .map(SqlStatementStatistics.StatementStatistics::toString)
+      .toArray(String[]::new);
+  }
+
   @Override
   public Map<String, Object> attributes() {
     Map<String, Object> attributes = new LinkedHashMap<>();
     completeDbAttributes(attributes);
     completePoolAttributes(attributes);
+    completeSqlStatementAttributes(attributes);
     return attributes;
   }
 
+  private void completeSqlStatementAttributes(Map<String, Object> attributes) {
+    for (SqlStatementStatistics.StatementStatistics statistics : topSqlStatements()) {
+      attributes.put("SQL " + statistics.getStatementId(), statistics.summary());
+    }
+  }
+
+  private List<SqlStatementStatistics.StatementStatistics> topSqlStatements() {
+    return dbClient.getMyBatis().getStatementStatistics().getTopByTotalTime(TOP_SQL_STATEMENTS);
+  }
+
   private void completePoolAttributes(Map<String, Object> attributes) {
     attributes.put("Pool Active Connections", getPoolActiveConnections());
     attributes.put("Pool Max Connections", getPoolMaxActiveConnections());
@@ -115,6 +161,18 @@ public class DatabaseMonitor extends BaseMonitorMBean implements DatabaseMonitor
     attributes.put("Pool Max Wait (ms)", getPoolMaxWaitMillis());
     attributes.put("Pool Remove Abandoned", getPoolRemoveAbandoned());
     attributes.put("Pool Remove Abandoned Timeout (seconds)", getPoolRemoveAbandonedTimeoutSeconds());
+    attributes.put("Pool Wait p50 (us)", getPoolWaitP50Micros());
+    attributes.put("Pool Wait p99 (us)", getPoolWaitP99Micros());
+    attributes.put("Pool Wait Timeouts", getPoolWaitTimeouts());
+    attributes.put("Pool Connection Lifetime p99 (ms)", getPoolConnectionLifetimeP99Millis());
+  }
+
+  private ConnectionPoolStatistics poolStatistics() {
+    Database database = dbClient.getDatabase();
+    if (database instanceof DefaultDatabase) {
+      return ((DefaultDatabase) database).getConnectionPool().getStatistics();
+    }
+    return NO_POOL_STATISTICS;
   }
 
   private BasicDataSource commonsDbcp() {
@@ -68,4 +68,29 @@ public interface DatabaseMonitorMBean {
    * Timeout in seconds before an abandoned connection can be removed.
    */
   int getPoolRemoveAbandonedTimeoutSeconds();
+
+  /**
+   * Median of the time spent waiting for a connection from the pool, in microseconds.
+   */
+  long getPoolWaitP50Micros();
+
+  /**
+   * 99th percentile of the time spent waiting for a connection from the pool, in microseconds.
+   */
+  long getPoolWaitP99Micros();
+
+  /**
+   * Number of requests for a connection which failed because {@link #getPoolMaxWaitMillis()} was reached.
+   */
+  long getPoolWaitTimeouts();
+
+  /**
+   * 99th percentile of the duration during which connections are borrowed from the pool, in milliseconds.
+   */
+  long getPoolConnectionLifetimeP99Millis();
+
+  /**
+   * Execution statistics of the SQL statements which cumulate the highest execution time since startup.
+   */
+  String[] getSqlStatementStatistics();
 }
@@ -0,0 +1,74 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.qualityprofile;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import org.sonar.api.utils.System2;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.qualityprofile.QualityProfileDto;
+import org.sonar.server.qualityprofile.index.ActiveRuleIndexer;
+import org.sonar.server.rule.index.RuleIndex;
+import org.sonar.server.user.UserSession;
+import org.sonar.server.util.TypeValidations;
+
+/**
+ * Short-lived activator of {@link RuleActivator#bulkActivate}. It reads the profile hierarchy and the active rules
+ * from {@link BulkRuleActivatorContextFactory} instead of db, and updates the dates of each changed profile once
+ * instead of once per rule.
+ */
+class BulkRuleActivator extends RuleActivator {
+
+  private final BulkRuleActivatorContextFactory contextFactory;
+  private final Map<String, RuleActivatorContext> changedProfiles = new LinkedHashMap<>();
+
+  BulkRuleActivator(System2 system2, DbClient db, RuleIndex ruleIndex, BulkRuleActivatorContextFactory contextFactory,
+    TypeValidations typeValidations, ActiveRuleIndexer activeRuleIndexer, UserSession userSession) {
+    super(system2, db, ruleIndex, contextFactory, typeValidations, activeRuleIndexer, userSession);
+    this.contextFactory = contextFactory;
+  }
+
+  @Override
+  protected List<QualityProfileDto> getChildren(DbSession session, String qualityProfileKey) {
+    return contextFactory.getChildren(qualityProfileKey);
+  }
+
+  @Override
+  void onPersisted(RuleActivatorContext context) {
+    contextFactory.register(context);
+  }
+
+  @Override
+  void updateProfileDates(DbSession dbSession, RuleActivatorContext context) {
+    changedProfiles.put(context.profile().getKee(), context);
+  }
+
+  /**
+   * Updates the dates of the profiles changed by the activations. Does not commit.
+   */
+  void updateProfiles(DbSession dbSession) {
+    for (RuleActivatorContext context : changedProfiles.values()) {
+      super.updateProfileDates(dbSession, context);
+    }
+    changedProfiles.clear();
+  }
+}
@@ -0,0 +1,134 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.qualityprofile;
+
+import com.google.common.collect.ArrayListMultimap;
+import com.google.common.collect.ListMultimap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.sonar.api.rule.RuleKey;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbSession;
+import org.sonar.db.qualityprofile.ActiveRuleDto;
+import org.sonar.db.qualityprofile.ActiveRuleKey;
+import org.sonar.db.qualityprofile.ActiveRuleParamDto;
+import org.sonar.db.qualityprofile.QualityProfileDto;
+import org.sonar.db.rule.RuleDefinitionDto;
+import org.sonar.db.rule.RuleParamDto;
+
+import static org.sonar.core.util.stream.Collectors.toList;
+
+/**
+ * Context factory of a bulk activation. The rules, the hierarchy of the quality profile and the
+ * related active rules are loaded once, then kept up-to-date in memory as changes are persisted.
+ */
+class BulkRuleActivatorContextFactory extends RuleActivatorContextFactory {
+
+  private final Map<RuleKey, RuleDefinitionDto> rulesByKey = new HashMap<>();
+  private final ListMultimap<Integer, RuleParamDto> ruleParamsByRuleId = ArrayListMultimap.create();
+  private final ListMultimap<String, QualityProfileDto> childrenByProfileKey = ArrayListMultimap.create();
+  private final Map<ActiveRuleKey, ActiveRuleDto> activeRulesByKey = new HashMap<>();
+  private final ListMultimap<ActiveRuleKey, ActiveRuleParamDto> activeRuleParamsByKey = ArrayListMultimap.create();
+
+  private BulkRuleActivatorContextFactory(DbClient db) {
+    super(db);
+  }
+
+  /**
+   * Loads the rules, the given profile with its parent and all its descendants, and the active rules of these profiles
+   * on the given rules.
+   */
+  static BulkRuleActivatorContextFactory load(DbClient db, DbSession dbSession, QualityProfileDto profile, Collection<RuleKey> ruleKeys) {
+    BulkRuleActivatorContextFactory factory = new BulkRuleActivatorContextFactory(db);
+
+    List<String> profileKeys = new ArrayList<>();
+    profileKeys.add(profile.getKee());
+    if (profile.getParentKee() != null) {
+      profileKeys.add(profile.getParentKee());
+    }
+    for (QualityProfileDto descendant : db.qualityProfileDao().selectDescendants(dbSession, profile.getKee())) {
+      factory.childrenByProfileKey.put(descendant.getParentKee(), descendant);
+      profileKeys.add(descendant.getKee());
+    }
+
+    List<RuleDefinitionDto> rules = db.ruleDao().selectDefinitionByKeys(dbSession, ruleKeys);
+    rules.forEach(rule -> factory.rulesByKey.put(rule.getKey(), rule));
+    List<RuleKey> existingRuleKeys = rules.stream().map(RuleDefinitionDto::getKey).collect(toList());
+    db.ruleDao().selectRuleParamsByRuleKeys(dbSession, existingRuleKeys).forEach(param -> factory.ruleParamsByRuleId.put(param.getRuleId(), param));
+
+    List<ActiveRuleKey> activeRuleKeys = new ArrayList<>(profileKeys.size() * existingRuleKeys.size());
+    for (String profileKey : profileKeys) {
+      existingRuleKeys.forEach(ruleKey -> activeRuleKeys.add(ActiveRuleKey.of(profileKey, ruleKey)));
+    }
+    Map<Integer, ActiveRuleKey> activeRuleKeysById = new HashMap<>();
+    for (ActiveRuleDto activeRule : db.activeRuleDao().selectByKeys(dbSession, activeRuleKeys)) {
+      factory.activeRulesByKey.put(activeRule.getKey(), activeRule);
+      activeRuleKeysById.put(activeRule.getId(), activeRule.getKey());
+    }
+    for (ActiveRuleParamDto param : db.activeRuleDao().selectParamsByActiveRuleIds(dbSession, new ArrayList<>(activeRuleKeysById.keySet()))) {
+      factory.activeRuleParamsByKey.put(activeRuleKeysById.get(param.getActiveRuleId()), param);
+    }
+    return factory;
+  }
+
+  List<QualityProfileDto> getChildren(String profileKey) {
+    return childrenByProfileKey.get(profileKey);
+  }
+
+  /**
+   * Keeps the loaded active rules in sync with the state of the context after its change has been persisted,
+   * so that the activations cascaded to children see the new values of their parent.
+   */
+  void register(RuleActivatorContext context) {
+    ActiveRuleKey key = context.activeRuleKey();
+    ActiveRuleDto activeRule = context.activeRule();
+    activeRuleParamsByKey.removeAll(key);
+    if (activeRule == null) {
+      activeRulesByKey.remove(key);
+    } else {
+      activeRulesByKey.put(key, activeRule);
+      activeRuleParamsByKey.putAll(key, context.activeRuleParamsAsMap().values());
+    }
+  }
+
+  @Override
+  Optional<RuleDefinitionDto> getRule(DbSession dbSession, RuleKey ruleKey) {
+    return Optional.ofNullable(rulesByKey.get(ruleKey));
+  }
+
+  @Override
+  List<RuleParamDto> getRuleParams(DbSession dbSession, RuleDefinitionDto rule) {
+    return ruleParamsByRuleId.get(rule.getId());
+  }
+
+  @Override
+  Optional<ActiveRuleDto> getActiveRule(DbSession session, ActiveRuleKey key) {
+    return Optional.ofNullable(activeRulesByKey.get(key));
+  }
+
+  @Override
+  List<ActiveRuleParamDto> getActiveRuleParams(DbSession session, ActiveRuleDto activeRuleDto) {
+    return activeRuleParamsByKey.get(activeRuleDto.getKey());
+  }
+}
@@ -145,7 +145,7 @@ public class RuleActivator {
     return changes;
   }
 
-  private void updateProfileDates(DbSession dbSession, RuleActivatorContext context) {
+  void updateProfileDates(DbSession dbSession, RuleActivatorContext context) {
     QualityProfileDto profile = context.profile();
     profile.setRulesUpdatedAtAsDate(context.getInitDate());
     if (userSession.isLoggedIn()) {
@@ -248,15 +248,24 @@ public class RuleActivator {
     } else if (change.getType() == ActiveRuleChange.Type.DEACTIVATED) {
       ActiveRuleDao dao = db.activeRuleDao();
       dao.delete(dbSession, change.getKey());
+      context.setActiveRule(null).setActiveRuleParams(null);
 
     } else if (change.getType() == ActiveRuleChange.Type.UPDATED) {
       activeRule = doUpdate(change, context, dbSession);
     }
 
     db.qProfileChangeDao().insert(dbSession, change.toDto(userSession.getLogin()));
+    onPersisted(context);
     return activeRule;
   }
 
+  /**
+   * Called once the change of the context is persisted. The context then reflects the state of the active rule in db.
+   */
+  void onPersisted(RuleActivatorContext context) {
+    // nothing to do by default
+  }
+
   private ActiveRuleDto doInsert(ActiveRuleChange change, RuleActivatorContext context, DbSession dbSession) {
     ActiveRuleDto activeRule;
     ActiveRuleDao dao = db.activeRuleDao();
@@ -272,13 +281,16 @@ public class RuleActivator {
     activeRule.setUpdatedAt(system2.now());
     activeRule.setCreatedAt(system2.now());
     dao.insert(dbSession, activeRule);
+    List<ActiveRuleParamDto> params = new ArrayList<>();
     for (Map.Entry<String, String> param : change.getParameters().entrySet()) {
       if (param.getValue() != null) {
         ActiveRuleParamDto paramDto = ActiveRuleParamDto.createFor(context.ruleParamsByKeys().get(param.getKey()));
         paramDto.setValue(param.getValue());
         dao.insertParam(dbSession, activeRule, paramDto);
+        params.add(paramDto);
       }
     }
+    context.setActiveRule(activeRule).setActiveRuleParams(params);
     return activeRule;
   }
 
@@ -305,6 +317,7 @@ public class RuleActivator {
             activeRuleParamDto = ActiveRuleParamDto.createFor(context.ruleParamsByKeys().get(param.getKey()));
             activeRuleParamDto.setValue(param.getValue());
             dao.insertParam(dbSession, activeRule, activeRuleParamDto);
+            context.activeRuleParamsAsMap().put(param.getKey(), activeRuleParamDto);
           }
         } else {
           if (param.getValue() != null) {
@@ -312,6 +325,7 @@ public class RuleActivator {
             dao.updateParam(dbSession, activeRule, activeRuleParamDto);
           } else {
             dao.deleteParam(dbSession, activeRule, activeRuleParamDto);
+            context.activeRuleParamsAsMap().remove(param.getKey());
           }
         }
       }
@@ -398,17 +412,23 @@ public class RuleActivator {
     return value;
   }
 
+  /**
+   * Activates all the rules matching the query. The rules, the hierarchy of the profile and the existing active rules
+   * are loaded at once, changes are computed in memory and indexed in a single pass.
+   */
   public BulkChangeResult bulkActivate(RuleQuery ruleQuery, String profileKey, @Nullable String severity) {
-    DbSession dbSession = db.openSession(false);
+    List<RuleKey> ruleKeys = newArrayList(ruleIndex.searchAll(ruleQuery));
     BulkChangeResult result = new BulkChangeResult();
-    try {
-      Iterator<RuleKey> rules = ruleIndex.searchAll(ruleQuery);
-      while (rules.hasNext()) {
-        RuleKey ruleKey = rules.next();
+    try (DbSession dbSession = db.openSession(false)) {
+      QualityProfileDto profile = db.qualityProfileDao().selectByKey(dbSession, profileKey);
+      checkRequest(profile != null, "Quality profile not found: %s", profileKey);
+      BulkRuleActivator bulkActivator = new BulkRuleActivator(system2, db, ruleIndex,
+        BulkRuleActivatorContextFactory.load(db, dbSession, profile, ruleKeys), typeValidations, activeRuleIndexer, userSession);
+      for (RuleKey ruleKey : ruleKeys) {
         try {
           RuleActivation activation = new RuleActivation(ruleKey);
           activation.setSeverity(severity);
-          List<ActiveRuleChange> changes = activate(dbSession, activation, profileKey);
+          List<ActiveRuleChange> changes = bulkActivator.activate(dbSession, activation, profile);
           result.addChanges(changes);
           if (!changes.isEmpty()) {
             result.incrementSucceeded();
@@ -420,10 +440,9 @@ public class RuleActivator {
           result.getErrors().addAll(e.errors());
         }
       }
+      bulkActivator.updateProfiles(dbSession);
       dbSession.commit();
       activeRuleIndexer.index(result.getChanges());
-    } finally {
-      dbSession.close();
     }
     return result;
   }
@@ -31,6 +31,7 @@ import org.sonar.db.qualityprofile.ActiveRuleKey;
 import org.sonar.db.qualityprofile.ActiveRuleParamDto;
 import org.sonar.db.qualityprofile.QualityProfileDto;
 import org.sonar.db.rule.RuleDefinitionDto;
+import org.sonar.db.rule.RuleParamDto;
 
 import static org.sonar.server.ws.WsUtils.checkRequest;
 
@@ -69,7 +70,7 @@ public class RuleActivatorContextFactory {
     Optional<RuleDefinitionDto> rule = getRule(dbSession, ruleKey);
     checkRequest(rule.isPresent(), "Rule not found: %s", ruleKey);
     context.setRule(rule.get());
-    context.setRuleParams(db.ruleDao().selectRuleParamsByRuleKey(dbSession, rule.get().getKey()));
+    context.setRuleParams(getRuleParams(dbSession, rule.get()));
     return rule.get();
   }
 
@@ -93,6 +94,10 @@ public class RuleActivatorContextFactory {
     return Optional.ofNullable(db.ruleDao().selectDefinitionByKey(dbSession, ruleKey).orNull());
   }
 
+  List<RuleParamDto> getRuleParams(DbSession dbSession, RuleDefinitionDto rule) {
+    return db.ruleDao().selectRuleParamsByRuleKey(dbSession, rule.getKey());
+  }
+
   Optional<ActiveRuleDto> getActiveRule(DbSession session, ActiveRuleKey key) {
     return Optional.ofNullable(db.activeRuleDao().selectByKey(session, key).orNull());
   }
@@ -21,17 +21,20 @@ package org.sonar.server.rule;
 
 import com.google.common.base.Optional;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.ListMultimap;
 import com.google.common.collect.Maps;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import javax.annotation.Nullable;
 import org.apache.commons.lang.ObjectUtils;
 import org.apache.commons.lang.StringUtils;
 import org.picocontainer.Startable;
+import org.sonar.api.SonarRuntime;
 import org.sonar.api.resources.Languages;
 import org.sonar.api.rule.RuleKey;
 import org.sonar.api.rule.RuleStatus;
@@ -65,6 +68,7 @@ import static com.google.common.collect.Lists.newArrayList;
 public class RegisterRules implements Startable {
 
   private static final Logger LOG = Loggers.get(RegisterRules.class);
+  static final String FINGERPRINT_PROPERTY_PREFIX = "rules.fingerprint.";
 
   private final RuleDefinitionsLoader defLoader;
   private final RuleActivator ruleActivator;
@@ -73,9 +77,10 @@ public class RegisterRules implements Startable {
   private final ActiveRuleIndexer activeRuleIndexer;
   private final Languages languages;
   private final System2 system2;
+  private final SonarRuntime sonarRuntime;
 
   public RegisterRules(RuleDefinitionsLoader defLoader, RuleActivator ruleActivator, DbClient dbClient, RuleIndexer ruleIndexer,
-    ActiveRuleIndexer activeRuleIndexer, Languages languages, System2 system2) {
+    ActiveRuleIndexer activeRuleIndexer, Languages languages, System2 system2, SonarRuntime sonarRuntime) {
     this.defLoader = defLoader;
     this.ruleActivator = ruleActivator;
     this.dbClient = dbClient;
@@ -83,6 +88,7 @@ public class RegisterRules implements Startable {
     this.activeRuleIndexer = activeRuleIndexer;
     this.languages = languages;
     this.system2 = system2;
+    this.sonarRuntime = sonarRuntime;
   }
 
   @Override
@@ -91,14 +97,20 @@ public class RegisterRules implements Startable {
     DbSession session = dbClient.openSession(false);
     try {
       Map<RuleKey, RuleDefinitionDto> allRules = loadRules(session);
+      Map<String, String> updatedFingerprints = new HashMap<>();
 
       RulesDefinition.Context context = defLoader.load();
-      for (RulesDefinition.ExtendedRepository repoDef : getRepositories(context)) {
-        if (languages.get(repoDef.language()) != null) {
-          for (RulesDefinition.Rule ruleDef : repoDef.rules()) {
-            registerRule(ruleDef, allRules, session);
-          }
+      for (Map.Entry<String, List<RulesDefinition.ExtendedRepository>> entry : getRepositoriesByKey(context).entrySet()) {
+        String fingerprintKey = FINGERPRINT_PROPERTY_PREFIX + entry.getKey();
+        List<RulesDefinition.ExtendedRepository> repoDefs = entry.getValue();
+        String fingerprint = RuleRepositoryFingerprint.compute(sonarRuntime.getApiVersion(), repoDefs);
+        if (isUnchanged(session, fingerprintKey, fingerprint, repoDefs, allRules)) {
+          LOG.debug("Rules of repository {} are up-to-date", entry.getKey());
+          repoDefs.forEach(repoDef -> repoDef.rules().forEach(ruleDef -> allRules.remove(keyOf(ruleDef))));
+        } else {
+          registerRules(repoDefs, allRules, session);
           session.commit();
+          updatedFingerprints.put(fingerprintKey, fingerprint);
         }
       }
       List<RuleDefinitionDto> activeRules = processRemainingDbRules(allRules.values(), session);
@@ -106,6 +118,8 @@ public class RegisterRules implements Startable {
       session.commit();
 
       persistRepositories(session, context.repositories());
+      persistFingerprints(session, updatedFingerprints);
+      // only the rules updated since the last indexing are indexed
       ruleIndexer.index();
       activeRuleIndexer.index(changes);
       profiler.stopDebug();
@@ -114,6 +128,30 @@ public class RegisterRules implements Startable {
     }
   }
 
+  /**
+   * The rules of a repository are considered as up-to-date when its fingerprint did not change since the
+   * previous registration and when all its rules are still persisted with the declared status. The latter
+   * covers the rules which have been removed in the meantime, for example when the plugin of the language
+   * was temporarily uninstalled.
+   */
+  private boolean isUnchanged(DbSession session, String fingerprintKey, String fingerprint, List<RulesDefinition.ExtendedRepository> repoDefs,
+    Map<RuleKey, RuleDefinitionDto> allRules) {
+    boolean sameFingerprint = dbClient.internalPropertiesDao().selectByKey(session, fingerprintKey)
+      .filter(fingerprint::equals)
+      .isPresent();
+    return sameFingerprint && repoDefs.stream()
+      .flatMap(repoDef -> repoDef.rules().stream())
+      .allMatch(ruleDef -> {
+        RuleDefinitionDto rule = allRules.get(keyOf(ruleDef));
+        return rule != null && rule.getStatus() == ruleDef.status();
+      });
+  }
+
+  private void persistFingerprints(DbSession dbSession, Map<String, String> fingerprintsByKey) {
+    fingerprintsByKey.forEach((key, fingerprint) -> dbClient.internalPropertiesDao().save(dbSession, key, fingerprint));
+    dbSession.commit();
+  }
+
   private void persistRepositories(DbSession dbSession, List<RulesDefinition.Repository> repositories) {
     dbClient.ruleRepositoryDao().truncate(dbSession);
     List<RuleRepositoryDto> dtos = repositories
@@ -129,8 +167,29 @@ public class RegisterRules implements Startable {
     // nothing
   }
 
-  private void registerRule(RulesDefinition.Rule ruleDef, Map<RuleKey, RuleDefinitionDto> allRules, DbSession session) {
-    RuleKey ruleKey = RuleKey.of(ruleDef.repository().key(), ruleDef.key());
+  private void registerRules(List<RulesDefinition.ExtendedRepository> repoDefs, Map<RuleKey, RuleDefinitionDto> allRules, DbSession session) {
+    List<RulesDefinition.Rule> ruleDefs = repoDefs.stream()
+      .flatMap(repoDef -> repoDef.rules().stream())
+      .collect(Collectors.toList());
+    Map<RuleKey, RuleDefinitionDto> rulesByKey = new HashMap<>();
+    for (RulesDefinition.Rule ruleDef : ruleDefs) {
+      rulesByKey.put(keyOf(ruleDef), registerRule(ruleDef, allRules, session));
+    }
+
+    List<Integer> ruleIds = rulesByKey.values().stream().map(RuleDefinitionDto::getId).collect(Collectors.toList(rulesByKey.size()));
+    ListMultimap<Integer, RuleParamDto> paramsByRuleId = dbClient.ruleDao().selectRuleParamsByRuleIds(session, ruleIds)
+      .stream()
+      .collect(Collectors.index(RuleParamDto::getRuleId));
+    List<RuleParamDto> paramsWithDefaultValue = new ArrayList<>();
+    for (RulesDefinition.Rule ruleDef : ruleDefs) {
+      RuleDefinitionDto rule = rulesByKey.get(keyOf(ruleDef));
+      mergeParams(ruleDef, rule, paramsByRuleId.get(rule.getId()), paramsWithDefaultValue, session);
+    }
+    propagateDefaultValues(paramsWithDefaultValue, session);
+  }
+
+  private RuleDefinitionDto registerRule(RulesDefinition.Rule ruleDef, Map<RuleKey, RuleDefinitionDto> allRules, DbSession session) {
+    RuleKey ruleKey = keyOf(ruleDef);
 
     RuleDefinitionDto existingRule = allRules.remove(ruleKey);
     RuleDefinitionDto rule = existingRule == null ? createRuleDto(ruleDef, session) : existingRule;
@@ -151,8 +210,11 @@ public class RegisterRules implements Startable {
     if (executeUpdate) {
       update(session, rule);
     }
+    return rule;
+  }
 
-    mergeParams(ruleDef, rule, session);
+  private static RuleKey keyOf(RulesDefinition.Rule ruleDef) {
+    return RuleKey.of(ruleDef.repository().key(), ruleDef.key());
   }
 
   private Map<RuleKey, RuleDefinitionDto> loadRules(DbSession session) {
@@ -163,19 +225,29 @@ public class RegisterRules implements Startable {
     return rules;
   }
 
-  private List<RulesDefinition.ExtendedRepository> getRepositories(RulesDefinition.Context context) {
-    List<RulesDefinition.ExtendedRepository> repositories = new ArrayList<>();
+  /**
+   * Repositories of installed languages, grouped by key so that a repository and its extensions
+   * are registered together.
+   */
+  private Map<String, List<RulesDefinition.ExtendedRepository>> getRepositoriesByKey(RulesDefinition.Context context) {
+    Map<String, List<RulesDefinition.ExtendedRepository>> repositoriesByKey = new LinkedHashMap<>();
     for (RulesDefinition.Repository repoDef : context.repositories()) {
-      repositories.add(repoDef);
+      addRepository(repositoriesByKey, repoDef);
     }
     for (RulesDefinition.ExtendedRepository extendedRepoDef : context.extendedRepositories()) {
       if (context.repository(extendedRepoDef.key()) == null) {
         LOG.warn(String.format("Extension is ignored, repository %s does not exist", extendedRepoDef.key()));
       } else {
-        repositories.add(extendedRepoDef);
+        addRepository(repositoriesByKey, extendedRepoDef);
       }
     }
-    return repositories;
+    return repositoriesByKey;
+  }
+
+  private void addRepository(Map<String, List<RulesDefinition.ExtendedRepository>> repositoriesByKey, RulesDefinition.ExtendedRepository repoDef) {
+    if (languages.get(repoDef.language()) != null) {
+      repositoriesByKey.computeIfAbsent(repoDef.key(), k -> new ArrayList<>()).add(repoDef);
+    }
   }
 
   private RuleDefinitionDto createRuleDto(RulesDefinition.Rule ruleDef, DbSession session) {
@@ -294,8 +366,8 @@ public class RegisterRules implements Startable {
     return changed;
   }
 
-  private void mergeParams(RulesDefinition.Rule ruleDef, RuleDefinitionDto rule, DbSession session) {
-    List<RuleParamDto> paramDtos = dbClient.ruleDao().selectRuleParamsByRuleKey(session, rule.getKey());
+  private void mergeParams(RulesDefinition.Rule ruleDef, RuleDefinitionDto rule, List<RuleParamDto> paramDtos, List<RuleParamDto> paramsWithDefaultValue,
+    DbSession session) {
     Map<String, RuleParamDto> existingParamsByName = Maps.newHashMap();
 
     for (RuleParamDto paramDto : paramDtos) {
@@ -323,12 +395,27 @@ public class RegisterRules implements Startable {
         .setDefaultValue(param.defaultValue())
         .setType(param.type().toString());
       dbClient.ruleDao().insertRuleParam(session, rule, paramDto);
-      if (StringUtils.isEmpty(param.defaultValue())) {
-        continue;
+      if (!StringUtils.isEmpty(param.defaultValue())) {
+        paramsWithDefaultValue.add(paramDto);
       }
-      // Propagate the default value to existing active rule parameters
-      for (ActiveRuleDto activeRule : dbClient.activeRuleDao().selectByRuleId(session, rule.getId())) {
-        ActiveRuleParamDto activeParam = ActiveRuleParamDto.createFor(paramDto).setValue(param.defaultValue());
+    }
+  }
+
+  /**
+   * Propagate the default value of new parameters to existing active rules. Active rules are loaded
+   * at once for all the rules of the repository.
+   */
+  private void propagateDefaultValues(List<RuleParamDto> paramsWithDefaultValue, DbSession session) {
+    if (paramsWithDefaultValue.isEmpty()) {
+      return;
+    }
+    List<Integer> ruleIds = paramsWithDefaultValue.stream().map(RuleParamDto::getRuleId).distinct().collect(Collectors.toList());
+    ListMultimap<Integer, ActiveRuleDto> activeRulesByRuleId = dbClient.activeRuleDao().selectByRuleIds(session, ruleIds)
+      .stream()
+      .collect(Collectors.index(ActiveRuleDto::getRuleId));
+    for (RuleParamDto paramDto : paramsWithDefaultValue) {
+      for (ActiveRuleDto activeRule : activeRulesByRuleId.get(paramDto.getRuleId())) {
+        ActiveRuleParamDto activeParam = ActiveRuleParamDto.createFor(paramDto).setValue(paramDto.getDefaultValue());
         dbClient.activeRuleDao().insertParam(session, activeRule, activeParam);
       }
     }
@@ -0,0 +1,107 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.rule;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.TreeSet;
+import javax.annotation.Nullable;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.sonar.api.server.debt.DebtRemediationFunction;
+import org.sonar.api.server.rule.RulesDefinition;
+import org.sonar.api.utils.Version;
+
+/**
+ * Digest of the content of the definitions of a rule repository (including its extensions), as
+ * provided by plugins. Two loadings of the same plugins give the same fingerprint, so it is
+ * used by {@link RegisterRules} to detect the repositories which did not change since the
+ * previous startup.
+ * <p>
+ * The version of server is part of the digest, because the way definitions are persisted can
+ * change between versions even if plugins do not. All the repositories are registered again on upgrade.
+ * </p>
+ */
+class RuleRepositoryFingerprint {
+
+  private static final byte SEPARATOR = 0;
+  private static final byte NULL_VALUE = 1;
+
+  private RuleRepositoryFingerprint() {
+    // only static methods
+  }
+
+  static String compute(Version serverVersion, List<? extends RulesDefinition.ExtendedRepository> repositories) {
+    MessageDigest digest = DigestUtils.getSha1Digest();
+    update(digest, serverVersion.toString());
+    for (RulesDefinition.ExtendedRepository repository : repositories) {
+      update(digest, repository.key());
+      update(digest, repository.language());
+      List<RulesDefinition.Rule> rules = new ArrayList<>(repository.rules());
+      rules.sort(Comparator.comparing(RulesDefinition.Rule::key));
+      for (RulesDefinition.Rule rule : rules) {
+        update(digest, rule);
+      }
+    }
+    return Hex.encodeHexString(digest.digest());
+  }
+
+  private static void update(MessageDigest digest, RulesDefinition.Rule rule) {
+    update(digest, rule.key());
+    update(digest, rule.name());
+    update(digest, rule.htmlDescription());
+    update(digest, rule.markdownDescription());
+    update(digest, rule.internalKey());
+    update(digest, rule.severity());
+    update(digest, String.valueOf(rule.template()));
+    update(digest, rule.status().name());
+    update(digest, rule.type().name());
+    update(digest, rule.gapDescription());
+    DebtRemediationFunction function = rule.debtRemediationFunction();
+    if (function != null) {
+      update(digest, function.type().name());
+      update(digest, function.gapMultiplier());
+      update(digest, function.baseEffort());
+    }
+    for (String tag : new TreeSet<>(rule.tags())) {
+      update(digest, tag);
+    }
+    List<RulesDefinition.Param> params = new ArrayList<>(rule.params());
+    params.sort(Comparator.comparing(RulesDefinition.Param::key));
+    for (RulesDefinition.Param param : params) {
+      update(digest, param.key());
+      update(digest, param.description());
+      update(digest, param.defaultValue());
+      update(digest, param.type().toString());
+    }
+  }
+
+  private static void update(MessageDigest digest, @Nullable String value) {
+    if (value != null) {
+      digest.update(value.getBytes(StandardCharsets.UTF_8));
+    } else {
+      digest.update(NULL_VALUE);
+    }
+    digest.update(SEPARATOR);
+  }
+}
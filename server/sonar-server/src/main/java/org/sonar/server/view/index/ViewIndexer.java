@@ -19,10 +19,21 @@
  */
 package org.sonar.server.view.index;
 
+import com.google.common.base.Splitter;
+import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ListMultimap;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import javax.annotation.Nullable;
+import org.elasticsearch.action.get.GetResponse;
+import org.elasticsearch.action.get.MultiGetItemResponse;
+import org.elasticsearch.action.get.MultiGetRequestBuilder;
 import org.elasticsearch.action.index.IndexRequest;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
@@ -34,11 +45,12 @@ import org.sonar.server.es.EsClient;
 import org.sonar.server.es.IndexType;
 import org.sonar.server.es.StartupIndexer;
 
-import static com.google.common.collect.Maps.newHashMap;
 import static org.sonar.server.view.index.ViewIndexDefinition.INDEX_TYPE_VIEW;
 
 public class ViewIndexer implements StartupIndexer {
 
+  private static final Splitter MODULE_UUID_PATH_SPLITTER = Splitter.on('.').omitEmptyStrings();
+
   private final DbClient dbClient;
   private final EsClient esClient;
 
@@ -55,11 +67,18 @@ public class ViewIndexer implements StartupIndexer {
   @Override
   public void indexOnStartup(Set<IndexType> emptyIndexTypes) {
     try (DbSession dbSession = dbClient.openSession(false)) {
-      Map<String, String> viewAndProjectViewUuidMap = newHashMap();
+      ListMultimap<String, String> viewUuidsByRootViewUuid = ArrayListMultimap.create();
       for (UuidWithProjectUuidDto uuidWithProjectUuidDto : dbClient.componentDao().selectAllViewsAndSubViews(dbSession)) {
-        viewAndProjectViewUuidMap.put(uuidWithProjectUuidDto.getUuid(), uuidWithProjectUuidDto.getProjectUuid());
+        viewUuidsByRootViewUuid.put(uuidWithProjectUuidDto.getProjectUuid(), uuidWithProjectUuidDto.getUuid());
+      }
+      BulkIndexer bulk = new BulkIndexer(esClient, INDEX_TYPE_VIEW.getIndex());
+      bulk.setSize(Size.LARGE);
+      bulk.start();
+      for (Map.Entry<String, Collection<String>> entry : viewUuidsByRootViewUuid.asMap().entrySet()) {
+        selectProjectsByViewUuid(dbSession, entry.getKey(), entry.getValue())
+          .forEach((viewUuid, projects) -> bulk.add(newIndexRequest(new ViewDoc().setUuid(viewUuid).setProjects(projects))));
       }
-      index(dbSession, viewAndProjectViewUuidMap, false, Size.LARGE);
+      bulk.stop();
     }
   }
 
@@ -67,18 +86,27 @@ public class ViewIndexer implements StartupIndexer {
    * Index a root view : it will load projects on each sub views and index it.
    * Used by the compute engine to reindex a root view.
    * <p/>
-   * The views lookup cache will be cleared
+   * Only the views and sub views whose projects changed since their last indexation are indexed again,
+   * and the views lookup cache is cleared if at least one of them changed.
    */
   public void index(String rootViewUuid) {
-    DbSession dbSession = dbClient.openSession(false);
-    try {
-      Map<String, String> viewAndProjectViewUuidMap = newHashMap();
-      for (ComponentDto viewOrSubView : dbClient.componentDao().selectEnabledDescendantModules(dbSession, rootViewUuid)) {
-        viewAndProjectViewUuidMap.put(viewOrSubView.uuid(), viewOrSubView.projectUuid());
+    try (DbSession dbSession = dbClient.openSession(false)) {
+      List<ComponentDto> viewAndSubViews = dbClient.componentDao().selectEnabledDescendantModules(dbSession, rootViewUuid);
+      if (viewAndSubViews.isEmpty()) {
+        return;
+      }
+      List<String> viewUuids = new ArrayList<>();
+      viewAndSubViews.forEach(viewOrSubView -> viewUuids.add(viewOrSubView.uuid()));
+      Map<String, List<String>> projectsByViewUuid = selectProjectsByViewUuid(dbSession, viewAndSubViews.get(0).projectUuid(), viewUuids);
+      removeUnchangedViews(projectsByViewUuid);
+      if (projectsByViewUuid.isEmpty()) {
+        return;
       }
-      index(dbSession, viewAndProjectViewUuidMap, true, Size.REGULAR);
-    } finally {
-      dbSession.close();
+      BulkIndexer bulk = new BulkIndexer(esClient, INDEX_TYPE_VIEW.getIndex());
+      bulk.start();
+      projectsByViewUuid.forEach((viewUuid, projects) -> bulk.add(newIndexRequest(new ViewDoc().setUuid(viewUuid).setProjects(projects))));
+      bulk.stop();
+      clearLookupCache(rootViewUuid);
     }
   }
 
@@ -88,35 +116,49 @@ public class ViewIndexer implements StartupIndexer {
    * The views lookup cache will be cleared
    */
   public void index(ViewDoc viewDoc) {
-    final BulkIndexer bulk = new BulkIndexer(esClient, ViewIndexDefinition.INDEX_TYPE_VIEW.getIndex());
+    final BulkIndexer bulk = new BulkIndexer(esClient, INDEX_TYPE_VIEW.getIndex());
     bulk.start();
-    doIndex(bulk, viewDoc, true);
+    bulk.add(newIndexRequest(viewDoc));
     bulk.stop();
+    clearLookupCache(viewDoc.uuid());
   }
 
-  private void index(DbSession dbSession, Map<String, String> viewAndProjectViewUuidMap, boolean needClearCache, Size bulkSize) {
-    final BulkIndexer bulk = new BulkIndexer(esClient, ViewIndexDefinition.INDEX_TYPE_VIEW.getIndex());
-    bulk.setSize(bulkSize);
-    bulk.start();
-    for (Map.Entry<String, String> entry : viewAndProjectViewUuidMap.entrySet()) {
-      String viewUuid = entry.getKey();
-      List<String> projects = dbClient.componentDao().selectProjectsFromView(dbSession, viewUuid, entry.getValue());
-      doIndex(bulk, new ViewDoc()
-        .setUuid(viewUuid)
-        .setProjects(projects), needClearCache);
+  /**
+   * Projects of the given views, all belonging to the same root view, loaded with a single request on
+   * the technical projects of the root view.
+   */
+  private Map<String, List<String>> selectProjectsByViewUuid(DbSession dbSession, String rootViewUuid, Collection<String> viewUuids) {
+    Map<String, List<String>> projectsByViewUuid = new HashMap<>();
+    viewUuids.forEach(viewUuid -> projectsByViewUuid.put(viewUuid, new ArrayList<>()));
+    for (ComponentDto projectCopy : dbClient.componentDao().selectEnabledProjectCopiesOfRootView(dbSession, rootViewUuid)) {
+      for (String viewUuid : MODULE_UUID_PATH_SPLITTER.split(projectCopy.moduleUuidPath())) {
+        List<String> projects = projectsByViewUuid.get(viewUuid);
+        if (projects != null) {
+          projects.add(projectCopy.getCopyResourceUuid());
+        }
+      }
     }
-    bulk.stop();
+    return projectsByViewUuid;
   }
 
-  private void doIndex(BulkIndexer bulk, ViewDoc viewDoc, boolean needClearCache) {
-    bulk.add(newIndexRequest(viewDoc));
-    if (needClearCache) {
-      clearLookupCache(viewDoc.uuid());
+  private void removeUnchangedViews(Map<String, List<String>> projectsByViewUuid) {
+    MultiGetRequestBuilder request = esClient.prepareMultiGet();
+    projectsByViewUuid.keySet().forEach(viewUuid -> request.add(INDEX_TYPE_VIEW.getIndex(), INDEX_TYPE_VIEW.getType(), viewUuid));
+    for (MultiGetItemResponse item : request.get().getResponses()) {
+      GetResponse response = item.getResponse();
+      if (response != null && response.isExists()
+        && hasSameProjects(new ViewDoc(response.getSourceAsMap()).projects(), projectsByViewUuid.get(item.getId()))) {
+        projectsByViewUuid.remove(item.getId());
+      }
     }
   }
 
+  private static boolean hasSameProjects(@Nullable List<String> indexedProjects, List<String> projects) {
+    return indexedProjects != null && new HashSet<>(indexedProjects).equals(new HashSet<>(projects));
+  }
+
   private static IndexRequest newIndexRequest(ViewDoc doc) {
-    return new IndexRequest(ViewIndexDefinition.INDEX_TYPE_VIEW.getIndex(), ViewIndexDefinition.INDEX_TYPE_VIEW.getType(), doc.uuid())
+    return new IndexRequest(INDEX_TYPE_VIEW.getIndex(), INDEX_TYPE_VIEW.getType(), doc.uuid())
       .source(doc.getFields());
   }
 
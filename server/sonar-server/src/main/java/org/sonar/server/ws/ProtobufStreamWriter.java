@@ -0,0 +1,169 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.ws;
+
+import com.google.protobuf.CodedOutputStream;
+import com.google.protobuf.Descriptors;
+import com.google.protobuf.Message;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.nio.charset.StandardCharsets;
+import org.apache.commons.io.IOUtils;
+import org.sonar.api.server.ws.Request;
+import org.sonar.api.server.ws.Response;
+import org.sonar.api.utils.text.JsonWriter;
+import org.sonar.core.util.ProtobufJsonFormat;
+import org.sonarqube.ws.MediaTypes;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.String.format;
+
+/**
+ * Writes a protobuf response in which the elements of a repeated field are written one by one,
+ * as soon as they are available, instead of building the whole response in memory before
+ * serializing it like {@link WsUtils#writeProtobuf(Message, Request, Response)}.
+ * <p>
+ * The other fields are written first from a "header" message, in which the streamed field
+ * must be empty. JSON and protobuf media types are supported.
+ * </p>
+ * <p>
+ * The response is terminated only by {@link #finish()}. If an error is raised while writing the elements,
+ * {@link #finish()} is not called and the error is propagated, so that an error is returned instead of
+ * a truncated response. Errors should still be raised as early as possible, as the response is committed
+ * as soon as the buffer of the servlet container is full.
+ * </p>
+ * <pre>
+ *   ProtobufStreamWriter writer = ProtobufStreamWriter.of(header, "issues", request, response);
+ *   for (IssueDto dto : dtos) {
+ *     writer.write(format(dto));
+ *   }
+ *   writer.finish();
+ * </pre>
+ */
+public abstract class ProtobufStreamWriter {
+
+  protected final OutputStream output;
+
+  private ProtobufStreamWriter(OutputStream output) {
+    this.output = output;
+  }
+
+  public static ProtobufStreamWriter of(Message header, String streamedField, Request request, Response response) {
+    Descriptors.FieldDescriptor field = header.getDescriptorForType().findFieldByName(streamedField);
+    checkArgument(field != null && field.isRepeated() && field.getJavaType() == Descriptors.FieldDescriptor.JavaType.MESSAGE,
+      "Field '%s' is not a repeated message field of %s", streamedField, header.getDescriptorForType().getFullName());
+    checkArgument(header.getRepeatedFieldCount(field) == 0, "Field '%s' of header must be empty", streamedField);
+
+    ProtobufStreamWriter writer;
+    if (request.getMediaType().equals(MediaTypes.PROTOBUF)) {
+      response.stream().setMediaType(MediaTypes.PROTOBUF);
+      writer = new BinaryWriter(response.stream().output(), field);
+    } else {
+      response.stream().setMediaType(MediaTypes.JSON);
+      writer = new JsonStreamWriter(response.stream().output(), field);
+    }
+    writer.start(header);
+    return writer;
+  }
+
+  protected abstract void start(Message header);
+
+  public abstract void write(Message element);
+
+  protected abstract void writeEnd() throws IOException;
+
+  /**
+   * Terminates and closes the response. Must be called once all the elements are written.
+   */
+  public void finish() {
+    try {
+      writeEnd();
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to write protobuf response", e);
+    } finally {
+      IOUtils.closeQuietly(output);
+    }
+  }
+
+  private static class BinaryWriter extends ProtobufStreamWriter {
+    private final CodedOutputStream coded;
+    private final int fieldNumber;
+
+    private BinaryWriter(OutputStream output, Descriptors.FieldDescriptor field) {
+      super(output);
+      this.coded = CodedOutputStream.newInstance(output);
+      this.fieldNumber = field.getNumber();
+    }
+
+    @Override
+    protected void start(Message header) {
+      try {
+        header.writeTo(coded);
+      } catch (IOException e) {
+        throw new IllegalStateException(format("Fail to write protobuf message %s", header.getDescriptorForType().getFullName()), e);
+      }
+    }
+
+    @Override
+    public void write(Message element) {
+      try {
+        // elements of a repeated field don't have to be contiguous, so they can be appended after the header
+        coded.writeMessage(fieldNumber, element);
+      } catch (IOException e) {
+        throw new IllegalStateException(format("Fail to write protobuf message %s", element.getDescriptorForType().getFullName()), e);
+      }
+    }
+
+    @Override
+    protected void writeEnd() throws IOException {
+      coded.flush();
+    }
+  }
+
+  private static class JsonStreamWriter extends ProtobufStreamWriter {
+    private final JsonWriter json;
+    private final String fieldName;
+
+    private JsonStreamWriter(OutputStream output, Descriptors.FieldDescriptor field) {
+      super(output);
+      this.json = JsonWriter.of(new OutputStreamWriter(output, StandardCharsets.UTF_8));
+      this.fieldName = field.getName();
+    }
+
+    @Override
+    protected void start(Message header) {
+      json.beginObject();
+      ProtobufJsonFormat.writeFields(header, fieldName, json);
+      json.name(fieldName).beginArray();
+    }
+
+    @Override
+    public void write(Message element) {
+      ProtobufJsonFormat.writeObject(element, json);
+    }
+
+    @Override
+    protected void writeEnd() {
+      json.endArray().endObject();
+      json.close();
+    }
+  }
+}
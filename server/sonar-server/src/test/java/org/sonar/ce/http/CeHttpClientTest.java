@@ -22,8 +22,11 @@ package org.sonar.ce.http;
 import java.io.File;
 import java.io.IOException;
 import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import okhttp3.OkHttpClient;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
+import okhttp3.mockwebserver.RecordedRequest;
 import okio.Buffer;
 import org.junit.Before;
 import org.junit.Rule;
@@ -58,7 +61,7 @@ public class CeHttpClientTest {
     ipcSharedDir = temp.newFolder();
     Settings settings = new MapSettings();
     settings.setProperty(ProcessEntryPoint.PROPERTY_SHARED_PATH, ipcSharedDir.getAbsolutePath());
-    underTest = new CeHttpClient(settings);
+    underTest = new CeHttpClient(settings, new OkHttpClient());
   }
 
   @Test
@@ -134,6 +137,69 @@ public class CeHttpClientTest {
     underTest.changeLogLevel(LoggerLevel.INFO);
   }
 
+  @Test
+  public void wakeUpWorkers_sends_count_of_workers_to_wake_up() throws Exception {
+    server.enqueue(new MockResponse().setResponseCode(200));
+
+    setUpWithHttpUrl(ProcessId.COMPUTE_ENGINE);
+
+    underTest.wakeUpWorkers(3);
+
+    RecordedRequest request = server.takeRequest();
+    assertThat(request.getMethod()).isEqualTo("POST");
+    assertThat(request.getPath()).isEqualTo("/wakeUpWorkers?count=3");
+  }
+
+  @Test
+  public void wakeUpWorkers_does_not_fail_if_http_error() throws Exception {
+    server.enqueue(new MockResponse().setResponseCode(500));
+
+    setUpWithHttpUrl(ProcessId.COMPUTE_ENGINE);
+
+    underTest.wakeUpWorkers(1);
+
+    // request is sent asynchronously
+    assertThat(server.takeRequest(10, TimeUnit.SECONDS).getPath()).isEqualTo("/wakeUpWorkers?count=1");
+  }
+
+  @Test
+  public void wakeUpWorkers_does_not_fail_if_process_is_down() {
+    underTest.wakeUpWorkers(1);
+  }
+
+  @Test
+  public void changeWorkerCount_sends_count_of_workers() throws Exception {
+    server.enqueue(new MockResponse().setResponseCode(200));
+
+    setUpWithHttpUrl(ProcessId.COMPUTE_ENGINE);
+
+    underTest.changeWorkerCount(5);
+
+    RecordedRequest request = server.takeRequest();
+    assertThat(request.getMethod()).isEqualTo("POST");
+    assertThat(request.getPath()).isEqualTo("/changeWorkerCount?count=5");
+  }
+
+  @Test
+  public void changeWorkerCount_throws_ISE_if_http_error() {
+    server.enqueue(new MockResponse().setResponseCode(400).setBody("blah"));
+
+    setUpWithHttpUrl(ProcessId.COMPUTE_ENGINE);
+
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("Failed to call HTTP server of process " + ProcessId.COMPUTE_ENGINE);
+    expectedException.expectCause(hasType(IOException.class)
+      .andMessage(format("Failed to change worker count of Compute Engine. Code was '400' and response was 'blah' for url " +
+        "'http://%s:%s/changeWorkerCount'", server.getHostName(), server.getPort())));
+
+    underTest.changeWorkerCount(0);
+  }
+
+  @Test
+  public void changeWorkerCount_does_not_fail_if_process_is_down() {
+    underTest.changeWorkerCount(2);
+  }
+
   private void setUpWithHttpUrl(ProcessId processId) {
     try (DefaultProcessCommands processCommands = DefaultProcessCommands.secondary(ipcSharedDir, processId.getIpcIndex())) {
       processCommands.setUp();
@@ -0,0 +1,59 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.ce.http;
+
+import org.junit.Test;
+import org.sonar.ce.queue.CeTask;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+public class WakeUpCeWorkersListenerTest {
+
+  private CeHttpClient ceHttpClient = mock(CeHttpClient.class);
+  private WakeUpCeWorkersListener underTest = new WakeUpCeWorkersListener(ceHttpClient);
+
+  @Test
+  public void wake_up_one_worker_per_submitted_task() {
+    underTest.onSubmit(asList(mock(CeTask.class), mock(CeTask.class)));
+
+    verify(ceHttpClient).wakeUpWorkers(2);
+  }
+
+  @Test
+  public void do_nothing_if_no_tasks() {
+    underTest.onSubmit(emptyList());
+
+    verifyZeroInteractions(ceHttpClient);
+  }
+
+  @Test
+  public void ignore_failures() {
+    doThrow(new IllegalStateException("CE is not reachable")).when(ceHttpClient).wakeUpWorkers(1);
+
+    underTest.onSubmit(asList(mock(CeTask.class)));
+
+    verify(ceHttpClient).wakeUpWorkers(1);
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.ce.ws;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.ce.http.CeHttpClient;
+import org.sonar.server.exceptions.BadRequestException;
+import org.sonar.server.exceptions.ForbiddenException;
+import org.sonar.server.tester.UserSessionRule;
+import org.sonar.server.ws.WsActionTester;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+public class ChangeWorkerCountActionTest {
+
+  @Rule
+  public UserSessionRule userSession = UserSessionRule.standalone();
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private CeHttpClient ceHttpClient = mock(CeHttpClient.class);
+  private ChangeWorkerCountAction underTest = new ChangeWorkerCountAction(userSession, ceHttpClient);
+  private WsActionTester tester = new WsActionTester(underTest);
+
+  @Test
+  public void change_worker_count_of_compute_engine() {
+    userSession.logIn().setSystemAdministrator();
+
+    call("3");
+
+    verify(ceHttpClient).changeWorkerCount(3);
+  }
+
+  @Test
+  public void throw_BadRequestException_if_count_is_less_than_1() {
+    userSession.logIn().setSystemAdministrator();
+
+    expectedException.expect(BadRequestException.class);
+    expectedException.expectMessage("Parameter 'count' must be strictly greater than 0");
+
+    call("0");
+  }
+
+  @Test
+  public void throw_ForbiddenException_if_not_system_administrator() {
+    userSession.logIn().setNonSystemAdministrator();
+
+    expectedException.expect(ForbiddenException.class);
+    expectedException.expectMessage("Insufficient privileges");
+
+    call("3");
+
+    verifyZeroInteractions(ceHttpClient);
+  }
+
+  private void call(String count) {
+    tester.newRequest()
+      .setMethod("POST")
+      .setParam("count", count)
+      .execute();
+  }
+}
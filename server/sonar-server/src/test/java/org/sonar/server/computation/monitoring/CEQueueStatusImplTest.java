@@ -133,6 +133,53 @@ public class CEQueueStatusImplTest {
     assertThat(underTest.getProcessingTime()).isEqualTo(calls);
   }
 
+  @Test
+  public void addWaitingTime_throws_IAE_if_time_is_less_than_0() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Waiting time can not be < 0");
+
+    underTest.addWaitingTime(-1);
+  }
+
+  @Test
+  public void getWaitingTimePercentile_returns_0_if_no_waiting_times() {
+    assertThat(underTest.getWaitingTimePercentile(50)).isEqualTo(0);
+    assertThat(underTest.getWaitingTimePercentile(99)).isEqualTo(0);
+  }
+
+  @Test
+  public void getWaitingTimePercentile_uses_nearest_rank() {
+    // added in reverse order
+    for (int i = 100; i >= 1; i--) {
+      underTest.addWaitingTime(i * 10L);
+    }
+
+    assertThat(underTest.getWaitingTimePercentile(1)).isEqualTo(10);
+    assertThat(underTest.getWaitingTimePercentile(50)).isEqualTo(500);
+    assertThat(underTest.getWaitingTimePercentile(95)).isEqualTo(950);
+    assertThat(underTest.getWaitingTimePercentile(100)).isEqualTo(1_000);
+  }
+
+  @Test
+  public void getWaitingTimePercentile_considers_only_last_waiting_times() {
+    for (int i = 0; i < 1_000; i++) {
+      underTest.addWaitingTime(1_000_000L);
+    }
+    for (int i = 0; i < 1_000; i++) {
+      underTest.addWaitingTime(10L);
+    }
+
+    assertThat(underTest.getWaitingTimePercentile(100)).isEqualTo(10);
+  }
+
+  @Test
+  public void getWaitingTimePercentile_throws_IAE_if_percentile_is_out_of_range() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Percentile must be between 1 and 100: 0");
+
+    underTest.getWaitingTimePercentile(0);
+  }
+
   @Test
   public void count_Pending_from_database() {
     when(dbClient.ceQueueDao().countByStatus(any(DbSession.class), eq(CeQueueDto.Status.PENDING))).thenReturn(42);
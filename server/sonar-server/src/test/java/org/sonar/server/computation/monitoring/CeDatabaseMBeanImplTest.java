@@ -24,6 +24,7 @@ import javax.annotation.CheckForNull;
 import javax.management.InstanceNotFoundException;
 import javax.management.ObjectInstance;
 import javax.management.ObjectName;
+import org.assertj.core.api.Condition;
 import org.junit.Rule;
 import org.junit.Test;
 import org.sonar.api.utils.System2;
@@ -54,11 +55,21 @@ public class CeDatabaseMBeanImplTest {
   public void export_system_info() {
     ProtobufSystemInfo.Section section = underTest.toProtobuf();
     assertThat(section.getName()).isEqualTo("Compute Engine Database Connection");
-    assertThat(section.getAttributesCount()).isEqualTo(9);
+    assertThat(section.getAttributesCount()).isEqualTo(13 + underTest.getSqlStatementStatistics().length);
     assertThat(section.getAttributes(0).getKey()).isEqualTo("Pool Initial Size");
     assertThat(section.getAttributes(0).getLongValue()).isGreaterThanOrEqualTo(0);
   }
 
+  @Test
+  public void export_sql_statement_statistics() {
+    dbTester.getDbClient().getMyBatis().getStatementStatistics().reset();
+    dbTester.getDbClient().ruleDao().selectAllDefinitions(dbTester.getSession());
+
+    assertThat(underTest.getSqlStatementStatistics())
+      .isNotEmpty()
+      .haveAtLeastOne(new Condition<>(s -> s.startsWith("org.sonar.db.rule.RuleMapper.selectAllDefinitions: calls="), "statistics of RuleMapper"));
+  }
+
   @CheckForNull
   private ObjectInstance getMBean() throws Exception {
     try {
@@ -27,9 +27,11 @@ import javax.management.ObjectName;
 import org.junit.Test;
 import org.sonar.ce.monitoring.CEQueueStatus;
 import org.sonar.process.systeminfo.protobuf.ProtobufSystemInfo;
-import org.sonar.server.computation.configuration.CeConfiguration;
+import org.sonar.server.computation.taskprocessor.CeProcessingScheduler;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class CeTasksMBeanImplTest {
   private static final long PENDING_COUNT = 2;
@@ -38,8 +40,10 @@ public class CeTasksMBeanImplTest {
   private static final long SUCCESS_COUNT = 13;
   private static final long PROCESSING_TIME = 987;
   private static final int WORKER_COUNT = 56;
+  private static final long WAITING_TIME_OFFSET = 1_000;
 
-  private CeTasksMBeanImpl underTest = new CeTasksMBeanImpl(new DumbCEQueueStatus(), new DumbCeConfiguration());
+  private CeProcessingScheduler processingScheduler = mock(CeProcessingScheduler.class);
+  private CeTasksMBeanImpl underTest = new CeTasksMBeanImpl(new DumbCEQueueStatus(), processingScheduler);
 
   @Test
   public void register_and_unregister() throws Exception {
@@ -59,10 +63,15 @@ public class CeTasksMBeanImplTest {
     assertThat(underTest.getErrorCount()).isEqualTo(ERROR_COUNT);
     assertThat(underTest.getSuccessCount()).isEqualTo(SUCCESS_COUNT);
     assertThat(underTest.getProcessingTime()).isEqualTo(PROCESSING_TIME);
+    assertThat(underTest.getWaitingTimeMedian()).isEqualTo(WAITING_TIME_OFFSET + 50);
+    assertThat(underTest.getWaitingTime95thPercentile()).isEqualTo(WAITING_TIME_OFFSET + 95);
+    assertThat(underTest.getWaitingTime99thPercentile()).isEqualTo(WAITING_TIME_OFFSET + 99);
   }
 
   @Test
-  public void getWorkerCount_delegates_to_the_CEConfiguration_instance() {
+  public void getWorkerCount_delegates_to_the_CeProcessingScheduler_instance() {
+    when(processingScheduler.getWorkerCount()).thenReturn(WORKER_COUNT);
+
     assertThat(underTest.getWorkerCount()).isEqualTo(WORKER_COUNT);
   }
 
@@ -70,7 +79,7 @@ public class CeTasksMBeanImplTest {
   public void export_system_info() {
     ProtobufSystemInfo.Section section = underTest.toProtobuf();
     assertThat(section.getName()).isEqualTo("Compute Engine Tasks");
-    assertThat(section.getAttributesCount()).isEqualTo(6);
+    assertThat(section.getAttributesCount()).isEqualTo(9);
   }
 
   /**
@@ -119,20 +128,18 @@ public class CeTasksMBeanImplTest {
       return PROCESSING_TIME;
     }
 
-    private long methodNotImplemented() {
-      throw new UnsupportedOperationException("Not Implemented");
+    @Override
+    public void addWaitingTime(long waitingTime) {
+      methodNotImplemented();
     }
-  }
 
-  private static class DumbCeConfiguration implements CeConfiguration {
     @Override
-    public int getWorkerCount() {
-      return WORKER_COUNT;
+    public long getWaitingTimePercentile(int percentile) {
+      return WAITING_TIME_OFFSET + percentile;
     }
 
-    @Override
-    public long getQueuePollingDelay() {
-      throw new UnsupportedOperationException("getQueuePollingDelay is not implemented");
+    private long methodNotImplemented() {
+      throw new UnsupportedOperationException("Not Implemented");
     }
   }
 
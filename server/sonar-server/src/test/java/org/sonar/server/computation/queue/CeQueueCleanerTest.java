@@ -26,12 +26,14 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.sonar.api.platform.ServerUpgradeStatus;
 import org.sonar.api.utils.System2;
+import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
 import org.sonar.db.ce.CeQueueDto;
 import org.sonar.db.ce.CeTaskInputDao;
 import org.sonar.db.ce.CeTaskTypes;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -43,7 +45,8 @@ public class CeQueueCleanerTest {
 
   private ServerUpgradeStatus serverUpgradeStatus = mock(ServerUpgradeStatus.class);
   private InternalCeQueue queue = mock(InternalCeQueue.class);
-  private CeQueueCleaner underTest = new CeQueueCleaner(dbTester.getDbClient(), serverUpgradeStatus, queue);
+  private CeQueueCleaner underTest = new CeQueueCleaner(dbTester.getDbClient(), serverUpgradeStatus, queue,
+    new DatabaseCeTaskInputStorage(dbTester.getDbClient()));
 
   @Test
   public void reset_in_progress_tasks_to_pending() throws IOException {
@@ -83,6 +86,16 @@ public class CeQueueCleanerTest {
     assertThat(dataDao.selectData(dbTester.getSession(), "TASK_2")).isNotPresent();
   }
 
+  @Test
+  public void periodically_delete_unreferenced_task_inputs() {
+    CeTaskInputStorage taskInputStorage = mock(CeTaskInputStorage.class);
+    CeQueueCleaner cleaner = new CeQueueCleaner(dbTester.getDbClient(), serverUpgradeStatus, queue, taskInputStorage);
+
+    cleaner.deleteUnreferencedTaskInputs();
+
+    verify(taskInputStorage).deleteUnreferencedData(any(DbSession.class));
+  }
+
   private CeQueueDto insertInQueue(String taskUuid, CeQueueDto.Status status) throws IOException {
     CeQueueDto dto = new CeQueueDto();
     dto.setTaskType(CeTaskTypes.REPORT);
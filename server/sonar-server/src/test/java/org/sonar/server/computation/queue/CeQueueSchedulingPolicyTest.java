@@ -0,0 +1,222 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.queue;
+
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.api.config.MapSettings;
+import org.sonar.api.config.Settings;
+import org.sonar.api.utils.System2;
+import org.sonar.db.DbSession;
+import org.sonar.db.DbTester;
+import org.sonar.db.ce.CeActivityDto;
+import org.sonar.db.ce.CeQueueDto;
+import org.sonar.db.ce.CeTaskTypes;
+import org.sonar.db.ce.EligibleTaskDto;
+import org.sonar.db.component.ComponentDto;
+import org.sonar.db.organization.OrganizationDto;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.server.computation.queue.CeQueueSchedulingPolicy.FAIR_SHARE_PROPERTY;
+import static org.sonar.server.computation.queue.CeQueueSchedulingPolicy.SHORTEST_JOB_FIRST_PROPERTY;
+
+public class CeQueueSchedulingPolicyTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+  @Rule
+  public DbTester db = DbTester.create(System2.INSTANCE);
+
+  private DbSession dbSession = db.getSession();
+  private Settings settings = new MapSettings();
+
+  @Test
+  public void tasks_with_highest_priority_are_first() {
+    settings.setProperty(FAIR_SHARE_PROPERTY, "none");
+    settings.setProperty(SHORTEST_JOB_FIRST_PROPERTY, true);
+    EligibleTaskDto task1 = newTask("T1", "P1", "O1", 1_000L);
+    EligibleTaskDto task2 = newTask("T2", "P2", "O1", 2_000L).setPriority(5);
+    EligibleTaskDto task3 = newTask("T3", "P3", "O1", 3_000L).setPriority(10);
+
+    List<EligibleTaskDto> sorted = newPolicy().sort(dbSession, asList(task1, task2, task3));
+
+    assertThat(sorted).containsExactly(task3, task2, task1);
+  }
+
+  @Test
+  public void order_is_not_changed_if_fair_share_and_shortest_job_first_are_disabled() {
+    settings.setProperty(FAIR_SHARE_PROPERTY, "none");
+    EligibleTaskDto task1 = newTask("T1", "P1", "O1", 1_000L);
+    EligibleTaskDto task2 = newTask("T2", "P2", "O2", 2_000L);
+    List<EligibleTaskDto> eligibles = asList(task1, task2);
+
+    assertThat(newPolicy().sort(dbSession, eligibles)).isSameAs(eligibles);
+  }
+
+  @Test
+  public void fair_share_by_organization_favors_organizations_with_fewest_tasks_in_progress() {
+    settings.setProperty(FAIR_SHARE_PROPERTY, "organization");
+    OrganizationDto organization1 = db.organizations().insert();
+    OrganizationDto organization2 = db.organizations().insert();
+    ComponentDto project1 = db.components().insertProject(organization1);
+    ComponentDto project2 = db.components().insertProject(organization1);
+    ComponentDto project3 = db.components().insertProject(organization2);
+    insertInProgressTask("IN_PROGRESS", project1.uuid());
+    EligibleTaskDto task1 = newTask("T1", project2.uuid(), organization1.getUuid(), 1_000L);
+    EligibleTaskDto task2 = newTask("T2", project3.uuid(), organization2.getUuid(), 2_000L);
+
+    List<EligibleTaskDto> sorted = newPolicy().sort(dbSession, asList(task1, task2));
+
+    assertThat(sorted).containsExactly(task2, task1);
+  }
+
+  @Test
+  public void fair_share_by_organization_serves_organizations_in_turn() {
+    settings.setProperty(FAIR_SHARE_PROPERTY, "organization");
+    EligibleTaskDto task1 = newTask("T1", "P1", "O1", 1_000L);
+    EligibleTaskDto task2 = newTask("T2", "P2", "O1", 2_000L);
+    EligibleTaskDto task3 = newTask("T3", "P3", "O2", 3_000L);
+    CeQueueSchedulingPolicy underTest = newPolicy();
+
+    assertThat(underTest.sort(dbSession, asList(task1, task2, task3))).containsExactly(task1, task2, task3);
+
+    underTest.onPeek(task1);
+    assertThat(underTest.sort(dbSession, asList(task2, task3))).containsExactly(task3, task2);
+
+    underTest.onPeek(task3);
+    assertThat(underTest.sort(dbSession, asList(task2, task3))).containsExactly(task2, task3);
+  }
+
+  @Test
+  public void fair_share_is_disabled_by_default() {
+    EligibleTaskDto task1 = newTask("T1", "P1", "O1", 1_000L);
+    EligibleTaskDto task2 = newTask("T2", "P2", "O1", 2_000L);
+    EligibleTaskDto task3 = newTask("T3", "P3", "O2", 3_000L);
+    CeQueueSchedulingPolicy underTest = newPolicy();
+
+    underTest.onPeek(newTask("T0", "P0", "O1", 0L));
+
+    List<EligibleTaskDto> eligibles = asList(task1, task2, task3);
+    assertThat(underTest.sort(dbSession, eligibles)).isSameAs(eligibles);
+    assertThat(underTest.countServedGroups()).isEqualTo(0);
+  }
+
+  @Test
+  public void history_of_served_groups_is_reset_when_queue_is_empty() {
+    settings.setProperty(FAIR_SHARE_PROPERTY, "project");
+    EligibleTaskDto task1 = newTask("T1", "P1", "O1", 1_000L);
+    EligibleTaskDto task2 = newTask("T2", "P2", "O1", 2_000L);
+    CeQueueSchedulingPolicy underTest = newPolicy();
+    underTest.onPeek(newTask("T0", "P1", "O1", 0L));
+
+    underTest.onEmptyQueue();
+
+    assertThat(underTest.countServedGroups()).isEqualTo(0);
+    assertThat(underTest.sort(dbSession, asList(task1, task2))).containsExactly(task1, task2);
+  }
+
+  @Test
+  public void history_of_served_groups_is_bounded() {
+    settings.setProperty(FAIR_SHARE_PROPERTY, "project");
+    CeQueueSchedulingPolicy underTest = newPolicy();
+
+    for (int i = 0; i < CeQueueSchedulingPolicy.MAX_SERVED_GROUPS + 10; i++) {
+      underTest.onPeek(newTask("T" + i, "P" + i, "O1", i));
+    }
+
+    assertThat(underTest.countServedGroups()).isLessThanOrEqualTo(CeQueueSchedulingPolicy.MAX_SERVED_GROUPS);
+  }
+
+  @Test
+  public void fair_share_by_project_serves_projects_in_turn() {
+    settings.setProperty(FAIR_SHARE_PROPERTY, "project");
+    EligibleTaskDto task1 = newTask("T1", "P1", "O1", 1_000L);
+    EligibleTaskDto task2 = newTask("T2", "P2", "O1", 2_000L);
+    CeQueueSchedulingPolicy underTest = newPolicy();
+
+    underTest.onPeek(newTask("T0", "P1", "O1", 0L));
+
+    assertThat(underTest.sort(dbSession, asList(task1, task2))).containsExactly(task2, task1);
+  }
+
+  @Test
+  public void shortest_job_first_favors_components_with_shortest_last_execution() {
+    settings.setProperty(FAIR_SHARE_PROPERTY, "none");
+    settings.setProperty(SHORTEST_JOB_FIRST_PROPERTY, true);
+    insertActivity("A1", "P1", 60_000L);
+    insertActivity("A2", "P2", 1_000L);
+    EligibleTaskDto task1 = newTask("T1", "P1", "O1", 1_000L);
+    EligibleTaskDto task2 = newTask("T2", "P2", "O1", 2_000L);
+    // never analyzed
+    EligibleTaskDto task3 = newTask("T3", "P3", "O1", 3_000L);
+    // submitted long before the others, so has waited enough to be processed first
+    EligibleTaskDto task4 = newTask("T4", "P1", "O1", -100_000L);
+
+    List<EligibleTaskDto> sorted = newPolicy().sort(dbSession, asList(task4, task1, task2, task3));
+
+    assertThat(sorted).containsExactly(task4, task2, task3, task1);
+  }
+
+  @Test
+  public void fail_if_fair_share_property_is_not_supported() {
+    settings.setProperty(FAIR_SHARE_PROPERTY, "foo");
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Unsupported value of property sonar.ce.queue.fairShare: foo");
+
+    newPolicy();
+  }
+
+  private CeQueueSchedulingPolicy newPolicy() {
+    return new CeQueueSchedulingPolicy(db.getDbClient(), settings);
+  }
+
+  private static EligibleTaskDto newTask(String uuid, String componentUuid, String organizationUuid, long createdAt) {
+    return new EligibleTaskDto()
+      .setUuid(uuid)
+      .setComponentUuid(componentUuid)
+      .setOrganizationUuid(organizationUuid)
+      .setCreatedAt(createdAt);
+  }
+
+  private void insertInProgressTask(String uuid, String componentUuid) {
+    db.getDbClient().ceQueueDao().insert(dbSession, new CeQueueDto()
+      .setUuid(uuid)
+      .setTaskType(CeTaskTypes.REPORT)
+      .setComponentUuid(componentUuid)
+      .setStatus(CeQueueDto.Status.IN_PROGRESS));
+    db.commit();
+  }
+
+  private void insertActivity(String uuid, String componentUuid, long executionTimeMs) {
+    CeQueueDto queueDto = new CeQueueDto()
+      .setUuid(uuid)
+      .setTaskType(CeTaskTypes.REPORT)
+      .setComponentUuid(componentUuid);
+    CeActivityDto activityDto = new CeActivityDto(queueDto)
+      .setStatus(CeActivityDto.Status.SUCCESS)
+      .setExecutionTimeMs(executionTimeMs);
+    db.getDbClient().ceActivityDao().insert(dbSession, activityDto);
+    db.commit();
+  }
+}
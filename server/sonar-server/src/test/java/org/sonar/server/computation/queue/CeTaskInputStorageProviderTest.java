@@ -0,0 +1,79 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.queue;
+
+import java.io.IOException;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.config.MapSettings;
+import org.sonar.api.config.Settings;
+import org.sonar.api.utils.System2;
+import org.sonar.db.DbClient;
+import org.sonar.server.platform.ServerFileSystem;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CeTaskInputStorageProviderTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private Settings settings = new MapSettings();
+  private DbClient dbClient = mock(DbClient.class);
+  private ServerFileSystem fs = mock(ServerFileSystem.class);
+  private CeTaskInputStorageProvider underTest = new CeTaskInputStorageProvider();
+
+  @Before
+  public void setUp() throws IOException {
+    when(fs.getDataDir()).thenReturn(temp.newFolder());
+  }
+
+  @Test
+  public void database_storage_by_default() {
+    CeTaskInputStorage storage = underTest.provide(settings, dbClient, fs, System2.INSTANCE);
+
+    assertThat(storage).isExactlyInstanceOf(DatabaseCeTaskInputStorage.class);
+    assertThat(underTest.provide(settings, dbClient, fs, System2.INSTANCE)).isSameAs(storage);
+  }
+
+  @Test
+  public void file_system_storage() {
+    settings.setProperty("sonar.ce.taskInput.storage", "filesystem");
+
+    assertThat(underTest.provide(settings, dbClient, fs, System2.INSTANCE)).isExactlyInstanceOf(FileSystemCeTaskInputStorage.class);
+  }
+
+  @Test
+  public void fail_if_unsupported_storage() {
+    settings.setProperty("sonar.ce.taskInput.storage", "foo");
+
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Unsupported value of property sonar.ce.taskInput.storage: foo");
+
+    underTest.provide(settings, dbClient, fs, System2.INSTANCE);
+  }
+}
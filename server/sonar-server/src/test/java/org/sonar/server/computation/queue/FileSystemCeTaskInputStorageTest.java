@@ -0,0 +1,163 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.queue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.apache.commons.io.IOUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.utils.System2;
+import org.sonar.api.utils.internal.TestSystem2;
+import org.sonar.db.DbSession;
+import org.sonar.db.DbTester;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class FileSystemCeTaskInputStorageTest {
+
+  @Rule
+  public DbTester dbTester = DbTester.create(System2.INSTANCE);
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private TestSystem2 system2 = new TestSystem2().setNow(System.currentTimeMillis());
+  private DbSession dbSession = dbTester.getSession();
+  private Path dir;
+  private FileSystemCeTaskInputStorage underTest;
+
+  @Before
+  public void setUp() throws IOException {
+    dir = temp.newFolder().toPath();
+    underTest = new FileSystemCeTaskInputStorage(dbTester.getDbClient(), dir, system2);
+  }
+
+  @Test
+  public void store_data_in_file_referenced_in_database() throws IOException {
+    underTest.store(dbSession, "TASK_1", IOUtils.toInputStream("foo", UTF_8));
+
+    Optional<String> reference = dbTester.getDbClient().ceTaskInputDao().selectReference(dbSession, "TASK_1");
+    assertThat(reference).isPresent();
+    assertThat(dir.resolve(reference.get().substring(0, 2)).resolve(reference.get())).hasContent("foo");
+    assertThat(dbTester.getDbClient().ceTaskInputDao().selectData(dbSession, "TASK_1")).isNotPresent();
+    assertThat(readData("TASK_1")).isEqualTo("foo");
+  }
+
+  @Test
+  public void same_data_is_stored_once() throws IOException {
+    underTest.store(dbSession, "TASK_1", IOUtils.toInputStream("foo", UTF_8));
+    underTest.store(dbSession, "TASK_2", IOUtils.toInputStream("foo", UTF_8));
+
+    assertThat(listDataFiles()).hasSize(1);
+    assertThat(readData("TASK_1")).isEqualTo("foo");
+    assertThat(readData("TASK_2")).isEqualTo("foo");
+  }
+
+  @Test
+  public void read_data_stored_in_database_before_storage_is_enabled() throws IOException {
+    dbTester.getDbClient().ceTaskInputDao().insert(dbSession, "TASK_1", IOUtils.toInputStream("foo", UTF_8));
+
+    assertThat(readData("TASK_1")).isEqualTo("foo");
+  }
+
+  @Test
+  public void read_returns_empty_if_task_has_no_data() {
+    assertThat(underTest.read(dbSession, "UNKNOWN")).isNotPresent();
+  }
+
+  @Test
+  public void delete_files_when_they_are_not_referenced_anymore() throws IOException {
+    underTest.store(dbSession, "TASK_1", IOUtils.toInputStream("foo", UTF_8));
+    underTest.store(dbSession, "TASK_2", IOUtils.toInputStream("foo", UTF_8));
+    underTest.store(dbSession, "TASK_3", IOUtils.toInputStream("bar", UTF_8));
+    system2.setNow(system2.now() + FileSystemCeTaskInputStorage.RECENTLY_STORED_MS + 1_000L);
+
+    underTest.delete(dbSession, singletonList("TASK_1"));
+    assertThat(underTest.read(dbSession, "TASK_1")).isNotPresent();
+    assertThat(listDataFiles()).hasSize(2);
+
+    underTest.delete(dbSession, singletonList("TASK_2"));
+    assertThat(listDataFiles()).hasSize(1);
+    assertThat(readData("TASK_3")).isEqualTo("bar");
+  }
+
+  @Test
+  public void do_not_delete_recent_files() throws IOException {
+    underTest.store(dbSession, "TASK_1", IOUtils.toInputStream("foo", UTF_8));
+
+    underTest.delete(dbSession, singletonList("TASK_1"));
+
+    assertThat(underTest.read(dbSession, "TASK_1")).isNotPresent();
+    assertThat(listDataFiles()).hasSize(1);
+  }
+
+  @Test
+  public void deleteUnreferencedData_deletes_files_not_referenced_after_grace_period() throws IOException {
+    underTest.store(dbSession, "TASK_1", IOUtils.toInputStream("foo", UTF_8));
+    underTest.store(dbSession, "TASK_2", IOUtils.toInputStream("bar", UTF_8));
+    // file left by a deletion executed just after the file was stored
+    underTest.delete(dbSession, singletonList("TASK_1"));
+
+    underTest.deleteUnreferencedData(dbSession);
+    assertThat(listDataFiles()).hasSize(2);
+
+    system2.setNow(system2.now() + FileSystemCeTaskInputStorage.GRACE_PERIOD_MS + 1_000L);
+    underTest.deleteUnreferencedData(dbSession);
+    assertThat(listDataFiles()).hasSize(1);
+    assertThat(readData("TASK_2")).isEqualTo("bar");
+  }
+
+  @Test
+  public void deleteOrphans_deletes_files_of_tasks_not_in_queue() throws IOException {
+    underTest.store(dbSession, "TASK_1", IOUtils.toInputStream("foo", UTF_8));
+    system2.setNow(system2.now() + FileSystemCeTaskInputStorage.RECENTLY_STORED_MS + 1_000L);
+
+    underTest.deleteOrphans(dbSession);
+
+    assertThat(underTest.read(dbSession, "TASK_1")).isNotPresent();
+    assertThat(listDataFiles()).isEmpty();
+  }
+
+  private String readData(String taskUuid) throws IOException {
+    try (InputStream input = underTest.read(dbSession, taskUuid).get()) {
+      return IOUtils.toString(input, UTF_8);
+    }
+  }
+
+  private List<File> listDataFiles() throws IOException {
+    try (Stream<Path> paths = Files.walk(dir)) {
+      return paths
+        .filter(Files::isRegularFile)
+        .map(Path::toFile)
+        .collect(toList());
+    }
+  }
+}
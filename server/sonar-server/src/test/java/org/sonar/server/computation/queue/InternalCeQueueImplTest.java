@@ -27,7 +27,7 @@ import javax.annotation.Nullable;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
-import org.sonar.api.utils.System2;
+import org.sonar.api.config.MapSettings;
 import org.sonar.api.utils.internal.TestSystem2;
 import org.sonar.ce.monitoring.CEQueueStatus;
 import org.sonar.ce.queue.CeTask;
@@ -59,7 +59,7 @@ public class InternalCeQueueImplTest {
   private static final String WORKER_UUID_1 = "worker uuid 1";
   private static final String WORKER_UUID_2 = "worker uuid 2";
 
-  private System2 system2 = new TestSystem2().setNow(1_450_000_000_000L);
+  private TestSystem2 system2 = new TestSystem2().setNow(1_450_000_000_000L);
 
   @Rule
   public ExpectedException expectedException = ExpectedException.none();
@@ -71,7 +71,8 @@ public class InternalCeQueueImplTest {
   private UuidFactory uuidFactory = UuidFactoryImpl.INSTANCE;
   private CEQueueStatus queueStatus = new CEQueueStatusImpl(dbTester.getDbClient());
   private DefaultOrganizationProvider defaultOrganizationProvider = TestDefaultOrganizationProvider.from(dbTester);
-  private InternalCeQueue underTest = new InternalCeQueueImpl(system2, dbTester.getDbClient(), uuidFactory, queueStatus, defaultOrganizationProvider);
+  private InternalCeQueue underTest = new InternalCeQueueImpl(system2, dbTester.getDbClient(), uuidFactory, queueStatus, defaultOrganizationProvider,
+    new DatabaseCeTaskInputStorage(dbTester.getDbClient()), new CeQueueSchedulingPolicy(dbTester.getDbClient(), new MapSettings()));
 
   @Test
   public void submit_returns_task_populated_from_CeTaskSubmit_and_creates_CeQueue_row() {
@@ -289,6 +290,42 @@ public class InternalCeQueueImplTest {
     assertThat(ceQueueDto.getExecutionCount()).isEqualTo(3);
   }
 
+  @Test
+  public void peek_task_with_highest_priority_first() {
+    CeTask lowPriorityTask = submit(CeTaskTypes.REPORT, "PROJECT_1");
+    CeTask highPriorityTask = underTest.submit(underTest.prepareSubmit()
+      .setType(CeTaskTypes.REPORT)
+      .setComponentUuid("PROJECT_2")
+      .setPriority(10)
+      .build());
+
+    assertThat(underTest.peek(WORKER_UUID_1).get().getUuid()).isEqualTo(highPriorityTask.getUuid());
+    assertThat(underTest.peek(WORKER_UUID_2).get().getUuid()).isEqualTo(lowPriorityTask.getUuid());
+  }
+
+  @Test
+  public void peek_records_waiting_time_of_task() {
+    submit(CeTaskTypes.REPORT, "PROJECT_1");
+    system2.setNow(1_450_000_005_000L);
+
+    underTest.peek(WORKER_UUID_1);
+
+    assertThat(queueStatus.getWaitingTimePercentile(50)).isEqualTo(5_000L);
+  }
+
+  @Test
+  public void peek_does_not_fail_when_submission_date_is_after_start_date() {
+    // clocks of web server and of Compute Engine are not synchronized
+    CeTask task = submit(CeTaskTypes.REPORT, "PROJECT_1");
+    system2.setNow(1_449_999_995_000L);
+
+    Optional<CeTask> peek = underTest.peek(WORKER_UUID_1);
+
+    assertThat(peek.get().getUuid()).isEqualTo(task.getUuid());
+    assertThat(queueStatus.getWaitingTimePercentile(50)).isEqualTo(0L);
+    assertThat(queueStatus.getInProgressCount()).isEqualTo(1L);
+  }
+
   @Test
   public void peek_nothing_if_paused() throws Exception {
     submit(CeTaskTypes.REPORT, "PROJECT_1");
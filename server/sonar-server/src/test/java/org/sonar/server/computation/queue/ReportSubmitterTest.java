@@ -81,7 +81,8 @@ public class ReportSubmitterTest {
   private PermissionTemplateService permissionTemplateService = mock(PermissionTemplateService.class);
   private FavoriteUpdater favoriteUpdater = mock(FavoriteUpdater.class);
 
-  private ReportSubmitter underTest = new ReportSubmitter(queue, userSession, componentUpdater, permissionTemplateService, db.getDbClient());
+  private ReportSubmitter underTest = new ReportSubmitter(queue, userSession, componentUpdater, permissionTemplateService, db.getDbClient(),
+    new DatabaseCeTaskInputStorage(db.getDbClient()));
 
   @Before
   public void setUp() throws Exception {
@@ -227,6 +228,37 @@ public class ReportSubmitterTest {
     verify(queue).submit(any(CeTaskSubmit.class));
   }
 
+  @Test
+  public void submit_a_report_with_priority() {
+    ComponentDto project = db.components().insertProject(db.getDefaultOrganization());
+    userSession.logIn().setSystemAdministrator().addProjectUuidPermissions(SCAN_EXECUTION, project.uuid());
+    mockSuccessfulPrepareSubmitCall();
+
+    underTest.submit(defaultOrganizationKey, project.getKey(), null, project.name(), 10, IOUtils.toInputStream("{binary}"));
+
+    verify(queue).submit(argThat(new TypeSafeMatcher<CeTaskSubmit>() {
+      @Override
+      protected boolean matchesSafely(CeTaskSubmit submit) {
+        return submit.getUuid().equals(TASK_UUID) && submit.getPriority() == 10;
+      }
+
+      @Override
+      public void describeTo(Description description) {
+
+      }
+    }));
+  }
+
+  @Test
+  public void fail_with_forbidden_exception_when_priority_is_set_by_non_system_administrator() {
+    ComponentDto project = db.components().insertProject(db.getDefaultOrganization());
+    userSession.logIn().setNonSystemAdministrator().addProjectUuidPermissions(SCAN_EXECUTION, project.uuid());
+
+    thrown.expect(ForbiddenException.class);
+
+    underTest.submit(defaultOrganizationKey, project.getKey(), null, project.name(), 10, IOUtils.toInputStream("{binary}"));
+  }
+
   @Test
   public void fail_with_forbidden_exception_when_no_scan_permission() {
     thrown.expect(ForbiddenException.class);
@@ -484,6 +484,12 @@ public class ComponentRootBuilderTest {
     assertThat(createFileAttributes(newBuilder().setType(FILE).setIsTest(true).setLines(1).build()).isUnitTest()).isTrue();
   }
 
+  @Test
+  public void createFileAttributes_sets_previousSourceReused_from_Scanner_Component() {
+    assertThat(createFileAttributes(newBuilder().setType(FILE).setLines(1).build()).isPreviousSourceReused()).isFalse();
+    assertThat(createFileAttributes(newBuilder().setType(FILE).setReusePreviousSource(true).setLines(1).build()).isPreviousSourceReused()).isTrue();
+  }
+
   @Test
   public void createFileAttributes_sets_lines_in_Scanner_Component() {
     assertThat(createFileAttributes(newBuilder().setType(FILE).setLines(10).build()).getLines()).isEqualTo(10);
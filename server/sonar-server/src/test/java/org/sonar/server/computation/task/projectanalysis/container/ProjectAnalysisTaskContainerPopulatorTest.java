@@ -36,6 +36,7 @@ import org.sonar.core.platform.ComponentContainer;
 import org.sonar.plugin.ce.ReportAnalysisComponentProvider;
 import org.sonar.server.computation.task.container.TaskContainer;
 import org.sonar.server.computation.task.step.StepsExplorer;
+import org.sonar.server.computation.task.projectanalysis.step.FusedVisitorsStep;
 import org.sonar.server.computation.task.projectanalysis.step.PersistComponentsStep;
 import org.sonar.server.computation.task.projectanalysis.step.PersistDevelopersStep;
 import org.sonar.server.computation.task.step.ComputationStep;
@@ -84,8 +85,10 @@ public class ProjectAnalysisTaskContainerPopulatorTest {
       .transform(StepsExplorer.toCanonicalName())
       .toSet();
 
-    // PersistDevelopersStep is the only step that is not in the report container (it's only added when Dev Cockpit plugin is installed)
-    assertThat(difference(StepsExplorer.retrieveStepPackageStepsCanonicalNames(PROJECTANALYSIS_STEP_PACKAGE), computationStepClassNames)).containsOnly(PersistDevelopersStep.class.getCanonicalName());
+    // PersistDevelopersStep is not in the report container (it's only added when Dev Cockpit plugin is installed)
+    // FusedVisitorsStep is not in the report container (it's created when consecutive visitors steps are executed)
+    assertThat(difference(StepsExplorer.retrieveStepPackageStepsCanonicalNames(PROJECTANALYSIS_STEP_PACKAGE), computationStepClassNames))
+      .containsOnly(PersistDevelopersStep.class.getCanonicalName(), FusedVisitorsStep.class.getCanonicalName());
   }
 
   @Test
@@ -20,6 +20,7 @@
 package org.sonar.server.computation.task.projectanalysis.issue;
 
 import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableSet;
 import org.junit.Before;
 import org.junit.Test;
 import org.sonar.db.DbClient;
@@ -29,10 +30,12 @@ import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.ReportComponent;
 import org.sonar.server.computation.task.projectanalysis.filemove.MovedFilesRepository;
 
+import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 public class TrackerBaseInputFactoryTest {
@@ -45,8 +48,9 @@ public class TrackerBaseInputFactoryTest {
   private FileSourceDao fileSourceDao = mock(FileSourceDao.class);
 
   private MovedFilesRepository movedFilesRepository = mock(MovedFilesRepository.class);
+  private ComponentsWithUnprocessedIssues componentsWithUnprocessedIssues = new ComponentsWithUnprocessedIssues();
 
-  private TrackerBaseInputFactory underTest = new TrackerBaseInputFactory(baseIssuesLoader, dbClient, movedFilesRepository);
+  private TrackerBaseInputFactory underTest = new TrackerBaseInputFactory(baseIssuesLoader, dbClient, movedFilesRepository, componentsWithUnprocessedIssues);
 
   @Before
   public void setUp() throws Exception {
@@ -79,6 +83,8 @@ public class TrackerBaseInputFactoryTest {
 
   @Test
   public void create_returns_Input_which_retrieves_issues_of_specified_file_component_when_it_has_no_original_file() {
+    componentsWithUnprocessedIssues.setUuids(ImmutableSet.of(FILE_UUID));
+
     underTest.create(FILE).getIssues();
 
     verify(baseIssuesLoader).loadForComponentUuid(FILE_UUID);
@@ -87,6 +93,7 @@ public class TrackerBaseInputFactoryTest {
   @Test
   public void create_returns_Input_which_retrieves_issues_of_original_file_of_component_when_it_has_one() {
     String originalUuid = "original uuid";
+    componentsWithUnprocessedIssues.setUuids(ImmutableSet.of(originalUuid));
 
     when(movedFilesRepository.getOriginalFile(FILE)).thenReturn(
         Optional.of(new MovedFilesRepository.OriginalFile(6542, originalUuid, "original key"))
@@ -97,4 +104,13 @@ public class TrackerBaseInputFactoryTest {
     verify(baseIssuesLoader).loadForComponentUuid(originalUuid);
     verify(baseIssuesLoader, times(0)).loadForComponentUuid(FILE_UUID);
   }
+
+  @Test
+  public void create_returns_Input_which_does_not_retrieve_issues_when_component_has_no_open_issues() {
+    componentsWithUnprocessedIssues.setUuids(ImmutableSet.of("other uuid"));
+
+    assertThat(underTest.create(FILE).getIssues()).isEmpty();
+
+    verifyZeroInteractions(baseIssuesLoader);
+  }
 }
@@ -0,0 +1,176 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.measure;
+
+import com.google.common.collect.SetMultimap;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.Developer;
+import org.sonar.server.computation.task.projectanalysis.component.DumbDeveloper;
+import org.sonar.server.computation.task.projectanalysis.component.ReportComponent;
+import org.sonar.server.computation.task.projectanalysis.measure.MapBasedRawMeasureRepository.OverridePolicy;
+import org.sonar.server.computation.task.projectanalysis.metric.Metric;
+import org.sonar.server.computation.task.projectanalysis.metric.MetricImpl;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.guava.api.Assertions.assertThat;
+import static org.sonar.server.computation.task.projectanalysis.measure.Measure.newMeasureBuilder;
+
+public class ColumnarRawMeasureRepositoryTest {
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private static final ReportComponent FILE_COMPONENT = ReportComponent.builder(Component.Type.FILE, 1).setKey("file cpt key").build();
+  private static final ReportComponent OTHER_COMPONENT = ReportComponent.builder(Component.Type.FILE, 2).setKey("some other key").build();
+  private static final ReportComponent FAR_COMPONENT = ReportComponent.builder(Component.Type.FILE, 1_000).setKey("far key").build();
+
+  private static final Metric INT_METRIC = new MetricImpl(1, "int", "int", Metric.MetricType.INT);
+  private static final Metric LONG_METRIC = new MetricImpl(2, "long", "long", Metric.MetricType.WORK_DUR);
+  private static final Metric DOUBLE_METRIC = new MetricImpl(3, "double", "double", Metric.MetricType.FLOAT);
+  private static final Metric BOOLEAN_METRIC = new MetricImpl(4, "boolean", "boolean", Metric.MetricType.BOOL);
+  private static final Metric STRING_METRIC = new MetricImpl(5, "string", "string", Metric.MetricType.STRING);
+  private static final Developer SOME_DEVELOPER = new DumbDeveloper("DEV1");
+
+  private ColumnarRawMeasureRepository underTest = new ColumnarRawMeasureRepository();
+
+  @Test
+  public void getBaseMeasure_is_not_supported() {
+    expectedException.expect(UnsupportedOperationException.class);
+
+    underTest.getBaseMeasure(FILE_COMPONENT, INT_METRIC);
+  }
+
+  @Test
+  public void numeric_measures_are_restored_with_their_value_and_variation() {
+    underTest.add(FILE_COMPONENT, INT_METRIC, newMeasureBuilder().setVariation(-3d).create(12));
+    underTest.add(FILE_COMPONENT, LONG_METRIC, newMeasureBuilder().create(123_456_789_012L));
+    underTest.add(FILE_COMPONENT, DOUBLE_METRIC, newMeasureBuilder().setVariation(0.5d).create(2.25d, 2));
+    underTest.add(FILE_COMPONENT, BOOLEAN_METRIC, newMeasureBuilder().create(true));
+
+    Measure intMeasure = underTest.getRawMeasure(FILE_COMPONENT, INT_METRIC).get();
+    assertThat(intMeasure.getIntValue()).isEqualTo(12);
+    assertThat(intMeasure.getVariation()).isEqualTo(-3d);
+    Measure longMeasure = underTest.getRawMeasure(FILE_COMPONENT, LONG_METRIC).get();
+    assertThat(longMeasure.getLongValue()).isEqualTo(123_456_789_012L);
+    assertThat(longMeasure.hasVariation()).isFalse();
+    Measure doubleMeasure = underTest.getRawMeasure(FILE_COMPONENT, DOUBLE_METRIC).get();
+    assertThat(doubleMeasure.getDoubleValue()).isEqualTo(2.25d);
+    assertThat(doubleMeasure.getVariation()).isEqualTo(0.5d);
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, BOOLEAN_METRIC).get().getBooleanValue()).isTrue();
+
+    assertThat(underTest.getRawMeasure(OTHER_COMPONENT, INT_METRIC)).isAbsent();
+    assertThat(underTest.getRawMeasure(FAR_COMPONENT, INT_METRIC)).isAbsent();
+  }
+
+  @Test
+  public void measures_of_distant_components_are_stored() {
+    underTest.add(FAR_COMPONENT, INT_METRIC, newMeasureBuilder().create(3));
+    underTest.add(FILE_COMPONENT, INT_METRIC, newMeasureBuilder().create(1));
+
+    assertThat(underTest.getRawMeasure(FAR_COMPONENT, INT_METRIC).get().getIntValue()).isEqualTo(3);
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, INT_METRIC).get().getIntValue()).isEqualTo(1);
+    assertThat(underTest.getRawMeasure(OTHER_COMPONENT, INT_METRIC)).isAbsent();
+  }
+
+  @Test
+  public void measures_which_are_not_only_numeric_are_kept_as_is() {
+    Measure stringMeasure = newMeasureBuilder().create("foo");
+    Measure withData = newMeasureBuilder().create(1, "data");
+    Measure withQualityGateStatus = newMeasureBuilder().setQualityGateStatus(new QualityGateStatus(Measure.Level.OK)).create(2.0d, 1);
+    Measure noValue = newMeasureBuilder().createNoValue();
+
+    underTest.add(FILE_COMPONENT, STRING_METRIC, stringMeasure);
+    underTest.add(FILE_COMPONENT, INT_METRIC, withData);
+    underTest.add(FILE_COMPONENT, DOUBLE_METRIC, withQualityGateStatus);
+    underTest.add(FILE_COMPONENT, LONG_METRIC, noValue);
+
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, STRING_METRIC).get()).isSameAs(stringMeasure);
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, INT_METRIC).get()).isSameAs(withData);
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, DOUBLE_METRIC).get()).isSameAs(withQualityGateStatus);
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, LONG_METRIC).get()).isSameAs(noValue);
+  }
+
+  @Test
+  public void update_replaces_numeric_value_by_object_and_back() {
+    Measure numeric = newMeasureBuilder().create(1);
+    underTest.add(FILE_COMPONENT, INT_METRIC, numeric);
+
+    Measure withQualityGateStatus = Measure.updatedMeasureBuilder(underTest.getRawMeasure(FILE_COMPONENT, INT_METRIC).get())
+      .setQualityGateStatus(new QualityGateStatus(Measure.Level.ERROR))
+      .create();
+    underTest.update(FILE_COMPONENT, INT_METRIC, withQualityGateStatus);
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, INT_METRIC).get()).isSameAs(withQualityGateStatus);
+
+    underTest.update(FILE_COMPONENT, INT_METRIC, newMeasureBuilder().setVariation(2d).create(5));
+    Measure updated = underTest.getRawMeasure(FILE_COMPONENT, INT_METRIC).get();
+    assertThat(updated.getIntValue()).isEqualTo(5);
+    assertThat(updated.getVariation()).isEqualTo(2d);
+    assertThat(updated.hasQualityGateStatus()).isFalse();
+  }
+
+  @Test
+  public void add_throws_UOE_if_measure_already_exists() {
+    underTest.add(FILE_COMPONENT, INT_METRIC, newMeasureBuilder().create(1));
+
+    expectedException.expect(UnsupportedOperationException.class);
+
+    underTest.add(FILE_COMPONENT, INT_METRIC, newMeasureBuilder().create(2));
+  }
+
+  @Test
+  public void update_throws_UOE_if_measure_does_not_exist() {
+    expectedException.expect(UnsupportedOperationException.class);
+
+    underTest.update(FILE_COMPONENT, INT_METRIC, newMeasureBuilder().create(2));
+  }
+
+  @Test
+  public void add_with_DO_NOT_OVERRIDE_policy_keeps_existing_measure() {
+    underTest.add(FILE_COMPONENT, INT_METRIC, newMeasureBuilder().create(1));
+    underTest.add(FILE_COMPONENT, INT_METRIC, newMeasureBuilder().create(2), OverridePolicy.DO_NOT_OVERRIDE);
+
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, INT_METRIC).get().getIntValue()).isEqualTo(1);
+  }
+
+  @Test
+  public void developer_measures_are_stored_aside_of_component_measure() {
+    Measure devMeasure = newMeasureBuilder().forDeveloper(SOME_DEVELOPER).create(10);
+    underTest.add(FILE_COMPONENT, INT_METRIC, newMeasureBuilder().create(1));
+    underTest.add(FILE_COMPONENT, INT_METRIC, devMeasure);
+
+    assertThat(underTest.getRawMeasure(FILE_COMPONENT, INT_METRIC).get().getIntValue()).isEqualTo(1);
+    assertThat(underTest.getRawMeasures(FILE_COMPONENT, INT_METRIC)).hasSize(2).contains(devMeasure);
+  }
+
+  @Test
+  public void getRawMeasures_returns_measures_of_all_metrics_of_component() {
+    underTest.add(FILE_COMPONENT, INT_METRIC, newMeasureBuilder().create(1));
+    underTest.add(FILE_COMPONENT, STRING_METRIC, newMeasureBuilder().create("foo"));
+    underTest.add(OTHER_COMPONENT, DOUBLE_METRIC, newMeasureBuilder().create(1d, 1));
+
+    SetMultimap<String, Measure> measures = underTest.getRawMeasures(FILE_COMPONENT);
+
+    assertThat(measures.keySet()).containsOnly(INT_METRIC.getKey(), STRING_METRIC.getKey());
+    assertThat(measures.get(STRING_METRIC.getKey()).iterator().next().getStringValue()).isEqualTo("foo");
+    assertThat(underTest.getRawMeasures(FAR_COMPONENT).isEmpty()).isTrue();
+  }
+}
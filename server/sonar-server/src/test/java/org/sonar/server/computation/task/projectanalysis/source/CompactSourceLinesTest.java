@@ -0,0 +1,66 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.source;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class CompactSourceLinesTest {
+
+  @Test
+  public void restores_lines_in_order() {
+    CompactSourceLines underTest = CompactSourceLines.of(Arrays.asList("foo", "", "bär €", "baz").iterator());
+
+    assertThat(underTest.getLineCount()).isEqualTo(4);
+    assertThat(underTest).containsExactly("foo", "", "bär €", "baz");
+    assertThat(underTest.getLine(2)).isEqualTo("bär €");
+  }
+
+  @Test
+  public void supports_many_lines() {
+    String[] lines = new String[100];
+    for (int i = 0; i < lines.length; i++) {
+      lines[i] = "line " + i;
+    }
+
+    CompactSourceLines underTest = CompactSourceLines.of(Arrays.asList(lines).iterator());
+
+    assertThat(underTest).containsExactly(lines);
+  }
+
+  @Test
+  public void supports_empty_source() {
+    CompactSourceLines underTest = CompactSourceLines.of(Collections.<String>emptyIterator());
+
+    assertThat(underTest.getLineCount()).isZero();
+    assertThat(underTest).isEmpty();
+    assertThat(underTest.getLineHashes()).isEmpty();
+  }
+
+  @Test
+  public void line_hashes_are_computed_once() {
+    CompactSourceLines underTest = CompactSourceLines.of(Arrays.asList("a", "b").iterator());
+
+    assertThat(underTest.getLineHashes()).hasSize(2).isSameAs(underTest.getLineHashes());
+  }
+}
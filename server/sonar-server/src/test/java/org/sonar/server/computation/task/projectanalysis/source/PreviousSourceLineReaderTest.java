@@ -0,0 +1,59 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.source;
+
+import org.junit.Test;
+import org.sonar.db.protobuf.DbFileSources;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PreviousSourceLineReaderTest {
+
+  @Test
+  public void copy_highlighting_and_symbols_of_previous_lines() {
+    PreviousSourceLineReader underTest = new PreviousSourceLineReader(DbFileSources.Data.newBuilder()
+      .addLines(DbFileSources.Line.newBuilder().setLine(1).setSource("line1").setHighlighting("2,4,a").setSymbols("2,4,1").setLineHits(5))
+      .addLines(DbFileSources.Line.newBuilder().setLine(2).setSource("line2"))
+      .build());
+
+    DbFileSources.Data.Builder data = DbFileSources.Data.newBuilder();
+    DbFileSources.Line.Builder line1 = data.addLinesBuilder().setLine(1);
+    underTest.read(line1);
+    DbFileSources.Line.Builder line2 = data.addLinesBuilder().setLine(2);
+    underTest.read(line2);
+
+    assertThat(line1.getHighlighting()).isEqualTo("2,4,a");
+    assertThat(line1.getSymbols()).isEqualTo("2,4,1");
+    assertThat(line1.hasLineHits()).isFalse();
+    assertThat(line2.hasHighlighting()).isFalse();
+    assertThat(line2.hasSymbols()).isFalse();
+  }
+
+  @Test
+  public void do_nothing_on_lines_not_in_previous_data() {
+    PreviousSourceLineReader underTest = new PreviousSourceLineReader(DbFileSources.Data.newBuilder().build());
+
+    DbFileSources.Line.Builder lineBuilder = DbFileSources.Data.newBuilder().addLinesBuilder().setLine(1);
+    underTest.read(lineBuilder);
+
+    assertThat(lineBuilder.hasHighlighting()).isFalse();
+    assertThat(lineBuilder.hasSymbols()).isFalse();
+  }
+}
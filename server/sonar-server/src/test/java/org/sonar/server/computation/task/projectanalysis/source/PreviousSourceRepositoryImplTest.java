@@ -0,0 +1,97 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.source;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.utils.System2;
+import org.sonar.db.DbTester;
+import org.sonar.db.protobuf.DbFileSources;
+import org.sonar.db.source.FileSourceDto;
+import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.FileAttributes;
+import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.server.computation.task.projectanalysis.component.ReportComponent.builder;
+
+public class PreviousSourceRepositoryImplTest {
+
+  @Rule
+  public DbTester dbTester = DbTester.create(System2.INSTANCE);
+
+  @Rule
+  public TreeRootHolderRule treeRootHolder = new TreeRootHolderRule();
+
+  Component file1 = reusedFile(2);
+  Component file2 = reusedFile(3);
+  Component file3 = reusedFile(4);
+  Component changedFile = builder(Component.Type.FILE, 5).setFileAttributes(new FileAttributes(false, null, 1)).build();
+
+  PreviousSourceRepositoryImpl underTest = new PreviousSourceRepositoryImpl(dbTester.getDbClient(), treeRootHolder, 2);
+
+  @Test
+  public void read_source_data_of_reused_files_by_batches() {
+    treeRootHolder.setRoot(builder(Component.Type.PROJECT, 1).addChildren(file1, changedFile, file2, file3).build());
+    insertSource(file1, "line of file 1");
+    insertSource(file2, "line of file 2");
+    insertSource(file3, "line of file 3");
+
+    assertThat(underTest.getSourceData(file1).get().getLines(0).getSource()).isEqualTo("line of file 1");
+    // file 2 is in the same batch as file 1
+    dbTester.executeUpdateSql("delete from file_sources");
+    assertThat(underTest.getSourceData(file2).get().getLines(0).getSource()).isEqualTo("line of file 2");
+    // file 3 starts a new batch
+    assertThat(underTest.getSourceData(file3).isPresent()).isFalse();
+  }
+
+  @Test
+  public void read_source_data_of_file_out_of_current_batch() {
+    treeRootHolder.setRoot(builder(Component.Type.PROJECT, 1).addChildren(file1, file2, file3).build());
+    insertSource(file1, "line of file 1");
+    insertSource(file3, "line of file 3");
+
+    assertThat(underTest.getSourceData(file3).get().getLines(0).getSource()).isEqualTo("line of file 3");
+    assertThat(underTest.getSourceData(file1).get().getLines(0).getSource()).isEqualTo("line of file 1");
+    assertThat(underTest.getSourceData(file2).isPresent()).isFalse();
+  }
+
+  @Test
+  public void no_source_data_when_source_is_not_reused() {
+    treeRootHolder.setRoot(builder(Component.Type.PROJECT, 1).addChildren(changedFile).build());
+    insertSource(changedFile, "line");
+
+    assertThat(underTest.getSourceData(changedFile).isPresent()).isFalse();
+  }
+
+  private static Component reusedFile(int ref) {
+    return builder(Component.Type.FILE, ref).setFileAttributes(new FileAttributes(false, null, 1, true)).build();
+  }
+
+  private void insertSource(Component file, String line) {
+    dbTester.getDbClient().fileSourceDao().insert(dbTester.getSession(), new FileSourceDto()
+      .setProjectUuid("PROJECT_UUID")
+      .setFileUuid(file.getUuid())
+      .setSourceData(DbFileSources.Data.newBuilder()
+        .addLines(DbFileSources.Line.newBuilder().setLine(1).setSource(line).build())
+        .build()));
+    dbTester.getSession().commit();
+  }
+}
@@ -19,15 +19,28 @@
  */
 package org.sonar.server.computation.task.projectanalysis.source;
 
+import com.google.common.base.Optional;
+import java.util.Arrays;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
+import org.sonar.api.utils.System2;
+import org.sonar.core.hash.SourceLinesHashesComputer;
 import org.sonar.core.util.CloseableIterator;
+import org.sonar.db.DbTester;
+import org.sonar.db.protobuf.DbFileSources;
+import org.sonar.db.source.FileSourceDto;
+import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReader;
 import org.sonar.server.computation.task.projectanalysis.batch.BatchReportReaderRule;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 import org.sonar.server.computation.task.projectanalysis.component.FileAttributes;
+import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 import static org.sonar.server.computation.task.projectanalysis.component.ReportComponent.builder;
 
 public class SourceLinesRepositoryImplTest {
@@ -42,7 +55,14 @@ public class SourceLinesRepositoryImplTest {
   @Rule
   public BatchReportReaderRule reportReader = new BatchReportReaderRule();
 
-  SourceLinesRepositoryImpl underTest = new SourceLinesRepositoryImpl(reportReader);
+  @Rule
+  public TreeRootHolderRule treeRootHolder = new TreeRootHolderRule();
+
+  @Rule
+  public DbTester dbTester = DbTester.create(System2.INSTANCE);
+
+  PreviousSourceRepository previousSourceRepository = new PreviousSourceRepositoryImpl(dbTester.getDbClient(), treeRootHolder);
+  SourceLinesRepositoryImpl underTest = new SourceLinesRepositoryImpl(previousSourceRepository, reportReader);
 
   @Test
   public void read_lines_from_report() throws Exception {
@@ -78,6 +98,110 @@ public class SourceLinesRepositoryImplTest {
     consume(underTest.readLines(createComponent(2)));
   }
 
+  @Test
+  public void source_is_read_from_report_only_once() {
+    BatchReportReader mockedReportReader = mockReportReader("line1", "line2");
+    SourceLinesRepositoryImpl underTest = new SourceLinesRepositoryImpl(previousSourceRepository, mockedReportReader);
+    Component file = createComponent(2);
+
+    assertThat(underTest.readLines(file)).containsExactly("line1", "line2");
+    assertThat(underTest.readLines(file)).containsExactly("line1", "line2");
+    assertThat(underTest.readLineHashes(file)).hasSize(2);
+
+    verify(mockedReportReader, times(1)).readFileSource(FILE_REF);
+  }
+
+  @Test
+  public void least_recently_used_source_is_evicted_when_cache_is_full() {
+    BatchReportReader mockedReportReader = mockReportReader("line1", "line2");
+    when(mockedReportReader.readFileSource(3))
+      .thenAnswer(invocation -> Optional.of(CloseableIterator.from(Arrays.asList("other1", "other2").iterator())));
+    long sizeOfOneSource = CompactSourceLines.of(Arrays.asList("line1", "line2").iterator()).getMemorySize();
+    SourceLinesRepositoryImpl underTest = new SourceLinesRepositoryImpl(previousSourceRepository, mockedReportReader, sizeOfOneSource + 10);
+    Component file = createComponent(2);
+    Component otherFile = builder(Component.Type.FILE, 3).setKey("OTHER_KEY").setFileAttributes(new FileAttributes(false, null, 2)).build();
+
+    assertThat(underTest.readLines(file)).containsExactly("line1", "line2");
+    assertThat(underTest.readLines(otherFile)).containsExactly("other1", "other2");
+    assertThat(underTest.readLines(otherFile)).containsExactly("other1", "other2");
+    assertThat(underTest.readLines(file)).containsExactly("line1", "line2");
+
+    verify(mockedReportReader, times(2)).readFileSource(FILE_REF);
+    verify(mockedReportReader, times(1)).readFileSource(3);
+    assertThat(underTest.getCacheSize()).isEqualTo(sizeOfOneSource);
+  }
+
+  @Test
+  public void source_larger_than_cache_is_not_cached() {
+    BatchReportReader mockedReportReader = mockReportReader("line1", "line2");
+    SourceLinesRepositoryImpl underTest = new SourceLinesRepositoryImpl(previousSourceRepository, mockedReportReader, 0);
+    Component file = createComponent(2);
+
+    assertThat(underTest.readLines(file)).containsExactly("line1", "line2");
+    assertThat(underTest.readLines(file)).containsExactly("line1", "line2");
+
+    verify(mockedReportReader, times(2)).readFileSource(FILE_REF);
+    assertThat(underTest.getCacheSize()).isZero();
+  }
+
+  @Test
+  public void read_line_hashes_of_lines_from_report() {
+    reportReader.putFileSourceLines(FILE_REF, "line1", " ", "li ne3");
+
+    SourceLinesHashesComputer computer = new SourceLinesHashesComputer();
+    Arrays.asList("line1", " ", "li ne3", "").forEach(computer::addLine);
+    assertThat(underTest.readLineHashes(createComponent(4))).isEqualTo(computer.getLineHashes());
+  }
+
+  @Test
+  public void cache_size_includes_line_hashes_once_computed() {
+    reportReader.putFileSourceLines(FILE_REF, "line1", "line2");
+    Component file = createComponent(2);
+
+    underTest.readLines(file);
+    long sizeWithoutHashes = underTest.getCacheSize();
+    underTest.readLineHashes(file);
+
+    assertThat(sizeWithoutHashes).isPositive();
+    assertThat(underTest.getCacheSize()).isGreaterThan(sizeWithoutHashes);
+  }
+
+  @Test
+  public void read_lines_of_previous_analysis_when_source_is_reused() throws Exception {
+    dbTester.getDbClient().fileSourceDao().insert(dbTester.getSession(), new FileSourceDto()
+      .setProjectUuid("PROJECT_UUID")
+      .setFileUuid(FILE_UUID)
+      .setSourceData(DbFileSources.Data.newBuilder()
+        .addLines(DbFileSources.Line.newBuilder().setLine(1).setSource("line1").build())
+        .addLines(DbFileSources.Line.newBuilder().setLine(2).setSource("line2").build())
+        .build()));
+    dbTester.getSession().commit();
+
+    Component file = builder(Component.Type.FILE, FILE_REF)
+      .setKey(FILE_KEY)
+      .setUuid(FILE_UUID)
+      .setFileAttributes(new FileAttributes(false, null, 2, true))
+      .build();
+    treeRootHolder.setRoot(builder(Component.Type.PROJECT, 1).addChildren(file).build());
+
+    assertThat(underTest.readLines(file)).containsOnly("line1", "line2");
+  }
+
+  @Test
+  public void fail_with_ISE_when_reused_source_is_not_in_db() throws Exception {
+    Component file = builder(Component.Type.FILE, FILE_REF)
+      .setKey(FILE_KEY)
+      .setUuid(FILE_UUID)
+      .setFileAttributes(new FileAttributes(false, null, 2, true))
+      .build();
+    treeRootHolder.setRoot(builder(Component.Type.PROJECT, 1).addChildren(file).build());
+
+    thrown.expect(IllegalStateException.class);
+    thrown.expectMessage("File 'ReportComponent{ref=2, key='FILE_KEY', type=FILE}' has no source code");
+
+    underTest.readLines(file);
+  }
+
   @Test
   public void fail_with_ISE_when_file_has_no_source() throws Exception {
     thrown.expect(IllegalStateException.class);
@@ -113,6 +237,13 @@ public class SourceLinesRepositoryImplTest {
       .build();
   }
 
+  private static BatchReportReader mockReportReader(String... lines) {
+    BatchReportReader mockedReportReader = mock(BatchReportReader.class);
+    when(mockedReportReader.readFileSource(FILE_REF))
+      .thenAnswer(invocation -> Optional.of(CloseableIterator.from(Arrays.asList(lines).iterator())));
+    return mockedReportReader;
+  }
+
   private static void consume(CloseableIterator<String> stringCloseableIterator) {
     try {
       while (stringCloseableIterator.hasNext()) {
@@ -23,7 +23,9 @@ import com.google.common.collect.ArrayListMultimap;
 import com.google.common.collect.Multimap;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.List;
 import org.junit.rules.ExternalResource;
+import org.sonar.core.hash.SourceLinesHashesComputer;
 import org.sonar.core.util.CloseableIterator;
 import org.sonar.server.computation.task.projectanalysis.component.Component;
 
@@ -51,6 +53,15 @@ public class SourceLinesRepositoryRule extends ExternalResource implements Sourc
     return CloseableIterator.from(componentLines.iterator());
   }
 
+  @Override
+  public List<String> readLineHashes(Component component) {
+    SourceLinesHashesComputer linesHashesComputer = new SourceLinesHashesComputer();
+    try (CloseableIterator<String> lineIterator = readLines(component)) {
+      lineIterator.forEachRemaining(linesHashesComputer::addLine);
+    }
+    return linesHashesComputer.getLineHashes();
+  }
+
   public SourceLinesRepositoryRule addLine(int componentRef, String line) {
     this.lines.put(componentRef, line);
     return this;
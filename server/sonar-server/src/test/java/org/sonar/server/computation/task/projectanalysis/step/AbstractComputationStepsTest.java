@@ -0,0 +1,112 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.step;
+
+import com.google.common.collect.Lists;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+import org.sonar.core.platform.ComponentContainer;
+import org.sonar.server.computation.task.container.TaskContainerImpl;
+import org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor;
+import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
+import org.sonar.server.computation.task.step.ComputationStep;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class AbstractComputationStepsTest {
+
+  private TreeRootHolderRule treeRootHolder = new TreeRootHolderRule();
+  private Step1 step1 = new Step1();
+  private VisitorsStep2 step2 = new VisitorsStep2();
+  private VisitorsStep3 step3 = new VisitorsStep3();
+  private Step4 step4 = new Step4();
+  private VisitorsStep5 step5 = new VisitorsStep5();
+
+  @Test
+  public void consecutive_visitors_steps_are_fused() {
+    List<ComputationStep> instances = Lists.newArrayList(stepsOf(Step1.class, VisitorsStep2.class, VisitorsStep3.class, Step4.class, VisitorsStep5.class).instances());
+
+    assertThat(instances).hasSize(4);
+    assertThat(instances.get(0)).isSameAs(step1);
+    assertThat(instances.get(1)).isInstanceOf(FusedVisitorsStep.class);
+    assertThat(((FusedVisitorsStep) instances.get(1)).getSteps()).containsExactly(step2, step3);
+    assertThat(instances.get(2)).isSameAs(step4);
+    assertThat(instances.get(3)).isSameAs(step5);
+  }
+
+  @Test
+  public void trailing_visitors_steps_are_fused() {
+    List<ComputationStep> instances = Lists.newArrayList(stepsOf(Step1.class, VisitorsStep2.class, VisitorsStep3.class).instances());
+
+    assertThat(instances).hasSize(2);
+    assertThat(instances.get(0)).isSameAs(step1);
+    assertThat(((FusedVisitorsStep) instances.get(1)).getSteps()).containsExactly(step2, step3);
+  }
+
+  private AbstractComputationSteps stepsOf(Class<? extends ComputationStep>... stepClasses) {
+    ComponentContainer componentContainer = new ComponentContainer();
+    componentContainer.add(treeRootHolder, step1, step2, step3, step4, step5);
+    TaskContainerImpl taskContainer = new TaskContainerImpl(componentContainer, container -> {
+      // do nothing
+    });
+    return new AbstractComputationSteps(taskContainer) {
+      @Override
+      public List<Class<? extends ComputationStep>> orderedStepClasses() {
+        return Arrays.asList(stepClasses);
+      }
+    };
+  }
+
+  private static class NoopStep implements ComputationStep {
+    @Override
+    public void execute() {
+      // nothing to do
+    }
+
+    @Override
+    public String getDescription() {
+      return getClass().getSimpleName();
+    }
+  }
+
+  private static class NoopVisitorsStep extends NoopStep implements VisitorsComputationStep {
+    @Override
+    public List<ComponentVisitor> createVisitors() {
+      return Collections.emptyList();
+    }
+  }
+
+  private static class Step1 extends NoopStep {
+  }
+
+  private static class VisitorsStep2 extends NoopVisitorsStep {
+  }
+
+  private static class VisitorsStep3 extends NoopVisitorsStep {
+  }
+
+  private static class Step4 extends NoopStep {
+  }
+
+  private static class VisitorsStep5 extends NoopVisitorsStep {
+  }
+}
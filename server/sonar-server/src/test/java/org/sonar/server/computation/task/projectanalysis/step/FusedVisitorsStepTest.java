@@ -0,0 +1,117 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.task.projectanalysis.step;
+
+import com.google.common.collect.ImmutableList;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.server.computation.task.projectanalysis.component.Component;
+import org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor;
+import org.sonar.server.computation.task.projectanalysis.component.CrawlerDepthLimit;
+import org.sonar.server.computation.task.projectanalysis.component.TreeRootHolderRule;
+import org.sonar.server.computation.task.projectanalysis.component.TypeAwareVisitorAdapter;
+
+import static java.util.Arrays.asList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.FILE;
+import static org.sonar.server.computation.task.projectanalysis.component.Component.Type.PROJECT;
+import static org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor.Order.POST_ORDER;
+import static org.sonar.server.computation.task.projectanalysis.component.ComponentVisitor.Order.PRE_ORDER;
+import static org.sonar.server.computation.task.projectanalysis.component.ReportComponent.builder;
+
+public class FusedVisitorsStepTest {
+
+  @Rule
+  public TreeRootHolderRule treeRootHolder = new TreeRootHolderRule()
+    .setRoot(
+      builder(PROJECT, 1).setKey("PROJECT")
+        .addChildren(
+          builder(FILE, 2).setKey("FILE_1").build(),
+          builder(FILE, 3).setKey("FILE_2").build())
+        .build());
+
+  private List<String> events = new ArrayList<>();
+
+  @Test
+  public void visitors_of_all_steps_are_executed_in_a_single_traversal_preserving_steps_order() {
+    FusedVisitorsStep underTest = new FusedVisitorsStep(treeRootHolder, asList(new RecordingStep("A", events), new RecordingStep("B", events)));
+
+    underTest.execute();
+
+    assertThat(events).containsExactly(
+      "A pre PROJECT", "B pre PROJECT",
+      "A pre FILE_1", "B pre FILE_1", "A post FILE_1", "B post FILE_1",
+      "A pre FILE_2", "B pre FILE_2", "A post FILE_2", "B post FILE_2",
+      "A post PROJECT", "B post PROJECT");
+  }
+
+  @Test
+  public void visitors_are_created_at_each_execution() {
+    FusedVisitorsStep underTest = new FusedVisitorsStep(treeRootHolder, asList(new RecordingStep("A", events), new RecordingStep("B", events)));
+
+    underTest.execute();
+    underTest.execute();
+
+    assertThat(events).hasSize(24);
+  }
+
+  @Test
+  public void description_lists_descriptions_of_fused_steps() {
+    FusedVisitorsStep underTest = new FusedVisitorsStep(treeRootHolder, asList(new RecordingStep("A", events), new RecordingStep("B", events)));
+
+    assertThat(underTest.getDescription()).isEqualTo("Execute in a single pass: Step A, Step B");
+  }
+
+  private static class RecordingStep implements VisitorsComputationStep {
+    private final String name;
+    private final List<String> events;
+
+    private RecordingStep(String name, List<String> events) {
+      this.name = name;
+      this.events = events;
+    }
+
+    @Override
+    public List<ComponentVisitor> createVisitors() {
+      return ImmutableList.of(recordingVisitor(PRE_ORDER, "pre"), recordingVisitor(POST_ORDER, "post"));
+    }
+
+    private ComponentVisitor recordingVisitor(ComponentVisitor.Order order, String label) {
+      return new TypeAwareVisitorAdapter(CrawlerDepthLimit.FILE, order) {
+        @Override
+        public void visitAny(Component component) {
+          events.add(name + " " + label + " " + component.getKey());
+        }
+      };
+    }
+
+    @Override
+    public void execute() {
+      throw new UnsupportedOperationException("visitors must be executed by FusedVisitorsStep");
+    }
+
+    @Override
+    public String getDescription() {
+      return "Step " + name;
+    }
+  }
+}
@@ -46,6 +46,7 @@ import org.sonar.server.computation.task.projectanalysis.duplication.InnerDuplic
 import org.sonar.server.computation.task.projectanalysis.duplication.TextBlock;
 import org.sonar.server.computation.task.projectanalysis.scm.Changeset;
 import org.sonar.server.computation.task.projectanalysis.scm.ScmInfoRepositoryRule;
+import org.sonar.server.computation.task.projectanalysis.source.PreviousSourceRepositoryImpl;
 import org.sonar.server.computation.task.projectanalysis.source.SourceLinesRepositoryRule;
 import org.sonar.server.computation.task.step.ComputationStep;
 
@@ -88,7 +89,8 @@ public class PersistFileSourcesStepTest extends BaseStepTest {
   @Before
   public void setup() {
     when(system2.now()).thenReturn(NOW);
-    underTest = new PersistFileSourcesStep(dbClient, system2, treeRootHolder, reportReader, fileSourceRepository, scmInfoRepository, duplicationRepository);
+    underTest = new PersistFileSourcesStep(dbClient, system2, treeRootHolder, reportReader, fileSourceRepository, scmInfoRepository, duplicationRepository,
+      new PreviousSourceRepositoryImpl(dbClient, treeRootHolder));
   }
 
   @Override
@@ -313,6 +315,42 @@ public class PersistFileSourcesStepTest extends BaseStepTest {
     assertThat(fileSourceDto.getUpdatedAt()).isEqualTo(past);
   }
 
+  @Test
+  public void reuse_source_highlighting_and_symbols_of_previous_analysis() {
+    dbClient.fileSourceDao().insert(dbTester.getSession(), new FileSourceDto()
+      .setProjectUuid(PROJECT_UUID)
+      .setFileUuid(FILE_UUID)
+      .setSourceData(DbFileSources.Data.newBuilder()
+        .addLines(DbFileSources.Line.newBuilder().setLine(1).setSource("line1").setHighlighting("2,4,a").setSymbols("2,4,1").build())
+        .addLines(DbFileSources.Line.newBuilder().setLine(2).setSource("line2").setLineHits(3).build())
+        .build())
+      .setCreatedAt(150000L)
+      .setUpdatedAt(150000L));
+    dbTester.getSession().commit();
+    // source, highlighting and symbols are not in the report
+    treeRootHolder.setRoot(ReportComponent.builder(Component.Type.PROJECT, 1).setUuid(PROJECT_UUID).setKey(PROJECT_KEY).addChildren(
+      ReportComponent.builder(Component.Type.FILE, FILE_REF).setUuid(FILE_UUID).setKey("PROJECT_KEY:src/Foo.java")
+        .setFileAttributes(new FileAttributes(false, null, 2, true)).build())
+      .build());
+    reportReader.putCoverage(FILE_REF, newArrayList(ScannerReport.LineCoverage.newBuilder()
+      .setLine(1)
+      .setHits(true)
+      .build()));
+
+    underTest.execute();
+
+    FileSourceDto fileSourceDto = dbClient.fileSourceDao().selectSourceByFileUuid(session, FILE_UUID);
+    assertThat(fileSourceDto.getSrcHash()).isEqualTo("ee5a58024a155466b43bc559d953e018");
+    DbFileSources.Data data = fileSourceDto.getSourceData();
+    assertThat(data.getLinesList()).extracting(DbFileSources.Line::getSource).containsExactly("line1", "line2");
+    assertThat(data.getLines(0).getHighlighting()).isEqualTo("2,4,a");
+    assertThat(data.getLines(0).getSymbols()).isEqualTo("2,4,1");
+    // coverage is not reused
+    assertThat(data.getLines(0).getLineHits()).isEqualTo(1);
+    assertThat(data.getLines(1).hasLineHits()).isFalse();
+    assertThat(fileSourceDto.getUpdatedAt()).isEqualTo(NOW);
+  }
+
   @Test
   public void update_sources_when_source_updated() {
     // Existing sources
@@ -38,6 +38,7 @@ public class StepsExplorer {
 
     return from(reflections.getSubTypesOf(ComputationStep.class))
         .filter(NotAbstractClass.INSTANCE)
+        .filter(NotMemberClass.INSTANCE)
         .transform(ClassToCanonicalName.INSTANCE)
         // anonymous classes do not have canonical names
         .filter(notNull())
@@ -53,6 +54,18 @@ public class StepsExplorer {
     }
   }
 
+  /**
+   * Steps are top-level classes. Member classes are fixtures declared by tests.
+   */
+  private enum NotMemberClass implements Predicate<Class<? extends ComputationStep>> {
+    INSTANCE;
+
+    @Override
+    public boolean apply(Class<? extends ComputationStep> input) {
+      return !input.isMemberClass();
+    }
+  }
+
   public static Function<Class<?>, String> toCanonicalName() {
     return ClassToCanonicalName.INSTANCE;
   }
@@ -42,16 +42,19 @@ import javax.annotation.Nullable;
 import javax.annotation.concurrent.Immutable;
 import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.ExpectedException;
 import org.junit.rules.Timeout;
 import org.sonar.server.computation.configuration.CeConfigurationRule;
 
-import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 public class CeProcessingSchedulerImplTest {
@@ -62,10 +65,12 @@ public class CeProcessingSchedulerImplTest {
   public Timeout timeout = Timeout.seconds(60);
   @Rule
   public CeConfigurationRule ceConfiguration = new CeConfigurationRule();
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
 
   private CeWorkerCallable ceWorkerRunnable = mock(CeWorkerCallable.class);
   private StubCeProcessingSchedulerExecutorService processingExecutorService = new StubCeProcessingSchedulerExecutorService();
-  private SchedulerCall regularDelayedPoll = new SchedulerCall(ceWorkerRunnable, 2000L, TimeUnit.MILLISECONDS);
+  private SchedulerCall regularDelayedPoll = new SchedulerCall(ceWorkerRunnable, ceConfiguration.getQueuePollingDelay(), TimeUnit.MILLISECONDS);
   private SchedulerCall notDelayedPoll = new SchedulerCall(ceWorkerRunnable);
 
   private CeProcessingSchedulerImpl underTest = new CeProcessingSchedulerImpl(ceConfiguration, processingExecutorService, ceWorkerRunnable);
@@ -79,7 +84,7 @@ public class CeProcessingSchedulerImplTest {
     startSchedulingAndRun();
 
     assertThat(processingExecutorService.getSchedulerCalls()).containsOnly(
-      regularDelayedPoll,
+      notDelayedPoll,
       notDelayedPoll
       );
   }
@@ -93,7 +98,7 @@ public class CeProcessingSchedulerImplTest {
     startSchedulingAndRun();
 
     assertThat(processingExecutorService.getSchedulerCalls()).containsExactly(
-      regularDelayedPoll,
+      notDelayedPoll,
       notDelayedPoll
       );
   }
@@ -107,13 +112,13 @@ public class CeProcessingSchedulerImplTest {
     startSchedulingAndRun();
 
     assertThat(processingExecutorService.getSchedulerCalls()).containsExactly(
-      regularDelayedPoll,
+      notDelayedPoll,
       regularDelayedPoll
       );
   }
 
   @Test
-  public void startScheduling_schedules_CeWorkerCallable_at_fixed_rate_run_head_of_queue() throws Exception {
+  public void startScheduling_polls_without_delay_then_schedules_CeWorkerCallable_at_fixed_rate_run_head_of_queue() throws Exception {
     when(ceWorkerRunnable.call())
       .thenReturn(true)
       .thenReturn(true)
@@ -129,7 +134,7 @@ public class CeProcessingSchedulerImplTest {
     startSchedulingAndRun();
 
     assertThat(processingExecutorService.getSchedulerCalls()).containsExactly(
-      regularDelayedPoll,
+      notDelayedPoll,
       notDelayedPoll,
       notDelayedPoll,
       regularDelayedPoll,
@@ -174,8 +179,50 @@ public class CeProcessingSchedulerImplTest {
 
     assertThat(cancelledTaskFutureCount).isEqualTo(1);
     assertThat(processingExecutorService.getSchedulerCalls()).containsExactly(
+      notDelayedPoll,
       regularDelayedPoll,
+      notDelayedPoll,
       regularDelayedPoll,
+      regularDelayedPoll
+      );
+  }
+
+  @Test
+  public void wakeUp_polls_immediately_when_worker_is_waiting_for_next_polling() throws Exception {
+    when(ceWorkerRunnable.call())
+      .thenReturn(false)
+      .thenReturn(true)
+      .thenThrow(ERROR_TO_INTERRUPT_CHAINING);
+
+    underTest.startScheduling();
+    assertThat(underTest.wakeUp()).isTrue();
+    processingExecutorService.runFutures();
+
+    assertThat(processingExecutorService.getSchedulerCalls()).containsExactly(
+      notDelayedPoll,
+      regularDelayedPoll,
+      notDelayedPoll,
+      notDelayedPoll
+      );
+  }
+
+  @Test
+  public void wakeUp_does_nothing_if_scheduling_is_not_started() {
+    assertThat(underTest.wakeUp()).isFalse();
+
+    assertThat(processingExecutorService.getSchedulerCalls()).isEmpty();
+  }
+
+  @Test
+  public void wakeUp_does_nothing_after_stop() throws Exception {
+    when(ceWorkerRunnable.call()).thenReturn(false);
+
+    underTest.startScheduling();
+    underTest.stop();
+    assertThat(underTest.wakeUp()).isFalse();
+    processingExecutorService.runFutures();
+
+    assertThat(processingExecutorService.getSchedulerCalls()).containsExactly(
       notDelayedPoll,
       regularDelayedPoll
       );
@@ -187,16 +234,92 @@ public class CeProcessingSchedulerImplTest {
 
     ceConfiguration.setWorkerCount(workerCount);
 
-    ListenableScheduledFuture listenableScheduledFuture = mock(ListenableScheduledFuture.class);
+    ListenableFuture listenableFuture = mock(ListenableFuture.class);
+    CeProcessingSchedulerExecutorService processingExecutorService = mock(CeProcessingSchedulerExecutorService.class);
+    CeProcessingSchedulerImpl underTest = new CeProcessingSchedulerImpl(ceConfiguration, processingExecutorService, ceWorkerRunnable);
+    when(processingExecutorService.submit(ceWorkerRunnable))
+        .thenReturn(listenableFuture);
+
+    underTest.startScheduling();
+
+    verify(processingExecutorService, times(workerCount)).submit(ceWorkerRunnable);
+    verify(listenableFuture, times(workerCount)).addListener(any(Runnable.class), eq(processingExecutorService));
+  }
+
+  @Test
+  public void getWorkerCount_returns_the_configured_count_at_startup() {
+    ceConfiguration.setWorkerCount(4);
+
+    CeProcessingSchedulerImpl underTest = new CeProcessingSchedulerImpl(ceConfiguration, processingExecutorService, ceWorkerRunnable);
+
+    assertThat(underTest.getWorkerCount()).isEqualTo(4);
+  }
+
+  @Test
+  public void setWorkerCount_submits_added_workers_if_scheduling_is_started() {
+    ListenableFuture listenableFuture = mock(ListenableFuture.class);
     CeProcessingSchedulerExecutorService processingExecutorService = mock(CeProcessingSchedulerExecutorService.class);
+    when(processingExecutorService.submit(ceWorkerRunnable)).thenReturn(listenableFuture);
     CeProcessingSchedulerImpl underTest = new CeProcessingSchedulerImpl(ceConfiguration, processingExecutorService, ceWorkerRunnable);
-    when(processingExecutorService.schedule(ceWorkerRunnable, ceConfiguration.getQueuePollingDelay(), MILLISECONDS))
-        .thenReturn(listenableScheduledFuture);
+    underTest.startScheduling();
+
+    underTest.setWorkerCount(3);
+
+    assertThat(underTest.getWorkerCount()).isEqualTo(3);
+    verify(processingExecutorService).setThreadCount(3);
+    verify(processingExecutorService, times(3)).submit(ceWorkerRunnable);
+  }
+
+  @Test
+  public void setWorkerCount_does_not_submit_added_workers_if_scheduling_is_not_started() {
+    ListenableFuture listenableFuture = mock(ListenableFuture.class);
+    CeProcessingSchedulerExecutorService processingExecutorService = mock(CeProcessingSchedulerExecutorService.class);
+    when(processingExecutorService.submit(ceWorkerRunnable)).thenReturn(listenableFuture);
+    CeProcessingSchedulerImpl underTest = new CeProcessingSchedulerImpl(ceConfiguration, processingExecutorService, ceWorkerRunnable);
+
+    underTest.setWorkerCount(3);
+    verify(processingExecutorService, never()).submit(ceWorkerRunnable);
 
+    underTest.startScheduling();
+    verify(processingExecutorService, times(3)).submit(ceWorkerRunnable);
+  }
+
+  @Test
+  public void setWorkerCount_stops_removed_workers_without_interrupting_them() {
+    ceConfiguration.setWorkerCount(3);
+    ListenableFuture future1 = mock(ListenableFuture.class);
+    ListenableFuture future2 = mock(ListenableFuture.class);
+    ListenableFuture future3 = mock(ListenableFuture.class);
+    CeProcessingSchedulerExecutorService processingExecutorService = mock(CeProcessingSchedulerExecutorService.class);
+    when(processingExecutorService.submit(ceWorkerRunnable)).thenReturn(future1, future2, future3);
+    CeProcessingSchedulerImpl underTest = new CeProcessingSchedulerImpl(ceConfiguration, processingExecutorService, ceWorkerRunnable);
     underTest.startScheduling();
 
-    verify(processingExecutorService, times(workerCount)).schedule(ceWorkerRunnable, ceConfiguration.getQueuePollingDelay(), MILLISECONDS);
-    verify(listenableScheduledFuture, times(workerCount)).addListener(any(Runnable.class), eq(processingExecutorService));
+    underTest.setWorkerCount(1);
+
+    assertThat(underTest.getWorkerCount()).isEqualTo(1);
+    verify(processingExecutorService).setThreadCount(1);
+    verify(future1, never()).cancel(anyBoolean());
+    verify(future2).cancel(false);
+    verify(future3).cancel(false);
+  }
+
+  @Test
+  public void setWorkerCount_does_nothing_if_count_is_unchanged() {
+    CeProcessingSchedulerExecutorService processingExecutorService = mock(CeProcessingSchedulerExecutorService.class);
+    CeProcessingSchedulerImpl underTest = new CeProcessingSchedulerImpl(ceConfiguration, processingExecutorService, ceWorkerRunnable);
+
+    underTest.setWorkerCount(1);
+
+    verifyZeroInteractions(processingExecutorService);
+  }
+
+  @Test
+  public void setWorkerCount_fails_if_count_is_less_than_1() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Worker count must be strictly greater than 0: 0");
+
+    underTest.setWorkerCount(0);
   }
 
   private void startSchedulingAndRun() throws ExecutionException, InterruptedException {
@@ -249,6 +372,11 @@ public class CeProcessingSchedulerImplTest {
       throw new UnsupportedOperationException("stop() not implemented");
     }
 
+    @Override
+    public void setThreadCount(int threadCount) {
+      // futures are executed synchronously, threads don't matter
+    }
+
     // ////////////// delegated methods ////////////////
 
     @Override
@@ -0,0 +1,176 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.computation.taskprocessor;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.api.config.MapSettings;
+import org.sonar.api.config.Settings;
+import org.sonar.api.utils.MessageException;
+import org.sonar.ce.monitoring.CEQueueStatus;
+
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.sonar.server.computation.taskprocessor.CeWorkerCountAutoScaler.AUTO_SCALING_PROPERTY;
+import static org.sonar.server.computation.taskprocessor.CeWorkerCountAutoScaler.MAX_WORKER_COUNT_PROPERTY;
+import static org.sonar.server.computation.taskprocessor.CeWorkerCountAutoScaler.MIN_WORKER_COUNT_PROPERTY;
+
+public class CeWorkerCountAutoScalerTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private Settings settings = new MapSettings()
+    .setProperty(AUTO_SCALING_PROPERTY, true)
+    .setProperty(MIN_WORKER_COUNT_PROPERTY, 1)
+    .setProperty(MAX_WORKER_COUNT_PROPERTY, 4);
+  private CeProcessingScheduler scheduler = mock(CeProcessingScheduler.class);
+  private CEQueueStatus queueStatus = mock(CEQueueStatus.class);
+
+  @Test
+  public void add_a_worker_when_all_workers_are_busy_and_tasks_are_pending() {
+    CeWorkerCountAutoScaler underTest = newAutoScaler(0.5);
+    mockQueue(2, 2, 3);
+
+    underTest.adjust();
+
+    verify(scheduler).setWorkerCount(3);
+  }
+
+  @Test
+  public void do_not_add_a_worker_when_host_is_overloaded() {
+    CeWorkerCountAutoScaler underTest = newAutoScaler(1.5);
+    mockQueue(1, 1, 3);
+
+    underTest.adjust();
+
+    verify(scheduler, never()).setWorkerCount(anyInt());
+  }
+
+  @Test
+  public void do_not_add_a_worker_when_some_workers_are_idle() {
+    // pending tasks are related to the component of the task in progress
+    CeWorkerCountAutoScaler underTest = newAutoScaler(0.5);
+    mockQueue(2, 1, 3);
+
+    underTest.adjust();
+
+    verify(scheduler, never()).setWorkerCount(anyInt());
+  }
+
+  @Test
+  public void do_not_exceed_max_worker_count() {
+    CeWorkerCountAutoScaler underTest = newAutoScaler(0.5);
+    mockQueue(4, 4, 10);
+
+    underTest.adjust();
+
+    verify(scheduler, never()).setWorkerCount(anyInt());
+  }
+
+  @Test
+  public void remove_a_worker_when_some_workers_are_idle_and_no_tasks_are_pending() {
+    CeWorkerCountAutoScaler underTest = newAutoScaler(0.5);
+    mockQueue(3, 1, 0);
+
+    underTest.adjust();
+
+    verify(scheduler).setWorkerCount(2);
+  }
+
+  @Test
+  public void remove_a_worker_when_host_is_overloaded() {
+    CeWorkerCountAutoScaler underTest = newAutoScaler(2.0);
+    mockQueue(3, 3, 0);
+
+    underTest.adjust();
+
+    verify(scheduler).setWorkerCount(2);
+  }
+
+  @Test
+  public void do_not_go_below_min_worker_count() {
+    CeWorkerCountAutoScaler underTest = newAutoScaler(2.0);
+    mockQueue(1, 0, 0);
+
+    underTest.adjust();
+
+    verify(scheduler, never()).setWorkerCount(anyInt());
+  }
+
+  @Test
+  public void ignore_load_when_not_available_on_platform() {
+    CeWorkerCountAutoScaler underTest = newAutoScaler(-1);
+    mockQueue(2, 2, 3);
+
+    underTest.adjust();
+
+    verify(scheduler).setWorkerCount(3);
+  }
+
+  @Test
+  public void start_and_stop_do_nothing_when_auto_scaling_is_disabled() {
+    settings.setProperty(AUTO_SCALING_PROPERTY, false);
+    CeWorkerCountAutoScaler underTest = new CeWorkerCountAutoScaler(settings, scheduler, queueStatus);
+
+    underTest.start();
+    underTest.stop();
+
+    verify(scheduler, never()).setWorkerCount(anyInt());
+  }
+
+  @Test
+  public void fail_if_min_is_greater_than_max() {
+    settings.setProperty(MIN_WORKER_COUNT_PROPERTY, 5);
+
+    expectedException.expect(MessageException.class);
+    expectedException.expectMessage("values 5 of property sonar.ce.workerCount.min and 4 of property sonar.ce.workerCount.max are invalid");
+
+    new CeWorkerCountAutoScaler(settings, scheduler, queueStatus);
+  }
+
+  @Test
+  public void fail_if_min_is_less_than_1() {
+    settings.setProperty(MIN_WORKER_COUNT_PROPERTY, 0);
+
+    expectedException.expect(MessageException.class);
+    expectedException.expectMessage("Minimum must be strictly greater than 0 and lower or equal to maximum");
+
+    new CeWorkerCountAutoScaler(settings, scheduler, queueStatus);
+  }
+
+  private CeWorkerCountAutoScaler newAutoScaler(double loadAveragePerProcessor) {
+    CeWorkerCountAutoScaler underTest = spy(new CeWorkerCountAutoScaler(settings, scheduler, queueStatus));
+    doReturn(loadAveragePerProcessor).when(underTest).loadAveragePerProcessor();
+    return underTest;
+  }
+
+  private void mockQueue(int workerCount, long inProgressCount, long pendingCount) {
+    when(scheduler.getWorkerCount()).thenReturn(workerCount);
+    when(queueStatus.getInProgressCount()).thenReturn(inProgressCount);
+    when(queueStatus.getPendingCount()).thenReturn(pendingCount);
+  }
+}
@@ -31,6 +31,7 @@ import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.mockito.ArgumentCaptor;
 import org.sonar.api.config.MapSettings;
+import org.sonar.api.notifications.Notification;
 import org.sonar.api.rules.RuleType;
 import org.sonar.api.server.ws.WebService;
 import org.sonar.api.utils.System2;
@@ -52,7 +53,6 @@ import org.sonar.server.issue.TransitionService;
 import org.sonar.server.issue.index.IssueIndexDefinition;
 import org.sonar.server.issue.index.IssueIndexer;
 import org.sonar.server.issue.index.IssueIteratorFactory;
-import org.sonar.server.issue.notification.IssueChangeNotification;
 import org.sonar.server.issue.workflow.FunctionExecutor;
 import org.sonar.server.issue.workflow.IssueWorkflow;
 import org.sonar.server.notification.NotificationManager;
@@ -243,7 +243,7 @@ public class BulkChangeActionTest {
   public void send_notification() throws Exception {
     setUserProjectPermissions(USER);
     IssueDto issueDto = db.issues().insertIssue(newUnresolvedIssue().setType(BUG));
-    ArgumentCaptor<IssueChangeNotification> issueChangeNotificationCaptor = ArgumentCaptor.forClass(IssueChangeNotification.class);
+    ArgumentCaptor<List<Notification>> notificationsCaptor = ArgumentCaptor.forClass((Class) List.class);
 
     BulkChangeWsResponse response = call(BulkChangeRequest.builder()
       .setIssues(singletonList(issueDto.getKey()))
@@ -252,13 +252,15 @@ public class BulkChangeActionTest {
       .build());
 
     checkResponse(response, 1, 1, 0, 0);
-    verify(notificationManager).scheduleForSending(issueChangeNotificationCaptor.capture());
-    assertThat(issueChangeNotificationCaptor.getValue().getFieldValue("key")).isEqualTo(issueDto.getKey());
-    assertThat(issueChangeNotificationCaptor.getValue().getFieldValue("componentName")).isEqualTo(file.longName());
-    assertThat(issueChangeNotificationCaptor.getValue().getFieldValue("projectName")).isEqualTo(project.longName());
-    assertThat(issueChangeNotificationCaptor.getValue().getFieldValue("projectKey")).isEqualTo(project.key());
-    assertThat(issueChangeNotificationCaptor.getValue().getFieldValue("ruleName")).isEqualTo(rule.getName());
-    assertThat(issueChangeNotificationCaptor.getValue().getFieldValue("changeAuthor")).isEqualTo(user.getLogin());
+    verify(notificationManager).scheduleForSending(notificationsCaptor.capture());
+    assertThat(notificationsCaptor.getValue()).hasSize(1);
+    Notification notification = notificationsCaptor.getValue().get(0);
+    assertThat(notification.getFieldValue("key")).isEqualTo(issueDto.getKey());
+    assertThat(notification.getFieldValue("componentName")).isEqualTo(file.longName());
+    assertThat(notification.getFieldValue("projectName")).isEqualTo(project.longName());
+    assertThat(notification.getFieldValue("projectKey")).isEqualTo(project.key());
+    assertThat(notification.getFieldValue("ruleName")).isEqualTo(rule.getName());
+    assertThat(notification.getFieldValue("changeAuthor")).isEqualTo(user.getLogin());
   }
 
   @Test
@@ -267,7 +269,7 @@ public class BulkChangeActionTest {
     IssueDto issue1 = db.issues().insertIssue(newUnresolvedIssue().setType(BUG));
     IssueDto issue2 = db.issues().insertIssue(newUnresolvedIssue().setType(BUG));
     IssueDto issue3 = db.issues().insertIssue(newUnresolvedIssue().setType(VULNERABILITY));
-    ArgumentCaptor<IssueChangeNotification> issueChangeNotificationCaptor = ArgumentCaptor.forClass(IssueChangeNotification.class);
+    ArgumentCaptor<List<Notification>> notificationsCaptor = ArgumentCaptor.forClass((Class) List.class);
 
     BulkChangeWsResponse response = call(BulkChangeRequest.builder()
       .setIssues(asList(issue1.getKey(), issue2.getKey(), issue3.getKey()))
@@ -276,9 +278,9 @@ public class BulkChangeActionTest {
       .build());
 
     checkResponse(response, 3, 1, 2, 0);
-    verify(notificationManager).scheduleForSending(issueChangeNotificationCaptor.capture());
-    assertThat(issueChangeNotificationCaptor.getAllValues()).hasSize(1);
-    assertThat(issueChangeNotificationCaptor.getValue().getFieldValue("key")).isEqualTo(issue3.getKey());
+    verify(notificationManager).scheduleForSending(notificationsCaptor.capture());
+    assertThat(notificationsCaptor.getValue()).hasSize(1);
+    assertThat(notificationsCaptor.getValue().get(0).getFieldValue("key")).isEqualTo(issue3.getKey());
   }
 
   @Test
@@ -0,0 +1,83 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.issue.ws;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.fail;
+
+public class SearchResponseLoaderExecutorServiceTest {
+
+  private static final int MAX_THREADS = 8;
+  private static final int QUEUE_SIZE = 32;
+
+  private SearchResponseLoaderExecutorService underTest = new SearchResponseLoaderExecutorService();
+
+  @After
+  public void tearDown() {
+    underTest.stop();
+  }
+
+  @Test
+  public void tasks_are_executed_by_threads_of_pool() throws Exception {
+    Future<String> threadName = underTest.submit(() -> Thread.currentThread().getName());
+
+    assertThat(threadName.get()).startsWith("IssueSearchLoader-");
+  }
+
+  @Test
+  public void failure_of_task_is_propagated_to_future() throws Exception {
+    Future<String> future = underTest.submit(() -> {
+      throw new IllegalStateException("BOOM");
+    });
+
+    try {
+      future.get();
+      fail("An ExecutionException should have been raised");
+    } catch (ExecutionException e) {
+      assertThat(e.getCause()).isInstanceOf(IllegalStateException.class).hasMessage("BOOM");
+    }
+  }
+
+  @Test
+  public void tasks_are_executed_by_calling_thread_when_pool_is_saturated() throws Exception {
+    CountDownLatch blocker = new CountDownLatch(1);
+    try {
+      for (int i = 0; i < MAX_THREADS + QUEUE_SIZE; i++) {
+        underTest.submit(() -> {
+          blocker.await();
+          return null;
+        });
+      }
+
+      Future<String> threadName = underTest.submit(() -> Thread.currentThread().getName());
+
+      assertThat(threadName.isDone()).isTrue();
+      assertThat(threadName.get()).isEqualTo(Thread.currentThread().getName());
+    } finally {
+      blocker.countDown();
+    }
+  }
+}
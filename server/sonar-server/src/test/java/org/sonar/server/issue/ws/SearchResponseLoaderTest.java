@@ -0,0 +1,124 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.issue.ws;
+
+import java.util.EnumSet;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonar.api.utils.System2;
+import org.sonar.db.DbClient;
+import org.sonar.db.DbTester;
+import org.sonar.db.component.ComponentDto;
+import org.sonar.db.issue.IssueChangeDto;
+import org.sonar.db.issue.IssueDto;
+import org.sonar.db.organization.OrganizationDto;
+import org.sonar.db.rule.RuleDao;
+import org.sonar.db.rule.RuleDefinitionDto;
+import org.sonar.db.user.UserDto;
+import org.sonar.server.issue.ActionFinder;
+import org.sonar.server.issue.TransitionService;
+import org.sonar.server.tester.UserSessionRule;
+
+import static java.util.Collections.singletonList;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.when;
+import static org.sonar.server.issue.ws.SearchAdditionalField.COMMENTS;
+import static org.sonar.server.issue.ws.SearchAdditionalField.RULES;
+import static org.sonar.server.issue.ws.SearchAdditionalField.USERS;
+
+public class SearchResponseLoaderTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+  @Rule
+  public DbTester db = DbTester.create(System2.INSTANCE);
+  @Rule
+  public UserSessionRule userSession = UserSessionRule.standalone();
+
+  private SearchResponseLoaderExecutorService executorService = new SearchResponseLoaderExecutorService();
+
+  @After
+  public void tearDown() {
+    executorService.stop();
+  }
+
+  @Test
+  public void load_rules_comments_users_components_and_organizations_of_issues() {
+    OrganizationDto organization = db.organizations().insert();
+    UserDto assignee = db.users().insertUser("assignee");
+    UserDto commenter = db.users().insertUser("commenter");
+    IssueDto issue = db.issues().insertIssue(organization, i -> i.setAssignee(assignee.getLogin()));
+    IssueChangeDto comment = db.issues().insertComment(issue, commenter.getLogin(), "the comment");
+    userSession.logIn(commenter);
+
+    SearchResponseData data = newLoader(db.getDbClient()).load(newCollector(issue), null);
+
+    assertThat(data.getIssues()).extracting(IssueDto::getKey).containsExactly(issue.getKey());
+    assertThat(data.getRules()).extracting(RuleDefinitionDto::getKey).containsExactly(issue.getRuleKey());
+    assertThat(data.getUsers()).extracting(UserDto::getLogin).containsOnly(assignee.getLogin(), commenter.getLogin());
+    assertThat(data.getCommentsForIssueKey(issue.getKey())).extracting(IssueChangeDto::getKey).containsExactly(comment.getKey());
+    assertThat(data.isUpdatableComment(comment.getKey())).isTrue();
+    assertThat(data.getComponents()).extracting(ComponentDto::uuid).containsOnly(issue.getComponentUuid(), issue.getProjectUuid());
+    assertThat(data.getOrganizationKey(organization.getUuid())).isEqualTo(organization.getKey());
+  }
+
+  @Test
+  public void do_not_load_rules_users_and_comments_if_not_requested() {
+    IssueDto issue = db.issues().insertIssue(i -> i.setAssignee("assignee"));
+    db.issues().insertComment(issue, "commenter", "the comment");
+
+    SearchResponseLoader.Collector collector = new SearchResponseLoader.Collector(EnumSet.noneOf(SearchAdditionalField.class),
+      singletonList(issue.getKey()));
+    SearchResponseData data = newLoader(db.getDbClient()).load(collector, null);
+
+    assertThat(data.getRules()).isNull();
+    assertThat(data.getUsers()).isNull();
+    assertThat(data.getCommentsForIssueKey(issue.getKey())).isNull();
+    assertThat(data.getComponents()).extracting(ComponentDto::uuid).containsOnly(issue.getComponentUuid(), issue.getProjectUuid());
+  }
+
+  @Test
+  public void fail_if_a_load_fails() {
+    IssueDto issue = db.issues().insertIssue();
+    DbClient dbClient = spy(db.getDbClient());
+    RuleDao ruleDao = mock(RuleDao.class);
+    when(ruleDao.selectDefinitionByKeys(any(), any())).thenThrow(new IllegalStateException("Fail to load rules"));
+    doReturn(ruleDao).when(dbClient).ruleDao();
+
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("Fail to load rules");
+
+    newLoader(dbClient).load(newCollector(issue), null);
+  }
+
+  private SearchResponseLoader newLoader(DbClient dbClient) {
+    return new SearchResponseLoader(userSession, dbClient, mock(ActionFinder.class), mock(TransitionService.class), executorService);
+  }
+
+  private static SearchResponseLoader.Collector newCollector(IssueDto issue) {
+    return new SearchResponseLoader.Collector(EnumSet.of(RULES, USERS, COMMENTS), singletonList(issue.getKey()));
+  }
+}
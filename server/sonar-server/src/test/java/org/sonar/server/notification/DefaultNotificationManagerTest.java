@@ -28,7 +28,6 @@ import java.util.List;
 import java.util.Map;
 import org.junit.Before;
 import org.junit.Test;
-import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.sonar.api.notifications.Notification;
@@ -39,7 +38,6 @@ import org.sonar.db.property.PropertiesDao;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.any;
-import static org.mockito.Mockito.inOrder;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.only;
 import static org.mockito.Mockito.spy;
@@ -93,17 +91,30 @@ public class DefaultNotificationManagerTest {
   }
 
   @Test
-  public void shouldGetFromQueueAndDelete() {
+  public void shouldGetFromQueue() {
     Notification notification = new Notification("test");
     NotificationQueueDto dto = NotificationQueueDto.toNotificationQueueDto(notification);
     List<NotificationQueueDto> dtos = Arrays.asList(dto);
-    when(notificationQueueDao.selectOldest(1)).thenReturn(dtos);
+    when(notificationQueueDao.selectOldestAndDelete(1)).thenReturn(dtos);
 
-    assertThat(manager.getFromQueue()).isNotNull();
+    assertThat(manager.getFromQueue()).isEqualTo(notification);
 
-    InOrder inOrder = inOrder(notificationQueueDao);
-    inOrder.verify(notificationQueueDao).selectOldest(1);
-    inOrder.verify(notificationQueueDao).delete(dtos);
+    verify(notificationQueueDao).selectOldestAndDelete(1);
+  }
+
+  @Test
+  public void getFromQueue_returns_batch_of_notifications() {
+    List<NotificationQueueDto> dtos = Arrays.asList(
+      NotificationQueueDto.toNotificationQueueDto(new Notification("test1")),
+      NotificationQueueDto.toNotificationQueueDto(new Notification("test2")));
+    when(notificationQueueDao.selectOldestAndDelete(10)).thenReturn(dtos);
+
+    assertThat(manager.getFromQueue(10)).extracting(Notification::getType).containsExactly("test1", "test2");
+  }
+
+  @Test
+  public void getFromQueue_returns_empty_list_if_queue_is_empty() {
+    assertThat(manager.getFromQueue(10)).isEmpty();
   }
 
   // SONAR-4739
@@ -112,7 +123,7 @@ public class DefaultNotificationManagerTest {
     NotificationQueueDto dto1 = mock(NotificationQueueDto.class);
     when(dto1.toNotification()).thenThrow(new InvalidClassException("Pouet"));
     List<NotificationQueueDto> dtos = Arrays.asList(dto1);
-    when(notificationQueueDao.selectOldest(1)).thenReturn(dtos);
+    when(notificationQueueDao.selectOldestAndDelete(1)).thenReturn(dtos);
 
     manager = spy(manager);
     assertThat(manager.getFromQueue()).isNull();
@@ -162,6 +173,18 @@ public class DefaultNotificationManagerTest {
     assertThat(map.get("user4")).isNull();
   }
 
+  @Test
+  public void subscribed_recipients_are_cached() {
+    when(propertiesDao.selectUsersForNotification("NewViolations", "Email", "uuid_45")).thenReturn(Lists.newArrayList("user1"));
+
+    manager.findSubscribedRecipientsForDispatcher(dispatcher, "uuid_45");
+    Multimap<String, NotificationChannel> multiMap = manager.findSubscribedRecipientsForDispatcher(dispatcher, "uuid_45");
+
+    assertThat(multiMap.get("user1")).containsOnly(emailChannel);
+    verify(propertiesDao, times(1)).selectUsersForNotification("NewViolations", "Email", "uuid_45");
+    verify(propertiesDao, times(1)).selectUsersForNotification("NewViolations", "Email", null);
+  }
+
   @Test
   public void findNotificationSubscribers() {
     when(propertiesDao.selectNotificationSubscribers("NewViolations", "Email", "struts")).thenReturn(Lists.newArrayList("user1", "user2"));
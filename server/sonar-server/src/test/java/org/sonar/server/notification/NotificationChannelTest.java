@@ -19,11 +19,15 @@
  */
 package org.sonar.server.notification;
 
+import java.util.ArrayList;
+import java.util.List;
 import org.junit.Test;
 import org.sonar.api.notifications.Notification;
 import org.sonar.api.notifications.NotificationChannel;
 
+import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
 
 public class NotificationChannelTest {
 
@@ -34,9 +38,24 @@ public class NotificationChannelTest {
     assertThat(channel.toString()).isEqualTo("FakeNotificationChannel");
   }
 
+  @Test
+  public void deliver_to_each_user_by_default() {
+    FakeNotificationChannel channel = new FakeNotificationChannel();
+
+    channel.deliver(mock(Notification.class), asList("user1", "failing", "user2"));
+
+    assertThat(channel.usernames).containsExactly("user1", "failing", "user2");
+  }
+
   private class FakeNotificationChannel extends NotificationChannel {
+    private final List<String> usernames = new ArrayList<>();
+
     @Override
     public void deliver(Notification notification, String username) {
+      usernames.add(username);
+      if ("failing".equals(username)) {
+        throw new IllegalStateException("Unable to deliver");
+      }
     }
   }
 
@@ -28,12 +28,18 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.ExpectedException;
 import org.sonar.api.config.EmailSettings;
+import org.sonar.api.notifications.Notification;
+import org.sonar.api.user.UserFinder;
+import org.sonar.core.user.DefaultUser;
 import org.sonar.plugins.emailnotifications.api.EmailMessage;
+import org.sonar.plugins.emailnotifications.api.EmailTemplate;
 import org.subethamail.wiser.Wiser;
 import org.subethamail.wiser.WiserMessage;
 
+import static java.util.Arrays.asList;
 import static junit.framework.Assert.fail;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyListOf;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
@@ -169,6 +175,28 @@ public class EmailNotificationChannelTest {
     underTest.deliver(emailMessage);
   }
 
+  @Test
+  public void deliver_notification_to_all_users_having_an_email() throws Exception {
+    configure();
+    Notification notification = new Notification("foo");
+    EmailTemplate template = mock(EmailTemplate.class);
+    when(template.format(notification)).thenReturn(new EmailMessage().setSubject("Foo").setMessage("Bar"));
+    UserFinder userFinder = mock(UserFinder.class);
+    when(userFinder.findByLogins(anyListOf(String.class))).thenReturn(asList(
+      new DefaultUser().setLogin("user1").setEmail("user1@nowhere"),
+      new DefaultUser().setLogin("user2").setEmail("user2@nowhere"),
+      new DefaultUser().setLogin("user3")));
+    underTest = new EmailNotificationChannel(configuration, new EmailTemplate[] {template}, userFinder);
+
+    underTest.deliver(notification, asList("user1", "user2", "user3"));
+
+    List<WiserMessage> messages = smtpServer.getMessages();
+    assertThat(messages).extracting(WiserMessage::getEnvelopeReceiver).containsOnly("user1@nowhere", "user2@nowhere");
+    MimeMessage email = messages.get(0).getMimeMessage();
+    assertThat(email.getHeader("Subject", null)).isEqualTo("[SONARQUBE] Foo");
+    assertThat((String) email.getContent()).startsWith("Bar");
+  }
+
   @Test
   public void shouldSendTestEmailWithSTARTTLS() {
     smtpServer.getServer().setEnableTLS(true);
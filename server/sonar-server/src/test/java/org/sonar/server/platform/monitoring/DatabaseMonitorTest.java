@@ -58,9 +58,19 @@ public class DatabaseMonitorTest {
     assertThat(attributes.get("Driver Version").toString()).startsWith("1.");
   }
 
+  @Test
+  public void sql_statement_statistics() {
+    dbTester.getDbClient().getMyBatis().getStatementStatistics().reset();
+    dbTester.getDbClient().ruleDao().selectAllDefinitions(dbTester.getSession());
+
+    Map<String, Object> attributes = underTest.attributes();
+    assertThat(attributes.get("SQL org.sonar.db.rule.RuleMapper.selectAllDefinitions").toString()).startsWith("calls=");
+  }
+
   @Test
   public void pool_info() {
     Map<String, Object> attributes = underTest.attributes();
     assertThat((int) attributes.get("Pool Max Connections")).isGreaterThan(0);
+    assertThat((long) attributes.get("Pool Wait Timeouts")).isGreaterThanOrEqualTo(0L);
   }
 }
@@ -53,6 +53,7 @@ import org.sonar.server.tester.UserSessionRule;
 
 import static com.google.common.collect.Lists.newArrayList;
 import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.fail;
 import static org.sonar.api.rule.Severity.BLOCKER;
@@ -1094,6 +1095,26 @@ public class RuleActivatorMediumTest {
     verifyHasActiveRuleInDbAndIndex(ActiveRuleKey.of(XOO_P3_KEY, XOO_X2), BLOCKER, INHERITED, Collections.<String, String>emptyMap());
   }
 
+  @Test
+  public void bulk_activation_propagates_to_descendants() {
+    createChildProfiles();
+
+    // rule already overridden on P2
+    activate(new RuleActivation(XOO_X1).setSeverity(CRITICAL).setParameter("max", "5"), XOO_P2_KEY);
+
+    BulkChangeResult result = ruleActivator.bulkActivate(new RuleQuery().setRepositories(singletonList("xoo")), XOO_P1_KEY, "BLOCKER");
+    // template rule can't be activated
+    assertThat(result.countSucceeded()).isEqualTo(3);
+    assertThat(result.countFailed()).isEqualTo(1);
+
+    verifyHasActiveRuleInDbAndIndex(ActiveRuleKey.of(XOO_P1_KEY, XOO_X1), BLOCKER, null, ImmutableMap.of("max", "10"));
+    verifyHasActiveRuleInDbAndIndex(ActiveRuleKey.of(XOO_P1_KEY, XOO_X2), BLOCKER, null, Collections.<String, String>emptyMap());
+    verifyHasActiveRuleInDbAndIndex(ActiveRuleKey.of(XOO_P2_KEY, XOO_X1), CRITICAL, OVERRIDES, ImmutableMap.of("max", "5"));
+    verifyHasActiveRuleInDbAndIndex(ActiveRuleKey.of(XOO_P2_KEY, XOO_X2), BLOCKER, INHERITED, Collections.<String, String>emptyMap());
+    verifyHasActiveRuleInDbAndIndex(ActiveRuleKey.of(XOO_P3_KEY, XOO_X1), CRITICAL, INHERITED, ImmutableMap.of("max", "5"));
+    verifyHasActiveRuleInDbAndIndex(ActiveRuleKey.of(XOO_P3_KEY, XOO_X2), BLOCKER, INHERITED, Collections.<String, String>emptyMap());
+  }
+
   private int countActiveRules(String profileKey) {
     List<ActiveRuleDto> activeRuleDtos = db.activeRuleDao().selectByProfileKey(dbSession, profileKey);
     return activeRuleDtos.size();
@@ -23,7 +23,10 @@ import java.util.Date;
 import java.util.List;
 import org.junit.Before;
 import org.junit.Test;
+import org.sonar.api.SonarQubeSide;
+import org.sonar.api.SonarRuntime;
 import org.sonar.api.config.MapSettings;
+import org.sonar.api.internal.SonarRuntimeImpl;
 import org.sonar.api.resources.Language;
 import org.sonar.api.resources.Languages;
 import org.sonar.api.rule.RuleKey;
@@ -33,6 +36,7 @@ import org.sonar.api.server.debt.DebtRemediationFunction;
 import org.sonar.api.server.rule.RulesDefinition;
 import org.sonar.api.utils.DateUtils;
 import org.sonar.api.utils.System2;
+import org.sonar.api.utils.Version;
 import org.sonar.db.DbClient;
 import org.sonar.db.DbSession;
 import org.sonar.db.DbTester;
@@ -69,6 +73,7 @@ public class RegisterRulesTest {
   private static final RuleKey RULE_KEY3 = RuleKey.of("fake", "rule3");
 
   private System2 system = mock(System2.class);
+  private SonarRuntime sonarRuntime = SonarRuntimeImpl.forSonarQube(Version.create(6, 4), SonarQubeSide.SERVER);
 
   @org.junit.Rule
   public DbTester dbTester = DbTester.create(system);
@@ -369,6 +374,58 @@ public class RegisterRulesTest {
     assertThat(ruleIndex.search(new RuleQuery(), new SearchOptions()).getIds()).containsOnly(RULE_KEY1, RULE_KEY3);
   }
 
+  @Test
+  public void persist_fingerprint_of_registered_repositories() {
+    execute(new FindbugsRepository(), new FbContribRepository());
+
+    assertThat(dbClient.internalPropertiesDao().selectByKey(dbTester.getSession(), RegisterRules.FINGERPRINT_PROPERTY_PREFIX + "findbugs")).isPresent();
+    assertThat(dbClient.internalPropertiesDao().selectByKey(dbTester.getSession(), RegisterRules.FINGERPRINT_PROPERTY_PREFIX + "fake")).isEmpty();
+  }
+
+  @Test
+  public void skip_repository_when_fingerprint_is_unchanged() {
+    execute(new FakeRepositoryV1());
+    String organizationUuid = dbTester.getDefaultOrganization().getUuid();
+    RuleDefinitionDto rule1 = dbClient.ruleDao().selectOrFailDefinitionByKey(dbTester.getSession(), RULE_KEY1);
+    dbClient.ruleDao().update(dbTester.getSession(), rule1.setName("Name changed in db"));
+    dbTester.getSession().commit();
+
+    when(system.now()).thenReturn(DATE2.getTime());
+    execute(new FakeRepositoryV1());
+
+    // definitions are not merged again
+    RuleDto rule = dbClient.ruleDao().selectOrFailByKey(dbTester.getSession(), organizationUuid, RULE_KEY1);
+    assertThat(rule.getName()).isEqualTo("Name changed in db");
+    assertThat(rule.getUpdatedAt()).isEqualTo(DATE1.getTime());
+  }
+
+  @Test
+  public void register_unchanged_repository_again_on_upgrade_of_server() {
+    execute(new FakeRepositoryV1());
+    RuleDefinitionDto rule1 = dbClient.ruleDao().selectOrFailDefinitionByKey(dbTester.getSession(), RULE_KEY1);
+    dbClient.ruleDao().update(dbTester.getSession(), rule1.setName("Name changed in db"));
+    dbTester.getSession().commit();
+
+    sonarRuntime = SonarRuntimeImpl.forSonarQube(Version.create(6, 5), SonarQubeSide.SERVER);
+    execute(new FakeRepositoryV1());
+
+    assertThat(dbClient.ruleDao().selectOrFailDefinitionByKey(dbTester.getSession(), RULE_KEY1).getName()).isEqualTo("One");
+  }
+
+  @Test
+  public void register_unchanged_repository_again_if_its_rules_have_been_removed() {
+    execute(new FakeRepositoryV1());
+    when(system.now()).thenReturn(DATE2.getTime());
+    execute();
+    assertThat(dbClient.ruleDao().selectOrFailDefinitionByKey(dbTester.getSession(), RULE_KEY1).getStatus()).isEqualTo(RuleStatus.REMOVED);
+
+    when(system.now()).thenReturn(DATE3.getTime());
+    execute(new FakeRepositoryV1());
+
+    assertThat(dbClient.ruleDao().selectOrFailDefinitionByKey(dbTester.getSession(), RULE_KEY1).getStatus()).isEqualTo(RuleStatus.BETA);
+    assertThat(dbClient.ruleDao().selectOrFailDefinitionByKey(dbTester.getSession(), RULE_KEY2).getStatus()).isEqualTo(RuleStatus.READY);
+  }
+
   @Test
   public void mass_insert() {
     execute(new BigRepository());
@@ -414,7 +471,7 @@ public class RegisterRulesTest {
     Languages languages = mock(Languages.class);
     when(languages.get("java")).thenReturn(mock(Language.class));
 
-    RegisterRules task = new RegisterRules(loader, ruleActivator, dbClient, ruleIndexer, activeRuleIndexer, languages, system);
+    RegisterRules task = new RegisterRules(loader, ruleActivator, dbClient, ruleIndexer, activeRuleIndexer, languages, system, sonarRuntime);
     task.start();
     // Execute a commit to refresh session state as the task is using its own session
     dbTester.getSession().commit();
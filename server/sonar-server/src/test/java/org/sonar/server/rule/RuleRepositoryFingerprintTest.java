@@ -0,0 +1,66 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.rule;
+
+import java.util.List;
+import org.junit.Test;
+import org.sonar.api.server.rule.RulesDefinition;
+import org.sonar.api.utils.Version;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class RuleRepositoryFingerprintTest {
+
+  private static final Version VERSION = Version.create(6, 4);
+
+  @Test
+  public void same_definitions_have_same_fingerprint() {
+    assertThat(RuleRepositoryFingerprint.compute(VERSION, define("One", "param1")))
+      .isEqualTo(RuleRepositoryFingerprint.compute(VERSION, define("One", "param1")))
+      .hasSize(40);
+  }
+
+  @Test
+  public void fingerprint_changes_when_rule_definition_changes() {
+    String fingerprint = RuleRepositoryFingerprint.compute(VERSION, define("One", "param1"));
+
+    assertThat(RuleRepositoryFingerprint.compute(VERSION, define("One v2", "param1"))).isNotEqualTo(fingerprint);
+    assertThat(RuleRepositoryFingerprint.compute(VERSION, define("One", "param2"))).isNotEqualTo(fingerprint);
+  }
+
+  @Test
+  public void fingerprint_changes_when_server_version_changes() {
+    String fingerprint = RuleRepositoryFingerprint.compute(VERSION, define("One", "param1"));
+
+    assertThat(RuleRepositoryFingerprint.compute(Version.create(6, 5), define("One", "param1"))).isNotEqualTo(fingerprint);
+  }
+
+  private static List<RulesDefinition.Repository> define(String ruleName, String paramKey) {
+    RulesDefinition.Context context = new RulesDefinition.Context();
+    RulesDefinition.NewRepository repo = context.createRepository("fake", "java");
+    repo.createRule("rule1")
+      .setName(ruleName)
+      .setHtmlDescription("Description of One")
+      .setTags("tag1", "tag2")
+      .createParam(paramKey).setDefaultValue("default");
+    repo.done();
+    return context.repositories();
+  }
+}
@@ -111,6 +111,21 @@ public class ViewIndexerTest {
     assertThat(viewsByUuid.get("FGHI").projects()).containsOnly("JKLM");
   }
 
+  @Test
+  public void index_root_view_only_reindexes_views_whose_projects_changed() {
+    dbTester.prepareDbUnit(getClass(), "index.xml");
+    underTest.index(new ViewDoc().setUuid("EFGH").setProjects(newArrayList("KLMN")));
+    underTest.index(new ViewDoc().setUuid("FGHI").setProjects(newArrayList("JKLM")));
+
+    underTest.index("EFGH");
+
+    assertThat(esTester.client().prepareGet(ViewIndexDefinition.INDEX_TYPE_VIEW, "EFGH").get().getVersion()).isEqualTo(2L);
+    assertThat(esTester.client().prepareGet(ViewIndexDefinition.INDEX_TYPE_VIEW, "FGHI").get().getVersion()).isEqualTo(1L);
+    Map<String, ViewDoc> viewsByUuid = Maps.uniqueIndex(esTester.getDocuments(ViewIndexDefinition.INDEX_TYPE_VIEW, ViewDoc.class), ViewDoc::uuid);
+    assertThat(viewsByUuid.get("EFGH").projects()).containsOnly("KLMN", "JKLM");
+    assertThat(viewsByUuid.get("FGHI").projects()).containsOnly("JKLM");
+  }
+
   @Test
   public void index_view_doc() {
     underTest.index(new ViewDoc().setUuid("EFGH").setProjects(newArrayList("KLMN", "JKLM")));
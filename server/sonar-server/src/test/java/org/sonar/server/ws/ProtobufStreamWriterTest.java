@@ -0,0 +1,110 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.server.ws;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonarqube.ws.Issues;
+import org.sonarqube.ws.MediaTypes;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ProtobufStreamWriterTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private TestRequest request = new TestRequest();
+  private DumbResponse response = new DumbResponse();
+
+  @Test
+  public void stream_json_by_default() {
+    ProtobufStreamWriter writer = ProtobufStreamWriter.of(header(), "issues", request, response);
+    writer.write(Issues.Issue.newBuilder().setKey("I1").build());
+    writer.write(Issues.Issue.newBuilder().setKey("I2").build());
+    writer.finish();
+
+    assertThat(response.stream().mediaType()).isEqualTo(MediaTypes.JSON);
+    // like ProtobufJsonFormat, empty repeated fields are written as empty arrays
+    assertThat(response.outputAsString()).isEqualTo("{\"total\":2,\"components\":[]," +
+      "\"issues\":[{\"key\":\"I1\",\"flows\":[],\"tags\":[]},{\"key\":\"I2\",\"flows\":[],\"tags\":[]}]}");
+  }
+
+  @Test
+  public void stream_empty_json_array() {
+    ProtobufStreamWriter writer = ProtobufStreamWriter.of(header(), "issues", request, response);
+    writer.finish();
+
+    assertThat(response.outputAsString()).isEqualTo("{\"total\":2,\"components\":[],\"issues\":[]}");
+  }
+
+  @Test
+  public void response_is_not_terminated_if_finish_is_not_called() {
+    ProtobufStreamWriter writer = ProtobufStreamWriter.of(header(), "issues", request, response);
+    writer.write(Issues.Issue.newBuilder().setKey("I1").build());
+    // error raised before finish()
+
+    assertThat(response.outputAsString()).doesNotEndWith("]}");
+  }
+
+  @Test
+  public void stream_protobuf() throws Exception {
+    request.setMediaType(MediaTypes.PROTOBUF);
+
+    ProtobufStreamWriter writer = ProtobufStreamWriter.of(header(), "issues", request, response);
+    writer.write(Issues.Issue.newBuilder().setKey("I1").build());
+    writer.write(Issues.Issue.newBuilder().setKey("I2").build());
+    writer.finish();
+
+    assertThat(response.stream().mediaType()).isEqualTo(MediaTypes.PROTOBUF);
+    Issues.SearchWsResponse parsed = Issues.SearchWsResponse.parseFrom(response.getFlushedOutput());
+    assertThat(parsed.getTotal()).isEqualTo(2L);
+    assertThat(parsed.getIssuesList()).extracting(Issues.Issue::getKey).containsExactly("I1", "I2");
+  }
+
+  @Test
+  public void fail_if_field_does_not_exist() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Field 'unknown' is not a repeated message field of sonarqube.ws.issues.SearchWsResponse");
+
+    ProtobufStreamWriter.of(header(), "unknown", request, response);
+  }
+
+  @Test
+  public void fail_if_field_is_not_repeated() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Field 'paging' is not a repeated message field");
+
+    ProtobufStreamWriter.of(header(), "paging", request, response);
+  }
+
+  @Test
+  public void fail_if_streamed_field_of_header_is_not_empty() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Field 'issues' of header must be empty");
+
+    ProtobufStreamWriter.of(header().toBuilder().addIssues(Issues.Issue.newBuilder().setKey("I1")).build(), "issues", request, response);
+  }
+
+  private static Issues.SearchWsResponse header() {
+    return Issues.SearchWsResponse.newBuilder().setTotal(2L).build();
+  }
+}
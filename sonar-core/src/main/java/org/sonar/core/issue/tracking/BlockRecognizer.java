@@ -25,9 +25,7 @@ import com.google.common.collect.Multimap;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
 
 class BlockRecognizer<RAW extends Trackable, BASE extends Trackable> {
 
@@ -41,37 +39,39 @@ class BlockRecognizer<RAW extends Trackable, BASE extends Trackable> {
 
     Multimap<Integer, RAW> rawsByLine = groupByLine(tracking.getUnmatchedRaws(), rawHashSequence);
     Multimap<Integer, BASE> basesByLine = groupByLine(tracking.getUnmatchedBases(), baseHashSequence);
-    Map<Integer, HashOccurrence> occurrencesByHash = new HashMap<>();
+    // occurrences of block hashes, indexed by IntTripleIndex to avoid boxing the hashes
+    IntTripleIndex occurrencesByHash = new IntTripleIndex(basesByLine.keySet().size());
+    int[] baseLines = new int[basesByLine.keySet().size()];
+    int[] rawLines = new int[basesByLine.keySet().size()];
+    int[] baseCounts = new int[basesByLine.keySet().size()];
+    int[] rawCounts = new int[basesByLine.keySet().size()];
 
     for (Integer line : basesByLine.keySet()) {
       int hash = baseHashSequence.getBlockHashForLine(line);
-      HashOccurrence hashOccurrence = occurrencesByHash.get(hash);
-      if (hashOccurrence == null) {
+      int occurrenceCount = occurrencesByHash.size();
+      int occurrence = occurrencesByHash.add(hash, 0, 0);
+      if (occurrence == occurrenceCount) {
         // first occurrence in base
-        hashOccurrence = new HashOccurrence();
-        hashOccurrence.baseLine = line;
-        hashOccurrence.baseCount = 1;
-        occurrencesByHash.put(hash, hashOccurrence);
-      } else {
-        hashOccurrence.baseCount++;
+        baseLines[occurrence] = line;
       }
+      baseCounts[occurrence]++;
     }
 
     for (Integer line : rawsByLine.keySet()) {
       int hash = rawHashSequence.getBlockHashForLine(line);
-      HashOccurrence hashOccurrence = occurrencesByHash.get(hash);
-      if (hashOccurrence != null) {
-        hashOccurrence.rawLine = line;
-        hashOccurrence.rawCount++;
+      int occurrence = occurrencesByHash.get(hash, 0, 0);
+      if (occurrence != IntTripleIndex.ABSENT) {
+        rawLines[occurrence] = line;
+        rawCounts[occurrence]++;
       }
     }
 
-    for (HashOccurrence hashOccurrence : occurrencesByHash.values()) {
-      if (hashOccurrence.baseCount == 1 && hashOccurrence.rawCount == 1) {
+    for (int occurrence = 0; occurrence < occurrencesByHash.size(); occurrence++) {
+      if (baseCounts[occurrence] == 1 && rawCounts[occurrence] == 1) {
         // Guaranteed that baseLine has been moved to rawLine, so we can map all issues on baseLine to all issues on rawLine
-        map(rawsByLine.get(hashOccurrence.rawLine), basesByLine.get(hashOccurrence.baseLine), tracking);
-        basesByLine.removeAll(hashOccurrence.baseLine);
-        rawsByLine.removeAll(hashOccurrence.rawLine);
+        map(rawsByLine.get(rawLines[occurrence]), basesByLine.get(baseLines[occurrence]), tracking);
+        basesByLine.removeAll(baseLines[occurrence]);
+        rawsByLine.removeAll(rawLines[occurrence]);
       }
     }
 
@@ -155,13 +155,6 @@ class BlockRecognizer<RAW extends Trackable, BASE extends Trackable> {
     }
   }
 
-  private static class HashOccurrence {
-    int baseLine;
-    int rawLine;
-    int baseCount;
-    int rawCount;
-  }
-
   private enum LinePairComparator implements Comparator<LinePair> {
     INSTANCE;
 
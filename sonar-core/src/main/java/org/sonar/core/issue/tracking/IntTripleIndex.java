@@ -0,0 +1,102 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.core.issue.tracking;
+
+import java.util.Arrays;
+
+/**
+ * Open-addressing hash table whose keys are triples of ints. Each distinct key is given a dense index
+ * (0, 1, 2...) in insertion order, so that callers can store the associated values in plain arrays.
+ * It avoids allocating a key object per lookup when tracking thousands of issues.
+ */
+class IntTripleIndex {
+
+  static final int ABSENT = -1;
+
+  private final int capacity;
+  private final int[] slots;
+  private final int[] keys;
+  private final int mask;
+  private int size = 0;
+
+  /**
+   * @param capacity maximum number of distinct keys
+   */
+  IntTripleIndex(int capacity) {
+    this.capacity = Math.max(capacity, 1);
+    // load factor is kept lower than 0.5
+    int slotCount = Integer.highestOneBit(this.capacity * 2) << 1;
+    this.slots = new int[slotCount];
+    this.keys = new int[this.capacity * 3];
+    this.mask = slotCount - 1;
+    Arrays.fill(slots, ABSENT);
+  }
+
+  /**
+   * Index of the key, which is added if missing.
+   */
+  int add(int a, int b, int c) {
+    int slot = slotOf(a, b, c);
+    int index = slots[slot];
+    if (index == ABSENT) {
+      if (size == capacity) {
+        throw new IllegalStateException("Capacity of " + capacity + " keys is exceeded");
+      }
+      index = size;
+      keys[3 * index] = a;
+      keys[3 * index + 1] = b;
+      keys[3 * index + 2] = c;
+      slots[slot] = index;
+      size++;
+    }
+    return index;
+  }
+
+  /**
+   * Index of the key, or {@link #ABSENT} if the key has not been added.
+   */
+  int get(int a, int b, int c) {
+    return slots[slotOf(a, b, c)];
+  }
+
+  int size() {
+    return size;
+  }
+
+  void clear() {
+    if (size > 0) {
+      Arrays.fill(slots, ABSENT);
+      size = 0;
+    }
+  }
+
+  private int slotOf(int a, int b, int c) {
+    int hash = 31 * (31 * a + b) + c;
+    int slot = (hash ^ (hash >>> 16)) & mask;
+    while (slots[slot] != ABSENT && !hasKey(slots[slot], a, b, c)) {
+      slot = (slot + 1) & mask;
+    }
+    return slot;
+  }
+
+  private boolean hasKey(int index, int a, int b, int c) {
+    return keys[3 * index] == a && keys[3 * index + 1] == b && keys[3 * index + 2] == c;
+  }
+}
@@ -19,231 +19,205 @@
  */
 package org.sonar.core.issue.tracking;
 
-import com.google.common.collect.ArrayListMultimap;
-import com.google.common.collect.Multimap;
-import java.util.Collection;
-import java.util.Objects;
-import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
 import org.apache.commons.lang.StringUtils;
 import org.sonar.api.batch.ScannerSide;
 import org.sonar.api.batch.InstantiationStrategy;
 import org.sonar.api.rule.RuleKey;
 
+import static org.sonar.core.issue.tracking.IntTripleIndex.ABSENT;
+
 @InstantiationStrategy(InstantiationStrategy.PER_BATCH)
 @ScannerSide
 public class Tracker<RAW extends Trackable, BASE extends Trackable> {
 
   public Tracking<RAW, BASE> track(Input<RAW> rawInput, Input<BASE> baseInput) {
     Tracking<RAW, BASE> tracking = new Tracking<>(rawInput, baseInput);
+    Matcher<RAW, BASE> matcher = new Matcher<>(tracking);
 
     // 1. match issues with same rule, same line and same line hash, but not necessarily with same message
-    match(tracking, LineAndLineHashKeyFactory.INSTANCE);
+    matcher.match(SearchKey.LINE_AND_LINE_HASH);
 
     // 2. detect code moves by comparing blocks of codes
     detectCodeMoves(rawInput, baseInput, tracking);
 
     // 3. match issues with same rule, same message and same line hash
-    match(tracking, LineHashAndMessageKeyFactory.INSTANCE);
+    matcher.match(SearchKey.LINE_HASH_AND_MESSAGE);
 
     // 4. match issues with same rule, same line and same message
-    match(tracking, LineAndMessageKeyFactory.INSTANCE);
+    matcher.match(SearchKey.LINE_AND_MESSAGE);
 
     // 5. match issues with same rule and same line hash but different line and different message.
     // See SONAR-2812
-    match(tracking, LineHashKeyFactory.INSTANCE);
+    matcher.match(SearchKey.LINE_HASH);
 
     return tracking;
   }
 
   private void detectCodeMoves(Input<RAW> rawInput, Input<BASE> baseInput, Tracking<RAW, BASE> tracking) {
-    if (!tracking.isComplete()) {
+    // block hashes, and so line hashes of base, are loaded only if some base issues can still be matched
+    if (!tracking.isComplete() && tracking.getUnmatchedBases().iterator().hasNext()) {
       new BlockRecognizer<RAW, BASE>().match(rawInput, baseInput, tracking);
     }
   }
 
-  private void match(Tracking<RAW, BASE> tracking, SearchKeyFactory factory) {
-    if (tracking.isComplete()) {
-      return;
-    }
-
-    Multimap<SearchKey, BASE> baseSearch = ArrayListMultimap.create();
-    for (BASE base : tracking.getUnmatchedBases()) {
-      baseSearch.put(factory.create(base), base);
-    }
-
-    for (RAW raw : tracking.getUnmatchedRaws()) {
-      SearchKey rawKey = factory.create(raw);
-      Collection<BASE> bases = baseSearch.get(rawKey);
-      if (!bases.isEmpty()) {
-        // TODO taking the first one. Could be improved if there are more than 2 issues on the same line.
-        // Message could be checked to take the best one.
-        BASE match = bases.iterator().next();
-        tracking.match(raw, match);
-        baseSearch.remove(rawKey, match);
+  /**
+   * Matches issues on the rule and on two fields selected by a {@link SearchKey}. Rule keys, line hashes and
+   * messages are interned to ints once for all the passes, so that no object is allocated per issue and per pass.
+   */
+  private static class Matcher<RAW extends Trackable, BASE extends Trackable> {
+    private final Tracking<RAW, BASE> tracking;
+    private final List<RAW> raws;
+    private final List<BASE> bases;
+    private final InternedFields rawFields;
+    private final InternedFields baseFields;
+    private final IntTripleIndex index;
+    // unmatched bases sharing the same key are chained in their original order
+    private final int[] firstBases;
+    private final int[] lastBases;
+    private final int[] nextBases;
+
+    Matcher(Tracking<RAW, BASE> tracking) {
+      this.tracking = tracking;
+      this.raws = new ArrayList<>(tracking.getRaws());
+      this.bases = new ArrayList<>(tracking.getBases());
+      Interner<RuleKey> ruleKeys = new Interner<>();
+      Interner<String> lineHashes = new Interner<>();
+      Interner<String> messages = new Interner<>();
+      this.rawFields = new InternedFields(raws, ruleKeys, lineHashes, messages);
+      this.baseFields = new InternedFields(bases, ruleKeys, lineHashes, messages);
+      this.index = new IntTripleIndex(bases.size());
+      this.firstBases = new int[bases.size()];
+      this.lastBases = new int[bases.size()];
+      this.nextBases = new int[bases.size()];
+    }
+
+    void match(SearchKey searchKey) {
+      if (tracking.isComplete()) {
+        return;
       }
-    }
-  }
-
-  private interface SearchKey {
-  }
-
-  private interface SearchKeyFactory {
-    SearchKey create(Trackable trackable);
-  }
 
-  private static class LineAndLineHashKey implements SearchKey {
-    private final RuleKey ruleKey;
-    private final String lineHash;
-    private final Integer line;
-
-    LineAndLineHashKey(Trackable trackable) {
-      this.ruleKey = trackable.getRuleKey();
-      this.line = trackable.getLine();
-      this.lineHash = StringUtils.defaultString(trackable.getLineHash(), "");
-    }
-
-    @Override
-    public boolean equals(@Nonnull Object o) {
-      if (this == o) {
-        return true;
+      index.clear();
+      for (int i = 0; i < bases.size(); i++) {
+        if (tracking.containsUnmatchedBase(bases.get(i))) {
+          addBase(i, searchKey);
+        }
       }
-      LineAndLineHashKey that = (LineAndLineHashKey) o;
-      // start with most discriminant field
-      return Objects.equals(line, that.line)
-        && lineHash.equals(that.lineHash)
-        && ruleKey.equals(that.ruleKey);
-    }
-
-    @Override
-    public int hashCode() {
-      int result = ruleKey.hashCode();
-      result = 31 * result + lineHash.hashCode();
-      result = 31 * result + (line != null ? line.hashCode() : 0);
-      return result;
-    }
-  }
-
-  private enum LineAndLineHashKeyFactory implements SearchKeyFactory {
-    INSTANCE;
-    @Override
-    public SearchKey create(Trackable t) {
-      return new LineAndLineHashKey(t);
-    }
-  }
-
-  private static class LineHashAndMessageKey implements SearchKey {
-    private final RuleKey ruleKey;
-    private final String message;
-    private final String lineHash;
 
-    LineHashAndMessageKey(Trackable trackable) {
-      this.ruleKey = trackable.getRuleKey();
-      this.message = trackable.getMessage();
-      this.lineHash = StringUtils.defaultString(trackable.getLineHash(), "");
-    }
-
-    @Override
-    public boolean equals(@Nonnull Object o) {
-      if (this == o) {
-        return true;
+      for (int i = 0; i < raws.size(); i++) {
+        RAW raw = raws.get(i);
+        if (tracking.baseFor(raw) == null) {
+          int key = index.get(rawFields.rules[i], searchKey.first(rawFields, i), searchKey.second(rawFields, i));
+          if (key != ABSENT && firstBases[key] != ABSENT) {
+            // TODO taking the first one. Could be improved if there are more than 2 issues on the same line.
+            // Message could be checked to take the best one.
+            int base = firstBases[key];
+            tracking.match(raw, bases.get(base));
+            firstBases[key] = nextBases[base];
+          }
+        }
       }
-      LineHashAndMessageKey that = (LineHashAndMessageKey) o;
-      // start with most discriminant field
-      return lineHash.equals(that.lineHash)
-        && message.equals(that.message)
-        && ruleKey.equals(that.ruleKey);
     }
 
-    @Override
-    public int hashCode() {
-      int result = ruleKey.hashCode();
-      result = 31 * result + message.hashCode();
-      result = 31 * result + lineHash.hashCode();
-      return result;
+    private void addBase(int base, SearchKey searchKey) {
+      int keyCount = index.size();
+      int key = index.add(baseFields.rules[base], searchKey.first(baseFields, base), searchKey.second(baseFields, base));
+      nextBases[base] = ABSENT;
+      if (key == keyCount) {
+        firstBases[key] = base;
+      } else {
+        nextBases[lastBases[key]] = base;
+      }
+      lastBases[key] = base;
     }
   }
 
-  private enum LineHashAndMessageKeyFactory implements SearchKeyFactory {
-    INSTANCE;
-    @Override
-    public SearchKey create(Trackable t) {
-      return new LineHashAndMessageKey(t);
+  private static class InternedFields {
+    // no valid line is negative
+    private static final int NO_LINE = Integer.MIN_VALUE;
+
+    private final int[] rules;
+    private final int[] lines;
+    private final int[] lineHashes;
+    private final int[] messages;
+
+    InternedFields(List<? extends Trackable> trackables, Interner<RuleKey> ruleKeys, Interner<String> lineHashes, Interner<String> messages) {
+      int size = trackables.size();
+      this.rules = new int[size];
+      this.lines = new int[size];
+      this.lineHashes = new int[size];
+      this.messages = new int[size];
+      for (int i = 0; i < size; i++) {
+        Trackable trackable = trackables.get(i);
+        Integer line = trackable.getLine();
+        this.rules[i] = ruleKeys.idOf(trackable.getRuleKey());
+        this.lines[i] = line == null ? NO_LINE : line;
+        this.lineHashes[i] = lineHashes.idOf(StringUtils.defaultString(trackable.getLineHash(), ""));
+        this.messages[i] = messages.idOf(trackable.getMessage());
+      }
     }
   }
 
-  private static class LineAndMessageKey implements SearchKey {
-    private final RuleKey ruleKey;
-    private final String message;
-    private final Integer line;
+  private static class Interner<T> {
+    private final Map<T, Integer> ids = new HashMap<>();
 
-    LineAndMessageKey(Trackable trackable) {
-      this.ruleKey = trackable.getRuleKey();
-      this.message = trackable.getMessage();
-      this.line = trackable.getLine();
+    int idOf(@Nullable T value) {
+      return ids.computeIfAbsent(value, v -> ids.size());
     }
+  }
 
-    @Override
-    public boolean equals(@Nonnull Object o) {
-      if (this == o) {
-        return true;
+  private enum SearchKey {
+    LINE_AND_LINE_HASH {
+      @Override
+      int first(InternedFields fields, int i) {
+        return fields.lines[i];
       }
-      LineAndMessageKey that = (LineAndMessageKey) o;
-      // start with most discriminant field
-      return Objects.equals(line, that.line)
-        && message.equals(that.message)
-        && ruleKey.equals(that.ruleKey);
-    }
 
-    @Override
-    public int hashCode() {
-      int result = ruleKey.hashCode();
-      result = 31 * result + message.hashCode();
-      result = 31 * result + (line != null ? line.hashCode() : 0);
-      return result;
-    }
-  }
-
-  private enum LineAndMessageKeyFactory implements SearchKeyFactory {
-    INSTANCE;
-    @Override
-    public SearchKey create(Trackable t) {
-      return new LineAndMessageKey(t);
-    }
-  }
+      @Override
+      int second(InternedFields fields, int i) {
+        return fields.lineHashes[i];
+      }
+    },
+    LINE_HASH_AND_MESSAGE {
+      @Override
+      int first(InternedFields fields, int i) {
+        return fields.lineHashes[i];
+      }
 
-  private static class LineHashKey implements SearchKey {
-    private final RuleKey ruleKey;
-    private final String lineHash;
+      @Override
+      int second(InternedFields fields, int i) {
+        return fields.messages[i];
+      }
+    },
+    LINE_AND_MESSAGE {
+      @Override
+      int first(InternedFields fields, int i) {
+        return fields.lines[i];
+      }
 
-    LineHashKey(Trackable trackable) {
-      this.ruleKey = trackable.getRuleKey();
-      this.lineHash = StringUtils.defaultString(trackable.getLineHash(), "");
-    }
+      @Override
+      int second(InternedFields fields, int i) {
+        return fields.messages[i];
+      }
+    },
+    LINE_HASH {
+      @Override
+      int first(InternedFields fields, int i) {
+        return fields.lineHashes[i];
+      }
 
-    @Override
-    public boolean equals(@Nonnull Object o) {
-      if (this == o) {
-        return true;
+      @Override
+      int second(InternedFields fields, int i) {
+        return 0;
       }
-      LineHashKey that = (LineHashKey) o;
-      // start with most discriminant field
-      return lineHash.equals(that.lineHash)
-        && ruleKey.equals(that.ruleKey);
-    }
+    };
 
-    @Override
-    public int hashCode() {
-      int result = ruleKey.hashCode();
-      result = 31 * result + lineHash.hashCode();
-      return result;
-    }
-  }
+    abstract int first(InternedFields fields, int i);
 
-  private enum LineHashKeyFactory implements SearchKeyFactory {
-    INSTANCE;
-    @Override
-    public SearchKey create(Trackable t) {
-      return new LineHashKey(t);
-    }
+    abstract int second(InternedFields fields, int i);
   }
 }
@@ -26,6 +26,7 @@ import java.io.StringWriter;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.Map;
+import javax.annotation.Nullable;
 import org.sonar.api.utils.text.JsonWriter;
 
 /**
@@ -155,10 +156,27 @@ public class ProtobufJsonFormat {
   public static void write(Message message, JsonWriter writer) {
     writer.setSerializeNulls(false).setSerializeEmptys(true);
     writer.beginObject();
-    writeMessage(message, writer);
+    writeMessage(message, null, writer);
     writer.endObject();
   }
 
+  /**
+   * Writes the fields of the message into the current JSON object, except the field named {@code excludedField}.
+   * Opening and closing the JSON object is the responsibility of the caller. Used to stream large repeated fields,
+   * whose elements are written one by one with {@link #writeObject(Message, JsonWriter)}.
+   */
+  public static void writeFields(Message message, String excludedField, JsonWriter writer) {
+    writer.setSerializeNulls(false).setSerializeEmptys(true);
+    writeMessage(message, excludedField, writer);
+  }
+
+  /**
+   * Writes a message as a JSON value, for example an element of an array.
+   */
+  public static void writeObject(Message message, JsonWriter writer) {
+    writeMessageValue(message, writer);
+  }
+
   public static String toJson(Message message) {
     StringWriter json = new StringWriter();
     try (JsonWriter jsonWriter = JsonWriter.of(json)) {
@@ -167,9 +185,12 @@ public class ProtobufJsonFormat {
     return json.toString();
   }
 
-  private static void writeMessage(Message message, JsonWriter writer) {
+  private static void writeMessage(Message message, @Nullable String excludedField, JsonWriter writer) {
     MessageType type = MessageType.of(message);
     for (Descriptors.FieldDescriptor fieldDescriptor : type.fieldDescriptors) {
+      if (fieldDescriptor.getName().equals(excludedField)) {
+        continue;
+      }
       if (fieldDescriptor.isRepeated()) {
         writer.name(fieldDescriptor.getName());
         if (fieldDescriptor.isMapField()) {
@@ -243,7 +264,7 @@ public class ProtobufJsonFormat {
       }
     } else {
       writer.beginObject();
-      writeMessage(message, writer);
+      writeMessage(message, null, writer);
       writer.endObject();
     }
   }
@@ -381,6 +381,53 @@ public class TrackerTest {
     assertThat(tracking.baseFor(raw1)).isEqualTo(base1);
   }
 
+  @Test
+  public void do_not_load_base_line_hashes_when_there_are_no_base_issues() {
+    FakeInput baseInput = new FakeInput("H1") {
+      @Override
+      public LineHashSequence getLineHashSequence() {
+        throw new IllegalStateException("line hashes must not be loaded");
+      }
+    };
+    FakeInput rawInput = new FakeInput("H1");
+    Issue raw = rawInput.createIssueOnLine(1, RULE_SYSTEM_PRINT, "msg");
+
+    Tracking<Issue, Issue> tracking = tracker.track(rawInput, baseInput);
+
+    assertThat(tracking.getUnmatchedRaws()).containsOnly(raw);
+  }
+
+  @Test
+  public void match_thousands_of_issues_in_order() {
+    int lines = 3_000;
+    String[] baseHashes = new String[lines];
+    String[] rawHashes = new String[lines + 1];
+    rawHashes[0] = "new line";
+    for (int i = 0; i < lines; i++) {
+      baseHashes[i] = "H" + (i % 1_000);
+      rawHashes[i + 1] = baseHashes[i];
+    }
+    FakeInput baseInput = new FakeInput(baseHashes);
+    FakeInput rawInput = new FakeInput(rawHashes);
+    List<Issue> bases = new ArrayList<>();
+    List<Issue> raws = new ArrayList<>();
+    for (int line = 1; line <= lines; line++) {
+      bases.add(baseInput.createIssueOnLine(line, RULE_SYSTEM_PRINT, "msg1"));
+      bases.add(baseInput.createIssueOnLine(line, RULE_SYSTEM_PRINT, "msg2"));
+      bases.add(baseInput.createIssueOnLine(line, RULE_UNUSED_LOCAL_VARIABLE, "msg1"));
+      raws.add(rawInput.createIssueOnLine(line + 1, RULE_SYSTEM_PRINT, "msg1"));
+      raws.add(rawInput.createIssueOnLine(line + 1, RULE_SYSTEM_PRINT, "msg2"));
+      raws.add(rawInput.createIssueOnLine(line + 1, RULE_UNUSED_LOCAL_VARIABLE, "msg1"));
+    }
+
+    Tracking<Issue, Issue> tracking = tracker.track(rawInput, baseInput);
+
+    assertThat(tracking.getUnmatchedBases()).isEmpty();
+    for (int i = 0; i < raws.size(); i++) {
+      assertThat(tracking.baseFor(raws.get(i))).isSameAs(bases.get(i));
+    }
+  }
+
   private static class Issue implements Trackable {
     private final RuleKey ruleKey;
     private final Integer line;
@@ -111,6 +111,24 @@ public class ProtobufJsonFormatTest {
     assertThat(toJson(msg)).isEqualTo("{\"strings\":[],\"nesteds\":[]}");
   }
 
+  @Test
+  public void write_fields_except_streamed_array() {
+    TestArray header = TestArray.newBuilder().addStrings("one").build();
+    StringWriter json = new StringWriter();
+
+    try (JsonWriter jsonWriter = JsonWriter.of(json)) {
+      jsonWriter.beginObject();
+      ProtobufJsonFormat.writeFields(header, "nesteds", jsonWriter);
+      jsonWriter.name("nesteds").beginArray();
+      ProtobufJsonFormat.writeObject(NestedMsg.newBuilder().setLabel("nestedOne").build(), jsonWriter);
+      ProtobufJsonFormat.writeObject(NestedMsg.newBuilder().setLabel("nestedTwo").build(), jsonWriter);
+      jsonWriter.endArray().endObject();
+    }
+
+    assertThat(json.toString())
+      .isEqualTo("{\"strings\":[\"one\"],\"nesteds\":[{\"label\":\"nestedOne\"},{\"label\":\"nestedTwo\"}]}");
+  }
+
   @Test
   public void do_not_write_null_wrapper_of_array() {
     TestNullableArray msg = TestNullableArray.newBuilder()
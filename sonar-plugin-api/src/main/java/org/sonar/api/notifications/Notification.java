@@ -25,6 +25,7 @@ import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 
 import java.io.Serializable;
+import java.util.Collections;
 import java.util.Map;
 
 /**
@@ -40,6 +41,9 @@ import java.util.Map;
  */
 public class Notification implements Serializable {
 
+  // value computed by Java before 6.4, so that notifications queued by previous versions can still be deserialized
+  private static final long serialVersionUID = 5663918219149894048L;
+
   private static final String DEFAULT_MESSAGE_KEY = "default_message";
 
   private final String type;
@@ -117,6 +121,15 @@ public class Notification implements Serializable {
     return fields.get(field);
   }
 
+  /**
+   * Returns all the fields of the notification, as an unmodifiable map.
+   *
+   * @since 6.4
+   */
+  public Map<String, String> getFields() {
+    return Collections.unmodifiableMap(fields);
+  }
+
   @Override
   public boolean equals(Object obj) {
     if (!(obj instanceof Notification)) {
@@ -19,9 +19,12 @@
  */
 package org.sonar.api.notifications;
 
+import java.util.Collection;
 import org.sonar.api.ExtensionPoint;
 import org.sonar.api.ce.ComputeEngineSide;
 import org.sonar.api.server.ServerSide;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
 
 /**
  * <p>
@@ -41,6 +44,8 @@ import org.sonar.api.server.ServerSide;
 @ExtensionPoint
 public abstract class NotificationChannel {
 
+  private static final Logger LOG = Loggers.get(NotificationChannel.class);
+
   /**
    * Returns the unique key of this channel. 
    * 
@@ -58,6 +63,26 @@ public abstract class NotificationChannel {
    */
   public abstract void deliver(Notification notification, String userlogin);
 
+  /**
+   * Implements the delivery of the given notification to several users. By default, the notification is delivered
+   * to each user with {@link #deliver(Notification, String)}, and a failure for one user does not prevent the
+   * delivery to the others. Channels can override this method to share work between the recipients, for example
+   * to format the notification only once.
+   *
+   * @param notification the notification to deliver
+   * @param userlogins the logins of the users who should receive the notification
+   * @since 6.4
+   */
+  public void deliver(Notification notification, Collection<String> userlogins) {
+    for (String userlogin : userlogins) {
+      try {
+        deliver(notification, userlogin);
+      } catch (Exception e) {
+        LOG.warn("Unable to deliver notification " + notification + " for user " + userlogin + " via " + this, e);
+      }
+    }
+  }
+
   @Override
   public String toString() {
     return getKey();
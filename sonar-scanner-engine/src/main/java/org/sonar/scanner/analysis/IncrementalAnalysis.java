@@ -0,0 +1,66 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.analysis;
+
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.api.config.Settings;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+/**
+ * Opt-in incremental analysis: the source code, syntax highlighting and symbols of files whose content did not change
+ * since the previous analysis (see {@link InputFile#status()}) are not added to the report. The files are flagged
+ * instead, so that the Compute Engine copies the data from the previous analysis.
+ * <p>
+ * This is only a first step: it makes the report and the persistence of sources smaller, but sensors and the
+ * detection of duplications still process every file. Issues, measures, coverage and duplications of an unchanged
+ * file can depend on changed files or on a new quality profile, so they can't be carried forward until plugins get
+ * an incremental contract.
+ * </p>
+ *
+ * @since 6.4
+ */
+public class IncrementalAnalysis {
+
+  public static final String ENABLED_PROPERTY = "sonar.scanner.incremental";
+
+  private static final Logger LOG = Loggers.get(IncrementalAnalysis.class);
+
+  private final boolean enabled;
+
+  public IncrementalAnalysis(Settings settings, DefaultAnalysisMode analysisMode) {
+    this.enabled = settings.getBoolean(ENABLED_PROPERTY) && analysisMode.isPublish();
+    if (enabled) {
+      LOG.info("Incremental analysis: source of unchanged files is reused, sensors still analyze all files");
+    }
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /**
+   * Whether the data of the file from the previous analysis can be reused instead of being added to the report.
+   */
+  public boolean reusesPreviousSource(DefaultInputFile inputFile) {
+    return enabled && inputFile.status() == InputFile.Status.SAME;
+  }
+}
@@ -27,6 +27,7 @@ import org.sonar.core.component.DefaultResourceTypes;
 import org.sonar.core.config.CorePropertyDefinitions;
 import org.sonar.core.issue.tracking.Tracker;
 import org.sonar.scanner.cpd.CpdComponents;
+import org.sonar.scanner.cpd.index.CpdBlockCache;
 import org.sonar.scanner.genericcoverage.GenericCoverageSensor;
 import org.sonar.scanner.genericcoverage.GenericTestExecutionSensor;
 import org.sonar.scanner.issue.tracking.ServerIssueFromWs;
@@ -69,6 +70,7 @@ public class BatchComponents {
 
       // CPD
       components.addAll(CpdComponents.all());
+      components.addAll(CpdBlockCache.properties());
 
       // Generic coverage
       components.add(GenericCoverageSensor.class);
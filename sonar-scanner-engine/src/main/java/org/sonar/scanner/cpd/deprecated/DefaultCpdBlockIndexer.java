@@ -22,6 +22,7 @@ package org.sonar.scanner.cpd.deprecated;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
 import java.util.List;
+import java.util.Optional;
 import org.sonar.api.CoreProperties;
 import org.sonar.api.batch.CpdMapping;
 import org.sonar.api.batch.fs.FilePredicates;
@@ -33,6 +34,7 @@ import org.sonar.api.utils.log.Logger;
 import org.sonar.api.utils.log.Loggers;
 import org.sonar.duplications.block.Block;
 import org.sonar.duplications.internal.pmd.TokenizerBridge;
+import org.sonar.scanner.cpd.index.CpdBlockCache;
 import org.sonar.scanner.cpd.index.SonarCpdBlockIndex;
 
 public class DefaultCpdBlockIndexer extends CpdBlockIndexer {
@@ -43,12 +45,14 @@ public class DefaultCpdBlockIndexer extends CpdBlockIndexer {
   private final FileSystem fs;
   private final Settings settings;
   private final SonarCpdBlockIndex index;
+  private final CpdBlockCache cache;
 
-  public DefaultCpdBlockIndexer(CpdMappings mappings, FileSystem fs, Settings settings, SonarCpdBlockIndex index) {
+  public DefaultCpdBlockIndexer(CpdMappings mappings, FileSystem fs, Settings settings, SonarCpdBlockIndex index, CpdBlockCache cache) {
     this.mappings = mappings;
     this.fs = fs;
     this.settings = settings;
     this.index = index;
+    this.cache = cache;
   }
 
   @Override
@@ -80,12 +84,21 @@ public class DefaultCpdBlockIndexer extends CpdBlockIndexer {
   }
 
   private void populateIndex(String languageKey, List<InputFile> sourceFiles, CpdMapping mapping) {
-    TokenizerBridge bridge = new TokenizerBridge(mapping.getTokenizer(), fs.encoding().name(), getBlockSize(languageKey));
+    int blockSize = getBlockSize(languageKey);
+    TokenizerBridge bridge = new TokenizerBridge(mapping.getTokenizer(), fs.encoding().name(), blockSize);
+    String tokenizerId = cache.tokenizerId(mapping.getTokenizer().getClass());
     for (InputFile inputFile : sourceFiles) {
       if (!index.isIndexed(inputFile)) {
+        DefaultInputFile defaultInputFile = (DefaultInputFile) inputFile;
+        Optional<List<Block>> cachedBlocks = cache.get(defaultInputFile, blockSize, tokenizerId);
+        if (cachedBlocks.isPresent()) {
+          LOG.debug("Populating index from cache for {}", inputFile.absolutePath());
+          index.insert(inputFile, cachedBlocks.get());
+          continue;
+        }
         LOG.debug("Populating index from {}", inputFile.absolutePath());
-        String resourceEffectiveKey = ((DefaultInputFile) inputFile).key();
-        List<Block> blocks = bridge.chunk(resourceEffectiveKey, inputFile.file());
+        List<Block> blocks = bridge.chunk(defaultInputFile.key(), inputFile.file());
+        cache.put(defaultInputFile, blockSize, tokenizerId, blocks);
         index.insert(inputFile, blocks);
       }
     }
@@ -27,6 +27,7 @@ import java.io.InputStream;
 import java.io.InputStreamReader;
 import java.io.Reader;
 import java.util.List;
+import java.util.Optional;
 import org.sonar.api.CoreProperties;
 import org.sonar.api.batch.fs.FilePredicates;
 import org.sonar.api.batch.fs.FileSystem;
@@ -42,6 +43,7 @@ import org.sonar.duplications.java.JavaTokenProducer;
 import org.sonar.duplications.statement.Statement;
 import org.sonar.duplications.statement.StatementChunker;
 import org.sonar.duplications.token.TokenChunker;
+import org.sonar.scanner.cpd.index.CpdBlockCache;
 import org.sonar.scanner.cpd.index.SonarCpdBlockIndex;
 
 public class JavaCpdBlockIndexer extends CpdBlockIndexer {
@@ -53,11 +55,13 @@ public class JavaCpdBlockIndexer extends CpdBlockIndexer {
   private final FileSystem fs;
   private final Settings settings;
   private final SonarCpdBlockIndex index;
+  private final CpdBlockCache cache;
 
-  public JavaCpdBlockIndexer(FileSystem fs, Settings settings, SonarCpdBlockIndex index) {
+  public JavaCpdBlockIndexer(FileSystem fs, Settings settings, SonarCpdBlockIndex index, CpdBlockCache cache) {
     this.fs = fs;
     this.settings = settings;
     this.index = index;
+    this.cache = cache;
   }
 
   @Override
@@ -84,10 +88,18 @@ public class JavaCpdBlockIndexer extends CpdBlockIndexer {
     TokenChunker tokenChunker = JavaTokenProducer.build();
     StatementChunker statementChunker = JavaStatementBuilder.build();
     BlockChunker blockChunker = new BlockChunker(BLOCK_SIZE);
+    String tokenizerId = cache.tokenizerId(JavaTokenProducer.class);
 
     for (InputFile inputFile : sourceFiles) {
+      DefaultInputFile defaultInputFile = (DefaultInputFile) inputFile;
+      Optional<List<Block>> cachedBlocks = cache.get(defaultInputFile, BLOCK_SIZE, tokenizerId);
+      if (cachedBlocks.isPresent()) {
+        LOG.debug("Populating index from cache for {}", inputFile);
+        index.insert(inputFile, cachedBlocks.get());
+        continue;
+      }
       LOG.debug("Populating index from {}", inputFile);
-      String resourceEffectiveKey = ((DefaultInputFile) inputFile).key();
+      String resourceEffectiveKey = defaultInputFile.key();
 
       List<Statement> statements;
 
@@ -101,6 +113,7 @@ public class JavaCpdBlockIndexer extends CpdBlockIndexer {
       }
 
       List<Block> blocks = blockChunker.chunk(resourceEffectiveKey, statements);
+      cache.put(defaultInputFile, BLOCK_SIZE, tokenizerId, blocks);
       index.insert(inputFile, blocks);
     }
   }
@@ -0,0 +1,281 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.cpd.index;
+
+import com.google.common.collect.ImmutableList;
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+import javax.annotation.CheckForNull;
+import org.apache.commons.codec.digest.DigestUtils;
+import org.apache.commons.lang.StringUtils;
+import org.picocontainer.Startable;
+import org.sonar.api.CoreProperties;
+import org.sonar.api.PropertyType;
+import org.sonar.api.SonarRuntime;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.api.config.PropertyDefinition;
+import org.sonar.api.config.Settings;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+import org.sonar.duplications.block.Block;
+import org.sonar.duplications.block.ByteArray;
+import org.sonar.home.cache.FileCache;
+import org.sonar.scanner.bootstrap.ScannerPluginRepository;
+import org.sonar.updatecenter.common.Version;
+
+/**
+ * Persistent cache of the CPD blocks of files, stored in the user cache so that it survives the cleaning
+ * of the working directory between analyses.
+ * <p/>
+ * Entries are keyed by the hash of the file content, its language, the block size and the tokenizer, so that
+ * files which did not change since the previous analysis do not need to be tokenized again. The resource
+ * id of the blocks is not stored: it is set to the key of the file when the blocks are loaded.
+ * <p/>
+ * Entries start with a magic number and the version of the format, and end with a CRC32 checksum. Entries which
+ * are truncated or corrupted are ignored.
+ * <p/>
+ * Entries which have not been read nor written for {@link #MAX_AGE_DAYS} days are deleted at the end of the analysis.
+ */
+public class CpdBlockCache implements Startable {
+
+  public static final String ENABLED_PROPERTY = "sonar.cpd.cache.enabled";
+
+  static final String DIR_NAME = "_cpd";
+  static final int MAX_AGE_DAYS = 30;
+  private static final int MAGIC = 0x43504442;
+  // to be incremented when the serialization format changes
+  private static final int FORMAT_VERSION = 2;
+  private static final int HEADER_SIZE = 3 * Integer.BYTES;
+  private static final int CHECKSUM_SIZE = Long.BYTES;
+  // length of hash followed by index, lines and units
+  private static final int MIN_BLOCK_SIZE = 6 * Integer.BYTES;
+
+  private static final Logger LOG = Loggers.get(CpdBlockCache.class);
+
+  private final File dir;
+  private final boolean enabled;
+  private final ScannerPluginRepository pluginRepository;
+  private final SonarRuntime sonarRuntime;
+  private int hits = 0;
+  private int misses = 0;
+
+  public CpdBlockCache(FileCache fileCache, Settings settings, ScannerPluginRepository pluginRepository, SonarRuntime sonarRuntime) {
+    this.dir = new File(fileCache.getDir(), DIR_NAME);
+    this.enabled = settings.getBoolean(ENABLED_PROPERTY);
+    this.pluginRepository = pluginRepository;
+    this.sonarRuntime = sonarRuntime;
+  }
+
+  public static List<PropertyDefinition> properties() {
+    return ImmutableList.of(
+      PropertyDefinition.builder(ENABLED_PROPERTY)
+        .name("CPD block cache")
+        .description("Keep the duplication blocks of files in the user cache, so that files which did not change since "
+          + "the previous analysis do not need to be tokenized again.")
+        .defaultValue(Boolean.toString(true))
+        .type(PropertyType.BOOLEAN)
+        .category(CoreProperties.CATEGORY_GENERAL)
+        .subCategory(CoreProperties.SUBCATEGORY_DUPLICATIONS)
+        .hidden()
+        .build());
+  }
+
+  @Override
+  public void start() {
+    // nothing to do
+  }
+
+  @Override
+  public void stop() {
+    if (hits + misses > 0) {
+      LOG.debug("CPD block cache: {} hit(s), {} miss(es)", hits, misses);
+    }
+    if (enabled) {
+      purgeOldEntries();
+    }
+  }
+
+  /**
+   * Blocks of the file, or empty if the file has never been chunked with the same block size and tokenizer.
+   *
+   * @param tokenizerId identifies the tokenizer and its version, as the blocks depend on them
+   */
+  public Optional<List<Block>> get(DefaultInputFile inputFile, int blockSize, String tokenizerId) {
+    File entry = entryFile(inputFile, blockSize, tokenizerId);
+    if (entry == null || !entry.isFile()) {
+      misses++;
+      return Optional.empty();
+    }
+    try {
+      List<Block> blocks = read(Files.readAllBytes(entry.toPath()), inputFile.key());
+      touch(entry.toPath());
+      hits++;
+      return Optional.of(blocks);
+    } catch (IOException | RuntimeException e) {
+      // corrupted or concurrently written entry, file will be chunked again
+      LOG.debug("Fail to read CPD blocks from cache: " + entry, e);
+      misses++;
+      return Optional.empty();
+    }
+  }
+
+  public void put(DefaultInputFile inputFile, int blockSize, String tokenizerId, List<Block> blocks) {
+    File entry = entryFile(inputFile, blockSize, tokenizerId);
+    if (entry == null) {
+      return;
+    }
+    try {
+      Files.createDirectories(entry.getParentFile().toPath());
+      // write to a temp file then rename, so that concurrent analyses never read partial entries
+      Path tmp = Files.createTempFile(entry.getParentFile().toPath(), entry.getName(), ".tmp");
+      try (OutputStream out = new BufferedOutputStream(Files.newOutputStream(tmp))) {
+        write(out, blocks);
+      }
+      Files.move(tmp, entry.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    } catch (IOException e) {
+      // the cache is an optimization, analysis must not fail
+      LOG.debug("Fail to write CPD blocks to cache: " + entry, e);
+    }
+  }
+
+  /**
+   * Identifier of a tokenizer for {@link #get(DefaultInputFile, int, String)}, made of its class, of the key and
+   * version of the plugin it is loaded from, if any, and of the version of SonarQube, which provides sonar-duplications
+   * to the scanner.
+   */
+  public String tokenizerId(Class<?> tokenizerClass) {
+    String pluginKey = pluginRepository.getPluginKey(tokenizerClass.getClassLoader());
+    String pluginVersion = null;
+    if (pluginKey != null) {
+      Version version = pluginRepository.getPluginInfo(pluginKey).getVersion();
+      pluginVersion = version == null ? null : version.toString();
+    }
+    return tokenizerClass.getName() + ":" + StringUtils.defaultString(pluginKey) + ":" + StringUtils.defaultString(pluginVersion)
+      + ":" + sonarRuntime.getApiVersion();
+  }
+
+  @CheckForNull
+  private File entryFile(DefaultInputFile inputFile, int blockSize, String tokenizerId) {
+    String fileHash = inputFile.hash();
+    if (!enabled || StringUtils.isEmpty(fileHash)) {
+      return null;
+    }
+    String key = DigestUtils.sha1Hex(FORMAT_VERSION + ":" + inputFile.language() + ":" + blockSize + ":" + tokenizerId + ":" + fileHash);
+    // sub-directories avoid too many files in a single directory
+    return new File(new File(dir, key.substring(0, 2)), key);
+  }
+
+  private static void write(OutputStream output, List<Block> blocks) throws IOException {
+    CRC32 checksum = new CRC32();
+    DataOutputStream out = new DataOutputStream(new CheckedOutputStream(output, checksum));
+    out.writeInt(MAGIC);
+    out.writeInt(FORMAT_VERSION);
+    out.writeInt(blocks.size());
+    for (Block block : blocks) {
+      byte[] hash = block.getBlockHash().getBytes();
+      out.writeInt(hash.length);
+      out.write(hash);
+      out.writeInt(block.getIndexInFile());
+      out.writeInt(block.getStartLine());
+      out.writeInt(block.getEndLine());
+      out.writeInt(block.getStartUnit());
+      out.writeInt(block.getEndUnit());
+    }
+    out.flush();
+    new DataOutputStream(output).writeLong(checksum.getValue());
+  }
+
+  /**
+   * Counts and lengths are checked against the size of the entry before allocating anything,
+   * so that a corrupted entry can't make the analysis run out of memory.
+   */
+  private static List<Block> read(byte[] bytes, String resourceId) throws IOException {
+    if (bytes.length < HEADER_SIZE + CHECKSUM_SIZE) {
+      throw new IOException("Entry is truncated");
+    }
+    int dataLength = bytes.length - CHECKSUM_SIZE;
+    CRC32 checksum = new CRC32();
+    checksum.update(bytes, 0, dataLength);
+    ByteBuffer in = ByteBuffer.wrap(bytes);
+    if (in.getLong(dataLength) != checksum.getValue()) {
+      throw new IOException("Checksum of entry does not match");
+    }
+    in.limit(dataLength);
+    if (in.getInt() != MAGIC || in.getInt() != FORMAT_VERSION) {
+      throw new IOException("Unsupported format of entry");
+    }
+    int size = in.getInt();
+    if (size < 0 || size > in.remaining() / MIN_BLOCK_SIZE) {
+      throw new IOException("Invalid number of blocks: " + size);
+    }
+    List<Block> blocks = new ArrayList<>(size);
+    Block.Builder builder = Block.builder().setResourceId(resourceId);
+    for (int i = 0; i < size; i++) {
+      int hashLength = in.getInt();
+      if (hashLength < 0 || hashLength > in.remaining()) {
+        throw new IOException("Invalid length of block hash: " + hashLength);
+      }
+      byte[] hash = new byte[hashLength];
+      in.get(hash);
+      builder.setBlockHash(new ByteArray(hash))
+        .setIndexInFile(in.getInt())
+        .setLines(in.getInt(), in.getInt())
+        .setUnit(in.getInt(), in.getInt());
+      blocks.add(builder.build());
+    }
+    if (in.hasRemaining()) {
+      throw new IOException("Unexpected data at the end of entry");
+    }
+    return blocks;
+  }
+
+  private static void touch(Path path) throws IOException {
+    Files.setLastModifiedTime(path, FileTime.fromMillis(System.currentTimeMillis()));
+  }
+
+  private void purgeOldEntries() {
+    if (!dir.isDirectory()) {
+      return;
+    }
+    long threshold = System.currentTimeMillis() - TimeUnit.DAYS.toMillis(MAX_AGE_DAYS);
+    try (Stream<Path> paths = Files.walk(dir.toPath())) {
+      paths.filter(Files::isRegularFile)
+        .filter(p -> p.toFile().lastModified() < threshold)
+        .forEach(p -> p.toFile().delete());
+    } catch (IOException | RuntimeException e) {
+      LOG.debug("Fail to purge CPD block cache: " + dir, e);
+    }
+  }
+}
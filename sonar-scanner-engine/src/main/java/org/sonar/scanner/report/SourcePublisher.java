@@ -23,6 +23,7 @@ import org.apache.commons.io.ByteOrderMark;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.io.input.BOMInputStream;
 import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.scanner.analysis.IncrementalAnalysis;
 import org.sonar.scanner.protocol.output.ScannerReportWriter;
 import org.sonar.scanner.scan.filesystem.InputComponentStore;
 
@@ -37,14 +38,19 @@ import java.nio.charset.StandardCharsets;
 public class SourcePublisher implements ReportPublisherStep {
 
   private final InputComponentStore componentCache;
+  private final IncrementalAnalysis incrementalAnalysis;
 
-  public SourcePublisher(InputComponentStore componentStore) {
+  public SourcePublisher(InputComponentStore componentStore, IncrementalAnalysis incrementalAnalysis) {
     this.componentCache = componentStore;
+    this.incrementalAnalysis = incrementalAnalysis;
   }
 
   @Override
   public void publish(ScannerReportWriter writer) {
     for (final DefaultInputFile inputFile : componentCache.allFilesToPublish()) {
+      if (incrementalAnalysis.reusesPreviousSource(inputFile)) {
+        continue;
+      }
       File iofile = writer.getSourceFile(inputFile.batchId());
 
       try (FileOutputStream output = new FileOutputStream(iofile);
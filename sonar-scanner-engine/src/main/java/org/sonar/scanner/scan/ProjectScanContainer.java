@@ -38,11 +38,13 @@ import org.sonar.scanner.ProjectAnalysisInfo;
 import org.sonar.scanner.analysis.AnalysisProperties;
 import org.sonar.scanner.analysis.AnalysisTempFolderProvider;
 import org.sonar.scanner.analysis.DefaultAnalysisMode;
+import org.sonar.scanner.analysis.IncrementalAnalysis;
 import org.sonar.scanner.bootstrap.ExtensionInstaller;
 import org.sonar.scanner.bootstrap.ExtensionMatcher;
 import org.sonar.scanner.bootstrap.ExtensionUtils;
 import org.sonar.scanner.bootstrap.MetricProvider;
 import org.sonar.scanner.cpd.CpdExecutor;
+import org.sonar.scanner.cpd.index.CpdBlockCache;
 import org.sonar.scanner.cpd.index.SonarCpdBlockIndex;
 import org.sonar.scanner.deprecated.test.TestPlanBuilder;
 import org.sonar.scanner.deprecated.test.TestableBuilder;
@@ -125,6 +127,7 @@ public class ProjectScanContainer extends ComponentContainer {
     add(
       props,
       DefaultAnalysisMode.class,
+      IncrementalAnalysis.class,
       ProjectReactorBuilder.class,
       WorkDirectoryCleaner.class,
       new MutableProjectReactorProvider(),
@@ -199,6 +202,7 @@ public class ProjectScanContainer extends ComponentContainer {
       // Cpd
       CpdExecutor.class,
       SonarCpdBlockIndex.class,
+      CpdBlockCache.class,
 
       ScanTaskObservers.class,
       UserRepositoryLoader.class);
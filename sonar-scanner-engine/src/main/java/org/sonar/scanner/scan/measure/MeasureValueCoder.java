@@ -19,15 +19,30 @@
  */
 package org.sonar.scanner.scan.measure;
 
-import com.persistit.Value;
-import com.persistit.encoding.CoderContext;
-import com.persistit.encoding.ValueCoder;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
 import org.sonar.api.batch.measure.MetricFinder;
 import org.sonar.api.batch.sensor.measure.internal.DefaultMeasure;
+import org.sonar.scanner.storage.ValueCoder;
 
 class MeasureValueCoder implements ValueCoder {
 
+  private static final byte INTEGER = 0;
+  private static final byte LONG = 1;
+  private static final byte DOUBLE = 2;
+  private static final byte BOOLEAN = 3;
+  private static final byte STRING = 4;
+  private static final byte SERIALIZABLE = 5;
+  // strings are encoded by chunks, so that large values, like data of coverage, are not copied at once
+  private static final int STRING_CHUNK_LENGTH = 8 * 1024;
+
   private final MetricFinder metricFinder;
 
   public MeasureValueCoder(MetricFinder metricFinder) {
@@ -35,22 +50,145 @@ class MeasureValueCoder implements ValueCoder {
   }
 
   @Override
-  public void put(Value value, Object object, CoderContext context) {
+  public void write(Object object, DataOutput output) throws IOException {
     DefaultMeasure<?> m = (DefaultMeasure<?>) object;
     org.sonar.api.batch.measure.Metric<?> metric = m.metric();
-    value.putString(metric.key());
-    value.put(m.value());
+    output.writeUTF(metric.key());
+    writeValue(m.value(), output);
+  }
+
+  @Override
+  public int sizeOf(Object object) {
+    DefaultMeasure<?> m = (DefaultMeasure<?>) object;
+    String metricKey = m.metric().key();
+    Serializable value = m.value();
+    int valueSize;
+    if (value instanceof Integer) {
+      valueSize = Integer.BYTES;
+    } else if (value instanceof Long) {
+      valueSize = Long.BYTES;
+    } else if (value instanceof Double) {
+      valueSize = Double.BYTES;
+    } else if (value instanceof Boolean) {
+      valueSize = 1;
+    } else if (value instanceof String) {
+      valueSize = Integer.BYTES + utf8Length((String) value);
+    } else {
+      return -1;
+    }
+    // metric keys are ASCII, so modified UTF-8 of DataOutput#writeUTF() is the same as UTF-8
+    return 2 + utf8Length(metricKey) + 1 + valueSize;
+  }
+
+  /**
+   * Same as {@code value.getBytes(UTF_8).length}, without encoding the string. Unpaired surrogates
+   * are replaced by one byte.
+   */
+  private static int utf8Length(String value) {
+    int length = 0;
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c < 0x80) {
+        length++;
+      } else if (c < 0x800) {
+        length += 2;
+      } else if (Character.isHighSurrogate(c) && i + 1 < value.length() && Character.isLowSurrogate(value.charAt(i + 1))) {
+        length += 4;
+        i++;
+      } else if (Character.isSurrogate(c)) {
+        length++;
+      } else {
+        length += 3;
+      }
+    }
+    return length;
+  }
+
+  private static void writeValue(Serializable value, DataOutput output) throws IOException {
+    if (value instanceof Integer) {
+      output.writeByte(INTEGER);
+      output.writeInt((Integer) value);
+    } else if (value instanceof Long) {
+      output.writeByte(LONG);
+      output.writeLong((Long) value);
+    } else if (value instanceof Double) {
+      output.writeByte(DOUBLE);
+      output.writeDouble((Double) value);
+    } else if (value instanceof Boolean) {
+      output.writeByte(BOOLEAN);
+      output.writeBoolean((Boolean) value);
+    } else if (value instanceof String) {
+      // DataOutput#writeUTF() does not support strings bigger than 64Kb, for example data of coverage
+      output.writeByte(STRING);
+      writeString((String) value, output);
+    } else {
+      output.writeByte(SERIALIZABLE);
+      ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+      try (ObjectOutputStream objectOutput = new ObjectOutputStream(bytes)) {
+        objectOutput.writeObject(value);
+      }
+      writeBytes(bytes.toByteArray(), output);
+    }
+  }
+
+  private static void writeString(String value, DataOutput output) throws IOException {
+    output.writeInt(utf8Length(value));
+    int start = 0;
+    while (start < value.length()) {
+      int end = Math.min(value.length(), start + STRING_CHUNK_LENGTH);
+      if (end < value.length() && Character.isHighSurrogate(value.charAt(end - 1))) {
+        // do not split surrogate pairs
+        end--;
+      }
+      output.write(value.substring(start, end).getBytes(StandardCharsets.UTF_8));
+      start = end;
+    }
+  }
+
+  private static void writeBytes(byte[] bytes, DataOutput output) throws IOException {
+    output.writeInt(bytes.length);
+    output.write(bytes);
   }
 
   @Override
-  public Object get(Value value, Class clazz, CoderContext context) {
-    String metricKey = value.getString();
+  public Object read(DataInput input) throws IOException {
+    String metricKey = input.readUTF();
     org.sonar.api.batch.measure.Metric<?> metric = metricFinder.findByKey(metricKey);
     if (metric == null) {
       throw new IllegalStateException("Unknow metric with key " + metricKey);
     }
     return new DefaultMeasure()
       .forMetric(metric)
-      .withValue((Serializable) value.get());
+      .withValue(readValue(input));
+  }
+
+  private static Serializable readValue(DataInput input) throws IOException {
+    byte type = input.readByte();
+    switch (type) {
+      case INTEGER:
+        return input.readInt();
+      case LONG:
+        return input.readLong();
+      case DOUBLE:
+        return input.readDouble();
+      case BOOLEAN:
+        return input.readBoolean();
+      case STRING:
+        return new String(readBytes(input), StandardCharsets.UTF_8);
+      case SERIALIZABLE:
+        try (ObjectInputStream objectInput = new ObjectInputStream(new ByteArrayInputStream(readBytes(input)))) {
+          return (Serializable) objectInput.readObject();
+        } catch (ClassNotFoundException e) {
+          throw new IllegalStateException("Fail to read value of measure", e);
+        }
+      default:
+        throw new IllegalStateException("Unsupported type of measure value: " + type);
+    }
+  }
+
+  private static byte[] readBytes(DataInput input) throws IOException {
+    byte[] bytes = new byte[input.readInt()];
+    input.readFully(bytes);
+    return bytes;
   }
 }
@@ -0,0 +1,193 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.storage;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.CheckForNull;
+import org.sonar.scanner.storage.Storage.Key;
+
+/**
+ * Immutable sequence of records sorted by key, written by a {@link Storage} into a {@link SpillFile}.
+ * A record is made of the encoded key followed by the encoded value, or by a marker of deletion.
+ * <p>
+ * Only one key out of {@link #INDEX_INTERVAL} is kept in memory, in an array along with the offsets
+ * of the records, so that a key is searched by a binary search on the index followed by a short
+ * sequential scan of the file.
+ * </p>
+ */
+class SortedRun {
+
+  static final int INDEX_INTERVAL = 32;
+  private static final int DELETED = -1;
+
+  private final SpillFile file;
+  private final Key[] indexKeys;
+  private final int[] indexOffsets;
+  private final int end;
+
+  private SortedRun(SpillFile file, Key[] indexKeys, int[] indexOffsets) {
+    this.file = file;
+    this.indexKeys = indexKeys;
+    this.indexOffsets = indexOffsets;
+    this.end = (int) file.size();
+  }
+
+  /**
+   * Writes records, that must be sorted by key, and seals the file. A null value marks a deleted key.
+   */
+  static SortedRun write(SpillFile file, Iterator<Map.Entry<Key, byte[]>> records) {
+    List<Key> indexKeys = new ArrayList<>();
+    int[] indexOffsets = new int[16];
+    int count = 0;
+    while (records.hasNext()) {
+      Map.Entry<Key, byte[]> record = records.next();
+      byte[] keyBytes = record.getKey().encode();
+      int offset = file.appendInt(keyBytes.length);
+      file.append(keyBytes);
+      byte[] value = record.getValue();
+      if (value == null) {
+        file.appendInt(DELETED);
+      } else {
+        file.appendInt(value.length);
+        file.append(value);
+      }
+      if (count % INDEX_INTERVAL == 0) {
+        if (indexKeys.size() == indexOffsets.length) {
+          indexOffsets = Arrays.copyOf(indexOffsets, indexOffsets.length * 2);
+        }
+        indexOffsets[indexKeys.size()] = offset;
+        indexKeys.add(record.getKey());
+      }
+      count++;
+    }
+    file.seal();
+    return new SortedRun(file, indexKeys.toArray(new Key[indexKeys.size()]), Arrays.copyOf(indexOffsets, indexKeys.size()));
+  }
+
+  long size() {
+    return end;
+  }
+
+  /**
+   * @return cursor on the first record whose key is strictly greater than the given key. It is
+   * not valid if there is no such record.
+   */
+  Cursor higher(Key key) {
+    Cursor cursor = new Cursor(startOffset(key));
+    while (cursor.isValid() && cursor.key().compareTo(key) <= 0) {
+      cursor.next();
+    }
+    return cursor;
+  }
+
+  /**
+   * @return cursor on the record of the given key, or null if this run does not contain the key
+   */
+  @CheckForNull
+  Cursor find(Key key) {
+    Cursor cursor = new Cursor(startOffset(key));
+    while (cursor.isValid()) {
+      int cmp = cursor.key().compareTo(key);
+      if (cmp == 0) {
+        return cursor;
+      }
+      if (cmp > 0) {
+        return null;
+      }
+      cursor.next();
+    }
+    return null;
+  }
+
+  /**
+   * Offset of the last indexed record whose key is lower than or equal to the given key
+   */
+  private int startOffset(Key key) {
+    int low = 0;
+    int high = indexKeys.length - 1;
+    int found = -1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      if (indexKeys[middle].compareTo(key) <= 0) {
+        found = middle;
+        low = middle + 1;
+      } else {
+        high = middle - 1;
+      }
+    }
+    return found < 0 ? 0 : indexOffsets[found];
+  }
+
+  void delete() {
+    file.delete();
+  }
+
+  /**
+   * Position on a record of the run. Must not be used once the run is deleted.
+   */
+  class Cursor {
+    private Key key;
+    private int valueOffset;
+    private int valueLength;
+
+    private Cursor(int offset) {
+      moveTo(offset);
+    }
+
+    private void moveTo(int offset) {
+      if (offset >= end) {
+        key = null;
+        return;
+      }
+      int keyLength = file.readInt(offset);
+      key = Key.decode(file.read(offset + Integer.BYTES, keyLength));
+      valueLength = file.readInt(offset + Integer.BYTES + keyLength);
+      valueOffset = offset + 2 * Integer.BYTES + keyLength;
+    }
+
+    boolean isValid() {
+      return key != null;
+    }
+
+    Key key() {
+      return key;
+    }
+
+    boolean isDeleted() {
+      return valueLength == DELETED;
+    }
+
+    /**
+     * @return the encoded value, or null if the key is deleted
+     */
+    @CheckForNull
+    byte[] value() {
+      return isDeleted() ? null : file.read(valueOffset, valueLength);
+    }
+
+    void next() {
+      moveTo(valueOffset + Math.max(valueLength, 0));
+    }
+  }
+}
@@ -0,0 +1,164 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.storage;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import org.apache.commons.io.IOUtils;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import static com.google.common.base.Preconditions.checkState;
+import static org.sonar.core.util.FileUtils.deleteQuietly;
+
+/**
+ * Append-only file in which a {@link Storage} writes a {@link SortedRun} when its values
+ * do not fit in memory anymore. Once sealed, the file is memory-mapped and records are
+ * read directly from the mapped buffer.
+ */
+class SpillFile {
+
+  private static final Logger LOG = Loggers.get(SpillFile.class);
+
+  private final File file;
+  private DataOutputStream output;
+  private long size = 0L;
+  private ByteBuffer buffer;
+
+  SpillFile(File file) {
+    this.file = file;
+    try {
+      this.output = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file)));
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to create storage file " + file, e);
+    }
+  }
+
+  /**
+   * @return the offset of the bytes in the file
+   */
+  int append(byte[] bytes) {
+    checkState(output != null, "Storage file %s is sealed", file);
+    checkState(size + bytes.length <= Integer.MAX_VALUE, "Storage file %s is full", file);
+    try {
+      output.write(bytes);
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to write storage file " + file, e);
+    }
+    int offset = (int) size;
+    size += bytes.length;
+    return offset;
+  }
+
+  /**
+   * @return the offset of the integer in the file
+   */
+  int appendInt(int i) {
+    checkState(output != null, "Storage file %s is sealed", file);
+    checkState(size + Integer.BYTES <= Integer.MAX_VALUE, "Storage file %s is full", file);
+    try {
+      output.writeInt(i);
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to write storage file " + file, e);
+    }
+    int offset = (int) size;
+    size += Integer.BYTES;
+    return offset;
+  }
+
+  long size() {
+    return size;
+  }
+
+  void seal() {
+    try {
+      output.close();
+      output = null;
+      try (RandomAccessFile randomAccessFile = new RandomAccessFile(file, "r")) {
+        buffer = randomAccessFile.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, size);
+      }
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to map storage file " + file, e);
+    }
+  }
+
+  byte[] read(int offset, int length) {
+    checkState(buffer != null, "Storage file %s is not sealed", file);
+    byte[] bytes = new byte[length];
+    ByteBuffer view = buffer.duplicate();
+    view.position(offset);
+    view.get(bytes);
+    return bytes;
+  }
+
+  int readInt(int offset) {
+    checkState(buffer != null, "Storage file %s is not sealed", file);
+    return buffer.getInt(offset);
+  }
+
+  void delete() {
+    ByteBuffer mapped = buffer;
+    buffer = null;
+    if (mapped != null) {
+      unmap(mapped);
+    }
+    IOUtils.closeQuietly(output);
+    output = null;
+    deleteQuietly(file);
+  }
+
+  /**
+   * Releases the mapping right now instead of when the buffer is garbage collected, so that
+   * virtual memory is given back and the file can be deleted on Windows. The buffer must not
+   * be read anymore.
+   */
+  private static void unmap(ByteBuffer buffer) {
+    try {
+      Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+      try {
+        // Java 9 and later
+        Method invokeCleaner = unsafeClass.getMethod("invokeCleaner", ByteBuffer.class);
+        Field theUnsafe = unsafeClass.getDeclaredField("theUnsafe");
+        theUnsafe.setAccessible(true);
+        invokeCleaner.invoke(theUnsafe.get(null), buffer);
+      } catch (NoSuchMethodException e) {
+        // Java 8
+        Method cleanerMethod = buffer.getClass().getMethod("cleaner");
+        cleanerMethod.setAccessible(true);
+        Object cleaner = cleanerMethod.invoke(buffer);
+        if (cleaner != null) {
+          Method clean = cleaner.getClass().getMethod("clean");
+          clean.setAccessible(true);
+          clean.invoke(cleaner);
+        }
+      }
+    } catch (Exception e) {
+      LOG.debug("Fail to unmap storage file, it will be released by garbage collection", e);
+    }
+  }
+}
@@ -19,456 +19,670 @@
  */
 package org.sonar.scanner.storage;
 
-import com.google.common.collect.Sets;
-import com.persistit.Exchange;
-import com.persistit.Key;
-import com.persistit.KeyFilter;
-import com.persistit.exception.PersistitException;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterators;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
 import java.util.NoSuchElementException;
 import java.util.Set;
+import java.util.TreeMap;
+import java.util.function.BiFunction;
 import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
 import org.apache.commons.lang.builder.ToStringBuilder;
 
+import static java.nio.charset.StandardCharsets.UTF_8;
+
 /**
+ * Sorted storage of values identified by keys of one or more parts, for example
+ * component key and metric key.
+ * <p>
+ * Values are encoded by {@link Storages} when they are put, so {@code get} and iterations always
+ * return new copies: modifying a returned value does not change the storage, the value must be
+ * put again. Encoded values are kept in memory until the budget of {@link Storages} is exceeded.
+ * Then they are written, with their keys, in a {@link SortedRun} on disk and released from memory.
+ * Reads look for the key in memory, then in runs from the newest to the oldest. Runs are merged
+ * into a single one when there are more than {@link #MAX_RUNS}.
+ * </p>
  * <p>
- * This storage is not thread-safe, due to direct usage of {@link com.persistit.Exchange}
+ * This storage is not thread-safe.
  * </p>
  */
 public class Storage<V> {
 
-  private final String name;
-  private final Exchange exchange;
+  static final int MAX_RUNS = 8;
+
+  // rough heap footprint of an in-memory entry, excluding key and value
+  private static final int ENTRY_OVERHEAD = 56;
 
-  Storage(String name, Exchange exchange) {
+  // marks a key removed from memory that may still be present in runs
+  private static final byte[] DELETED = new byte[0];
+
+  private final String name;
+  private final Storages storages;
+  // values are encoded, or DELETED
+  private final NavigableMap<Key, byte[]> memory = new TreeMap<>();
+  // from the oldest to the newest
+  private final List<SortedRun> runs = new ArrayList<>();
+  // incremented when runs change, so that iterators know that their cursors are obsolete
+  private int runsVersion = 0;
+  private long inMemoryBytes = 0L;
+
+  Storage(String name, Storages storages) {
     this.name = name;
-    this.exchange = exchange;
+    this.storages = storages;
   }
 
   public Storage<V> put(Object key, V value) {
-    resetKey(key);
-    return doPut(value);
+    return doPut(new Key(key), value);
   }
 
   public Storage<V> put(Object firstKey, Object secondKey, V value) {
-    resetKey(firstKey, secondKey);
-    return doPut(value);
+    return doPut(new Key(firstKey, secondKey), value);
   }
 
   public Storage<V> put(Object firstKey, Object secondKey, Object thirdKey, V value) {
-    resetKey(firstKey, secondKey, thirdKey);
-    return doPut(value);
+    return doPut(new Key(firstKey, secondKey, thirdKey), value);
   }
 
   public Storage<V> put(Object[] key, V value) {
-    resetKey(key);
-    return doPut(value);
+    return doPut(new Key(key.clone()), value);
   }
 
-  private Storage<V> doPut(V value) {
-    try {
-      exchange.getValue().put(value);
-      exchange.store();
-      return this;
-    } catch (Exception e) {
-      throw new IllegalStateException("Fail to put element in the storage '" + name + "'", e);
+  private Storage<V> doPut(Key key, V value) {
+    putBytes(key, storages.encode(value));
+    return this;
+  }
+
+  private void putBytes(Key key, byte[] bytes) {
+    byte[] previous = memory.put(key, bytes);
+    if (previous == null) {
+      inMemoryBytes += ENTRY_OVERHEAD + key.estimatedSize();
+    } else {
+      inMemoryBytes -= previous.length;
     }
+    inMemoryBytes += bytes.length;
+    storages.checkBudget();
   }
 
   /**
-   * Returns the value object associated with keys, or null if not found.
+   * Returns a copy of the value object associated with keys, or null if not found.
    */
+  @CheckForNull
   public V get(Object key) {
-    resetKey(key);
-    return doGet();
+    return doGet(new Key(key));
   }
 
   /**
-   * Returns the value object associated with keys, or null if not found.
+   * Returns a copy of the value object associated with keys, or null if not found.
    */
   @CheckForNull
   public V get(Object firstKey, Object secondKey) {
-    resetKey(firstKey, secondKey);
-    return doGet();
+    return doGet(new Key(firstKey, secondKey));
   }
 
   /**
-   * Returns the value object associated with keys, or null if not found.
+   * Returns a copy of the value object associated with keys, or null if not found.
    */
   @CheckForNull
   public V get(Object firstKey, Object secondKey, Object thirdKey) {
-    resetKey(firstKey, secondKey, thirdKey);
-    return doGet();
+    return doGet(new Key(firstKey, secondKey, thirdKey));
   }
 
   /**
-   * Returns the value object associated with keys, or null if not found.
+   * Returns a copy of the value object associated with keys, or null if not found.
    */
   @CheckForNull
   public V get(Object[] key) {
-    resetKey(key);
-    return doGet();
+    return doGet(new Key(key));
   }
 
-  @SuppressWarnings("unchecked")
   @CheckForNull
-  private V doGet() {
+  private V doGet(Key key) {
+    byte[] bytes = lookup(key);
+    return bytes == null ? null : decode(bytes);
+  }
+
+  @SuppressWarnings("unchecked")
+  private V decode(byte[] bytes) {
     try {
-      exchange.fetch();
-      if (!exchange.getValue().isDefined()) {
-        return null;
-      }
-      return (V) exchange.getValue().get();
+      return (V) storages.decode(bytes);
     } catch (Exception e) {
-      // TODO add parameters to message
-      throw new IllegalStateException("Fail to get element from cache " + name, e);
+      throw new IllegalStateException("Fail to get element from storage '" + name + "'", e);
     }
   }
 
+  /**
+   * @return the encoded value, or null if the key does not exist or is deleted
+   */
+  @CheckForNull
+  private byte[] lookup(Key key) {
+    byte[] bytes = memory.get(key);
+    if (bytes != null) {
+      return bytes == DELETED ? null : bytes;
+    }
+    for (int i = runs.size() - 1; i >= 0; i--) {
+      SortedRun.Cursor cursor = runs.get(i).find(key);
+      if (cursor != null) {
+        return cursor.value();
+      }
+    }
+    return null;
+  }
+
+  private boolean contains(Key key) {
+    byte[] bytes = memory.get(key);
+    if (bytes != null) {
+      return bytes != DELETED;
+    }
+    for (int i = runs.size() - 1; i >= 0; i--) {
+      SortedRun.Cursor cursor = runs.get(i).find(key);
+      if (cursor != null) {
+        return !cursor.isDeleted();
+      }
+    }
+    return false;
+  }
+
   public boolean containsKey(Object key) {
-    resetKey(key);
-    return doContainsKey();
+    return contains(new Key(key));
   }
 
   public boolean containsKey(Object firstKey, Object secondKey) {
-    resetKey(firstKey, secondKey);
-    return doContainsKey();
+    return contains(new Key(firstKey, secondKey));
   }
 
   public boolean containsKey(Object firstKey, Object secondKey, Object thirdKey) {
-    resetKey(firstKey, secondKey, thirdKey);
-    return doContainsKey();
+    return contains(new Key(firstKey, secondKey, thirdKey));
   }
 
   public boolean containsKey(Object[] key) {
-    resetKey(key);
-    return doContainsKey();
-  }
-
-  private boolean doContainsKey() {
-    try {
-      exchange.fetch();
-      return exchange.isValueDefined();
-    } catch (Exception e) {
-      // TODO add parameters to message
-      throw new IllegalStateException("Fail to check if element is in cache " + name, e);
-    }
+    return contains(new Key(key));
   }
 
   public boolean remove(Object key) {
-    resetKey(key);
-    return doRemove();
+    return doRemove(new Key(key));
   }
 
   public boolean remove(Object firstKey, Object secondKey) {
-    resetKey(firstKey, secondKey);
-    return doRemove();
+    return doRemove(new Key(firstKey, secondKey));
   }
 
   public boolean remove(Object firstKey, Object secondKey, Object thirdKey) {
-    resetKey(firstKey, secondKey, thirdKey);
-    return doRemove();
+    return doRemove(new Key(firstKey, secondKey, thirdKey));
   }
 
   public boolean remove(Object[] key) {
-    resetKey(key);
-    return doRemove();
+    return doRemove(new Key(key));
   }
 
-  private boolean doRemove() {
-    try {
-      return exchange.remove();
-    } catch (Exception e) {
-      // TODO add parameters to message
-      throw new IllegalStateException("Fail to get element from cache " + name, e);
+  private boolean doRemove(Key key) {
+    if (!contains(key)) {
+      return false;
     }
+    if (runs.isEmpty()) {
+      byte[] previous = memory.remove(key);
+      inMemoryBytes -= ENTRY_OVERHEAD + key.estimatedSize() + previous.length;
+    } else {
+      putBytes(key, DELETED);
+    }
+    return true;
   }
 
   /**
-   * Removes everything in the specified group.
-   *
-   * @param group The group name.
+   * Removes the value of the given key and all the values of its sub-keys.
    */
   public Storage<V> clear(Object key) {
-    resetKey(key);
-    return doClear();
+    return doClear(new Key(key));
   }
 
   public Storage<V> clear(Object firstKey, Object secondKey) {
-    resetKey(firstKey, secondKey);
-    return doClear();
+    return doClear(new Key(firstKey, secondKey));
   }
 
   public Storage<V> clear(Object firstKey, Object secondKey, Object thirdKey) {
-    resetKey(firstKey, secondKey, thirdKey);
-    return doClear();
+    return doClear(new Key(firstKey, secondKey, thirdKey));
   }
 
   public Storage<V> clear(Object[] key) {
-    resetKey(key);
-    return doClear();
+    return doClear(new Key(key));
   }
 
-  private Storage<V> doClear() {
-    try {
-      Key to = new Key(exchange.getKey());
-      to.append(Key.AFTER);
-      exchange.removeKeyRange(exchange.getKey(), to);
-      return this;
-    } catch (Exception e) {
-      throw new IllegalStateException("Fail to clear values from cache " + name, e);
+  private Storage<V> doClear(Key key) {
+    doRemove(key);
+    if (runs.isEmpty()) {
+      Map<Key, byte[]> range = memory.subMap(key, false, key.after(), false);
+      for (Map.Entry<Key, byte[]> entry : range.entrySet()) {
+        inMemoryBytes -= ENTRY_OVERHEAD + entry.getKey().estimatedSize() + entry.getValue().length;
+      }
+      range.clear();
+    } else {
+      MergeIterator records = new MergeIterator(this, key, false);
+      while (records.advance()) {
+        putBytes(records.key(), DELETED);
+      }
     }
+    return this;
   }
 
   /**
-   * Clears the default as well as all group caches.
+   * Removes all the values, including the spilled ones.
    */
   public void clear() {
-    try {
-      exchange.clear();
-      exchange.removeAll();
-    } catch (Exception e) {
-      throw new IllegalStateException("Fail to clear cache", e);
-    }
+    memory.clear();
+    inMemoryBytes = 0L;
+    deleteRuns();
+  }
+
+  /**
+   * Returns the set of the first parts of keys.
+   */
+  public Set<Object> keySet() {
+    return doKeySet(Key.ROOT);
   }
 
   /**
-   * Returns the set of cache keys associated with this group.
-   * TODO implement a lazy-loading equivalent with Iterator/Iterable
-   *
-   * @param group The group.
-   * @return The set of cache keys for this group.
+   * Returns the set of the second parts of the keys starting with the given key.
    */
   @SuppressWarnings("rawtypes")
   public Set keySet(Object key) {
-    try {
-      Set<Object> keys = Sets.newLinkedHashSet();
-      exchange.clear();
-      Exchange iteratorExchange = new Exchange(exchange);
-      iteratorExchange.append(key);
-      iteratorExchange.append(Key.BEFORE);
-      while (iteratorExchange.next(false)) {
-        keys.add(iteratorExchange.getKey().indexTo(-1).decode());
-      }
-      return keys;
-    } catch (Exception e) {
-      throw new IllegalStateException("Fail to get keys from cache " + name, e);
-    }
+    return doKeySet(new Key(key));
   }
 
+  /**
+   * Returns the set of the third parts of the keys starting with the given keys.
+   */
   @SuppressWarnings("rawtypes")
   public Set keySet(Object firstKey, Object secondKey) {
-    try {
-      Set<Object> keys = Sets.newLinkedHashSet();
-      exchange.clear();
-      Exchange iteratorExchange = new Exchange(exchange);
-      iteratorExchange.append(firstKey);
-      iteratorExchange.append(secondKey);
-      iteratorExchange.append(Key.BEFORE);
-      while (iteratorExchange.next(false)) {
-        keys.add(iteratorExchange.getKey().indexTo(-1).decode());
-      }
-      return keys;
-    } catch (Exception e) {
-      throw new IllegalStateException("Fail to get keys from cache " + name, e);
-    }
+    return doKeySet(new Key(firstKey, secondKey));
   }
 
-  /**
-   * Returns the set of keys associated with this cache.
-   *
-   * @return The set containing the keys for this cache.
-   */
-  public Set<Object> keySet() {
-    try {
-      Set<Object> keys = Sets.newLinkedHashSet();
-      exchange.clear();
-      Exchange iteratorExchange = new Exchange(exchange);
-      iteratorExchange.append(Key.BEFORE);
-      while (iteratorExchange.next(false)) {
-        keys.add(iteratorExchange.getKey().indexTo(-1).decode());
-      }
-      return keys;
-    } catch (Exception e) {
-      throw new IllegalStateException("Fail to get keys from cache " + name, e);
+  private Set<Object> doKeySet(Key prefix) {
+    Set<Object> keys = new LinkedHashSet<>();
+    int depth = prefix.parts.length;
+    MergeIterator records = new MergeIterator(this, prefix, false);
+    while (records.advance()) {
+      keys.add(records.key().parts[depth]);
     }
+    return keys;
   }
 
   /**
    * Lazy-loading values for given keys
    */
   public Iterable<V> values(Object firstKey, Object secondKey) {
-    return new ValueIterable<>(exchange, firstKey, secondKey);
+    return () -> new ValueIterator<V, V>(this, new Key(firstKey, secondKey), (key, value) -> value);
   }
 
   /**
    * Lazy-loading values for a given key
    */
   public Iterable<V> values(Object firstKey) {
-    return new ValueIterable<>(exchange, firstKey);
+    return () -> new ValueIterator<V, V>(this, new Key(firstKey), (key, value) -> value);
   }
 
   /**
    * Lazy-loading values
    */
   public Iterable<V> values() {
-    return new ValueIterable<>(exchange);
+    return () -> new ValueIterator<V, V>(this, Key.ROOT, (key, value) -> value);
   }
 
   public Iterable<Entry<V>> entries() {
-    return new EntryIterable<>(exchange);
+    return () -> new ValueIterator<V, Entry<V>>(this, Key.ROOT, Storage::toEntry);
   }
 
   public Iterable<Entry<V>> entries(Object firstKey) {
-    return new EntryIterable<>(exchange, firstKey);
+    return () -> new ValueIterator<V, Entry<V>>(this, new Key(firstKey), Storage::toEntry);
   }
 
-  private void resetKey(Object key) {
-    exchange.clear();
-    exchange.append(key);
+  private static <V> Entry<V> toEntry(Key key, V value) {
+    return new Entry<>(key.parts.clone(), value);
   }
 
-  private void resetKey(Object first, Object second) {
-    exchange.clear();
-    exchange.append(first).append(second);
+  long inMemoryBytes() {
+    return inMemoryBytes;
   }
 
-  private void resetKey(Object first, Object second, Object third) {
-    exchange.clear();
-    exchange.append(first).append(second).append(third);
+  int runCount() {
+    return runs.size();
   }
 
-  private void resetKey(Object[] keys) {
-    exchange.clear();
-    for (Object o : keys) {
-      exchange.append(o);
+  /**
+   * Writes the records held in memory into a new run, then releases them. When there are
+   * already {@link #MAX_RUNS} runs, they are all merged with the records held in memory into
+   * a single run, from which deleted keys are dropped.
+   */
+  void spill(SpillFile file) {
+    long spilledBytes = runs.stream().mapToLong(SortedRun::size).sum();
+    boolean merge = runs.size() >= MAX_RUNS && spilledBytes + inMemoryBytes < Integer.MAX_VALUE;
+    SortedRun run;
+    try {
+      run = SortedRun.write(file, merge ? liveRecords() : inMemoryRecords());
+    } catch (RuntimeException e) {
+      file.delete();
+      throw new IllegalStateException("Fail to spill storage '" + name + "'", e);
+    }
+    if (merge) {
+      deleteRuns();
     }
+    runs.add(run);
+    runsVersion++;
+    memory.clear();
+    inMemoryBytes = 0L;
   }
 
-  //
-  // LAZY ITERATORS AND ITERABLES
-  //
+  private Iterator<Map.Entry<Key, byte[]>> inMemoryRecords() {
+    return Iterators.transform(memory.entrySet().iterator(),
+      entry -> entry.getValue() == DELETED ? new SimpleImmutableEntry<Key, byte[]>(entry.getKey(), null) : entry);
+  }
 
-  private static class ValueIterable<T> implements Iterable<T> {
-    private final Exchange originExchange;
-    private final Object[] keys;
+  private Iterator<Map.Entry<Key, byte[]>> liveRecords() {
+    MergeIterator records = new MergeIterator(this, Key.ROOT, true);
+    return new AbstractIterator<Map.Entry<Key, byte[]>>() {
+      @Override
+      protected Map.Entry<Key, byte[]> computeNext() {
+        return records.advance() ? new SimpleImmutableEntry<Key, byte[]>(records.key(), records.value()) : endOfData();
+      }
+    };
+  }
 
-    private ValueIterable(Exchange originExchange, Object... keys) {
-      this.originExchange = originExchange;
-      this.keys = keys;
+  void deleteRuns() {
+    runs.forEach(SortedRun::delete);
+    runs.clear();
+    runsVersion++;
+  }
+
+  /**
+   * Key made of one or more parts. Parts of the same type are compared by their natural
+   * order, parts of different types by their class names. A key is lower than all its sub-keys.
+   */
+  static final class Key implements Comparable<Key> {
+    private static final Key ROOT = new Key();
+    private static final Object AFTER = new Object();
+
+    private static final byte NULL_PART = 0;
+    private static final byte STRING_PART = 1;
+    private static final byte INTEGER_PART = 2;
+    private static final byte LONG_PART = 3;
+    private static final byte SERIALIZED_PART = 4;
+
+    private final Object[] parts;
+
+    Key(Object... parts) {
+      this.parts = parts;
     }
 
-    @Override
-    public Iterator<T> iterator() {
-      originExchange.clear();
-      KeyFilter filter = new KeyFilter();
-      for (Object key : keys) {
-        originExchange.append(key);
-        filter = filter.append(KeyFilter.simpleTerm(key));
+    /**
+     * Upper bound, excluded, of this key and its sub-keys
+     */
+    Key after() {
+      Object[] afterParts = Arrays.copyOf(parts, parts.length + 1);
+      afterParts[parts.length] = AFTER;
+      return new Key(afterParts);
+    }
+
+    boolean startsWith(Key prefix) {
+      if (parts.length < prefix.parts.length) {
+        return false;
+      }
+      for (int i = 0; i < prefix.parts.length; i++) {
+        if (comparePart(parts[i], prefix.parts[i]) != 0) {
+          return false;
+        }
       }
-      originExchange.append(Key.BEFORE);
-      Exchange iteratorExchange = new Exchange(originExchange);
-      return new ValueIterator<>(iteratorExchange, filter);
+      return true;
     }
-  }
 
-  private static class ValueIterator<T> implements Iterator<T> {
-    private final Exchange exchange;
-    private final KeyFilter keyFilter;
+    /**
+     * Rough estimation of the heap used by this key, in bytes
+     */
+    int estimatedSize() {
+      int size = 32 + 8 * parts.length;
+      for (Object part : parts) {
+        size += part instanceof String ? (40 + 2 * ((String) part).length()) : 16;
+      }
+      return size;
+    }
 
-    private ValueIterator(Exchange exchange, KeyFilter keyFilter) {
-      this.exchange = exchange;
-      this.keyFilter = keyFilter;
+    byte[] encode() {
+      try {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.writeInt(parts.length);
+        for (Object part : parts) {
+          if (part == null) {
+            output.writeByte(NULL_PART);
+          } else if (part instanceof String) {
+            output.writeByte(STRING_PART);
+            writeBytes(((String) part).getBytes(UTF_8), output);
+          } else if (part instanceof Integer) {
+            output.writeByte(INTEGER_PART);
+            output.writeInt((Integer) part);
+          } else if (part instanceof Long) {
+            output.writeByte(LONG_PART);
+            output.writeLong((Long) part);
+          } else {
+            output.writeByte(SERIALIZED_PART);
+            ByteArrayOutputStream serialized = new ByteArrayOutputStream();
+            try (ObjectOutputStream objectOutput = new ObjectOutputStream(serialized)) {
+              objectOutput.writeObject(part);
+            }
+            writeBytes(serialized.toByteArray(), output);
+          }
+        }
+        output.flush();
+        return bytes.toByteArray();
+      } catch (IOException e) {
+        throw new IllegalStateException("Fail to encode key " + Arrays.toString(parts), e);
+      }
     }
 
-    @Override
-    public boolean hasNext() {
+    private static void writeBytes(byte[] bytes, DataOutputStream output) throws IOException {
+      output.writeInt(bytes.length);
+      output.write(bytes);
+    }
+
+    static Key decode(byte[] bytes) {
       try {
-        return exchange.hasNext(keyFilter);
-      } catch (PersistitException e) {
-        throw new IllegalStateException(e);
+        DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes));
+        Object[] parts = new Object[input.readInt()];
+        for (int i = 0; i < parts.length; i++) {
+          byte type = input.readByte();
+          switch (type) {
+            case NULL_PART:
+              break;
+            case STRING_PART:
+              parts[i] = new String(readBytes(input), UTF_8);
+              break;
+            case INTEGER_PART:
+              parts[i] = input.readInt();
+              break;
+            case LONG_PART:
+              parts[i] = input.readLong();
+              break;
+            default:
+              try (ObjectInputStream objectInput = new ObjectInputStream(new ByteArrayInputStream(readBytes(input)))) {
+                parts[i] = objectInput.readObject();
+              }
+              break;
+          }
+        }
+        return new Key(parts);
+      } catch (IOException | ClassNotFoundException e) {
+        throw new IllegalStateException("Fail to decode key", e);
       }
     }
 
-    @SuppressWarnings("unchecked")
+    private static byte[] readBytes(DataInputStream input) throws IOException {
+      byte[] bytes = new byte[input.readInt()];
+      input.readFully(bytes);
+      return bytes;
+    }
+
     @Override
-    public T next() {
-      try {
-        exchange.next(keyFilter);
-      } catch (PersistitException e) {
-        throw new IllegalStateException(e);
+    public int compareTo(Key other) {
+      int length = Math.min(parts.length, other.parts.length);
+      for (int i = 0; i < length; i++) {
+        int cmp = comparePart(parts[i], other.parts[i]);
+        if (cmp != 0) {
+          return cmp;
+        }
+      }
+      return Integer.compare(parts.length, other.parts.length);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static int comparePart(@Nullable Object part, @Nullable Object otherPart) {
+      if (part == otherPart) {
+        return 0;
       }
-      if (exchange.getValue().isDefined()) {
-        return (T) exchange.getValue().get();
+      if (part == AFTER || otherPart == null) {
+        return 1;
       }
-      throw new NoSuchElementException();
+      if (otherPart == AFTER || part == null) {
+        return -1;
+      }
+      if (part.getClass() != otherPart.getClass()) {
+        return part.getClass().getName().compareTo(otherPart.getClass().getName());
+      }
+      if (part instanceof Comparable) {
+        return ((Comparable) part).compareTo(otherPart);
+      }
+      return part.toString().compareTo(otherPart.toString());
     }
 
     @Override
-    public void remove() {
-      throw new UnsupportedOperationException("Removing an item is not supported");
+    public boolean equals(Object o) {
+      return this == o || (o instanceof Key && compareTo((Key) o) == 0);
+    }
+
+    @Override
+    public int hashCode() {
+      return Arrays.hashCode(parts);
     }
   }
 
-  private static class EntryIterable<T> implements Iterable<Entry<T>> {
-    private final Exchange originExchange;
-    private final Object[] keys;
+  //
+  // LAZY ITERATORS
+  //
 
-    private EntryIterable(Exchange originExchange, Object... keys) {
-      this.originExchange = originExchange;
-      this.keys = keys;
+  /**
+   * Iterates, in key order, over the existing records of the sub-keys of a given key, merging
+   * the records held in memory with the records of runs. Next record is searched from the last
+   * returned key, so that the storage can be updated during iteration.
+   */
+  private static class MergeIterator {
+    private final Storage<?> storage;
+    private final Key prefix;
+    private final boolean readValues;
+    private Key lastKey;
+    private byte[] lastValue;
+    private List<SortedRun.Cursor> cursors;
+    private int cursorsVersion;
+
+    private MergeIterator(Storage<?> storage, Key prefix, boolean readValues) {
+      this.storage = storage;
+      this.prefix = prefix;
+      this.readValues = readValues;
+      this.lastKey = prefix;
     }
 
-    @Override
-    public Iterator<Entry<T>> iterator() {
-      originExchange.clear();
-      KeyFilter filter = new KeyFilter();
-      for (Object key : keys) {
-        originExchange.append(key);
-        filter = filter.append(KeyFilter.simpleTerm(key));
+    /**
+     * @return false if there are no more records
+     */
+    private boolean advance() {
+      if (cursors == null || cursorsVersion != storage.runsVersion) {
+        cursors = new ArrayList<>(storage.runs.size());
+        for (SortedRun run : storage.runs) {
+          cursors.add(run.higher(lastKey));
+        }
+        cursorsVersion = storage.runsVersion;
+      }
+      while (true) {
+        Map.Entry<Key, byte[]> inMemory = storage.memory.higherEntry(lastKey);
+        Key candidate = inMemory == null ? null : inMemory.getKey();
+        // cursor on the candidate key in the newest run, if not in memory
+        SortedRun.Cursor inRun = null;
+        for (SortedRun.Cursor cursor : cursors) {
+          while (cursor.isValid() && cursor.key().compareTo(lastKey) <= 0) {
+            cursor.next();
+          }
+          if (cursor.isValid()) {
+            int cmp = candidate == null ? -1 : cursor.key().compareTo(candidate);
+            if (cmp < 0 || (cmp == 0 && inMemory == null)) {
+              candidate = cursor.key();
+              inRun = cursor;
+              inMemory = null;
+            }
+          }
+        }
+        if (candidate == null || !candidate.startsWith(prefix)) {
+          return false;
+        }
+        lastKey = candidate;
+        if (inMemory != null && inMemory.getValue() != DELETED) {
+          lastValue = readValues ? inMemory.getValue() : null;
+          return true;
+        }
+        if (inRun != null && !inRun.isDeleted()) {
+          lastValue = readValues ? inRun.value() : null;
+          return true;
+        }
       }
-      originExchange.append(Key.BEFORE);
-      Exchange iteratorExchange = new Exchange(originExchange);
-      return new EntryIterator<>(iteratorExchange, filter);
+    }
+
+    private Key key() {
+      return lastKey;
+    }
+
+    private byte[] value() {
+      return lastValue;
     }
   }
 
-  private static class EntryIterator<T> implements Iterator<Entry<T>> {
-    private final Exchange exchange;
-    private final KeyFilter keyFilter;
+  private static class ValueIterator<V, T> implements Iterator<T> {
+    private final Storage<V> storage;
+    private final MergeIterator records;
+    private final BiFunction<Key, V, T> function;
+    private boolean advanced = false;
+    private boolean hasNext;
 
-    private EntryIterator(Exchange exchange, KeyFilter keyFilter) {
-      this.exchange = exchange;
-      this.keyFilter = keyFilter;
+    private ValueIterator(Storage<V> storage, Key prefix, BiFunction<Key, V, T> function) {
+      this.storage = storage;
+      this.records = new MergeIterator(storage, prefix, true);
+      this.function = function;
     }
 
     @Override
     public boolean hasNext() {
-      try {
-        return exchange.hasNext(keyFilter);
-      } catch (PersistitException e) {
-        throw new IllegalStateException(e);
+      if (!advanced) {
+        hasNext = records.advance();
+        advanced = true;
       }
+      return hasNext;
     }
 
-    @SuppressWarnings("unchecked")
     @Override
-    public Entry<T> next() {
-      try {
-        exchange.next(keyFilter);
-      } catch (PersistitException e) {
-        throw new IllegalStateException(e);
-      }
-      if (exchange.getValue().isDefined()) {
-        T value = (T) exchange.getValue().get();
-        Key key = exchange.getKey();
-        Object[] array = new Object[key.getDepth()];
-        for (int i = 0; i < key.getDepth(); i++) {
-          array[i] = key.indexTo(i - key.getDepth()).decode();
-        }
-        return new Entry<>(array, value);
+    public T next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
       }
-      throw new NoSuchElementException();
+      advanced = false;
+      return function.apply(records.key(), storage.decode(records.value()));
     }
 
     @Override
@@ -19,30 +19,64 @@
  */
 package org.sonar.scanner.storage;
 
-import com.google.common.base.Preconditions;
-import com.persistit.Exchange;
-import com.persistit.Persistit;
-import com.persistit.Value;
-import com.persistit.Volume;
-import com.persistit.encoding.CoderManager;
-import com.persistit.encoding.ValueCoder;
-import com.persistit.exception.PersistitException;
-
+import com.google.common.annotations.VisibleForTesting;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
 import org.picocontainer.Startable;
 import org.sonar.api.batch.ScannerSide;
+import org.sonar.api.utils.log.Logger;
+import org.sonar.api.utils.log.Loggers;
+
+import static com.google.common.base.Preconditions.checkState;
 
+/**
+ * Factory of {@link Storage}. All the storages share the same budget of memory. When it is
+ * exceeded, the values of the largest storage are spilled to disk.
+ */
 @ScannerSide
 public class Storages implements Startable {
-  private final Map<String, Exchange> cacheMap = new HashMap<>();
-  private Persistit persistit;
-  private Volume volume;
+
+  private static final Logger LOG = Loggers.get(Storages.class);
+
+  /**
+   * Budget of heap, in bytes, estimated from the size of encoded values and keys: 10% of the
+   * max heap, up to 512Mb.
+   */
+  static final long DEFAULT_MAX_IN_MEMORY_BYTES = Math.min(Runtime.getRuntime().maxMemory() / 10, 512L * 1024 * 1024);
+
+  private static final byte JAVA_SERIALIZATION = 0;
+  private static final byte CUSTOM_CODER = 1;
+  // type and index of coder
+  private static final int CUSTOM_CODER_HEADER_SIZE = 1 + Integer.BYTES;
+  private static final int DEFAULT_BUFFER_SIZE = 32;
+
+  private final Map<String, Storage<?>> cacheMap = new HashMap<>();
+  private final Map<Class<?>, ValueCoder> coders = new HashMap<>();
+  private final List<Class<?>> coderClasses = new ArrayList<>();
+  private final StoragesManager storagesManager;
+  private final long maxInMemoryBytes;
+  private boolean started;
 
   public Storages(StoragesManager storagesManager) {
-    persistit = storagesManager.persistit();
-    doStart();
+    this(storagesManager, DEFAULT_MAX_IN_MEMORY_BYTES);
+  }
+
+  @VisibleForTesting
+  Storages(StoragesManager storagesManager, long maxInMemoryBytes) {
+    this.storagesManager = storagesManager;
+    this.maxInMemoryBytes = maxInMemoryBytes;
+    this.started = true;
   }
 
   @Override
@@ -50,50 +84,111 @@ public class Storages implements Startable {
     // done in constructor
   }
 
-  private void doStart() {
+  public void registerValueCoder(Class<?> clazz, ValueCoder coder) {
+    if (coders.put(clazz, coder) == null) {
+      coderClasses.add(clazz);
+    }
+  }
+
+  public <V> Storage<V> createCache(String cacheName) {
+    checkState(started, "Caches are not initialized");
+    checkState(!cacheMap.containsKey(cacheName), "Cache is already created: %s", cacheName);
+    Storage<V> cache = new Storage<>(cacheName, this);
+    cacheMap.put(cacheName, cache);
+    return cache;
+  }
+
+  void checkBudget() {
+    long total = 0L;
+    for (Storage<?> storage : cacheMap.values()) {
+      total += storage.inMemoryBytes();
+    }
+    if (total > maxInMemoryBytes) {
+      Storage<?> largest = cacheMap.values().stream()
+        .max(Comparator.comparingLong(Storage::inMemoryBytes))
+        .orElseThrow(IllegalStateException::new);
+      File file = newSpillFile();
+      LOG.debug("Spill {} bytes of storage to {}", largest.inMemoryBytes(), file);
+      largest.spill(new SpillFile(file));
+    }
+  }
+
+  private File newSpillFile() {
     try {
-      persistit.flush();
-      volume = persistit.createTemporaryVolume();
-    } catch (Exception e) {
-      throw new IllegalStateException("Fail to create a cache volume", e);
+      return File.createTempFile("storage", ".bin", storagesManager.tempDir());
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to create storage file", e);
     }
   }
 
-  public void registerValueCoder(Class<?> clazz, ValueCoder coder) {
-    CoderManager cm = persistit.getCoderManager();
-    cm.registerValueCoder(clazz, coder);
+  byte[] encode(Object value) {
+    try {
+      int coderIndex = coderIndexOf(value.getClass());
+      EncodingBuffer bytes;
+      if (coderIndex < 0) {
+        bytes = new EncodingBuffer(DEFAULT_BUFFER_SIZE);
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.writeByte(JAVA_SERIALIZATION);
+        ObjectOutputStream objectOutput = new ObjectOutputStream(output);
+        objectOutput.writeObject(value);
+        objectOutput.flush();
+      } else {
+        ValueCoder coder = coders.get(coderClasses.get(coderIndex));
+        int size = coder.sizeOf(value);
+        bytes = new EncodingBuffer(size < 0 ? DEFAULT_BUFFER_SIZE : (CUSTOM_CODER_HEADER_SIZE + size));
+        DataOutputStream output = new DataOutputStream(bytes);
+        output.writeByte(CUSTOM_CODER);
+        output.writeInt(coderIndex);
+        coder.write(value, output);
+        output.flush();
+      }
+      return bytes.toByteArrayWithoutCopy();
+    } catch (IOException e) {
+      throw new IllegalStateException("Fail to encode value of class " + value.getClass().getName(), e);
+    }
   }
 
-  public <V> Storage<V> createCache(String cacheName) {
-    Preconditions.checkState(volume != null && volume.isOpened(), "Caches are not initialized");
-    Preconditions.checkState(!cacheMap.containsKey(cacheName), "Cache is already created: %s", cacheName);
+  Object decode(byte[] bytes) {
     try {
-      Exchange exchange = persistit.getExchange(volume, cacheName, true);
-      exchange.setMaximumValueSize(Value.MAXIMUM_SIZE);
-      Storage<V> cache = new Storage<>(cacheName, exchange);
-      cacheMap.put(cacheName, exchange);
-      return cache;
-    } catch (Exception e) {
-      throw new IllegalStateException("Fail to create cache: " + cacheName, e);
+      DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes));
+      byte type = input.readByte();
+      if (type == JAVA_SERIALIZATION) {
+        return new ObjectInputStream(input).readObject();
+      }
+      return coders.get(coderClasses.get(input.readInt())).read(input);
+    } catch (IOException | ClassNotFoundException e) {
+      throw new IllegalStateException("Fail to decode value", e);
     }
   }
 
-  @Override
-  public void stop() {
-    for (Entry<String, Exchange> e : cacheMap.entrySet()) {
-      persistit.releaseExchange(e.getValue());
+  /**
+   * Returns its buffer instead of a copy when it is full, which is the case when the size of value is known
+   */
+  private static class EncodingBuffer extends ByteArrayOutputStream {
+    private EncodingBuffer(int size) {
+      super(size);
     }
 
-    cacheMap.clear();
+    private byte[] toByteArrayWithoutCopy() {
+      return count == buf.length ? buf : toByteArray();
+    }
+  }
 
-    if (volume != null) {
-      try {
-        volume.close();
-        volume.delete();
-      } catch (PersistitException e) {
-        throw new IllegalStateException("Fail to close caches", e);
+  private int coderIndexOf(Class<?> clazz) {
+    for (Class<?> c = clazz; c != null; c = c.getSuperclass()) {
+      if (coders.containsKey(c)) {
+        return coderClasses.indexOf(c);
       }
-      volume = null;
     }
+    return -1;
+  }
+
+  @Override
+  public void stop() {
+    for (Storage<?> storage : cacheMap.values()) {
+      storage.deleteRuns();
+    }
+    cacheMap.clear();
+    started = false;
   }
 }
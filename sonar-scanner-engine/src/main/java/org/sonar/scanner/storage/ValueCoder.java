@@ -0,0 +1,46 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.storage;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Encodes the values of a {@link Storage} when they are spilled to disk. Values of classes without
+ * registered coder are encoded with Java serialization.
+ *
+ * @see Storages#registerValueCoder(Class, ValueCoder)
+ */
+public interface ValueCoder {
+
+  void write(Object value, DataOutput output) throws IOException;
+
+  /**
+   * Number of bytes written by {@link #write(Object, DataOutput)}, or a negative value if unknown. When
+   * exact, the encoded value is written in a buffer of the right size, so large values are not copied.
+   */
+  default int sizeOf(Object value) {
+    return -1;
+  }
+
+  Object read(DataInput input) throws IOException;
+
+}
@@ -0,0 +1,81 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.analysis;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.api.config.MapSettings;
+import org.sonar.api.utils.log.LogTester;
+import org.sonar.api.utils.log.LoggerLevel;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class IncrementalAnalysisTest {
+
+  @Rule
+  public LogTester logTester = new LogTester();
+
+  private MapSettings settings = new MapSettings();
+  private DefaultAnalysisMode analysisMode = mock(DefaultAnalysisMode.class);
+
+  @Test
+  public void disabled_by_default() {
+    when(analysisMode.isPublish()).thenReturn(true);
+
+    IncrementalAnalysis underTest = new IncrementalAnalysis(settings, analysisMode);
+
+    assertThat(underTest.isEnabled()).isFalse();
+    assertThat(underTest.reusesPreviousSource(newFile(InputFile.Status.SAME))).isFalse();
+    assertThat(logTester.logs()).isEmpty();
+  }
+
+  @Test
+  public void reuse_source_of_unchanged_files_when_enabled() {
+    settings.setProperty(IncrementalAnalysis.ENABLED_PROPERTY, true);
+    when(analysisMode.isPublish()).thenReturn(true);
+
+    IncrementalAnalysis underTest = new IncrementalAnalysis(settings, analysisMode);
+
+    assertThat(underTest.isEnabled()).isTrue();
+    assertThat(underTest.reusesPreviousSource(newFile(InputFile.Status.SAME))).isTrue();
+    assertThat(underTest.reusesPreviousSource(newFile(InputFile.Status.CHANGED))).isFalse();
+    assertThat(underTest.reusesPreviousSource(newFile(InputFile.Status.ADDED))).isFalse();
+    assertThat(logTester.logs(LoggerLevel.INFO)).containsOnly("Incremental analysis: source of unchanged files is reused, sensors still analyze all files");
+  }
+
+  @Test
+  public void disabled_in_issues_mode() {
+    settings.setProperty(IncrementalAnalysis.ENABLED_PROPERTY, true);
+    when(analysisMode.isPublish()).thenReturn(false);
+
+    IncrementalAnalysis underTest = new IncrementalAnalysis(settings, analysisMode);
+
+    assertThat(underTest.isEnabled()).isFalse();
+  }
+
+  private static DefaultInputFile newFile(InputFile.Status status) {
+    return new TestInputFileBuilder("foo", "src/Foo.java").setStatus(status).build();
+  }
+}
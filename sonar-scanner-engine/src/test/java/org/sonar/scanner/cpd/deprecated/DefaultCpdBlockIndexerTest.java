@@ -39,7 +39,7 @@ public class DefaultCpdBlockIndexerTest {
   @Before
   public void init() {
     settings = new MapSettings();
-    engine = new DefaultCpdBlockIndexer(null, null, settings, null);
+    engine = new DefaultCpdBlockIndexer(null, null, settings, null, null);
   }
 
   @Test
@@ -40,8 +40,8 @@ public class DeprecatedCpdBlockIndexerSensorTest {
 
   @Before
   public void setUp() throws IOException {
-    sonarEngine = new JavaCpdBlockIndexer(null, null, null);
-    sonarBridgeEngine = new DefaultCpdBlockIndexer(new CpdMappings(), null, null, null);
+    sonarEngine = new JavaCpdBlockIndexer(null, null, null, null);
+    sonarBridgeEngine = new DefaultCpdBlockIndexer(new CpdMappings(), null, null, null, null);
 
     DefaultFileSystem fs = new DefaultFileSystem(temp.newFolder().toPath());
     sensor = new DeprecatedCpdBlockIndexerSensor(sonarEngine, sonarBridgeEngine, fs);
@@ -32,18 +32,27 @@ import org.mockito.Captor;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.sonar.api.CoreProperties;
+import org.sonar.api.SonarQubeSide;
 import org.sonar.api.batch.fs.FileSystem;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.internal.DefaultFileSystem;
 import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
 import org.sonar.api.config.Settings;
 import org.sonar.api.config.MapSettings;
+import org.sonar.api.config.PropertyDefinitions;
+import org.sonar.api.internal.SonarRuntimeImpl;
+import org.sonar.api.utils.Version;
 import org.sonar.duplications.block.Block;
+import org.sonar.home.cache.FileCache;
+import org.sonar.home.cache.Logger;
+import org.sonar.scanner.bootstrap.ScannerPluginRepository;
+import org.sonar.scanner.cpd.index.CpdBlockCache;
 import org.sonar.scanner.cpd.index.SonarCpdBlockIndex;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyZeroInteractions;
 
@@ -57,6 +66,7 @@ public class JavaCpdBlockIndexerTest {
   private ArgumentCaptor<List<Block>> blockCaptor;
 
   private Settings settings;
+  private CpdBlockCache cache;
   private JavaCpdBlockIndexer engine;
   private InputFile file;
 
@@ -71,18 +81,21 @@ public class JavaCpdBlockIndexerTest {
     DefaultFileSystem fs = new DefaultFileSystem(baseDir);
     file = new TestInputFileBuilder("foo", "src/ManyStatements.java")
       .setModuleBaseDir(baseDir.toPath())
+      .setHash("abcdef")
       .setLanguage(JAVA).build();
     fs.add(file);
     File ioFile = file.file();
     FileUtils.copyURLToFile(this.getClass().getResource("ManyStatements.java"), ioFile);
 
-    settings = new MapSettings();
-    engine = new JavaCpdBlockIndexer(fs, settings, index);
+    settings = new MapSettings(new PropertyDefinitions(CpdBlockCache.properties()));
+    cache = new CpdBlockCache(FileCache.create(temp.newFolder(), mock(Logger.class)), settings, mock(ScannerPluginRepository.class),
+      SonarRuntimeImpl.forSonarQube(Version.create(6, 4), SonarQubeSide.SCANNER));
+    engine = new JavaCpdBlockIndexer(fs, settings, index, cache);
   }
 
   @Test
   public void languageSupported() {
-    JavaCpdBlockIndexer engine = new JavaCpdBlockIndexer(mock(FileSystem.class), new MapSettings(), index);
+    JavaCpdBlockIndexer engine = new JavaCpdBlockIndexer(mock(FileSystem.class), new MapSettings(), index, cache);
     assertThat(engine.isLanguageSupported(JAVA)).isTrue();
     assertThat(engine.isLanguageSupported("php")).isFalse();
   }
@@ -103,4 +116,19 @@ public class JavaCpdBlockIndexerTest {
 
     assertThat(blockList).hasSize(26);
   }
+
+  @Test
+  public void unchanged_files_are_loaded_from_cache() throws Exception {
+    engine.index(JAVA);
+    verify(index).insert(eq(file), blockCaptor.capture());
+    List<Block> blocks = blockCaptor.getValue();
+
+    // hash of file is unchanged, so content is not read again
+    FileUtils.write(file.file(), "does not compile");
+    reset(index);
+    engine.index(JAVA);
+
+    verify(index).insert(eq(file), blockCaptor.capture());
+    assertThat(blockCaptor.getValue()).hasSize(26).isEqualTo(blocks);
+  }
 }
@@ -0,0 +1,186 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.cpd.index;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import org.apache.commons.io.FileUtils;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.api.SonarQubeSide;
+import org.sonar.api.SonarRuntime;
+import org.sonar.api.batch.fs.internal.DefaultInputFile;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+import org.sonar.api.config.MapSettings;
+import org.sonar.api.config.PropertyDefinitions;
+import org.sonar.api.internal.SonarRuntimeImpl;
+import org.sonar.api.utils.Version;
+import org.sonar.core.platform.PluginInfo;
+import org.sonar.duplications.block.Block;
+import org.sonar.duplications.block.ByteArray;
+import org.sonar.home.cache.FileCache;
+import org.sonar.home.cache.Logger;
+import org.sonar.scanner.bootstrap.ScannerPluginRepository;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class CpdBlockCacheTest {
+
+  private static final String TOKENIZER = "tokenizer";
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  private MapSettings settings = new MapSettings(new PropertyDefinitions(CpdBlockCache.properties()));
+  private ScannerPluginRepository pluginRepository = mock(ScannerPluginRepository.class);
+  private SonarRuntime sonarRuntime = SonarRuntimeImpl.forSonarQube(Version.create(6, 4), SonarQubeSide.SCANNER);
+  private FileCache fileCache;
+  private CpdBlockCache underTest;
+
+  @Before
+  public void setUp() throws IOException {
+    fileCache = FileCache.create(temp.newFolder(), mock(Logger.class));
+    underTest = newCache();
+  }
+
+  private CpdBlockCache newCache() {
+    return new CpdBlockCache(fileCache, settings, pluginRepository, sonarRuntime);
+  }
+
+  @Test
+  public void get_blocks_previously_put_for_same_content() {
+    List<Block> blocks = Arrays.asList(newBlock("foo:src/Foo.java", 0, 1, 10), newBlock("foo:src/Foo.java", 1, 2, 11));
+    underTest.put(newFile("src/Foo.java", "h1"), 10, TOKENIZER, blocks);
+
+    Optional<List<Block>> cached = underTest.get(newFile("src/Foo.java", "h1"), 10, TOKENIZER);
+
+    assertThat(cached.get()).isEqualTo(blocks);
+    assertThat(cached.get().get(1).getStartUnit()).isEqualTo(20);
+    assertThat(cached.get().get(1).getEndUnit()).isEqualTo(110);
+  }
+
+  @Test
+  public void resource_id_of_loaded_blocks_is_key_of_file() {
+    underTest.put(newFile("src/Foo.java", "h1"), 10, TOKENIZER, Arrays.asList(newBlock("foo:src/Foo.java", 0, 1, 10)));
+
+    Optional<List<Block>> cached = underTest.get(newFile("src/Bar.java", "h1"), 10, TOKENIZER);
+
+    assertThat(cached.get()).extracting(Block::getResourceId).containsExactly("foo:src/Bar.java");
+  }
+
+  @Test
+  public void miss_if_content_block_size_or_tokenizer_are_different() {
+    underTest.put(newFile("src/Foo.java", "h1"), 10, TOKENIZER, Arrays.asList(newBlock("foo:src/Foo.java", 0, 1, 10)));
+
+    assertThat(underTest.get(newFile("src/Foo.java", "h2"), 10, TOKENIZER)).isEmpty();
+    assertThat(underTest.get(newFile("src/Foo.java", "h1"), 20, TOKENIZER)).isEmpty();
+    assertThat(underTest.get(newFile("src/Foo.java", "h1"), 10, "other")).isEmpty();
+  }
+
+  @Test
+  public void miss_if_file_has_no_hash() {
+    underTest.put(newFile("src/Foo.java", null), 10, TOKENIZER, Arrays.asList(newBlock("foo:src/Foo.java", 0, 1, 10)));
+
+    assertThat(underTest.get(newFile("src/Foo.java", null), 10, TOKENIZER)).isEmpty();
+  }
+
+  @Test
+  public void do_nothing_if_disabled() {
+    settings.setProperty(CpdBlockCache.ENABLED_PROPERTY, false);
+    underTest = newCache();
+
+    underTest.put(newFile("src/Foo.java", "h1"), 10, TOKENIZER, Arrays.asList(newBlock("foo:src/Foo.java", 0, 1, 10)));
+
+    assertThat(underTest.get(newFile("src/Foo.java", "h1"), 10, TOKENIZER)).isEmpty();
+    assertThat(new File(fileCache.getDir(), CpdBlockCache.DIR_NAME)).doesNotExist();
+  }
+
+  @Test
+  public void miss_if_entry_is_corrupted() throws IOException {
+    underTest.put(newFile("src/Foo.java", "h1"), 10, TOKENIZER, Arrays.asList(newBlock("foo:src/Foo.java", 0, 1, 10)));
+    for (File entry : FileUtils.listFiles(new File(fileCache.getDir(), CpdBlockCache.DIR_NAME), null, true)) {
+      FileUtils.write(entry, "corrupted");
+    }
+
+    assertThat(underTest.get(newFile("src/Foo.java", "h1"), 10, TOKENIZER)).isEmpty();
+  }
+
+  @Test
+  public void miss_if_checksum_of_entry_does_not_match() throws IOException {
+    underTest.put(newFile("src/Foo.java", "h1"), 10, TOKENIZER, Arrays.asList(newBlock("foo:src/Foo.java", 0, 1, 10)));
+    for (File entry : FileUtils.listFiles(new File(fileCache.getDir(), CpdBlockCache.DIR_NAME), null, true)) {
+      byte[] bytes = FileUtils.readFileToByteArray(entry);
+      // number of blocks
+      bytes[11] = (byte) 0xFF;
+      FileUtils.writeByteArrayToFile(entry, bytes);
+    }
+
+    assertThat(underTest.get(newFile("src/Foo.java", "h1"), 10, TOKENIZER)).isEmpty();
+  }
+
+  @Test
+  public void tokenizer_id_contains_key_and_version_of_plugin() {
+    PluginInfo pluginInfo = new PluginInfo("java").setVersion(org.sonar.updatecenter.common.Version.create("4.5"));
+    when(pluginRepository.getPluginKey(Block.class.getClassLoader())).thenReturn("java");
+    when(pluginRepository.getPluginInfo("java")).thenReturn(pluginInfo);
+
+    assertThat(underTest.tokenizerId(Block.class)).isEqualTo(Block.class.getName() + ":java:4.5:6.4");
+  }
+
+  @Test
+  public void tokenizer_id_of_core_tokenizer_contains_version_of_sonarqube() {
+    assertThat(underTest.tokenizerId(Block.class)).isEqualTo(Block.class.getName() + ":::6.4");
+  }
+
+  @Test
+  public void stop_deletes_old_entries() {
+    underTest.put(newFile("src/Foo.java", "h1"), 10, TOKENIZER, Arrays.asList(newBlock("foo:src/Foo.java", 0, 1, 10)));
+    underTest.put(newFile("src/Bar.java", "h2"), 10, TOKENIZER, Arrays.asList(newBlock("foo:src/Bar.java", 0, 1, 10)));
+    File dir = new File(fileCache.getDir(), CpdBlockCache.DIR_NAME);
+    File oldEntry = FileUtils.listFiles(dir, null, true).iterator().next();
+    oldEntry.setLastModified(System.currentTimeMillis() - (CpdBlockCache.MAX_AGE_DAYS + 1) * 24L * 3600 * 1000);
+
+    underTest.stop();
+
+    assertThat(oldEntry).doesNotExist();
+    assertThat(FileUtils.listFiles(dir, null, true)).hasSize(1);
+  }
+
+  private static DefaultInputFile newFile(String path, String hash) {
+    return new TestInputFileBuilder("foo", path).setLanguage("java").setHash(hash).build();
+  }
+
+  private static Block newBlock(String resourceId, int index, int startLine, int endLine) {
+    return Block.builder()
+      .setResourceId(resourceId)
+      .setBlockHash(new ByteArray(1000L + index))
+      .setIndexInFile(index)
+      .setLines(startLine, endLine)
+      .setUnit(startLine * 10, endLine * 10)
+      .build();
+  }
+}
@@ -19,11 +19,11 @@
  */
 package org.sonar.scanner.scan.measure;
 
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
 import java.util.Iterator;
 import org.junit.Before;
-import org.junit.Rule;
 import org.junit.Test;
-import org.junit.rules.ExpectedException;
 import org.sonar.api.batch.measure.MetricFinder;
 import org.sonar.api.batch.sensor.measure.internal.DefaultMeasure;
 import org.sonar.api.measures.CoreMetrics;
@@ -38,9 +38,6 @@ public class MeasureCacheTest extends AbstractCachesTest {
 
   private static final String COMPONENT_KEY = "struts";
 
-  @Rule
-  public ExpectedException thrown = ExpectedException.none();
-
   private MetricFinder metricFinder;
 
   private MeasureCache measureCache;
@@ -103,21 +100,20 @@ public class MeasureCacheTest extends AbstractCachesTest {
   }
 
   @Test
-  public void should_add_measure_with_too_big_data_for_persistit() {
-    assertThat(measureCache.entries()).hasSize(0);
-    assertThat(measureCache.byComponentKey(COMPONENT_KEY)).hasSize(0);
+  public void should_add_measure_bigger_than_64mb() {
+    // such measures were rejected by the former Persistit storage
+    String data = newString(64 * 1024 * 1024 + 1);
+    DefaultMeasure<?> m = new DefaultMeasure().forMetric(CoreMetrics.COVERAGE_LINE_HITS_DATA).withValue(data);
 
-    // Limit is 64Mo
-    StringBuilder data = new StringBuilder(64 * 1024 * 1024 + 1);
-    for (int i = 0; i < 64 * 1024 * 1024 + 1; i++) {
-      data.append('a');
-    }
-    DefaultMeasure<?> m = new DefaultMeasure().forMetric(CoreMetrics.COVERAGE_LINE_HITS_DATA).withValue(data.toString());
+    measureCache.put(COMPONENT_KEY, CoreMetrics.COVERAGE_LINE_HITS_DATA_KEY, m);
 
-    thrown.expect(IllegalStateException.class);
-    thrown.expectMessage("Fail to put element in the storage 'measures'");
+    assertThat(measureCache.byMetric(COMPONENT_KEY, CoreMetrics.COVERAGE_LINE_HITS_DATA_KEY).value()).isEqualTo(data);
+  }
 
-    measureCache.put(COMPONENT_KEY, CoreMetrics.COVERAGE_LINE_HITS_DATA_KEY, m);
+  private static String newString(int length) {
+    byte[] bytes = new byte[length];
+    Arrays.fill(bytes, (byte) 'a');
+    return new String(bytes, StandardCharsets.US_ASCII);
   }
 
   @Test
@@ -0,0 +1,79 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.scan.measure;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.util.Date;
+import org.apache.commons.lang.StringUtils;
+import org.junit.Test;
+import org.sonar.api.batch.measure.MetricFinder;
+import org.sonar.api.batch.sensor.measure.internal.DefaultMeasure;
+import org.sonar.api.measures.CoreMetrics;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class MeasureValueCoderTest {
+
+  private MetricFinder metricFinder = mock(MetricFinder.class);
+  private MeasureValueCoder underTest = new MeasureValueCoder(metricFinder);
+
+  @Test
+  public void encode_and_decode_values() throws IOException {
+    when(metricFinder.<Integer>findByKey(CoreMetrics.NCLOC_KEY)).thenReturn(CoreMetrics.NCLOC);
+
+    assertThat(roundTrip(12)).isEqualTo(12);
+    assertThat(roundTrip(12L)).isEqualTo(12L);
+    assertThat(roundTrip(1.5d)).isEqualTo(1.5d);
+    assertThat(roundTrip(true)).isEqualTo(true);
+    assertThat(roundTrip("1=2;3=4")).isEqualTo("1=2;3=4");
+    assertThat(roundTrip(new Date(42L))).isEqualTo(new Date(42L));
+  }
+
+  @Test
+  public void encode_and_decode_strings_longer_than_a_chunk() throws IOException {
+    when(metricFinder.<Integer>findByKey(CoreMetrics.NCLOC_KEY)).thenReturn(CoreMetrics.NCLOC);
+    // surrogate pair on the boundary of the first chunk
+    String value = StringUtils.repeat("a", 8 * 1024 - 1) + "\uD83D\uDE00" + StringUtils.repeat("\u00e9\u20ac", 10_000);
+
+    assertThat(roundTrip(value)).isEqualTo(value);
+    assertThat(roundTrip("\uD83D")).isEqualTo("?");
+  }
+
+  private Serializable roundTrip(Serializable value) throws IOException {
+    DefaultMeasure<?> measure = new DefaultMeasure().forMetric(CoreMetrics.NCLOC).withValue(value);
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+    underTest.write(measure, new DataOutputStream(bytes));
+    int size = underTest.sizeOf(measure);
+    if (size >= 0) {
+      assertThat(size).isEqualTo(bytes.size());
+    }
+
+    DefaultMeasure<?> decoded = (DefaultMeasure<?>) underTest.read(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+    assertThat(decoded.metric()).isEqualTo(CoreMetrics.NCLOC);
+    return decoded.value();
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.storage;
+
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonar.scanner.storage.Storage.Key;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SortedRunTest {
+
+  private static final int RECORDS = 10 * SortedRun.INDEX_INTERVAL;
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+
+  @Test
+  public void find_records() throws Exception {
+    SortedRun underTest = writeEvenRecords();
+
+    for (int i = 0; i < 2 * RECORDS; i += 2) {
+      SortedRun.Cursor cursor = underTest.find(new Key("k", i));
+      assertThat(cursor).isNotNull();
+      if (i % 10 == 0) {
+        assertThat(cursor.isDeleted()).isTrue();
+        assertThat(cursor.value()).isNull();
+      } else {
+        assertThat(cursor.value()).containsExactly((byte) i);
+      }
+      assertThat(underTest.find(new Key("k", i + 1))).isNull();
+    }
+    assertThat(underTest.find(new Key("k"))).isNull();
+    assertThat(underTest.find(new Key("z", 0))).isNull();
+  }
+
+  @Test
+  public void iterate_from_higher_record() throws Exception {
+    SortedRun underTest = writeEvenRecords();
+
+    SortedRun.Cursor cursor = underTest.higher(new Key("k", 101));
+    assertThat(cursor.key()).isEqualTo(new Key("k", 102));
+    cursor.next();
+    assertThat(cursor.key()).isEqualTo(new Key("k", 104));
+
+    assertThat(underTest.higher(new Key("k")).key()).isEqualTo(new Key("k", 0));
+    assertThat(underTest.higher(new Key("k", 2 * RECORDS - 2)).isValid()).isFalse();
+  }
+
+  @Test
+  public void empty_run() throws Exception {
+    SortedRun underTest = SortedRun.write(new SpillFile(temp.newFile()), new ArrayList<Map.Entry<Key, byte[]>>().iterator());
+
+    assertThat(underTest.size()).isEqualTo(0L);
+    assertThat(underTest.find(new Key("k"))).isNull();
+    assertThat(underTest.higher(new Key("k")).isValid()).isFalse();
+  }
+
+  /**
+   * Keys ["k", 0], ["k", 2], ... Keys multiple of 10 are deleted.
+   */
+  private SortedRun writeEvenRecords() throws Exception {
+    List<Map.Entry<Key, byte[]>> records = new ArrayList<>();
+    for (int i = 0; i < 2 * RECORDS; i += 2) {
+      records.add(new SimpleImmutableEntry<>(new Key("k", i), i % 10 == 0 ? null : new byte[] {(byte) i}));
+    }
+    return SortedRun.write(new SpillFile(temp.newFile()), records.iterator());
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonar.scanner.storage;
+
+import java.io.File;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class SpillFileTest {
+
+  @Rule
+  public TemporaryFolder temp = new TemporaryFolder();
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  @Test
+  public void read_sealed_file() throws Exception {
+    SpillFile underTest = new SpillFile(temp.newFile());
+
+    assertThat(underTest.appendInt(42)).isEqualTo(0);
+    assertThat(underTest.append(new byte[] {1, 2, 3})).isEqualTo(4);
+    underTest.seal();
+
+    assertThat(underTest.size()).isEqualTo(7L);
+    assertThat(underTest.readInt(0)).isEqualTo(42);
+    assertThat(underTest.read(4, 3)).isEqualTo(new byte[] {1, 2, 3});
+  }
+
+  @Test
+  public void fail_to_append_to_sealed_file() throws Exception {
+    SpillFile underTest = new SpillFile(temp.newFile());
+    underTest.seal();
+
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("is sealed");
+
+    underTest.append(new byte[] {1});
+  }
+
+  @Test
+  public void delete_unmaps_and_deletes_file() throws Exception {
+    File file = temp.newFile();
+    SpillFile underTest = new SpillFile(file);
+    underTest.append(new byte[] {1, 2, 3});
+    underTest.seal();
+
+    underTest.delete();
+
+    assertThat(file).doesNotExist();
+    expectedException.expect(IllegalStateException.class);
+    expectedException.expectMessage("is not sealed");
+    underTest.read(0, 3);
+  }
+}
@@ -20,6 +20,9 @@
 package org.sonar.scanner.storage;
 
 import com.google.common.collect.Iterables;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import org.junit.Test;
 import org.sonar.scanner.index.AbstractCachesTest;
 import org.sonar.scanner.storage.Storage;
@@ -249,4 +252,109 @@ public class StorageTest extends AbstractCachesTest {
     cache.clear("foo", "bar", "baz");
     cache.clear();
   }
+
+  @Test
+  public void read_spilled_values() {
+    caches = new Storages(cachesManager, 2);
+    Storage<String> cache = caches.createCache("places");
+    cache.put("europe", "france", "paris", "eiffel tower");
+    cache.put("europe", "italy", "rome", "colosseum");
+    cache.put("asia", "china", "pekin", "great wall");
+    cache.put("europe", "france", "annecy", "lake");
+
+    assertThat(cache.get("europe", "france", "paris")).isEqualTo("eiffel tower");
+    assertThat(cache.get("asia", "china", "pekin")).isEqualTo("great wall");
+    assertThat(cache.values("europe")).containsExactly("lake", "eiffel tower", "colosseum");
+    assertThat(cache.keySet()).containsOnly("europe", "asia");
+
+    cache.put("europe", "france", "paris", "louvre");
+    assertThat(cache.get("europe", "france", "paris")).isEqualTo("louvre");
+
+    cache.clear("europe", "france");
+    assertThat(cache.values()).containsExactly("great wall", "colosseum");
+  }
+
+  @Test
+  public void values_are_copies() {
+    Storage<ArrayList<String>> cache = caches.createCache("lists");
+    ArrayList<String> list = new ArrayList<>(Arrays.asList("a", "b"));
+    cache.put("list", list);
+
+    list.add("c");
+    assertThat(cache.get("list")).containsExactly("a", "b");
+
+    cache.get("list").add("d");
+    assertThat(cache.get("list")).containsExactly("a", "b");
+    assertThat(cache.get("list")).isNotSameAs(cache.get("list"));
+    assertThat(cache.values().iterator().next()).isNotSameAs(cache.get("list"));
+  }
+
+  @Test
+  public void merge_runs() {
+    caches = new Storages(cachesManager, 1L);
+    Storage<String> cache = caches.createCache("numbers");
+    for (int i = 0; i < 100; i++) {
+      cache.put("n", i, "value" + i);
+    }
+    for (int i = 0; i < 100; i += 2) {
+      cache.remove("n", i);
+    }
+    cache.put("n", 1, "one");
+
+    assertThat(cache.runCount()).isLessThanOrEqualTo(Storage.MAX_RUNS);
+    assertThat(cache.get("n", 0)).isNull();
+    assertThat(cache.get("n", 1)).isEqualTo("one");
+    assertThat(cache.get("n", 99)).isEqualTo("value99");
+    assertThat(cache.containsKey("n", 98)).isFalse();
+    assertThat(cache.values("n")).hasSize(50).startsWith("one", "value3");
+    assertThat(cache.keySet("n")).hasSize(50).startsWith(1, 3);
+  }
+
+  @Test
+  public void spill_keys_of_any_type() {
+    caches = new Storages(cachesManager, 1L);
+    Storage<String> cache = caches.createCache("keys");
+    cache.put("text", 1, 2L, "first");
+    cache.put(new Object[] {"text", null, true}, "second");
+
+    assertThat(cache.runCount()).isGreaterThan(0);
+    assertThat(cache.get("text", 1, 2L)).isEqualTo("first");
+    assertThat(cache.get(new Object[] {"text", null, true})).isEqualTo("second");
+    Storage.Entry[] entries = Iterables.toArray(cache.entries("text"), Storage.Entry.class);
+    assertThat(entries).hasSize(2);
+    assertThat(entries[0].key()).containsExactly("text", null, true);
+    assertThat(entries[1].key()).containsExactly("text", 1, 2L);
+  }
+
+  @Test
+  public void update_spilled_storage_while_iterating() {
+    caches = new Storages(cachesManager, 1L);
+    Storage<String> cache = caches.createCache("capitals");
+    cache.put("europe", "france", "paris");
+    cache.put("europe", "italy", "rome");
+
+    List<String> values = new ArrayList<>();
+    for (String value : cache.values("europe")) {
+      values.add(value);
+      cache.put("europe", "spain", "madrid");
+      cache.remove("europe", "italy");
+    }
+
+    assertThat(values).containsExactly("paris", "madrid");
+  }
+
+  @Test
+  public void update_storage_while_iterating() {
+    Storage<String> cache = caches.createCache("capitals");
+    cache.put("europe", "france", "paris");
+    cache.put("europe", "italy", "rome");
+
+    List<String> values = new ArrayList<>();
+    for (String value : cache.values("europe")) {
+      values.add(value);
+      cache.put("europe", "spain", "madrid");
+    }
+
+    assertThat(values).containsExactly("paris", "rome", "madrid");
+  }
 }
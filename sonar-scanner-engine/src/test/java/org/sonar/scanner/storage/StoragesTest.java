@@ -19,13 +19,13 @@
  */
 package org.sonar.scanner.storage;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
 import java.io.Serializable;
-
-import com.persistit.exception.PersistitException;
+import org.apache.commons.lang.StringUtils;
 import org.junit.Test;
 import org.sonar.scanner.index.AbstractCachesTest;
-import org.sonar.scanner.storage.Storage;
-import org.sonar.scanner.storage.Storages;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.Assert.fail;
@@ -50,15 +50,18 @@ public class StoragesTest extends AbstractCachesTest {
 
   @Test
   public void should_clean_resources() {
+    caches = new Storages(cachesManager, 10);
     Storage<String> c = caches.<String>createCache("test1");
-    for (int i = 0; i < 1_000_000; i++) {
+    for (int i = 0; i < 100; i++) {
       c.put("a" + i, "a" + i);
     }
+    assertThat(cachesManager.tempDir().list()).isNotEmpty();
 
     caches.stop();
 
     // manager continues up
-    assertThat(cachesManager.persistit().isInitialized()).isTrue();
+    assertThat(cachesManager.tempDir()).isDirectory();
+    assertThat(cachesManager.tempDir().list()).isEmpty();
 
     caches = new Storages(cachesManager);
     caches.start();
@@ -66,28 +69,80 @@ public class StoragesTest extends AbstractCachesTest {
   }
 
   @Test
-  public void leak_test() throws PersistitException {
+  public void should_fail_to_create_cache_when_stopped() {
     caches.stop();
 
-    int len = 1 * 1024 * 1024;
-    StringBuilder sb = new StringBuilder(len);
-    for (int i = 0; i < len; i++) {
-      sb.append("a");
+    try {
+      caches.createCache("foo");
+      fail();
+    } catch (IllegalStateException e) {
+      assertThat(e).hasMessage("Caches are not initialized");
     }
+  }
 
-    for (int i = 0; i < 3; i++) {
-      caches = new Storages(cachesManager);
-      caches.start();
-      Storage<String> c = caches.<String>createCache("test" + i);
-      c.put("key" + i, sb.toString());
-      cachesManager.persistit().flush();
-
-      caches.stop();
+  @Test
+  public void should_spill_largest_cache_when_budget_is_exceeded() {
+    caches = new Storages(cachesManager, 1_000L);
+    Storage<String> small = caches.createCache("small");
+    Storage<String> large = caches.createCache("large");
+    small.put("s", "small");
+    for (int i = 0; i < 10; i++) {
+      large.put("l", i, "large" + i);
     }
+
+    assertThat(large.runCount()).isGreaterThan(0);
+    assertThat(small.runCount()).isEqualTo(0);
+    assertThat(small.inMemoryBytes()).isGreaterThan(0L);
+    assertThat(large.get("l", 3)).isEqualTo("large3");
+    assertThat(large.values("l")).hasSize(10).contains("large0", "large9");
+    assertThat(small.get("s")).isEqualTo("small");
+  }
+
+  @Test
+  public void budget_is_a_number_of_bytes() {
+    caches = new Storages(cachesManager, 1_000_000L);
+    Storage<String> cache = caches.createCache("big");
+    cache.put("a", StringUtils.repeat("a", 600_000));
+    assertThat(cache.runCount()).isEqualTo(0);
+    assertThat(cache.inMemoryBytes()).isGreaterThan(600_000L);
+
+    cache.put("b", StringUtils.repeat("b", 600_000));
+    assertThat(cache.runCount()).isEqualTo(1);
+    assertThat(cache.inMemoryBytes()).isEqualTo(0L);
+    assertThat(cache.get("a")).hasSize(600_000).startsWith("a");
+    assertThat(cache.get("b")).hasSize(600_000).startsWith("b");
+  }
+
+  @Test
+  public void should_spill_values_with_registered_coder() {
+    caches = new Storages(cachesManager, 1);
+    caches.registerValueCoder(Element.class, new ValueCoder() {
+      @Override
+      public void write(Object value, DataOutput output) throws IOException {
+        output.writeUTF(((Element) value).name);
+      }
+
+      @Override
+      public Object read(DataInput input) throws IOException {
+        return new Element(input.readUTF() + " decoded");
+      }
+    });
+    Storage<Element> cache = caches.createCache("elements");
+    cache.put("e1", new Element("first"));
+    cache.put("e2", new Element("second"));
+
+    assertThat(cache.inMemoryBytes()).isEqualTo(0L);
+    assertThat(cache.get("e1").name).isEqualTo("first decoded");
+    assertThat(cache.get("e2").name).isEqualTo("second decoded");
   }
 
   private static class Element implements Serializable {
     private static final long serialVersionUID = 1L;
 
+    private final String name;
+
+    private Element(String name) {
+      this.name = name;
+    }
   }
 }
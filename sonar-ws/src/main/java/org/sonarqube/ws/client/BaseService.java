@@ -24,6 +24,7 @@ import com.google.protobuf.Message;
 import com.google.protobuf.Parser;
 import java.io.InputStream;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import javax.annotation.CheckForNull;
 import javax.annotation.Nullable;
 import org.apache.commons.io.IOUtils;
@@ -55,6 +56,16 @@ public abstract class BaseService {
     return wsConnector.call(request).failIfNotSuccessful();
   }
 
+  /**
+   * Same as {@link #call(BaseRequest, Parser)}, but the request is executed without blocking the calling
+   * thread if the connector supports it (see {@link WsConnector#callAsync(WsRequest)}).
+   */
+  protected <T extends Message> CompletableFuture<T> callAsync(BaseRequest request, Parser<T> parser) {
+    request.setMediaType(MediaTypes.PROTOBUF);
+    return wsConnector.callAsync(request)
+      .thenApply(response -> convert(response.failIfNotSuccessful(), parser));
+  }
+
   public <T extends Message> T convert(WsResponse response, Parser<T> parser) {
     try (InputStream byteStream = response.contentStream()) {
       byte[] bytes = IOUtils.toByteArray(byteStream);
@@ -19,14 +19,17 @@
  */
 package org.sonarqube.ws.client;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.Proxy;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 import javax.annotation.Nullable;
 import javax.net.ssl.SSLSocketFactory;
 import javax.net.ssl.X509TrustManager;
 
 import okhttp3.Call;
+import okhttp3.Callback;
 import okhttp3.Credentials;
 import okhttp3.FormBody;
 import okhttp3.Headers;
@@ -37,6 +40,7 @@ import okhttp3.OkHttpClient;
 import okhttp3.Request;
 import okhttp3.RequestBody;
 import okhttp3.Response;
+import okio.BufferedSink;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Strings.isNullOrEmpty;
@@ -52,6 +56,8 @@ public class HttpConnector implements WsConnector {
 
   public static final int DEFAULT_CONNECT_TIMEOUT_MILLISECONDS = 30_000;
   public static final int DEFAULT_READ_TIMEOUT_MILLISECONDS = 60_000;
+  public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 64;
+  public static final int DEFAULT_MAX_CONCURRENT_REQUESTS_PER_HOST = 5;
 
   /**
    * Base URL with trailing slash, for instance "https://localhost/sonarqube/".
@@ -83,6 +89,8 @@ public class HttpConnector implements WsConnector {
     okHttpClientBuilder.setReadTimeoutMs(builder.readTimeoutMs);
     okHttpClientBuilder.setSSLSocketFactory(builder.sslSocketFactory);
     okHttpClientBuilder.setTrustManager(builder.sslTrustManager);
+    okHttpClientBuilder.setMaxConcurrentRequests(builder.maxConcurrentRequests);
+    okHttpClientBuilder.setMaxConcurrentRequestsPerHost(builder.maxConcurrentRequestsPerHost);
     this.okHttpClient = okHttpClientBuilder.build();
   }
 
@@ -97,6 +105,40 @@ public class HttpConnector implements WsConnector {
 
   @Override
   public WsResponse call(WsRequest httpRequest) {
+    return doCall(toOkRequest(httpRequest));
+  }
+
+  /**
+   * The request is executed by the dispatcher of the {@link OkHttpClient}, so the number of concurrent
+   * requests is bounded (see {@link Builder#maxConcurrentRequestsPerHost(int)}). Exceeding requests are queued.
+   * The future completes as soon as the response headers are received. The body is read
+   * when consumed.
+   */
+  @Override
+  public CompletableFuture<WsResponse> callAsync(WsRequest httpRequest) {
+    CompletableFuture<WsResponse> future = new CompletableFuture<>();
+    Request okRequest;
+    try {
+      okRequest = toOkRequest(httpRequest);
+    } catch (RuntimeException e) {
+      future.completeExceptionally(e);
+      return future;
+    }
+    okHttpClient.newCall(okRequest).enqueue(new Callback() {
+      @Override
+      public void onFailure(Call call, IOException e) {
+        future.completeExceptionally(new IllegalStateException("Fail to request " + okRequest.url(), e));
+      }
+
+      @Override
+      public void onResponse(Call call, Response okResponse) {
+        future.complete(new OkHttpResponse(okResponse));
+      }
+    });
+    return future;
+  }
+
+  private Request toOkRequest(WsRequest httpRequest) {
     if (httpRequest instanceof GetRequest) {
       return get((GetRequest) httpRequest);
     }
@@ -106,15 +148,14 @@ public class HttpConnector implements WsConnector {
     throw new IllegalArgumentException(format("Unsupported implementation: %s", httpRequest.getClass()));
   }
 
-  private WsResponse get(GetRequest getRequest) {
+  private Request get(GetRequest getRequest) {
     HttpUrl.Builder urlBuilder = prepareUrlBuilder(getRequest);
     completeUrlQueryParameters(getRequest, urlBuilder);
 
-    Request.Builder okRequestBuilder = prepareOkRequestBuilder(getRequest, urlBuilder).get();
-    return doCall(okRequestBuilder.build());
+    return prepareOkRequestBuilder(getRequest, urlBuilder).get().build();
   }
 
-  private WsResponse post(PostRequest postRequest) {
+  private Request post(PostRequest postRequest) {
     HttpUrl.Builder urlBuilder = prepareUrlBuilder(postRequest);
 
     RequestBody body;
@@ -136,12 +177,33 @@ public class HttpConnector implements WsConnector {
         PostRequest.Part part = param.getValue();
         bodyBuilder.addPart(
           Headers.of("Content-Disposition", format("form-data; name=\"%s\"", param.getKey())),
-          RequestBody.create(MediaType.parse(part.getMediaType()), part.getFile()));
+          toRequestBody(part));
       });
       body = bodyBuilder.build();
     }
     Request.Builder reqBuilder = prepareOkRequestBuilder(postRequest, urlBuilder);
-    return doCall(reqBuilder.post(body).build());
+    return reqBuilder.post(body).build();
+  }
+
+  private static RequestBody toRequestBody(PostRequest.Part part) {
+    MediaType mediaType = MediaType.parse(part.getMediaType());
+    File file = part.getFile();
+    if (file != null) {
+      return RequestBody.create(mediaType, file);
+    }
+    PostRequest.ContentWriter contentWriter = part.getContentWriter();
+    return new RequestBody() {
+      @Override
+      public MediaType contentType() {
+        return mediaType;
+      }
+
+      @Override
+      public void writeTo(BufferedSink sink) throws IOException {
+        // unknown length (-1 by default), so body is sent with chunked transfer encoding
+        contentWriter.writeTo(sink.outputStream());
+      }
+    };
   }
 
   private HttpUrl.Builder prepareUrlBuilder(WsRequest wsRequest) {
@@ -197,6 +259,8 @@ public class HttpConnector implements WsConnector {
     private int readTimeoutMs = DEFAULT_READ_TIMEOUT_MILLISECONDS;
     private SSLSocketFactory sslSocketFactory = null;
     private X509TrustManager sslTrustManager = null;
+    private int maxConcurrentRequests = DEFAULT_MAX_CONCURRENT_REQUESTS;
+    private int maxConcurrentRequestsPerHost = DEFAULT_MAX_CONCURRENT_REQUESTS_PER_HOST;
 
     /**
      * Private since 5.5.
@@ -275,6 +339,27 @@ public class HttpConnector implements WsConnector {
       return this;
     }
 
+    /**
+     * Maximum number of requests executed concurrently by {@link HttpConnector#callAsync(WsRequest)}.
+     * Exceeding requests are queued. Default value is {@link #DEFAULT_MAX_CONCURRENT_REQUESTS}
+     * @since 6.4
+     */
+    public Builder maxConcurrentRequests(int i) {
+      this.maxConcurrentRequests = i;
+      return this;
+    }
+
+    /**
+     * Maximum number of requests executed concurrently by {@link HttpConnector#callAsync(WsRequest)} on
+     * the same host. It's also the maximum number of idle connections kept alive for reuse.
+     * Default value is {@link #DEFAULT_MAX_CONCURRENT_REQUESTS_PER_HOST}
+     * @since 6.4
+     */
+    public Builder maxConcurrentRequestsPerHost(int i) {
+      this.maxConcurrentRequestsPerHost = i;
+      return this;
+    }
+
     public Builder proxy(@Nullable Proxy proxy) {
       this.proxy = proxy;
       return this;
@@ -39,8 +39,10 @@ import javax.net.ssl.SSLSocketFactory;
 import javax.net.ssl.TrustManager;
 import javax.net.ssl.TrustManagerFactory;
 import javax.net.ssl.X509TrustManager;
+import okhttp3.ConnectionPool;
 import okhttp3.ConnectionSpec;
 import okhttp3.Credentials;
+import okhttp3.Dispatcher;
 import okhttp3.Interceptor;
 import okhttp3.OkHttpClient;
 import okhttp3.Request;
@@ -58,6 +60,7 @@ public class OkHttpClientBuilder {
 
   private static final String NONE = "NONE";
   private static final String P11KEYSTORE = "PKCS11";
+  private static final long CONNECTION_KEEP_ALIVE_MINUTES = 5;
 
   private String userAgent;
   private Proxy proxy;
@@ -67,6 +70,8 @@ public class OkHttpClientBuilder {
   private long readTimeoutMs = -1;
   private SSLSocketFactory sslSocketFactory = null;
   private X509TrustManager sslTrustManager = null;
+  private int maxConcurrentRequests = -1;
+  private int maxConcurrentRequestsPerHost = -1;
 
   /**
    * Optional User-Agent. If set, then all the requests sent by the
@@ -147,6 +152,31 @@ public class OkHttpClientBuilder {
     return this;
   }
 
+  /**
+   * Maximum number of asynchronous requests executed concurrently. Exceeding requests are queued.
+   * Default is defined by OkHttp (64 in OkHttp 3.3).
+   */
+  public OkHttpClientBuilder setMaxConcurrentRequests(int i) {
+    if (i < 1) {
+      throw new IllegalArgumentException("Max concurrent requests must be strictly positive. Got " + i);
+    }
+    this.maxConcurrentRequests = i;
+    return this;
+  }
+
+  /**
+   * Maximum number of asynchronous requests executed concurrently on the same host. Exceeding requests are queued.
+   * It is also the maximum number of idle connections kept alive in the connection pool.
+   * Default is defined by OkHttp (5 in OkHttp 3.3).
+   */
+  public OkHttpClientBuilder setMaxConcurrentRequestsPerHost(int i) {
+    if (i < 1) {
+      throw new IllegalArgumentException("Max concurrent requests per host must be strictly positive. Got " + i);
+    }
+    this.maxConcurrentRequestsPerHost = i;
+    return this;
+  }
+
   public OkHttpClient build() {
     OkHttpClient.Builder builder = new OkHttpClient.Builder();
     builder.proxy(proxy);
@@ -157,6 +187,7 @@ public class OkHttpClientBuilder {
       builder.readTimeout(readTimeoutMs, TimeUnit.MILLISECONDS);
     }
     builder.addInterceptor(this::completeHeaders);
+    configureConcurrency(builder);
 
     ConnectionSpec tls = new ConnectionSpec.Builder(ConnectionSpec.MODERN_TLS)
       .allEnabledTlsVersions()
@@ -172,6 +203,19 @@ public class OkHttpClientBuilder {
     return builder.build();
   }
 
+  private void configureConcurrency(OkHttpClient.Builder builder) {
+    Dispatcher dispatcher = new Dispatcher();
+    if (maxConcurrentRequests > 0) {
+      dispatcher.setMaxRequests(maxConcurrentRequests);
+    }
+    if (maxConcurrentRequestsPerHost > 0) {
+      dispatcher.setMaxRequestsPerHost(maxConcurrentRequestsPerHost);
+      // keep alive as many connections as concurrent requests, so that they are reused by next requests
+      builder.connectionPool(new ConnectionPool(maxConcurrentRequestsPerHost, CONNECTION_KEEP_ALIVE_MINUTES, TimeUnit.MINUTES));
+    }
+    builder.dispatcher(dispatcher);
+  }
+
   private Response completeHeaders(Interceptor.Chain chain) throws IOException {
     Request.Builder newRequest = chain.request().newBuilder();
     if (userAgent != null) {
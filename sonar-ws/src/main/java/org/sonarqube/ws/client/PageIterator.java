@@ -0,0 +1,92 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarqube.ws.client;
+
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import javax.annotation.CheckForNull;
+import javax.annotation.Nullable;
+import org.sonarqube.ws.Common.Paging;
+
+/**
+ * Iterates over the pages of a paginated web service. The request of next page is sent
+ * as soon as the current page is returned by {@link #next()}, so that it is downloaded while
+ * the caller processes the current page.
+ *
+ * @param <T> the type of response, for instance {@link org.sonarqube.ws.Issues.SearchWsResponse}
+ * @since 6.4
+ */
+public class PageIterator<T> implements Iterator<T> {
+
+  private final IntFunction<CompletableFuture<T>> pageLoader;
+  private final Function<T, Paging> pagingFunction;
+  @CheckForNull
+  private CompletableFuture<T> nextPage;
+
+  /**
+   * @param firstPageIndex the index of the first page to be loaded, {@code null} to start from the first one
+   * @param pageLoader the asynchronous request of a page, given its 1-based index
+   * @param pagingFunction the paging of a response
+   */
+  public PageIterator(@Nullable Integer firstPageIndex, IntFunction<CompletableFuture<T>> pageLoader, Function<T, Paging> pagingFunction) {
+    this.pageLoader = pageLoader;
+    this.pagingFunction = pagingFunction;
+    this.nextPage = pageLoader.apply(firstPageIndex == null ? 1 : firstPageIndex);
+  }
+
+  @Override
+  public boolean hasNext() {
+    return nextPage != null;
+  }
+
+  /**
+   * @throws IllegalStateException if the request of the page failed
+   * @throws HttpException if the server returned an error
+   */
+  @Override
+  public T next() {
+    if (nextPage == null) {
+      throw new NoSuchElementException();
+    }
+    T page = join(nextPage);
+    Paging paging = pagingFunction.apply(page);
+    if (paging.getPageSize() > 0 && (long) paging.getPageIndex() * paging.getPageSize() < paging.getTotal()) {
+      nextPage = pageLoader.apply(paging.getPageIndex() + 1);
+    } else {
+      nextPage = null;
+    }
+    return page;
+  }
+
+  private static <T> T join(CompletableFuture<T> future) {
+    try {
+      return future.join();
+    } catch (CompletionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw e;
+    }
+  }
+}
@@ -20,8 +20,11 @@
 package org.sonarqube.ws.client;
 
 import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.LinkedHashMap;
 import java.util.Map;
+import javax.annotation.CheckForNull;
 
 /**
  * @since 5.3
@@ -51,19 +54,57 @@ public class PostRequest extends BaseRequest<PostRequest> {
   public static class Part {
     private final String mediaType;
     private final File file;
+    private final ContentWriter contentWriter;
 
     public Part(String mediaType, File file) {
       this.mediaType = mediaType;
       this.file = file;
+      this.contentWriter = null;
+    }
+
+    /**
+     * Part whose content is written when the request is sent, so that it does not have to
+     * be stored in a file before. As its size is unknown, the request is sent with chunked
+     * transfer encoding.
+     *
+     * @since 6.4
+     */
+    public Part(String mediaType, ContentWriter contentWriter) {
+      this.mediaType = mediaType;
+      this.file = null;
+      this.contentWriter = contentWriter;
     }
 
     public String getMediaType() {
       return mediaType;
     }
 
+    /**
+     * @return null if the part is defined with a {@link ContentWriter}
+     */
+    @CheckForNull
     public File getFile() {
       return file;
     }
+
+    /**
+     * @return null if the part is defined with a file
+     * @since 6.4
+     */
+    @CheckForNull
+    public ContentWriter getContentWriter() {
+      return contentWriter;
+    }
   }
 
+  /**
+   * @since 6.4
+   */
+  @FunctionalInterface
+  public interface ContentWriter {
+    /**
+     * Writes the content of the part. The stream must not be closed.
+     */
+    void writeTo(OutputStream output) throws IOException;
+  }
 }
@@ -19,6 +19,8 @@
  */
 package org.sonarqube.ws.client;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * @since 5.3
  */
@@ -37,4 +39,22 @@ public interface WsConnector {
    */
   WsResponse call(WsRequest wsRequest);
 
+  /**
+   * Executes the request without blocking the calling thread, if supported by the implementation. The default
+   * implementation executes the request synchronously and returns a completed future.
+   * <p>The returned future completes exceptionally with {@link IllegalStateException} in the same cases
+   * as {@link #call(WsRequest)}.</p>
+   *
+   * @since 6.4
+   */
+  default CompletableFuture<WsResponse> callAsync(WsRequest wsRequest) {
+    CompletableFuture<WsResponse> future = new CompletableFuture<>();
+    try {
+      future.complete(call(wsRequest));
+    } catch (RuntimeException e) {
+      future.completeExceptionally(e);
+    }
+    return future;
+  }
+
 }
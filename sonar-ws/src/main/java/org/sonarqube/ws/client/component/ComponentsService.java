@@ -20,13 +20,16 @@
 package org.sonarqube.ws.client.component;
 
 import com.google.common.base.Joiner;
+import java.util.Iterator;
 import java.util.List;
+import javax.annotation.Nullable;
 import org.sonarqube.ws.WsComponents.SearchProjectsWsResponse;
 import org.sonarqube.ws.WsComponents.SearchWsResponse;
 import org.sonarqube.ws.WsComponents.ShowWsResponse;
 import org.sonarqube.ws.WsComponents.TreeWsResponse;
 import org.sonarqube.ws.client.BaseService;
 import org.sonarqube.ws.client.GetRequest;
+import org.sonarqube.ws.client.PageIterator;
 import org.sonarqube.ws.client.WsConnector;
 
 import static org.sonar.api.server.ws.WebService.Param;
@@ -49,26 +52,56 @@ public class ComponentsService extends BaseService {
   }
 
   public SearchWsResponse search(SearchWsRequest request) {
-    GetRequest get = new GetRequest(path(ACTION_SEARCH))
+    return call(newSearchRequest(request, request.getPage()), SearchWsResponse.parser());
+  }
+
+  /**
+   * Iterates over all the pages of the components matching the request, starting from page {@link SearchWsRequest#getPage()}.
+   * Next page is requested while the current one is processed.
+   *
+   * @since 6.4
+   */
+  public Iterator<SearchWsResponse> searchPages(SearchWsRequest request) {
+    return new PageIterator<>(request.getPage(),
+      page -> callAsync(newSearchRequest(request, page), SearchWsResponse.parser()),
+      SearchWsResponse::getPaging);
+  }
+
+  private GetRequest newSearchRequest(SearchWsRequest request, @Nullable Integer page) {
+    return new GetRequest(path(ACTION_SEARCH))
       .setParam(PARAM_ORGANIZATION, request.getOrganization())
       .setParam(PARAM_QUALIFIERS, Joiner.on(",").join(request.getQualifiers()))
-      .setParam(Param.PAGE, request.getPage())
+      .setParam(Param.PAGE, page)
       .setParam(Param.PAGE_SIZE, request.getPageSize())
       .setParam(Param.TEXT_QUERY, request.getQuery());
-    return call(get, SearchWsResponse.parser());
   }
 
   public TreeWsResponse tree(TreeWsRequest request) {
-    GetRequest get = new GetRequest(path(ACTION_TREE))
+    return call(newTreeRequest(request, request.getPage()), TreeWsResponse.parser());
+  }
+
+  /**
+   * Iterates over all the pages of the components of the tree, starting from page {@link TreeWsRequest#getPage()}.
+   * Next page is requested while the current one is processed.
+   *
+   * @since 6.4
+   */
+  public Iterator<TreeWsResponse> treePages(TreeWsRequest request) {
+    return new PageIterator<>(request.getPage(),
+      page -> callAsync(newTreeRequest(request, page), TreeWsResponse.parser()),
+      TreeWsResponse::getPaging);
+  }
+
+  private GetRequest newTreeRequest(TreeWsRequest request, @Nullable Integer page) {
+    return new GetRequest(path(ACTION_TREE))
       .setParam(PARAM_COMPONENT_ID, request.getBaseComponentId())
       .setParam(PARAM_COMPONENT, request.getBaseComponentKey())
       .setParam(PARAM_QUALIFIERS, inlineMultipleParamValue(request.getQualifiers()))
       .setParam(PARAM_STRATEGY, request.getStrategy())
-      .setParam(Param.PAGE, request.getPage())
+      .setParam(Param.PAGE, page)
       .setParam(Param.PAGE_SIZE, request.getPageSize())
       .setParam(Param.TEXT_QUERY, request.getQuery())
       .setParam(Param.SORT, request.getSort());
-    return call(get, TreeWsResponse.parser());
   }
 
   public ShowWsResponse show(ShowWsRequest request) {
@@ -19,6 +19,8 @@
  */
 package org.sonarqube.ws.client.measure;
 
+import java.util.Iterator;
+import javax.annotation.Nullable;
 import org.sonar.api.server.ws.WebService.Param;
 import org.sonarqube.ws.WsMeasures.ComponentTreeWsResponse;
 import org.sonarqube.ws.WsMeasures.ComponentWsResponse;
@@ -26,6 +28,7 @@ import org.sonarqube.ws.WsMeasures.SearchHistoryResponse;
 import org.sonarqube.ws.WsMeasures.SearchWsResponse;
 import org.sonarqube.ws.client.BaseService;
 import org.sonarqube.ws.client.GetRequest;
+import org.sonarqube.ws.client.PageIterator;
 import org.sonarqube.ws.client.WsConnector;
 
 import static org.sonarqube.ws.client.measure.MeasuresWsParameters.ACTION_COMPONENT;
@@ -56,7 +59,23 @@ public class MeasuresService extends BaseService {
   }
 
   public ComponentTreeWsResponse componentTree(ComponentTreeWsRequest request) {
-    GetRequest getRequest = new GetRequest(path(ACTION_COMPONENT_TREE))
+    return call(newComponentTreeRequest(request, request.getPage()), ComponentTreeWsResponse.parser());
+  }
+
+  /**
+   * Iterates over all the pages of the measures of the component tree, starting from page {@link ComponentTreeWsRequest#getPage()}.
+   * Next page is requested while the current one is processed.
+   *
+   * @since 6.4
+   */
+  public Iterator<ComponentTreeWsResponse> componentTreePages(ComponentTreeWsRequest request) {
+    return new PageIterator<>(request.getPage(),
+      page -> callAsync(newComponentTreeRequest(request, page), ComponentTreeWsResponse.parser()),
+      ComponentTreeWsResponse::getPaging);
+  }
+
+  private GetRequest newComponentTreeRequest(ComponentTreeWsRequest request, @Nullable Integer page) {
+    return new GetRequest(path(ACTION_COMPONENT_TREE))
       .setParam(PARAM_BASE_COMPONENT_ID, request.getBaseComponentId())
       .setParam(PARAM_BASE_COMPONENT_KEY, request.getBaseComponentKey())
       .setParam(PARAM_STRATEGY, request.getStrategy())
@@ -66,14 +85,12 @@ public class MeasuresService extends BaseService {
       .setParam(PARAM_DEVELOPER_ID, request.getDeveloperId())
       .setParam(PARAM_DEVELOPER_KEY, request.getDeveloperKey())
       .setParam("q", request.getQuery())
-      .setParam("p", request.getPage())
+      .setParam("p", page)
       .setParam("ps", request.getPageSize())
       .setParam("s", inlineMultipleParamValue(request.getSort()))
       .setParam("asc", request.getAsc())
       .setParam(PARAM_METRIC_SORT, request.getMetricSort())
       .setParam(PARAM_METRIC_SORT_FILTER, request.getMetricSortFilter());
-
-    return call(getRequest, ComponentTreeWsResponse.parser());
   }
 
   public ComponentWsResponse component(ComponentWsRequest request) {
@@ -20,6 +20,8 @@
 package org.sonarqube.ws.client;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import org.junit.Test;
 import org.sonarqube.ws.MediaTypes;
 import org.sonarqube.ws.Testing;
@@ -105,6 +107,45 @@ public class BaseServiceTest {
     }.test();
   }
 
+  @Test
+  public void call_async_and_convert_protobuf() throws Exception {
+    new BaseService(wsConnector, "api/issues") {
+
+      public void test() throws Exception {
+        GetRequest get = new GetRequest(path("issue")).setParam("key", "ABC");
+        when(wsConnector.callAsync(get)).thenReturn(CompletableFuture.completedFuture(newProtobufFakeResponse()));
+
+        Testing.Fake message = callAsync(get, Testing.Fake.parser()).get();
+
+        assertThat(message.getLabel()).isEqualTo("ok");
+        // media type automatically set to protobuf
+        assertThat(get.getMediaType()).isEqualTo(MediaTypes.PROTOBUF);
+      }
+
+    }.test();
+  }
+
+  @Test
+  public void call_async_fails_if_http_error() throws Exception {
+    new BaseService(wsConnector, "api/issues") {
+
+      public void test() throws Exception {
+        GetRequest get = new GetRequest(path("issue")).setParam("key", "ABC");
+        when(wsConnector.callAsync(get))
+          .thenReturn(CompletableFuture.completedFuture(new MockWsResponse().setCode(403).setRequestUrl("https://local/foo").setContent("error")));
+
+        try {
+          callAsync(get, Testing.Fake.parser()).get();
+          fail();
+        } catch (ExecutionException e) {
+          assertThat(e.getCause()).isInstanceOf(HttpException.class);
+          assertThat(((HttpException) e.getCause()).code()).isEqualTo(403);
+        }
+      }
+
+    }.test();
+  }
+
   private static WsResponse newProtobufFakeResponse() {
     Testing.Fake message = Testing.Fake.newBuilder().setLabel("ok").build();
     return new MockWsResponse().setContent(message.toByteArray());
@@ -20,12 +20,20 @@
 package org.sonarqube.ws.client;
 
 import java.io.File;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import javax.net.ssl.SSLSocketFactory;
 import okhttp3.ConnectionSpec;
 import okhttp3.mockwebserver.MockResponse;
 import okhttp3.mockwebserver.MockWebServer;
 import okhttp3.mockwebserver.RecordedRequest;
+import okio.Buffer;
+import okio.BufferedSink;
+import okio.GzipSink;
+import okio.Okio;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang.StringUtils;
@@ -241,6 +249,28 @@ public class HttpConnectorTest {
       .contains("the report content");
   }
 
+  @Test
+  public void upload_content_written_on_the_fly() throws Exception {
+    answerHelloWorld();
+    PostRequest request = new PostRequest("api/report/upload")
+      .setParam("project", "theKey")
+      .setPart("report", new PostRequest.Part(MediaTypes.TXT, output -> output.write("the report content".getBytes(StandardCharsets.UTF_8))))
+      .setMediaType(MediaTypes.PROTOBUF);
+
+    underTest = HttpConnector.newBuilder().url(serverUrl).build();
+    WsResponse response = underTest.call(request);
+
+    assertThat(response.hasContent()).isTrue();
+    RecordedRequest recordedRequest = server.takeRequest();
+    assertThat(recordedRequest.getPath()).isEqualTo("/api/report/upload?project=theKey");
+    assertThat(recordedRequest.getHeader("Transfer-Encoding")).isEqualTo("chunked");
+    String body = IOUtils.toString(recordedRequest.getBody().inputStream());
+    assertThat(body)
+      .contains("Content-Disposition: form-data; name=\"report\"")
+      .contains("Content-Type: text/plain")
+      .contains("the report content");
+  }
+
   @Test
   public void http_error() throws Exception {
     server.enqueue(new MockResponse().setResponseCode(404));
@@ -286,6 +316,57 @@ public class HttpConnectorTest {
     assertThat(underTest.okHttpClient().sslSocketFactory()).isInstanceOf(SSLSocketFactory.getDefault().getClass());
   }
 
+  @Test
+  public void decompress_gzip_response() throws Exception {
+    Buffer gzippedBody = new Buffer();
+    try (BufferedSink sink = Okio.buffer(new GzipSink(gzippedBody))) {
+      sink.writeUtf8("hello, world!");
+    }
+    server.enqueue(new MockResponse().setBody(gzippedBody).setHeader("Content-Encoding", "gzip"));
+    underTest = HttpConnector.newBuilder().url(serverUrl).build();
+
+    WsResponse response = underTest.call(new GetRequest("api/issues/search"));
+
+    assertThat(response.content()).isEqualTo("hello, world!");
+  }
+
+  @Test
+  public void callAsync_returns_response() throws Exception {
+    answerHelloWorld();
+    underTest = HttpConnector.newBuilder().url(serverUrl).build();
+
+    CompletableFuture<WsResponse> future = underTest.callAsync(new GetRequest("api/issues/search").setParam("p", 2));
+
+    WsResponse response = future.get(10, TimeUnit.SECONDS);
+    assertThat(response.code()).isEqualTo(200);
+    assertThat(response.content()).isEqualTo("hello, world!");
+    assertThat(server.takeRequest().getPath()).isEqualTo("/api/issues/search?p=2");
+  }
+
+  @Test
+  public void callAsync_completes_exceptionally_if_server_is_down() throws Exception {
+    underTest = HttpConnector.newBuilder().url(serverUrl).build();
+    server.shutdown();
+
+    CompletableFuture<WsResponse> future = underTest.callAsync(new GetRequest("api/issues/search"));
+
+    try {
+      future.get(10, TimeUnit.SECONDS);
+      fail();
+    } catch (ExecutionException e) {
+      assertThat(e.getCause()).isInstanceOf(IllegalStateException.class);
+      assertThat(e.getCause().getMessage()).startsWith("Fail to request " + serverUrl + "api/issues/search");
+    }
+  }
+
+  @Test
+  public void callAsync_limits_concurrent_requests_per_host() throws Exception {
+    underTest = HttpConnector.newBuilder().url(serverUrl).maxConcurrentRequestsPerHost(2).build();
+
+    assertThat(underTest.okHttpClient().dispatcher().getMaxRequestsPerHost()).isEqualTo(2);
+    assertThat(underTest.okHttpClient().dispatcher().getMaxRequests()).isEqualTo(HttpConnector.DEFAULT_MAX_CONCURRENT_REQUESTS);
+  }
+
   private void assertTlsAndClearTextSpecifications(HttpConnector underTest) {
     List<ConnectionSpec> connectionSpecs = underTest.okHttpClient().connectionSpecs();
     assertThat(connectionSpecs).hasSize(2);
@@ -70,4 +70,31 @@ public class OkHttpClientBuilderTest {
 
     underTest.setReadTimeoutMs(-10);
   }
+
+  @Test
+  public void build_with_max_concurrent_requests() {
+    OkHttpClient okHttpClient = underTest
+      .setMaxConcurrentRequests(20)
+      .setMaxConcurrentRequestsPerHost(10)
+      .build();
+
+    assertThat(okHttpClient.dispatcher().getMaxRequests()).isEqualTo(20);
+    assertThat(okHttpClient.dispatcher().getMaxRequestsPerHost()).isEqualTo(10);
+  }
+
+  @Test
+  public void build_throws_IAE_if_max_concurrent_requests_is_not_positive() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Max concurrent requests must be strictly positive. Got 0");
+
+    underTest.setMaxConcurrentRequests(0);
+  }
+
+  @Test
+  public void build_throws_IAE_if_max_concurrent_requests_per_host_is_not_positive() {
+    expectedException.expect(IllegalArgumentException.class);
+    expectedException.expectMessage("Max concurrent requests per host must be strictly positive. Got 0");
+
+    underTest.setMaxConcurrentRequestsPerHost(0);
+  }
 }
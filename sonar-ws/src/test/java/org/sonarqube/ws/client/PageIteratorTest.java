@@ -0,0 +1,108 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarqube.ws.client;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.CompletableFuture;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.sonarqube.ws.Common.Paging;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PageIteratorTest {
+
+  @Rule
+  public ExpectedException expectedException = ExpectedException.none();
+
+  private List<Integer> requestedPages = new ArrayList<>();
+
+  @Test
+  public void iterate_over_all_pages() {
+    PageIterator<Paging> underTest = newIterator(null, 5, 12);
+
+    List<Integer> pageIndexes = new ArrayList<>();
+    underTest.forEachRemaining(page -> pageIndexes.add(page.getPageIndex()));
+
+    assertThat(pageIndexes).containsExactly(1, 2, 3);
+    assertThat(requestedPages).containsExactly(1, 2, 3);
+  }
+
+  @Test
+  public void start_from_requested_page() {
+    PageIterator<Paging> underTest = newIterator(2, 5, 12);
+
+    assertThat(underTest.next().getPageIndex()).isEqualTo(2);
+    assertThat(underTest.next().getPageIndex()).isEqualTo(3);
+    assertThat(underTest.hasNext()).isFalse();
+  }
+
+  @Test
+  public void next_page_is_requested_when_current_page_is_returned() {
+    PageIterator<Paging> underTest = newIterator(null, 5, 12);
+    assertThat(requestedPages).containsExactly(1);
+
+    underTest.next();
+
+    assertThat(requestedPages).containsExactly(1, 2);
+  }
+
+  @Test
+  public void single_page_if_no_results() {
+    PageIterator<Paging> underTest = newIterator(null, 5, 0);
+
+    assertThat(underTest.next().getTotal()).isEqualTo(0);
+    assertThat(underTest.hasNext()).isFalse();
+  }
+
+  @Test
+  public void fail_when_no_more_pages() {
+    PageIterator<Paging> underTest = newIterator(null, 5, 3);
+    underTest.next();
+
+    expectedException.expect(NoSuchElementException.class);
+
+    underTest.next();
+  }
+
+  @Test
+  public void rethrow_failure_of_request() {
+    HttpException failure = new HttpException("http://localhost/api/issues/search", 500, "error");
+    PageIterator<Paging> underTest = new PageIterator<>(null, page -> {
+      CompletableFuture<Paging> future = new CompletableFuture<>();
+      future.completeExceptionally(failure);
+      return future;
+    }, paging -> paging);
+
+    expectedException.expect(HttpException.class);
+
+    underTest.next();
+  }
+
+  private PageIterator<Paging> newIterator(Integer firstPage, int pageSize, int total) {
+    return new PageIterator<>(firstPage, page -> {
+      requestedPages.add(page);
+      return CompletableFuture.completedFuture(Paging.newBuilder().setPageIndex(page).setPageSize(pageSize).setTotal(total).build());
+    }, paging -> paging);
+  }
+}
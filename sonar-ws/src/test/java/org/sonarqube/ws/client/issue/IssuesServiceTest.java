@@ -19,17 +19,26 @@
  */
 package org.sonarqube.ws.client.issue;
 
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import org.junit.Rule;
 import org.junit.Test;
+import org.sonarqube.ws.Common;
 import org.sonarqube.ws.Issues;
 import org.sonarqube.ws.client.GetRequest;
+import org.sonarqube.ws.client.MockWsResponse;
 import org.sonarqube.ws.client.PostRequest;
 import org.sonarqube.ws.client.ServiceTester;
 import org.sonarqube.ws.client.WsConnector;
+import org.sonarqube.ws.client.WsRequest;
 
 import static java.util.Arrays.asList;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 public class IssuesServiceTest {
 
@@ -161,4 +170,22 @@ public class IssuesServiceTest {
       .andNoOtherParam();
   }
 
+  @Test
+  public void search_pages() {
+    WsConnector wsConnector = mock(WsConnector.class);
+    when(wsConnector.callAsync(any(WsRequest.class))).thenAnswer(invocation -> {
+      GetRequest request = (GetRequest) invocation.getArguments()[0];
+      int page = Integer.parseInt(request.getParameters().getValue("p"));
+      Issues.SearchWsResponse response = Issues.SearchWsResponse.newBuilder()
+        .setPaging(Common.Paging.newBuilder().setPageIndex(page).setPageSize(2).setTotal(3))
+        .build();
+      return CompletableFuture.completedFuture(new MockWsResponse().setContent(response.toByteArray()));
+    });
+
+    Iterator<Issues.SearchWsResponse> pages = new IssuesService(wsConnector).searchPages(new SearchWsRequest().setPageSize(2));
+
+    List<Integer> pageIndexes = new ArrayList<>();
+    pages.forEachRemaining(page -> pageIndexes.add(page.getPaging().getPageIndex()));
+    assertThat(pageIndexes).containsExactly(1, 2);
+  }
 }
@@ -36,7 +36,8 @@ import org.junit.runners.Suite;
   FileSystemTest.class,
   HighlightingTest.class,
   MemoryTest.class,
-  IssuesModeTest.class
+  IssuesModeTest.class,
+  StorageTest.class
 })
 public class ScannerPerfTestSuite {
 
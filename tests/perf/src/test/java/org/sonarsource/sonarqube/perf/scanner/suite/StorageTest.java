@@ -0,0 +1,88 @@
+/*
+ * SonarQube
+ * Copyright (C) 2009-2017 SonarSource SA
+ * mailto:info AT sonarsource DOT com
+ *
+ * This program is free software; you can redistribute it and/or
+ * modify it under the terms of the GNU Lesser General Public
+ * License as published by the Free Software Foundation; either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public License
+ * along with this program; if not, write to the Free Software Foundation,
+ * Inc., 51 Franklin Street, Fifth Floor, Boston, MA  02110-1301, USA.
+ */
+package org.sonarsource.sonarqube.perf.scanner.suite;
+
+import com.sonar.orchestrator.Orchestrator;
+import com.sonar.orchestrator.build.BuildResult;
+import com.sonar.orchestrator.build.SonarScanner;
+import java.io.File;
+import java.io.IOException;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.lang.StringUtils;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.sonarsource.sonarqube.perf.MavenLogs;
+import org.sonarsource.sonarqube.perf.PerfTestCase;
+
+/**
+ * Compares the analysis of a project raising 400,000 issues with a heap too small for the
+ * scanner storages, which then spill to disk, to the analysis of the same project with
+ * a heap large enough to keep them in memory.
+ */
+public class StorageTest extends PerfTestCase {
+
+  private static final double MAX_SPILL_OVERHEAD = 1.3;
+
+  @ClassRule
+  public static TemporaryFolder temp = new TemporaryFolder();
+
+  @ClassRule
+  public static Orchestrator orchestrator = ScannerPerfTestSuite.ORCHESTRATOR;
+
+  private static File baseDir;
+
+  @BeforeClass
+  public static void setUp() throws IOException {
+    baseDir = temp.newFolder();
+    File srcDir = new File(baseDir, "src");
+    srcDir.mkdir();
+    for (int nb = 1; nb <= 200; nb++) {
+      FileUtils.write(new File(srcDir, "sample" + nb + ".xoo"), StringUtils.repeat(StringUtils.repeat("a", 50) + "\n", 2000));
+    }
+  }
+
+  @Test
+  public void spilling_storages_do_not_slow_down_analysis() {
+    long inMemoryDuration = analyze("-Xmx2g -server");
+    long spillingDuration = analyze("-Xmx256m -server");
+
+    System.out.printf("Analysis with storages in memory: %d ms, spilling to disk: %d ms\n", inMemoryDuration, spillingDuration);
+    assertDurationLessThan(spillingDuration, (long) (inMemoryDuration * MAX_SPILL_OVERHEAD));
+  }
+
+  private long analyze(String javaOpts) {
+    orchestrator.resetData();
+    SonarScanner scanner = SonarScanner.create()
+      .setProperties(
+        "sonar.projectKey", "storage",
+        "sonar.projectName", "Storage",
+        "sonar.projectVersion", "1.0",
+        "sonar.sources", "src",
+        "sonar.profile", "one-xoo-issue-per-line",
+        "sonar.scm.disabled", "true",
+        "sonar.cpd.exclusions", "**")
+      .setEnvironmentVariable("SONAR_RUNNER_OPTS", javaOpts)
+      .setProjectDir(baseDir);
+    BuildResult result = orchestrator.executeBuild(scanner);
+    return MavenLogs.extractTotalTime(result.getLogs());
+  }
+}